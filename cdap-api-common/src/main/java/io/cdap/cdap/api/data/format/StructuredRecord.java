@@ -21,6 +21,10 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.Schema.LogicalType;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -36,9 +40,11 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -47,25 +53,34 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * Instance of a record structured by a {@link Schema}. Fields are accessible by name.
+ * Instance of a record structured by a {@link Schema}. Fields are accessible by name, or by their position
+ * in the {@link Schema#getFields() fields} of the schema.
  */
 @Beta
 public class StructuredRecord implements Serializable {
   private static final SimpleDateFormat DEFAULT_FORMAT = new SimpleDateFormat("YYYY-MM-DD'T'HH:mm:ss z");
   private static final LRUCache<String, Schema> SCHEMA_CACHE = new LRUCache<>(100);
 
-  private final Schema schema;
-  private final Map<String, Object> fields;
+  // Field values are stored in the same order as the schema fields. They are not final so that they can be set
+  // when deserialized from the map based serialized form.
+  private Schema schema;
+  private Object[] values;
 
   private static final long serialVersionUID = -6547770456592865613L;
 
+  // Keep the serialized form compatible with records that stored the field values in a map
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("schema", Schema.class),
+    new ObjectStreamField("fields", Map.class)
+  };
+
   static {
     DEFAULT_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
   }
 
-  private StructuredRecord(Schema schema, Map<String, Object> fields) {
+  private StructuredRecord(Schema schema, Object[] values) {
     this.schema = SCHEMA_CACHE.putIfAbsent(schema.getSchemaHash().toString(), schema);
-    this.fields = fields;
+    this.values = values;
   }
 
   /**
@@ -87,7 +102,22 @@ public class StructuredRecord implements Serializable {
   @SuppressWarnings("unchecked")
   @Nullable
   public <T> T get(String fieldName) {
-    return (T) fields.get(fieldName);
+    int index = schema.getFieldIndex(fieldName);
+    return index < 0 ? null : (T) values[index];
+  }
+
+  /**
+   * Get the value of a field in the record by the position of the field in the schema.
+   *
+   * @param index position of the field to get in the {@link Schema#getFields() fields} of the schema.
+   * @param <T> type of object of the field value.
+   * @return value of the field.
+   * @throws IndexOutOfBoundsException if there is no field at the given position.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public <T> T get(int index) {
+    return (T) values[index];
   }
 
   /**
@@ -101,7 +131,7 @@ public class StructuredRecord implements Serializable {
   public LocalDate getDate(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DATE));
-    Object val = fields.get(fieldName);
+    Object val = get(fieldName);
     try {
       Integer value = (Integer) val;
       return (value == null || logicalTypeSchema == null) ? null : LocalDate.ofEpochDay(value.longValue());
@@ -125,7 +155,7 @@ public class StructuredRecord implements Serializable {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.TIME_MILLIS,
                                                                           LogicalType.TIME_MICROS));
-    Object val = fields.get(fieldName);
+    Object val = get(fieldName);
     if (val == null || logicalTypeSchema == null) {
       return null;
     }
@@ -182,7 +212,7 @@ public class StructuredRecord implements Serializable {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                           LogicalType.TIMESTAMP_MICROS));
-    Object val = fields.get(fieldName);
+    Object val = get(fieldName);
     if (val == null || logicalTypeSchema == null) {
       return null;
     }
@@ -213,7 +243,7 @@ public class StructuredRecord implements Serializable {
   public BigDecimal getDecimal(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DECIMAL));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -242,7 +272,7 @@ public class StructuredRecord implements Serializable {
   public LocalDateTime getDateTime(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DATETIME));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -351,11 +381,13 @@ public class StructuredRecord implements Serializable {
    */
   public static class Builder {
     private final Schema schema;
-    private Map<String, Object> fields;
+    private final Object[] values;
+    private final boolean[] valueSet;
 
     private Builder(Schema schema) {
       this.schema = schema;
-      this.fields = new HashMap<>();
+      this.values = new Object[schema.getFields().size()];
+      this.valueSet = new boolean[values.length];
     }
 
     /**
@@ -368,8 +400,30 @@ public class StructuredRecord implements Serializable {
      *                                   value is given
      */
     public Builder set(String fieldName, @Nullable Object value) {
-      validateAndGetField(fieldName, value);
-      fields.put(fieldName, value);
+      int index = schema.getFieldIndex(fieldName);
+      if (index < 0) {
+        throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
+      }
+      return set(index, value);
+    }
+
+    /**
+     * Set the field at the given position in the schema to the given value.
+     *
+     * @param index position of the field to set in the {@link Schema#getFields() fields} of the schema
+     * @param value value for the field
+     * @return this builder
+     * @throws UnexpectedFormatException if there is no field at the given position, or the field is not nullable
+     *                                   but a null value is given
+     */
+    public Builder set(int index, @Nullable Object value) {
+      List<Schema.Field> schemaFields = schema.getFields();
+      if (index < 0 || index >= schemaFields.size()) {
+        throw new UnexpectedFormatException("field index " + index + " is not in the schema.");
+      }
+      validateField(schemaFields.get(index), value);
+      values[index] = value;
+      valueSet[index] = true;
       return this;
     }
 
@@ -385,11 +439,11 @@ public class StructuredRecord implements Serializable {
     public Builder setDate(String fieldName, @Nullable LocalDate localDate) {
       validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, localDate), EnumSet.of(LogicalType.DATE));
       if (localDate == null) {
-        fields.put(fieldName, null);
+        setValue(fieldName, null);
         return this;
       }
       try {
-        fields.put(fieldName, Math.toIntExact(localDate.toEpochDay()));
+        setValue(fieldName, Math.toIntExact(localDate.toEpochDay()));
       } catch (ArithmeticException e) {
         // Highest integer is 2,147,483,647 which is Jan 1 2038.
         throw new UnexpectedFormatException(String.format("Field %s was set to a date that is too large." +
@@ -413,7 +467,7 @@ public class StructuredRecord implements Serializable {
                                                                             LogicalType.TIME_MICROS));
 
       if (localTime == null) {
-        fields.put(fieldName, null);
+        setValue(fieldName, null);
         return this;
       }
 
@@ -422,7 +476,7 @@ public class StructuredRecord implements Serializable {
       if (logicalTypeSchema.getLogicalType() == LogicalType.TIME_MILLIS) {
         try {
           int millis = Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(nanos));
-          fields.put(fieldName, millis);
+          setValue(fieldName, millis);
         } catch (ArithmeticException e) {
           throw new UnexpectedFormatException(String.format("Field %s was set to a time that is too large.",
                                                             fieldName));
@@ -431,7 +485,7 @@ public class StructuredRecord implements Serializable {
       }
 
       long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
-      fields.put(fieldName, micros);
+      setValue(fieldName, micros);
       return this;
     }
 
@@ -451,7 +505,7 @@ public class StructuredRecord implements Serializable {
                                                                             LogicalType.TIMESTAMP_MICROS));
 
       if (zonedDateTime == null) {
-        fields.put(fieldName, null);
+        setValue(fieldName, null);
         return this;
       }
 
@@ -460,13 +514,13 @@ public class StructuredRecord implements Serializable {
         if (logicalTypeSchema.getLogicalType() == LogicalType.TIMESTAMP_MILLIS) {
           long millis = TimeUnit.SECONDS.toMillis(instant.getEpochSecond());
           long tsMillis = Math.addExact(millis, TimeUnit.NANOSECONDS.toMillis(instant.getNano()));
-          fields.put(fieldName, tsMillis);
+          setValue(fieldName, tsMillis);
           return this;
         }
 
         long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
         long tsMicros = Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
-        fields.put(fieldName, tsMicros);
+        setValue(fieldName, tsMicros);
         return this;
       } catch (ArithmeticException e) {
         throw new UnexpectedFormatException(String.format("Field %s was set to a timestamp that is too large.",
@@ -488,7 +542,7 @@ public class StructuredRecord implements Serializable {
       Schema logicalSchema = validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, decimal),
                                                              EnumSet.of(LogicalType.DECIMAL));
       if (decimal == null) {
-        fields.put(fieldName, null);
+        setValue(fieldName, null);
         return this;
       }
 
@@ -504,7 +558,7 @@ public class StructuredRecord implements Serializable {
                         fieldName, decimal.scale(), logicalSchema.getScale()));
       }
 
-      fields.put(fieldName, decimal.unscaledValue().toByteArray());
+      setValue(fieldName, decimal.unscaledValue().toByteArray());
       return this;
     }
 
@@ -520,11 +574,11 @@ public class StructuredRecord implements Serializable {
       validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, localDateTime),
                                                              EnumSet.of(LogicalType.DATETIME));
       if (localDateTime == null) {
-        fields.put(fieldName, null);
+        setValue(fieldName, null);
         return this;
       }
       // Save as ISO-8601 format without the offset
-      fields.put(fieldName, localDateTime.format(DateTimeFormatter.ISO_DATE_TIME));
+      setValue(fieldName, localDateTime.format(DateTimeFormatter.ISO_DATE_TIME));
       return this;
     }
 
@@ -567,16 +621,16 @@ public class StructuredRecord implements Serializable {
       Schema.Field field = validateAndGetField(fieldName, date);
       boolean isNullable = field.getSchema().isNullable();
       if (isNullable && date == null) {
-        fields.put(fieldName, null);
+        setValue(fieldName, null);
         return this;
       }
 
       Schema.Type fieldType = isNullable ? field.getSchema().getNonNullable().getType() : field.getSchema().getType();
       if (fieldType == Schema.Type.LONG) {
-        fields.put(fieldName, date.getTime());
+        setValue(fieldName, date.getTime());
       } else if (fieldType == Schema.Type.STRING) {
         DateFormat format = dateFormat == null ? DEFAULT_FORMAT : dateFormat;
-        fields.put(fieldName, format.format(date));
+        setValue(fieldName, format.format(date));
       } else {
         throw new UnexpectedFormatException("Date must be either a long or a string, not a " + fieldType);
       }
@@ -595,7 +649,7 @@ public class StructuredRecord implements Serializable {
      */
     public Builder convertAndSet(String fieldName, @Nullable String strVal) throws UnexpectedFormatException {
       Schema.Field field = validateAndGetField(fieldName, strVal);
-      fields.put(fieldName, convertString(field.getSchema(), strVal));
+      setValue(fieldName, convertString(field.getSchema(), strVal));
       return this;
     }
 
@@ -607,19 +661,21 @@ public class StructuredRecord implements Serializable {
      */
     public StructuredRecord build() throws UnexpectedFormatException {
       // check that all non-nullable fields have a value.
-      for (Schema.Field field : schema.getFields()) {
-        String fieldName = field.getName();
-        if (!fields.containsKey(fieldName)) {
-          // if the field is not nullable and there is no value set for the field, this is invalid.
-          if (!field.getSchema().isNullable()) {
-            throw new UnexpectedFormatException("Field " + fieldName + " must contain a value.");
-          } else {
-            // otherwise, set the value for the field to null
-            fields.put(fieldName, null);
-          }
+      List<Schema.Field> schemaFields = schema.getFields();
+      for (int i = 0; i < valueSet.length; i++) {
+        // if the field is not nullable and there is no value set for the field, this is invalid.
+        // otherwise, the value for the field is null
+        if (!valueSet[i] && !schemaFields.get(i).getSchema().isNullable()) {
+          throw new UnexpectedFormatException("Field " + schemaFields.get(i).getName() + " must contain a value.");
         }
       }
-      return new StructuredRecord(schema, fields);
+      return new StructuredRecord(schema, values);
+    }
+
+    private void setValue(String fieldName, @Nullable Object value) {
+      int index = schema.getFieldIndex(fieldName);
+      values[index] = value;
+      valueSet[index] = true;
     }
 
     private Object convertString(Schema schema, String strVal) throws UnexpectedFormatException {
@@ -666,22 +722,26 @@ public class StructuredRecord implements Serializable {
       if (field == null) {
         throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
       }
+      validateField(field, val);
+      return field;
+    }
+
+    private void validateField(Schema.Field field, Object val) {
       Schema fieldSchema = field.getSchema();
       if (val == null) {
         if (fieldSchema.getType() == Schema.Type.NULL) {
-          return field;
+          return;
         }
         if (fieldSchema.getType() != Schema.Type.UNION) {
-          throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
+          throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
         }
         for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
           if (unionSchema.getType() == Schema.Type.NULL) {
-            return field;
+            return;
           }
         }
-        throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
+        throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
       }
-      return field;
     }
   }
 
@@ -696,12 +756,35 @@ public class StructuredRecord implements Serializable {
 
     StructuredRecord that = (StructuredRecord) o;
 
-    return Objects.equals(schema, that.schema) && Objects.equals(fields, that.fields);
+    return Objects.equals(schema, that.schema) && Arrays.equals(values, that.values);
 
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema, fields);
+    return Objects.hash(schema, Arrays.hashCode(values));
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    List<Schema.Field> schemaFields = schema.getFields();
+    Map<String, Object> fields = new HashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      fields.put(schemaFields.get(i).getName(), values[i]);
+    }
+    ObjectOutputStream.PutField putField = out.putFields();
+    putField.put("schema", schema);
+    putField.put("fields", fields);
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField getField = in.readFields();
+    schema = (Schema) getField.get("schema", null);
+    Map<?, ?> fields = (Map<?, ?>) getField.get("fields", null);
+    List<Schema.Field> schemaFields = schema.getFields();
+    values = new Object[schemaFields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = fields.get(schemaFields.get(i).getName());
+    }
   }
 }
@@ -47,6 +47,14 @@ public class TableProperties {
   @Beta
   public static final String PROPERTY_TABLE_PERMISSIONS = "dataset.table.permissions.grants";
 
+  /**
+   * Set the approximate size in bytes of the writes a table buffers in memory within a transaction. Once the
+   * buffered writes exceed this size, they are written to the underlying storage before the transaction commits,
+   * where they stay invisible to other transactions until commit. If not set, writes are buffered until commit.
+   */
+  @Beta
+  public static final String PROPERTY_BUFFER_FLUSH_THRESHOLD = "dataset.table.buffer.flush.threshold.bytes";
+
   /**
    * Set a conflict detection level in dataset properties.
    */
@@ -258,6 +266,26 @@ public class TableProperties {
     builder.add(PROPERTY_TABLE_PERMISSIONS, GSON.toJson(permissions));
   }
 
+  /**
+   * Set the approximate size in bytes of the writes a table buffers in memory within a transaction.
+   */
+  @Beta
+  public static void setBufferFlushThreshold(DatasetProperties.Builder builder, long bytes) {
+    builder.add(PROPERTY_BUFFER_FLUSH_THRESHOLD, bytes);
+  }
+
+  /**
+   * @return the approximate size in bytes of the writes a table buffers in memory within a transaction,
+   *         or a non-positive value if writes are buffered until commit.
+   *
+   * @throws NumberFormatException if the value is not a valid long.
+   */
+  @Beta
+  public static long getBufferFlushThreshold(Map<String, String> props) {
+    String stringValue = props.get(PROPERTY_BUFFER_FLUSH_THRESHOLD);
+    return stringValue == null ? -1L : Long.parseLong(stringValue);
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -320,6 +348,16 @@ public class TableProperties {
       return (B) this;
     }
 
+    /**
+     * Set the approximate size in bytes of the writes a table buffers in memory within a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    @Beta
+    public B setBufferFlushThreshold(long bytes) {
+      TableProperties.setBufferFlushThreshold(this, bytes);
+      return (B) this;
+    }
+
     /**
      * Set the schema of a table.
      */
@@ -37,6 +37,16 @@ public interface Metrics {
    */
   void gauge(String metricName, long value);
 
+  /**
+   * Adds a value to the distribution of the specific metric, from which percentiles of the values can be queried.
+   * By default the value is ignored.
+   * @param metricName Name of the metric. Use alphanumeric characters in metric names.
+   * @param value The value to add to the distribution.
+   */
+  default void distribution(String metricName, long value) {
+    // no-op
+  }
+
   /**
    * Get the child {@link Metrics} by adding specified tags to the current metrics context.
    * @param tags to be added to the current metrics context
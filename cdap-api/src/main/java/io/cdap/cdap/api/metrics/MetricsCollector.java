@@ -37,4 +37,14 @@ public interface MetricsCollector {
    * @param value value of the metric.
    */
   void gauge(String metricName, long value);
+
+  /**
+   * Adds a value to the distribution of a metric at the current time, from which percentiles of the values
+   * can be queried. By default the value is ignored.
+   * @param metricName Name of the metric.
+   * @param value value to add to the distribution.
+   */
+  default void distribution(String metricName, long value) {
+    // no-op
+  }
 }
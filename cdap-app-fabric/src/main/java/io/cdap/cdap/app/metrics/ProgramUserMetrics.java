@@ -54,6 +54,11 @@ public class ProgramUserMetrics implements Metrics {
     metricsContext.gauge(metricName, value);
   }
 
+  @Override
+  public void distribution(String metricName, long value) {
+    metricsContext.distribution(metricName, value);
+  }
+
   @Override
   public Metrics child(Map<String, String> tags) {
     Sets.SetView<String> intersection = Sets.intersection(getTags().keySet(), tags.keySet());
@@ -41,6 +41,7 @@ import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.deploy.pipeline.AppSpecInfo;
 import io.cdap.cdap.internal.app.runtime.artifact.ArtifactRepository;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache;
 import io.cdap.cdap.internal.app.runtime.artifact.Artifacts;
 import io.cdap.cdap.internal.app.runtime.artifact.PluginFinder;
 import io.cdap.cdap.internal.app.runtime.plugin.PluginInstantiator;
@@ -132,7 +133,8 @@ public final class InMemoryConfigurator implements Configurator {
 
     File tempDir = DirUtils.createTempDir(baseUnpackDir);
     try (
-      PluginInstantiator pluginInstantiator = new PluginInstantiator(cConf, app.getClass().getClassLoader(), tempDir)
+      PluginInstantiator pluginInstantiator = new PluginInstantiator(cConf, app.getClass().getClassLoader(), tempDir,
+                                                                     true, ArtifactUnpackCache.get(cConf))
     ) {
       configurer = new DefaultAppConfigurer(appNamespace, artifactId, app,
                                             configString, pluginFinder, pluginInstantiator);
@@ -23,12 +23,10 @@ import io.cdap.cdap.app.runtime.ProgramClassLoaderProvider;
 import io.cdap.cdap.app.runtime.ProgramRunner;
 import io.cdap.cdap.app.runtime.ProgramRunnerFactory;
 import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.lang.DirectoryClassLoader;
 import io.cdap.cdap.common.lang.FilterClassLoader;
-import io.cdap.cdap.common.lang.jar.BundleJarUtil;
-import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.internal.app.runtime.ProgramClassLoader;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache.UnpackedArtifact;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.security.impersonation.EntityImpersonator;
 import org.apache.twill.filesystem.Location;
@@ -42,21 +40,20 @@ import java.util.Iterator;
 import java.util.concurrent.Callable;
 
 /**
- * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact and
- * cleaning up the directory when the classloader is closed.
+ * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact through the
+ * {@link ArtifactUnpackCache} and releasing the directory when the classloader is closed.
  */
 final class ArtifactClassLoaderFactory {
   private static final Logger LOG = LoggerFactory.getLogger(ArtifactClassLoaderFactory.class);
 
   private final CConfiguration cConf;
   private final ProgramRunnerFactory programRunnerFactory;
-  private final File tmpDir;
+  private final ArtifactUnpackCache unpackCache;
 
   ArtifactClassLoaderFactory(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory) {
     this.cConf = cConf;
     this.programRunnerFactory = programRunnerFactory;
-    this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this.unpackCache = ArtifactUnpackCache.get(cConf);
   }
 
   /**
@@ -106,37 +103,37 @@ final class ArtifactClassLoaderFactory {
   }
 
   /**
-   * Unpack the given {@code artifactLocation} to a temporary directory and call
+   * Unpack the given {@code artifactLocation} through the {@link ArtifactUnpackCache} and call
    * {@link #createClassLoader(File)} to create the {@link ClassLoader}.
    *
    * @param artifactLocation the location of the artifact to create the classloader from
    * @return a closeable classloader based off the specified artifact; on closing the returned {@link ClassLoader},
-   *         all temporary resources created for the classloader will be removed
+   *         the unpacked artifact directory is released back to the {@link ArtifactUnpackCache}
    * @throws IOException if there was an error copying or unpacking the artifact
    * @see #createClassLoader(File)
    */
   private CloseableClassLoader createClassLoader(final Location artifactLocation,
                                                  EntityImpersonator entityImpersonator) throws IOException {
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
+      final UnpackedArtifact unpackedArtifact = entityImpersonator.impersonate(new Callable<UnpackedArtifact>() {
         @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
+        public UnpackedArtifact call() throws IOException {
+          return unpackCache.unpack(artifactLocation);
         }
       });
 
-      final CloseableClassLoader classLoader = createClassLoader(unpackDir);
+      final CloseableClassLoader classLoader;
+      try {
+        classLoader = createClassLoader(unpackedArtifact.getDirectory());
+      } catch (Exception e) {
+        unpackedArtifact.close();
+        throw e;
+      }
       return new CloseableClassLoader(classLoader, new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(classLoader);
-            if (unpackDir.exists()) {
-              DirUtils.deleteDirectoryContents(unpackDir);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(classLoader);
+          unpackedArtifact.close();
         }
       });
     } catch (Exception e) {
@@ -150,7 +147,7 @@ final class ArtifactClassLoaderFactory {
    *
    * @param artifactLocations the locations of the artifact to create the classloader from
    * @return a closeable classloader based off the specified artifacts; on closing the returned {@link ClassLoader},
-   *         all temporary resources created for the classloader will be removed
+   *         the unpacked artifact directories are released back to the {@link ArtifactUnpackCache}
    * @throws IOException if there was an error copying or unpacking the artifact
    * @see #createClassLoader(File)
    */
@@ -166,25 +163,26 @@ final class ArtifactClassLoaderFactory {
     }
 
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
+      final UnpackedArtifact unpackedArtifact = entityImpersonator.impersonate(new Callable<UnpackedArtifact>() {
         @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
+        public UnpackedArtifact call() throws IOException {
+          return unpackCache.unpack(artifactLocation);
         }
       });
 
-      final CloseableClassLoader parentClassLoader = createClassLoader(artifactLocations, entityImpersonator);
-      return new CloseableClassLoader(new DirectoryClassLoader(unpackDir, parentClassLoader, "lib"), new Closeable() {
+      final CloseableClassLoader parentClassLoader;
+      try {
+        parentClassLoader = createClassLoader(artifactLocations, entityImpersonator);
+      } catch (Exception e) {
+        unpackedArtifact.close();
+        throw e;
+      }
+      ClassLoader classLoader = new DirectoryClassLoader(unpackedArtifact.getDirectory(), parentClassLoader, "lib");
+      return new CloseableClassLoader(classLoader, new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(parentClassLoader);
-            if (unpackDir.exists()) {
-              DirUtils.deleteDirectoryContents(unpackDir);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(parentClassLoader);
+          unpackedArtifact.close();
         }
       });
     } catch (Exception e) {
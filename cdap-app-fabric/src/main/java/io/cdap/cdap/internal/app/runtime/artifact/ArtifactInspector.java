@@ -50,6 +50,7 @@ import io.cdap.cdap.common.id.Id;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.lang.jar.BundleJarUtil;
 import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache.UnpackedArtifact;
 import io.cdap.cdap.internal.app.runtime.plugin.PluginInstantiator;
 import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
 import org.apache.twill.filesystem.Location;
@@ -126,14 +127,16 @@ final class ArtifactInspector {
 
     Path stageDir = Files.createTempDirectory(tmpDir, artifactFile.getName());
     try {
-      File unpackedDir = BundleJarUtil.unJar(artifactLocation,
-                                             Files.createTempDirectory(stageDir, "unpacked-").toFile());
+      // The plugin instantiator expands the artifact through the same cache, so it is only expanded once
+      ArtifactUnpackCache unpackCache = ArtifactUnpackCache.get(cConf);
       try (
-        CloseableClassLoader artifactClassLoader = artifactClassLoaderFactory.createClassLoader(unpackedDir);
+        UnpackedArtifact unpackedArtifact = unpackCache.unpack(artifactLocation);
+        CloseableClassLoader artifactClassLoader =
+          artifactClassLoaderFactory.createClassLoader(unpackedArtifact.getDirectory());
         PluginInstantiator pluginInstantiator =
           new PluginInstantiator(cConf, parentClassLoader == null ? artifactClassLoader : parentClassLoader,
                                  Files.createTempDirectory(stageDir, "plugins-").toFile(),
-                                 false)) {
+                                 false, unpackCache)) {
         pluginInstantiator.addArtifact(artifactLocation, artifactId.toArtifactId());
         ArtifactClasses.Builder builder = inspectApplications(artifactId, ArtifactClasses.builder(),
                                                               artifactLocation, artifactClassLoader);
@@ -0,0 +1,306 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.artifact;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.lang.jar.BundleJarUtil;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A cache of expanded artifact jars, shared by everything in the same JVM that creates class loaders from the same
+ * temp directory. Artifacts are identified by the SHA-256 checksum of the jar, so an artifact is only expanded once,
+ * no matter which location it is read from or how many class loaders are created from it at the same time.
+ *
+ * Each directory returned by {@link #unpack(Location)} is reference counted and must be released by closing the
+ * returned {@link UnpackedArtifact}. Directories that are no longer referenced are kept for reuse until the total size
+ * of the cache goes over the configured budget, in which case the least recently used ones are deleted.
+ * The directories must not be modified by the callers.
+ */
+public final class ArtifactUnpackCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactUnpackCache.class);
+  private static final String CACHE_DIR = "artifact-unpack-cache";
+  private static final int CHECKSUM_CACHE_SIZE = 1000;
+  private static final Map<File, ArtifactUnpackCache> CACHES = new HashMap<>();
+
+  private final File cacheDir;
+  private final long maxSizeBytes;
+  // Checksums of artifacts, keyed by the location, last modified time and length, so that the same artifact location
+  // doesn't need to be read again on every call
+  private final Cache<String, String> checksums;
+  // Access ordered, so that entries are iterated in least recently used order
+  private final LinkedHashMap<String, CacheEntry> entries;
+  private long totalSize;
+  private long sequence;
+
+  /**
+   * Returns the {@link ArtifactUnpackCache} for the temp directory in the given configuration.
+   */
+  public static synchronized ArtifactUnpackCache get(CConfiguration cConf) {
+    File tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
+                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    ArtifactUnpackCache cache = CACHES.get(tmpDir);
+    if (cache == null) {
+      long maxSizeMB = cConf.getLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_SIZE_MB, 0L);
+      // Use a unique directory, since the temp directory can be shared with other processes
+      cache = new ArtifactUnpackCache(new File(DirUtils.createTempDir(tmpDir), CACHE_DIR), maxSizeMB * 1024 * 1024);
+      CACHES.put(tmpDir, cache);
+
+      final File cacheDir = cache.cacheDir;
+      Runtime.getRuntime().addShutdownHook(new Thread() {
+        @Override
+        public void run() {
+          deleteQuietly(cacheDir.getParentFile());
+        }
+      });
+    }
+    return cache;
+  }
+
+  @VisibleForTesting
+  ArtifactUnpackCache(File cacheDir, long maxSizeBytes) {
+    this.cacheDir = cacheDir;
+    this.maxSizeBytes = maxSizeBytes;
+    this.checksums = CacheBuilder.newBuilder().maximumSize(CHECKSUM_CACHE_SIZE).build();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns a directory with the artifact jar at the given location expanded. The jar is only expanded if it is not
+   * in the cache already.
+   *
+   * @param artifactLocation the location of the artifact jar
+   * @return an {@link UnpackedArtifact} that has to be closed once the directory is no longer used
+   * @throws IOException if failed to read or expand the artifact jar
+   */
+  public UnpackedArtifact unpack(Location artifactLocation) throws IOException {
+    String checksum = getChecksum(artifactLocation);
+    CacheEntry entry;
+    boolean expand = false;
+    synchronized (this) {
+      entry = entries.get(checksum);
+      if (entry != null && entry.unpacked.isDone() && !entry.dir.isDirectory()) {
+        // The directory has been removed from outside of the cache, expand the artifact again
+        LOG.debug("Unpacked artifact directory {} no longer exists", entry.dir);
+        entries.remove(checksum);
+        totalSize -= entry.size;
+        entry = null;
+      }
+      if (entry == null) {
+        entry = new CacheEntry(new File(cacheDir, checksum + "-" + sequence++));
+        entries.put(checksum, entry);
+        expand = true;
+      }
+      entry.refCount++;
+    }
+
+    if (expand) {
+      expand(checksum, entry, artifactLocation);
+    } else {
+      try {
+        Uninterruptibles.getUninterruptibly(entry.unpacked);
+      } catch (ExecutionException e) {
+        // The entry was removed from the cache by the thread that failed to expand the artifact
+        Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+    return new UnpackedArtifact(entry);
+  }
+
+  /**
+   * Returns the total size in bytes of the artifacts that are currently expanded in the cache.
+   */
+  @VisibleForTesting
+  synchronized long getSize() {
+    return totalSize;
+  }
+
+  private void expand(String checksum, CacheEntry entry, Location artifactLocation) throws IOException {
+    try {
+      BundleJarUtil.unJar(artifactLocation, entry.dir);
+      entry.size = getDirectorySize(entry.dir.toPath());
+    } catch (Throwable t) {
+      synchronized (this) {
+        entries.remove(checksum);
+      }
+      deleteQuietly(entry.dir);
+      entry.unpacked.setException(t);
+      Throwables.propagateIfInstanceOf(t, IOException.class);
+      throw Throwables.propagate(t);
+    }
+
+    List<File> evicted;
+    synchronized (this) {
+      totalSize += entry.size;
+      evicted = evict();
+    }
+    entry.unpacked.set(entry.dir);
+    for (File dir : evicted) {
+      deleteQuietly(dir);
+    }
+  }
+
+  private void release(CacheEntry entry) {
+    List<File> evicted;
+    synchronized (this) {
+      entry.refCount--;
+      evicted = evict();
+    }
+    for (File dir : evicted) {
+      deleteQuietly(dir);
+    }
+  }
+
+  /**
+   * Removes the least recently used entries that are not referenced until the cache is within the size budget.
+   * Must be called while holding the lock of this object.
+   *
+   * @return the directories of the removed entries, which should be deleted after releasing the lock
+   */
+  private List<File> evict() {
+    List<File> evicted = new ArrayList<>();
+    Iterator<CacheEntry> iterator = entries.values().iterator();
+    while (totalSize > maxSizeBytes && iterator.hasNext()) {
+      CacheEntry entry = iterator.next();
+      if (entry.refCount == 0 && entry.unpacked.isDone()) {
+        iterator.remove();
+        totalSize -= entry.size;
+        evicted.add(entry.dir);
+      }
+    }
+    return evicted;
+  }
+
+  private String getChecksum(Location location) throws IOException {
+    String key = location.toURI() + ":" + location.lastModified() + ":" + location.length();
+    String checksum = checksums.getIfPresent(key);
+    if (checksum != null) {
+      return checksum;
+    }
+
+    Hasher hasher = Hashing.sha256().newHasher();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream is = location.getInputStream()) {
+      int len = is.read(buffer);
+      while (len >= 0) {
+        hasher.putBytes(buffer, 0, len);
+        len = is.read(buffer);
+      }
+    }
+    checksum = hasher.hash().toString();
+    checksums.put(key, checksum);
+    return checksum;
+  }
+
+  private static long getDirectorySize(Path dir) throws IOException {
+    final long[] size = new long[1];
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        size[0] += attrs.size();
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return size[0];
+  }
+
+  private static void deleteQuietly(File dir) {
+    try {
+      if (dir.exists()) {
+        DirUtils.deleteDirectoryContents(dir);
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to delete directory {}", dir, e);
+    }
+  }
+
+  /**
+   * An artifact jar expanded in the {@link ArtifactUnpackCache}. Closing it releases the directory back to the cache.
+   */
+  public final class UnpackedArtifact implements Closeable {
+
+    private final CacheEntry entry;
+    private final AtomicBoolean closed;
+
+    private UnpackedArtifact(CacheEntry entry) {
+      this.entry = entry;
+      this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * Returns the directory that the artifact jar is expanded into.
+     */
+    public File getDirectory() {
+      return entry.dir;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(entry);
+      }
+    }
+  }
+
+  /**
+   * The state of an artifact in the cache.
+   */
+  private static final class CacheEntry {
+    private final File dir;
+    // Completes once the artifact is expanded
+    private final SettableFuture<File> unpacked;
+    // Guarded by the lock of the enclosing ArtifactUnpackCache
+    private int refCount;
+    private long size;
+
+    CacheEntry(File dir) {
+      this.dir = dir;
+      this.unpacked = SettableFuture.create();
+    }
+  }
+}
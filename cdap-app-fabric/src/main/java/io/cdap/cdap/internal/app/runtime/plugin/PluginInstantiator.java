@@ -48,6 +48,8 @@ import io.cdap.cdap.common.lang.CombineClassLoader;
 import io.cdap.cdap.common.lang.InstantiatorFactory;
 import io.cdap.cdap.common.lang.jar.BundleJarUtil;
 import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache.UnpackedArtifact;
 import io.cdap.cdap.internal.app.runtime.artifact.Artifacts;
 import io.cdap.cdap.internal.lang.FieldVisitor;
 import io.cdap.cdap.internal.lang.Fields;
@@ -74,6 +76,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 
@@ -82,6 +86,7 @@ import javax.annotation.Nullable;
  * save ClassLoader creation.
  *
  * This class implements {@link Closeable} as well for cleanup of temporary directories created for the ClassLoaders.
+ * When created with an {@link ArtifactUnpackCache}, the expanded plugin jars are released back to the cache instead.
  */
 public class PluginInstantiator implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(PluginInstantiator.class);
@@ -99,7 +104,11 @@ public class PluginInstantiator implements Closeable {
     .build();
 
   private final LoadingCache<ClassLoaderKey, PluginClassLoader> classLoaders;
+  private final ConcurrentMap<PluginClassLoader, UnpackedArtifact> unpackedArtifacts;
   private final InstantiatorFactory instantiatorFactory;
+  @Nullable
+  private final ArtifactUnpackCache unpackCache;
+  @Nullable
   private final File tmpDir;
   private final File pluginDir;
   private final ClassLoader parentClassLoader;
@@ -111,12 +120,23 @@ public class PluginInstantiator implements Closeable {
 
   public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir,
                             boolean filterClassloader) {
-    this.instantiatorFactory = new InstantiatorFactory(false);
-    File tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this(cConf, parentClassLoader, pluginDir, filterClassloader, null);
+  }
 
+  /**
+   * Creates a plugin instantiator that expands plugin jars through the given {@link ArtifactUnpackCache}.
+   * The cache should only be used by long running services that repeatedly load the same plugins, such as
+   * deployment, preview and pipeline validation. Without a cache, each plugin jar is expanded into a temporary
+   * directory that is deleted when this instantiator is closed.
+   */
+  public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir,
+                            boolean filterClassloader, @Nullable ArtifactUnpackCache unpackCache) {
+    this.instantiatorFactory = new InstantiatorFactory(false);
+    this.unpackCache = unpackCache;
+    this.tmpDir = unpackCache != null ? null : DirUtils.createTempDir(
+      new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile());
     this.pluginDir = pluginDir;
-    this.tmpDir = DirUtils.createTempDir(tmpDir);
+    this.unpackedArtifacts = new ConcurrentHashMap<>();
     this.classLoaders = CacheBuilder.newBuilder()
       .removalListener(new ClassLoaderRemovalListener())
       .build(new ClassLoaderCacheLoader());
@@ -400,10 +420,14 @@ public class PluginInstantiator implements Closeable {
   @Override
   public void close() throws IOException {
     // Cleanup the ClassLoader cache and the temporary directory for the expanded plugin jar.
+    // With an unpack cache, invalidating the ClassLoaders releases the expanded plugin jars instead.
     classLoaders.invalidateAll();
     if (ownedParentClassLoader) {
       Closeables.closeQuietly((Closeable) parentClassLoader);
     }
+    if (tmpDir == null) {
+      return;
+    }
     try {
       DirUtils.deleteDirectoryContents(tmpDir);
     } catch (IOException e) {
@@ -455,10 +479,24 @@ public class PluginInstantiator implements Closeable {
 
     @Override
     public PluginClassLoader load(ClassLoaderKey key) throws Exception {
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
       File artifact = new File(pluginDir, Artifacts.getFileName(key.artifact));
-      BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
+      if (unpackCache == null) {
+        File unpackedDir = DirUtils.createTempDir(tmpDir);
+        BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
+        return createClassLoader(key, unpackedDir);
+      }
+      UnpackedArtifact unpackedArtifact = unpackCache.unpack(Locations.toLocation(artifact));
+      try {
+        PluginClassLoader classLoader = createClassLoader(key, unpackedArtifact.getDirectory());
+        unpackedArtifacts.put(classLoader, unpackedArtifact);
+        return classLoader;
+      } catch (Exception e) {
+        unpackedArtifact.close();
+        throw e;
+      }
+    }
 
+    private PluginClassLoader createClassLoader(ClassLoaderKey key, File unpackedDir) throws Exception {
       Iterator<ArtifactId> parentIter = key.parents.iterator();
       if (!parentIter.hasNext()) {
         return new PluginClassLoader(key.artifact, unpackedDir, parentClassLoader);
@@ -493,11 +531,15 @@ public class PluginInstantiator implements Closeable {
   /**
    * A RemovalListener for closing plugin ClassLoader.
    */
-  private static final class ClassLoaderRemovalListener implements RemovalListener<ClassLoaderKey, PluginClassLoader> {
+  private final class ClassLoaderRemovalListener implements RemovalListener<ClassLoaderKey, PluginClassLoader> {
 
     @Override
     public void onRemoval(RemovalNotification<ClassLoaderKey, PluginClassLoader> notification) {
       Closeables.closeQuietly(notification.getValue());
+      UnpackedArtifact unpackedArtifact = unpackedArtifacts.remove(notification.getValue());
+      if (unpackedArtifact != null) {
+        unpackedArtifact.close();
+      }
     }
   }
 
@@ -149,6 +149,8 @@ public class JobQueueTable implements JobQueue {
     }
 
     int nextGenerationId = 0;
+    // rows are written together after the scan, so that obsolete markers and the job update take one batch
+    List<Collection<Field<?>>> rows = new ArrayList<>();
     try (CloseableIterator<Job> jobs = getJobsForSchedule(schedule.getScheduleId())) {
       while (jobs.hasNext()) {
         Job job = jobs.next();
@@ -165,13 +167,13 @@ public class JobQueueTable implements JobQueue {
           long scheduleLastUpdated = record.getMeta().getLastUpdated();
           if (job.getScheduleLastUpdatedTime() != scheduleLastUpdated) {
             // schedule has changed: this job is obsolete
-            writeJobObsolete(job, System.currentTimeMillis());
+            rows.add(getJobObsoleteRow(job, System.currentTimeMillis()));
           } else if (System.currentTimeMillis() - job.getCreationTime() > job.getSchedule().getTimeoutMillis()) {
             // job has timed out; mark it obsolete
-            writeJobObsolete(job, System.currentTimeMillis());
+            rows.add(getJobObsoleteRow(job, System.currentTimeMillis()));
           } else {
             jobExists = true;
-            addNotification(job, notification);
+            rows.addAll(getJobRows(addNotification(job, notification)));
             break;
           }
         }
@@ -182,12 +184,44 @@ public class JobQueueTable implements JobQueue {
       List<Notification> notifications = Collections.singletonList(notification);
       Job.State jobState = isTriggerSatisfied(schedule, notifications)
         ? Job.State.PENDING_CONSTRAINT : Job.State.PENDING_TRIGGER;
-      writeJob(new SimpleJob(schedule, nextGenerationId, System.currentTimeMillis(), notifications, jobState,
-                        record.getMeta().getLastUpdated()));
+      rows.addAll(getJobRows(new SimpleJob(schedule, nextGenerationId, System.currentTimeMillis(), notifications,
+                                           jobState, record.getMeta().getLastUpdated())));
     }
+    jobQueueTable.multiUpsert(rows);
   }
 
-  private void addNotification(Job job, Notification notification) throws IOException {
+  /**
+   * Adds the given notification to the {@link Job.State#PENDING_TRIGGER} job of a schedule, if that job was created
+   * for the given version of the schedule, and is neither marked for deletion nor timed out. Unlike
+   * {@link #addNotification(ProgramScheduleRecord, Notification)}, this does not need the current record of the
+   * schedule, because every modification of a schedule marks its jobs for deletion in the same transaction.
+   *
+   * @param scheduleId the id of the schedule
+   * @param scheduleLastUpdated the last updated time of the schedule, as known by the caller
+   * @param notification the new notification to add to the job
+   * @return {@code true} if the notification was added; {@code false} if there is no such job, in which case the
+   *         caller has to add the notification with {@link #addNotification(ProgramScheduleRecord, Notification)}
+   */
+  public boolean addNotificationToPendingJob(ScheduleId scheduleId, long scheduleLastUpdated,
+                                             Notification notification) throws IOException {
+    try (CloseableIterator<Job> jobs = getJobsForSchedule(scheduleId)) {
+      while (jobs.hasNext()) {
+        Job job = jobs.next();
+        if (job.getState() != Job.State.PENDING_TRIGGER || job.isToBeDeleted()) {
+          continue;
+        }
+        if (job.getScheduleLastUpdatedTime() != scheduleLastUpdated
+          || System.currentTimeMillis() - job.getCreationTime() > job.getSchedule().getTimeoutMillis()) {
+          return false;
+        }
+        jobQueueTable.multiUpsert(getJobRows(addNotification(job, notification)));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Job addNotification(Job job, Notification notification) {
     List<Notification> notifications = new ArrayList<>(job.getNotifications());
     notifications.add(notification);
 
@@ -196,9 +230,8 @@ public class JobQueueTable implements JobQueue {
       newState = Job.State.PENDING_CONSTRAINT;
       job.getState().checkTransition(newState);
     }
-    Job newJob = new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications, newState,
-                               job.getScheduleLastUpdatedTime());
-    writeJob(newJob);
+    return new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications, newState,
+                         job.getScheduleLastUpdatedTime());
   }
 
   private boolean isTriggerSatisfied(ProgramSchedule schedule, List<Notification> notifications) {
@@ -207,6 +240,7 @@ public class JobQueueTable implements JobQueue {
 
   @Override
   public void markJobsForDeletion(ScheduleId scheduleId, long markedTime) throws IOException {
+    List<Collection<Field<?>>> rows = new ArrayList<>();
     try (CloseableIterator<Job> iterator =
            createJobIterator(jobQueueTable.scan(Range.singleton(getScheduleScanKeys(scheduleId)), Integer.MAX_VALUE))) {
       while (iterator.hasNext()) {
@@ -214,10 +248,11 @@ public class JobQueueTable implements JobQueue {
         // only mark jobs that are not marked yet to avoid chance of conflict with concurrent delete
         if (job.getState() != Job.State.PENDING_LAUNCH && !job.isToBeDeleted()) {
           // jobs that are pending launch will be deleted by the launcher anyway
-          writeJobDelete(job, markedTime);
+          rows.add(getJobDeleteRow(job, markedTime));
         }
       }
     }
+    jobQueueTable.multiUpsert(rows);
   }
 
   @Override
@@ -351,27 +386,37 @@ public class JobQueueTable implements JobQueue {
   }
 
   private void writeJob(Job job) throws IOException {
+    jobQueueTable.multiUpsert(getJobRows(job));
+  }
+
+  /**
+   * Returns the job row of the given job, followed by its delete row if the job is marked for deletion.
+   */
+  private List<Collection<Field<?>>> getJobRows(Job job) {
     Collection<Field<?>> fields = getJobKeys(job.getSchedule().getScheduleId(), job.getGenerationId(),
                                              StoreDefinition.JobQueueStore.RowType.JOB);
     fields.add(Fields.stringField(StoreDefinition.JobQueueStore.JOB, GSON.toJson(job)));
-    jobQueueTable.upsert(fields);
-    if (job.isToBeDeleted()) {
-      writeJobDelete(job, job.getDeleteTimeMillis());
+    if (!job.isToBeDeleted()) {
+      return Collections.singletonList(fields);
     }
+    List<Collection<Field<?>>> rows = new ArrayList<>();
+    rows.add(fields);
+    rows.add(getJobDeleteRow(job, job.getDeleteTimeMillis()));
+    return rows;
   }
 
-  private void writeJobDelete(Job job, Long deleteTime) throws IOException {
+  private Collection<Field<?>> getJobDeleteRow(Job job, Long deleteTime) {
     Collection<Field<?>> fields = getJobKeys(job.getSchedule().getScheduleId(), job.getGenerationId(),
                                              StoreDefinition.JobQueueStore.RowType.DELETE);
     fields.add(Fields.longField(StoreDefinition.JobQueueStore.DELETE_TIME, deleteTime));
-    jobQueueTable.upsert(fields);
+    return fields;
   }
 
-  private void writeJobObsolete(Job job, long obsoleteTime) throws IOException {
+  private Collection<Field<?>> getJobObsoleteRow(Job job, long obsoleteTime) {
     Collection<Field<?>> fields = getJobKeys(job.getSchedule().getScheduleId(), job.getGenerationId(),
                                              StoreDefinition.JobQueueStore.RowType.OBSOLETE);
     fields.add(Fields.longField(StoreDefinition.JobQueueStore.OBSOLETE_TIME, obsoleteTime));
-    jobQueueTable.upsert(fields);
+    return fields;
   }
 
   private Collection<Field<?>> getJobKeys(ScheduleId scheduleId, int generationId,
@@ -465,6 +465,15 @@ public class ProgramScheduleStoreDataset {
                                           schedule -> programId.equals(schedule.getProgramId()));
   }
 
+  /**
+   * Retrieve all schedule records in all namespaces.
+   *
+   * @return a list of all schedule records; never null
+   */
+  public List<ProgramScheduleRecord> listScheduleRecords() throws IOException {
+    return listSchedulesRecordsInRange(Range.all(), schedule -> true);
+  }
+
   /**
    * Find all schedules that have a trigger with a given trigger key.
    *
@@ -540,9 +549,16 @@ public class ProgramScheduleStoreDataset {
   private List<ProgramScheduleRecord> listSchedulesRecordsWithPrefix(Collection<Field<?>> prefixKeys,
                                                                      Predicate<ProgramSchedule> filter)
     throws IOException {
+    return listSchedulesRecordsInRange(Range.singleton(prefixKeys), filter);
+  }
+
+  /**
+   * List schedule records in the given range and only returns the records that can pass the filter.
+   */
+  private List<ProgramScheduleRecord> listSchedulesRecordsInRange(Range range, Predicate<ProgramSchedule> filter)
+    throws IOException {
     List<ProgramScheduleRecord> result = new ArrayList<>();
-    try (CloseableIterator<StructuredRow> iterator =
-           scheduleStore.scan(Range.singleton(prefixKeys), Integer.MAX_VALUE)) {
+    try (CloseableIterator<StructuredRow> iterator = scheduleStore.scan(range, Integer.MAX_VALUE)) {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
         String serializedSchedule = row.getString(StoreDefinition.ProgramScheduleStore.SCHEDULE);
@@ -639,7 +655,7 @@ public class ProgramScheduleStoreDataset {
    * For now, we do not support composite trigger, but in the future this is where the triggers need to be
    * extracted from composite triggers. Hence the return type of this method is a list.
    */
-  private static Set<String> extractTriggerKeys(ProgramSchedule schedule) {
+  public static Set<String> extractTriggerKeys(ProgramSchedule schedule) {
     return ((SatisfiableTrigger) schedule.getTrigger()).getTriggerKeys();
   }
 
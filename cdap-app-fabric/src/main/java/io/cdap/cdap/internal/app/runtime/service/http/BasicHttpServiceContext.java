@@ -41,6 +41,7 @@ import io.cdap.cdap.data2.metadata.writer.MetadataPublisher;
 import io.cdap.cdap.internal.app.DefaultPluginConfigurer;
 import io.cdap.cdap.internal.app.runtime.AbstractContext;
 import io.cdap.cdap.internal.app.runtime.ProgramRunners;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache;
 import io.cdap.cdap.internal.app.runtime.artifact.PluginFinder;
 import io.cdap.cdap.internal.app.runtime.plugin.MacroParser;
 import io.cdap.cdap.internal.app.runtime.plugin.PluginInstantiator;
@@ -175,7 +176,10 @@ public class BasicHttpServiceContext extends AbstractContext implements SystemHt
                            cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
     try {
       File pluginsDir = Files.createTempDirectory(tmpDir.toPath(), "plugins").toFile();
-      PluginInstantiator instantiator = new PluginInstantiator(cConf, getProgram().getClassLoader(), pluginsDir);
+      // Plugin configurers are created per request by long running services such as pipeline validation,
+      // so the expanded plugin jars are shared through the unpack cache.
+      PluginInstantiator instantiator = new PluginInstantiator(cConf, getProgram().getClassLoader(), pluginsDir,
+                                                               true, ArtifactUnpackCache.get(cConf));
       closeables.add(() -> {
         try {
           instantiator.close();
@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.Service;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.gson.Gson;
 import com.google.inject.Inject;
+import io.cdap.cdap.api.ProgramStatus;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.app.program.ProgramDescriptor;
 import io.cdap.cdap.app.store.Store;
@@ -68,9 +69,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -94,6 +97,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   private final Store appMetaStore;
   private final Impersonator impersonator;
   private final TransactionRunner transactionRunner;
+  private final ScheduleTriggerIndex triggerIndex;
 
   @Inject
   CoreSchedulerService(TimeSchedulerService timeSchedulerService,
@@ -101,7 +105,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
                        ConstraintCheckerService constraintCheckerService,
                        MessagingService messagingService,
                        CConfiguration cConf, Store store, Impersonator impersonator,
-                       TransactionRunner transactionRunner) {
+                       TransactionRunner transactionRunner, ScheduleTriggerIndex triggerIndex) {
     this.startedLatch = new CountDownLatch(1);
     MultiThreadMessagingContext messagingContext = new MultiThreadMessagingContext(messagingService);
     this.timeSchedulerService = timeSchedulerService;
@@ -109,6 +113,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
     this.appMetaStore = store;
     this.impersonator = impersonator;
     this.transactionRunner = transactionRunner;
+    this.triggerIndex = triggerIndex;
     // Use a retry on failure service to make it resilience to transient service unavailability during startup
     this.internalService = new RetryOnStartFailureService(() -> new AbstractIdleService() {
 
@@ -224,7 +229,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       }
     }
     try {
-      execute((StoreAndProfileTxRunnable<Void, Exception>) (store, profileDataset) -> {
+      updateSchedules((store, queue, profileDataset) -> {
         long updatedTime = store.addSchedules(schedules);
         for (ProgramSchedule schedule : schedules) {
           if (schedule.getProperties() != null) {
@@ -261,10 +266,12 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
           }
         }
         // publish the messages at the end of transaction
+        List<ScheduleId> added = new ArrayList<>();
         for (ProgramSchedule schedule : schedules) {
           adminEventPublisher.publishScheduleCreation(schedule.getScheduleId(), updatedTime);
+          added.add(schedule.getScheduleId());
         }
-        return null;
+        return added;
       }, Exception.class);
     } catch (NotFoundException | ProfileConflictException | AlreadyExistsException e) {
       throw e;
@@ -302,9 +309,9 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   public void enableSchedule(ScheduleId scheduleId) throws NotFoundException, ConflictException {
     checkStarted();
     try {
-      execute((StoreTxRunnable<Void, Exception>) store -> {
+      updateSchedules((store, queue, profileDataset) -> {
         enableScheduleInternal(store, scheduleId);
-        return null;
+        return Collections.singleton(scheduleId);
       }, Exception.class);
     } catch (NotFoundException | ConflictException e) {
       throw e;
@@ -320,7 +327,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   public void disableSchedule(ScheduleId scheduleId) throws NotFoundException, ConflictException {
     checkStarted();
     try {
-      execute((StoreAndQueueTxRunnable<Void, Exception>) (store, queue) -> {
+      updateSchedules((store, queue, profileDataset) -> {
         ProgramScheduleRecord record = store.getScheduleRecord(scheduleId);
         if (ProgramScheduleStatus.SCHEDULED != record.getMeta().getStatus()) {
           throw new ConflictException("Schedule '" + scheduleId + "' is already disabled");
@@ -328,7 +335,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         timeSchedulerService.suspendProgramSchedule(record.getSchedule());
         store.updateScheduleStatus(scheduleId, ProgramScheduleStatus.SUSPENDED);
         queue.markJobsForDeletion(scheduleId, System.currentTimeMillis());
-        return null;
+        return Collections.singleton(scheduleId);
       }, Exception.class);
     } catch (NotFoundException | ConflictException e) {
       throw e;
@@ -374,7 +381,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public void deleteSchedules(Iterable<? extends ScheduleId> scheduleIds) throws NotFoundException {
     checkStarted();
-    execute((StoreQueueAndProfileTxRunnable<Void, Exception>) (store, queue, profileDataset) -> {
+    updateSchedules((store, queue, profileDataset) -> {
       long deleteTime = System.currentTimeMillis();
       List<ProgramSchedule> toNotify = new ArrayList<>();
       for (ScheduleId scheduleId : scheduleIds) {
@@ -397,14 +404,14 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       }
       store.deleteSchedules(scheduleIds, deleteTime);
       toNotify.forEach(adminEventPublisher::publishScheduleDeletion);
-      return null;
+      return toNotify.stream().map(ProgramSchedule::getScheduleId).collect(Collectors.toList());
     }, NotFoundException.class);
   }
 
   @Override
   public void deleteSchedules(ApplicationId appId) {
     checkStarted();
-    execute((StoreQueueAndProfileTxRunnable<Void, Exception>) (store, queue, profileDataset) -> {
+    updateSchedules((store, queue, profileDataset) -> {
       long deleteTime = System.currentTimeMillis();
       List<ProgramSchedule> schedules = store.listSchedules(appId);
       deleteSchedulesInScheduler(schedules);
@@ -428,14 +435,14 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         }
       }
       schedules.forEach(adminEventPublisher::publishScheduleDeletion);
-      return null;
+      return deleted;
     }, RuntimeException.class);
   }
 
   @Override
   public void deleteSchedules(ProgramId programId) {
     checkStarted();
-    execute((StoreQueueAndProfileTxRunnable<Void, Exception>) (store, queue, profileDataset) -> {
+    updateSchedules((store, queue, profileDataset) -> {
       long deleteTime = System.currentTimeMillis();
       List<ProgramSchedule> schedules = store.listSchedules(programId);
       deleteSchedulesInScheduler(schedules);
@@ -459,17 +466,30 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         }
       }
       schedules.forEach(adminEventPublisher::publishScheduleDeletion);
-      return null;
+      return deleted;
     }, RuntimeException.class);
   }
 
   @Override
   public void modifySchedulesTriggeredByDeletedProgram(ProgramId programId) {
     checkStarted();
-    execute((StoreAndQueueTxRunnable<Void, Exception>) (store, queue) -> {
+    updateSchedules((store, queue, profileDataset) -> {
+      // schedules with a composite trigger are modified instead of deleted
+      Set<ScheduleId> modified = new HashSet<>();
+      for (ProgramStatus status : ProgramStatus.values()) {
+        String triggerKey = Schedulers.triggerKeyForProgramStatus(programId, status);
+        for (ProgramScheduleRecord record : store.findSchedules(triggerKey)) {
+          modified.add(record.getSchedule().getScheduleId());
+        }
+      }
+      // the jobs of the modified schedules are obsolete, as for any other modification of a schedule
+      long deleteTime = System.currentTimeMillis();
+      for (ScheduleId scheduleId : modified) {
+        queue.markJobsForDeletion(scheduleId, deleteTime);
+      }
       List<ProgramSchedule> deletedSchedules = store.modifySchedulesTriggeredByDeletedProgram(programId);
       deletedSchedules.forEach(adminEventPublisher::publishScheduleDeletion);
-      return null;
+      return modified;
     }, RuntimeException.class);
   }
 
@@ -527,7 +547,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public Collection<ProgramScheduleRecord> findSchedules(String triggerKey) {
     checkStarted();
-    return execute(store -> store.findSchedules(triggerKey), RuntimeException.class);
+    return execute(store -> triggerIndex.findSchedules(store, triggerKey), RuntimeException.class);
   }
 
   @Override
@@ -535,14 +555,14 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
     throws ConflictException {
     checkStarted();
     try {
-      execute((StoreTxRunnable<Void, Exception>) store -> {
+      updateSchedules((store, queue, profileDataset) -> {
         List<ProgramSchedule> schedules = store.listSchedulesSuspended(namespaceId, startTimeMillis, endTimeMillis);
         List<ScheduleId> scheduleIds =
           schedules.stream().map(schedule -> schedule.getScheduleId()).collect(Collectors.toList());
         for (ScheduleId scheduleId : scheduleIds) {
           enableScheduleInternal(store, scheduleId);
         }
-        return null;
+        return scheduleIds;
       }, Exception.class);
     } catch (ConflictException e) {
       throw e;
@@ -602,16 +622,35 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
     store.updateScheduleStatus(scheduleId, ProgramScheduleStatus.SCHEDULED);
   }
 
-  private interface StoreTxRunnable<V, T extends Throwable> {
-    V run(ProgramScheduleStoreDataset store) throws T;
-  }
-
-  private interface StoreAndQueueTxRunnable<V, T extends Throwable> {
-    V run(ProgramScheduleStoreDataset store, JobQueueTable jobQueue) throws T;
+  /**
+   * Runs a modification of the schedules in a transaction, and updates the {@link ScheduleTriggerIndex} with the
+   * schedules changed by it. The given runnable returns the ids of the schedules that it added, modified or deleted.
+   */
+  private <T extends Exception> void updateSchedules(
+    StoreQueueAndProfileTxRunnable<Collection<ScheduleId>, ? extends Exception> runnable,
+    Class<? extends T> tClass) throws T {
+    Map<ScheduleId, ProgramScheduleRecord> changes = null;
+    triggerIndex.startUpdate();
+    try {
+      changes = execute((store, queue, profileStore) -> {
+        // read the changed schedules in the same transaction, so that they are what gets committed
+        Map<ScheduleId, ProgramScheduleRecord> result = new HashMap<>();
+        for (ScheduleId scheduleId : runnable.run(store, queue, profileStore)) {
+          try {
+            result.put(scheduleId, store.getScheduleRecord(scheduleId));
+          } catch (NotFoundException e) {
+            result.put(scheduleId, null);
+          }
+        }
+        return result;
+      }, tClass);
+    } finally {
+      triggerIndex.endUpdate(changes);
+    }
   }
 
-  private interface StoreAndProfileTxRunnable<V, T extends Throwable> {
-    V run(ProgramScheduleStoreDataset store, ProfileStore profileStore) throws T;
+  private interface StoreTxRunnable<V, T extends Throwable> {
+    V run(ProgramScheduleStoreDataset store) throws T;
   }
 
   private interface StoreQueueAndProfileTxRunnable<V, T extends Throwable> {
@@ -626,27 +665,6 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
     }, tClass);
   }
 
-  @SuppressWarnings("UnusedReturnValue")
-  private <V, T extends Exception> V execute(StoreAndQueueTxRunnable<V, ? extends Exception> runnable,
-                                             Class<? extends T> tClass) throws T {
-    return TransactionRunners.run(transactionRunner, context -> {
-      ProgramScheduleStoreDataset store = Schedulers.getScheduleStore(context);
-      JobQueueTable queue = JobQueueTable.getJobQueue(context, cConf);
-      return runnable.run(store, queue);
-    }, tClass);
-  }
-
-  @SuppressWarnings({"UnusedReturnValue", "SameParameterValue"})
-  private <V, T extends Exception> V execute(StoreAndProfileTxRunnable<V, ? extends Exception> runnable,
-                                             Class<? extends T> tClass) throws T {
-    return TransactionRunners.run(transactionRunner, context -> {
-      ProgramScheduleStoreDataset store = Schedulers.getScheduleStore(context);
-      ProfileStore profileStore = ProfileStore.get(context);
-      return runnable.run(store, profileStore);
-    }, tClass);
-  }
-
-  @SuppressWarnings("UnusedReturnValue")
   private <V, T extends Exception> V execute(StoreQueueAndProfileTxRunnable<V, ? extends Exception> runnable,
                                              Class<? extends T> tClass) throws T {
     return TransactionRunners.run(transactionRunner, context -> {
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.scheduler;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.Service;
@@ -30,6 +31,7 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
 import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
@@ -68,16 +70,18 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final MetricsCollectionService metricsCollectionService;
+  private final ScheduleTriggerIndex triggerIndex;
   private final List<Service> subscriberServices;
   private ScheduledExecutorService subscriberExecutor;
 
   @Inject
   ScheduleNotificationSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
-                                        TransactionRunner transactionRunner) {
+                                        TransactionRunner transactionRunner, ScheduleTriggerIndex triggerIndex) {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.metricsCollectionService = metricsCollectionService;
+    this.triggerIndex = triggerIndex;
     this.subscriberServices = Arrays.asList(new SchedulerEventSubscriberService(transactionRunner),
                                             new DataEventSubscriberService(transactionRunner),
                                             new ProgramStatusEventSubscriberService(transactionRunner));
@@ -114,6 +118,38 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     LOG.info("Stopped {}", getClass().getSimpleName());
   }
 
+  /**
+   * Adds the {@link Notification} to the job queue for all active schedules that are triggered by the given
+   * trigger key. Schedules are looked up from the {@link ScheduleTriggerIndex}. A schedule is only read from the
+   * store if the notification cannot be added to a pending job created for the indexed version of the schedule.
+   */
+  @VisibleForTesting
+  void addNotification(ProgramScheduleStoreDataset scheduleStore, JobQueueTable jobQueue,
+                       String triggerKey, Notification notification) throws IOException {
+    for (ProgramScheduleRecord indexed : triggerIndex.findSchedules(scheduleStore, triggerKey)) {
+      // the job queue only adds the notification if the schedule is enabled
+      if (indexed.getMeta().getStatus() != ProgramScheduleStatus.SCHEDULED) {
+        continue;
+      }
+      ScheduleId scheduleId = indexed.getSchedule().getScheduleId();
+      if (jobQueue.addNotificationToPendingJob(scheduleId, indexed.getMeta().getLastUpdated(), notification)) {
+        continue;
+      }
+      // a new job has to be created, which must be for the current version of the schedule
+      ProgramScheduleRecord record;
+      try {
+        record = scheduleStore.getScheduleRecord(scheduleId);
+      } catch (NotFoundException e) {
+        LOG.debug("Ignore schedule {} that no longer exists for notification {}", scheduleId, notification);
+        continue;
+      }
+      if (!ProgramScheduleStoreDataset.extractTriggerKeys(record.getSchedule()).contains(triggerKey)) {
+        continue;
+      }
+      jobQueue.addNotification(record, notification);
+    }
+  }
+
   /**
    * Abstract base class for implementing job queue logic for various kind of notifications.
    * No transactions should be started in any of the overrided methods since they are already wrapped in a transaction.
@@ -229,10 +265,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         return;
       }
       DatasetId datasetId = DatasetId.fromString(datasetIdString);
-      for (ProgramScheduleRecord schedule :
-        scheduleStore.findSchedules(Schedulers.triggerKeyForPartition(datasetId))) {
-        jobQueue.addNotification(schedule, notification);
-      }
+      addNotification(scheduleStore, jobQueue, Schedulers.triggerKeyForPartition(datasetId), notification);
     }
   }
 
@@ -270,9 +303,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       ProgramId programId = programRunId.getParent();
       String triggerKeyForProgramStatus = Schedulers.triggerKeyForProgramStatus(programId, programStatus);
 
-      for (ProgramScheduleRecord schedule : scheduleStore.findSchedules(triggerKeyForProgramStatus)) {
-        jobQueue.addNotification(schedule, notification);
-      }
+      addNotification(scheduleStore, jobQueue, triggerKeyForProgramStatus, notification);
     }
   }
 }
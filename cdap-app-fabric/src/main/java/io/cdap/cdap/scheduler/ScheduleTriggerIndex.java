@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
+import io.cdap.cdap.proto.id.ScheduleId;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory index from trigger key to the schedules that are triggered by it. It replaces the scan of the
+ * trigger table in the {@link ProgramScheduleStoreDataset} for every event received by the scheduler.
+ *
+ * The index is loaded from the schedule store on the first lookup. Every modification of the schedules has to be
+ * surrounded by {@link #startUpdate()} and {@link #endUpdate(Map)}. While a modification is in progress, lookups
+ * are served from the schedule store, so that they are never older than the transaction of the caller. Once the
+ * modification is committed, the changed schedules are applied to the index.
+ *
+ * Modifications made by other processes are not seen by the index until it is reloaded, which happens once it is
+ * older than {@link Constants.Scheduler#TRIGGER_INDEX_REFRESH_SECONDS}.
+ */
+@Singleton
+class ScheduleTriggerIndex {
+
+  private final TransactionRunner transactionRunner;
+  private final long refreshMillis;
+  // Both guarded by the lock of this object
+  private Index index;
+  private long generation;
+  private int pendingUpdates;
+
+  @Inject
+  ScheduleTriggerIndex(CConfiguration cConf, TransactionRunner transactionRunner) {
+    this.transactionRunner = transactionRunner;
+    this.refreshMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Scheduler.TRIGGER_INDEX_REFRESH_SECONDS));
+  }
+
+  /**
+   * Finds all schedules that have a trigger with the given trigger key.
+   *
+   * @param store the schedule store in the transaction of the caller, used while schedules are being modified
+   * @param triggerKey the trigger key to look up
+   * @return a collection of all schedules that are triggered by this key; never null
+   * @throws IOException if failed to read from the schedule store
+   */
+  Collection<ProgramScheduleRecord> findSchedules(ProgramScheduleStoreDataset store,
+                                                  String triggerKey) throws IOException {
+    Index current;
+    long loadGeneration;
+    boolean updating;
+    synchronized (this) {
+      current = index;
+      loadGeneration = generation;
+      updating = pendingUpdates > 0;
+    }
+    if (updating) {
+      return store.findSchedules(triggerKey);
+    }
+    if (current == null || System.currentTimeMillis() - current.loadTime >= refreshMillis) {
+      // Load in a new transaction, which starts after the generation is read. If the schedules got modified
+      // after that, the generation will be different and the loaded index will only be used for this lookup.
+      current = TransactionRunners.run(transactionRunner, context -> {
+        return new Index(Schedulers.getScheduleStore(context).listScheduleRecords());
+      }, IOException.class);
+      synchronized (this) {
+        if (generation == loadGeneration && pendingUpdates == 0) {
+          index = current;
+        }
+      }
+    }
+    return current.findSchedules(triggerKey);
+  }
+
+  /**
+   * Marks the start of a modification of the schedules. It must be called before the transaction of the
+   * modification starts.
+   */
+  synchronized void startUpdate() {
+    generation++;
+    pendingUpdates++;
+  }
+
+  /**
+   * Marks the end of a modification of the schedules. It must be called after the transaction of the modification
+   * completed, whether it succeeded or not.
+   *
+   * @param changes the records of the schedules changed by the committed modification, with a {@code null} record
+   *                for schedules that got deleted; or {@code null} if it is not known what has been committed,
+   *                in which case the index will be reloaded on the next lookup
+   */
+  synchronized void endUpdate(@Nullable Map<ScheduleId, ProgramScheduleRecord> changes) {
+    generation++;
+    pendingUpdates--;
+    if (index == null) {
+      return;
+    }
+    if (changes == null) {
+      index = null;
+      return;
+    }
+    for (Map.Entry<ScheduleId, ProgramScheduleRecord> change : changes.entrySet()) {
+      index.update(change.getKey(), change.getValue());
+    }
+  }
+
+  /**
+   * The schedule records by trigger key and by schedule id.
+   */
+  private static final class Index {
+    private final Map<String, List<ProgramScheduleRecord>> byTriggerKey;
+    private final Map<ScheduleId, ProgramScheduleRecord> byScheduleId;
+    private final long loadTime;
+
+    Index(Collection<ProgramScheduleRecord> records) {
+      this.loadTime = System.currentTimeMillis();
+      this.byTriggerKey = new HashMap<>();
+      this.byScheduleId = new HashMap<>();
+      for (ProgramScheduleRecord record : records) {
+        add(record);
+      }
+    }
+
+    synchronized Collection<ProgramScheduleRecord> findSchedules(String triggerKey) {
+      return new ArrayList<>(byTriggerKey.getOrDefault(triggerKey, Collections.emptyList()));
+    }
+
+    synchronized void update(ScheduleId scheduleId, @Nullable ProgramScheduleRecord record) {
+      ProgramScheduleRecord previous = byScheduleId.remove(scheduleId);
+      if (previous != null) {
+        for (String triggerKey : ProgramScheduleStoreDataset.extractTriggerKeys(previous.getSchedule())) {
+          List<ProgramScheduleRecord> records = byTriggerKey.get(triggerKey);
+          records.removeIf(r -> r.getSchedule().getScheduleId().equals(scheduleId));
+          if (records.isEmpty()) {
+            byTriggerKey.remove(triggerKey);
+          }
+        }
+      }
+      if (record != null) {
+        add(record);
+      }
+    }
+
+    private void add(ProgramScheduleRecord record) {
+      byScheduleId.put(record.getSchedule().getScheduleId(), record);
+      for (String triggerKey : ProgramScheduleStoreDataset.extractTriggerKeys(record.getSchedule())) {
+        byTriggerKey.computeIfAbsent(triggerKey, k -> new ArrayList<>()).add(record);
+      }
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.artifact;
+
+import io.cdap.cdap.common.io.Locations;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache.UnpackedArtifact;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Unit tests for {@link ArtifactUnpackCache}.
+ */
+public class ArtifactUnpackCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final int CONTENT_SIZE = 1000;
+
+  @Test
+  public void testSharedUnpack() throws IOException {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TMP_FOLDER.newFolder(), 10 * CONTENT_SIZE);
+
+    // The same artifact at different locations should be expanded only once
+    Location artifact = createArtifact("a");
+    File copyFile = TMP_FOLDER.newFile("copy.jar");
+    Files.copy(new File(artifact.toURI()).toPath(), copyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    Location copy = Locations.toLocation(copyFile);
+
+    try (UnpackedArtifact first = cache.unpack(artifact); UnpackedArtifact second = cache.unpack(copy)) {
+      Assert.assertEquals(first.getDirectory(), second.getDirectory());
+      Assert.assertEquals("a", new String(Files.readAllBytes(new File(first.getDirectory(), "content").toPath()),
+                                          StandardCharsets.UTF_8).substring(0, 1));
+      Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+    }
+
+    // The directory is kept after being released, since the cache is within budget
+    try (UnpackedArtifact unpacked = cache.unpack(artifact)) {
+      Assert.assertTrue(unpacked.getDirectory().isDirectory());
+      Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+    }
+
+    // A directory removed from outside of the cache should be expanded again
+    UnpackedArtifact unpacked = cache.unpack(artifact);
+    File dir = unpacked.getDirectory();
+    unpacked.close();
+    DirUtils.deleteDirectoryContents(dir);
+    try (UnpackedArtifact expanded = cache.unpack(artifact)) {
+      Assert.assertNotEquals(dir, expanded.getDirectory());
+      Assert.assertTrue(new File(expanded.getDirectory(), "content").isFile());
+      Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+    }
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    // Only two artifacts fit in the cache
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TMP_FOLDER.newFolder(), 2 * CONTENT_SIZE);
+    Location artifactA = createArtifact("a");
+    Location artifactB = createArtifact("b");
+    Location artifactC = createArtifact("c");
+
+    File dirA;
+    File dirB;
+    try (UnpackedArtifact unpacked = cache.unpack(artifactA)) {
+      dirA = unpacked.getDirectory();
+    }
+    try (UnpackedArtifact unpacked = cache.unpack(artifactB)) {
+      dirB = unpacked.getDirectory();
+    }
+    // Use A again, so that B is the least recently used
+    try (UnpackedArtifact unpacked = cache.unpack(artifactA)) {
+      Assert.assertEquals(dirA, unpacked.getDirectory());
+    }
+
+    UnpackedArtifact unpackedA = cache.unpack(artifactA);
+    UnpackedArtifact unpackedC = cache.unpack(artifactC);
+    Assert.assertEquals(2 * CONTENT_SIZE, cache.getSize());
+    Assert.assertTrue(dirA.isDirectory());
+    Assert.assertFalse(dirB.exists());
+    Assert.assertTrue(unpackedC.getDirectory().isDirectory());
+
+    // Directories in use are never evicted, even if the cache is over budget
+    UnpackedArtifact unpackedB = cache.unpack(artifactB);
+    Assert.assertEquals(3 * CONTENT_SIZE, cache.getSize());
+    dirB = unpackedB.getDirectory();
+    Assert.assertTrue(dirB.isDirectory());
+
+    // Once released, B is the only one that can be evicted
+    unpackedB.close();
+    Assert.assertEquals(2 * CONTENT_SIZE, cache.getSize());
+    Assert.assertFalse(dirB.exists());
+
+    // Closing again should have no effect
+    unpackedB.close();
+    unpackedA.close();
+    unpackedC.close();
+    Assert.assertEquals(2 * CONTENT_SIZE, cache.getSize());
+    Assert.assertTrue(dirA.isDirectory());
+    Assert.assertTrue(unpackedC.getDirectory().isDirectory());
+  }
+
+  @Test
+  public void testNoCache() throws IOException {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TMP_FOLDER.newFolder(), 0);
+    Location artifact = createArtifact("a");
+
+    UnpackedArtifact unpacked = cache.unpack(artifact);
+    Assert.assertTrue(unpacked.getDirectory().isDirectory());
+    unpacked.close();
+
+    // Without a budget, directories are deleted as soon as they are released
+    Assert.assertFalse(unpacked.getDirectory().exists());
+    Assert.assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void testDeleteWhenUnreferenced() throws IOException {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TMP_FOLDER.newFolder(), 0);
+    Location artifact = createArtifact("a");
+
+    UnpackedArtifact first = cache.unpack(artifact);
+    UnpackedArtifact second = cache.unpack(artifact);
+    File dir = first.getDirectory();
+    Assert.assertEquals(dir, second.getDirectory());
+
+    // The directory is only deleted once the last reference is released
+    first.close();
+    first.close();
+    Assert.assertTrue(dir.isDirectory());
+    Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+
+    second.close();
+    Assert.assertFalse(dir.exists());
+    Assert.assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void testReleaseAfterRemoval() throws IOException {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TMP_FOLDER.newFolder(), CONTENT_SIZE);
+    Location artifactA = createArtifact("a");
+    Location artifactB = createArtifact("b");
+
+    // The directory of A is removed from outside of the cache while it is still referenced
+    UnpackedArtifact staleA = cache.unpack(artifactA);
+    DirUtils.deleteDirectoryContents(staleA.getDirectory());
+    UnpackedArtifact unpackedA = cache.unpack(artifactA);
+    Assert.assertNotEquals(staleA.getDirectory(), unpackedA.getDirectory());
+    Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+
+    // Releasing the removed entry doesn't affect the size of the cache or the new directory
+    staleA.close();
+    Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+    Assert.assertTrue(unpackedA.getDirectory().isDirectory());
+
+    // Once released, the new directory of A is evicted for B as usual
+    unpackedA.close();
+    try (UnpackedArtifact unpackedB = cache.unpack(artifactB)) {
+      Assert.assertTrue(unpackedB.getDirectory().isDirectory());
+      Assert.assertFalse(unpackedA.getDirectory().exists());
+      Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+    }
+
+    // Releasing an evicted artifact again has no effect
+    unpackedA.close();
+    Assert.assertEquals(CONTENT_SIZE, cache.getSize());
+  }
+
+  @Test
+  public void testConcurrentUnpack() throws Exception {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TMP_FOLDER.newFolder(), 0);
+    Location artifact = createArtifact("a");
+
+    int threads = 8;
+    CyclicBarrier acquired = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<File>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          try (UnpackedArtifact unpacked = cache.unpack(artifact)) {
+            // Hold the directory until every thread has acquired it
+            acquired.await();
+            Assert.assertTrue(new File(unpacked.getDirectory(), "content").isFile());
+            return unpacked.getDirectory();
+          }
+        }));
+      }
+
+      // All threads share a single expanded directory
+      Set<File> dirs = new HashSet<>();
+      for (Future<File> future : futures) {
+        dirs.add(future.get(30, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(1, dirs.size());
+
+      // It is deleted after the last thread released it
+      Assert.assertFalse(dirs.iterator().next().exists());
+      Assert.assertEquals(0, cache.getSize());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates an artifact jar with a single entry of {@link #CONTENT_SIZE} bytes filled with the given character.
+   */
+  private Location createArtifact(String character) throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < CONTENT_SIZE; i++) {
+      content.append(character);
+    }
+    File file = new File(TMP_FOLDER.newFolder(), character + ".jar");
+    try (JarOutputStream jarOutput = new JarOutputStream(new FileOutputStream(file))) {
+      jarOutput.putNextEntry(new JarEntry("content"));
+      jarOutput.write(content.toString().getBytes(StandardCharsets.UTF_8));
+      jarOutput.closeEntry();
+    }
+    return Locations.toLocation(file);
+  }
+}
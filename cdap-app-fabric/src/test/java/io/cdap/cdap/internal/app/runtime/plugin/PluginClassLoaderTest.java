@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.plugin;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.lang.CombineClassLoader;
+import io.cdap.cdap.internal.app.runtime.ProgramClassLoader;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests for {@link CombineClassLoader} delegating to {@link ProgramClassLoader} and {@link PluginClassLoader}.
+ */
+public class PluginClassLoaderTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testCombineProgramAndPlugin() throws Exception {
+    // The program has its classes in the directory, the plugin in a jar of the lib directory
+    File programDir = TEMP_FOLDER.newFolder();
+    writeFile(new File(programDir, "program/ProgramClass.class"), generateClass("program.ProgramClass"));
+    writeFile(new File(programDir, "program/program.txt"), Bytes.toBytes("program"));
+    writeFile(new File(programDir, "shared/SharedClass.class"), generateClass("shared.SharedClass"));
+
+    File pluginDir = TEMP_FOLDER.newFolder();
+    File pluginJar = new File(pluginDir, "lib/plugin.jar");
+    Files.createParentDirs(pluginJar);
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(pluginJar))) {
+      addJarEntry(output, "plugin/PluginClass.class", generateClass("plugin.PluginClass"));
+      addJarEntry(output, "plugin/plugin.txt", Bytes.toBytes("plugin"));
+      addJarEntry(output, "shared/SharedClass.class", generateClass("shared.SharedClass"));
+      // A class that can also be loaded from the parent ClassLoader
+      addJarEntry(output, "org/junit/Assert.class", generateClass("org.junit.Assert"));
+    }
+
+    CountingClassLoader parent = new CountingClassLoader(getClass().getClassLoader());
+    AtomicInteger programFinds = new AtomicInteger();
+    ProgramClassLoader programClassLoader = new ProgramClassLoader(CConfiguration.create(), programDir, parent) {
+      @Override
+      protected Class<?> findClass(String name) throws ClassNotFoundException {
+        programFinds.incrementAndGet();
+        return super.findClass(name);
+      }
+    };
+    AtomicInteger pluginFinds = new AtomicInteger();
+    ArtifactId artifactId = new ArtifactId("plugin", new ArtifactVersion("1.0.0"), ArtifactScope.USER);
+    PluginClassLoader pluginClassLoader = new PluginClassLoader(artifactId, pluginDir, parent) {
+      @Override
+      protected Class<?> findClass(String name) throws ClassNotFoundException {
+        pluginFinds.incrementAndGet();
+        return super.findClass(name);
+      }
+    };
+
+    ClassLoader classLoader = new CombineClassLoader(null, programClassLoader, pluginClassLoader);
+
+    // Only the plugin ClassLoader searches its own URLs for the plugin class
+    Assert.assertSame(pluginClassLoader, classLoader.loadClass("plugin.PluginClass").getClassLoader());
+    Assert.assertEquals(0, programFinds.get());
+    Assert.assertEquals(1, pluginFinds.get());
+
+    // Only the program ClassLoader searches its own URLs for the program class
+    Assert.assertSame(programClassLoader, classLoader.loadClass("program.ProgramClass").getClassLoader());
+    Assert.assertEquals(1, programFinds.get());
+    Assert.assertEquals(1, pluginFinds.get());
+
+    // A class in neither ClassLoader is loaded from the common parent, which is consulted once
+    int parentLoads = parent.getLoadCount();
+    Assert.assertSame(Test.class, classLoader.loadClass(Test.class.getName()));
+    Assert.assertEquals(parentLoads + 1, parent.getLoadCount());
+    Assert.assertEquals(1, programFinds.get());
+    Assert.assertEquals(1, pluginFinds.get());
+
+    // Delegation order is kept. The parent of the program ClassLoader is consulted before the plugin ClassLoader,
+    // and the program ClassLoader is used before the plugin ClassLoader
+    Assert.assertSame(Assert.class, classLoader.loadClass(Assert.class.getName()));
+    Assert.assertSame(programClassLoader, classLoader.loadClass("shared.SharedClass").getClassLoader());
+    Assert.assertSame(programClassLoader,
+                      new CombineClassLoader(null, programClassLoader, pluginClassLoader)
+                        .loadClass("shared.SharedClass").getClassLoader());
+    Assert.assertSame(pluginClassLoader,
+                      new CombineClassLoader(null, pluginClassLoader, programClassLoader)
+                        .loadClass("shared.SharedClass").getClassLoader());
+
+    // Resources are looked up the same way
+    Assert.assertEquals("plugin", readResource(classLoader, "plugin/plugin.txt"));
+    Assert.assertEquals("program", readResource(classLoader, "program/program.txt"));
+    Assert.assertNull(classLoader.getResource("plugin/missing.txt"));
+
+    // A class added to the program directory after it was indexed can still be loaded
+    writeFile(new File(programDir, "added/AddedClass.class"), generateClass("added.AddedClass"));
+    Assert.assertSame(programClassLoader, classLoader.loadClass("added.AddedClass").getClassLoader());
+
+    try {
+      classLoader.loadClass("plugin.MissingClass");
+      Assert.fail("Expected ClassNotFoundException");
+    } catch (ClassNotFoundException e) {
+      // Expected
+    }
+  }
+
+  private static byte[] generateClass(String className) {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, className.replace('.', '/'), null, "java/lang/Object", null);
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  private static void writeFile(File file, byte[] content) throws IOException {
+    Files.createParentDirs(file);
+    Files.write(content, file);
+  }
+
+  private static void addJarEntry(JarOutputStream output, String name, byte[] content) throws IOException {
+    output.putNextEntry(new JarEntry(name));
+    output.write(content);
+    output.closeEntry();
+  }
+
+  private static String readResource(ClassLoader classLoader, String name) throws IOException {
+    try (InputStream is = classLoader.getResourceAsStream(name)) {
+      return Bytes.toString(ByteStreams.toByteArray(is));
+    }
+  }
+
+  /**
+   * A {@link ClassLoader} that counts the number of classes looked up through it.
+   */
+  private static final class CountingClassLoader extends ClassLoader {
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    CountingClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      loadCount.incrementAndGet();
+      return super.loadClass(name, resolve);
+    }
+
+    int getLoadCount() {
+      return loadCount.get();
+    }
+  }
+}
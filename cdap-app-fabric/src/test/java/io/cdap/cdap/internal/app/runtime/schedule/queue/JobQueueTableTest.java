@@ -51,8 +51,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -411,6 +413,47 @@ public abstract class JobQueueTableTest {
     Assert.assertTrue(activeJobs <= 1);
   }
 
+  @Test
+  public void testMarkJobsForDeletion() {
+    long markedTime = System.currentTimeMillis();
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, getCConf());
+      Assert.assertEquals(0, getAllJobs(jobQueue, true).size());
+
+      // a job that is already marked for deletion is written together with its delete marker
+      SimpleJob deletedJob = new SimpleJob(SCHED1, 0, System.currentTimeMillis(), Lists.newArrayList(),
+                                           Job.State.PENDING_TRIGGER, 0L);
+      deletedJob.setToBeDeleted(markedTime - 1000);
+      jobQueue.put(deletedJob);
+      for (int generationId = 1; generationId <= 3; generationId++) {
+        jobQueue.put(new SimpleJob(SCHED1, generationId, System.currentTimeMillis(), Lists.newArrayList(),
+                                   Job.State.PENDING_TRIGGER, 0L));
+      }
+      // jobs pending launch are not marked for deletion
+      jobQueue.put(new SimpleJob(SCHED1, 4, System.currentTimeMillis(), Lists.newArrayList(),
+                                 Job.State.PENDING_LAUNCH, 0L));
+      jobQueue.put(SCHED2_JOB);
+
+      jobQueue.markJobsForDeletion(SCHED1.getScheduleId(), markedTime);
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, getCConf());
+      Map<Integer, Long> deleteTimes = new HashMap<>();
+      for (Job job : toSet(jobQueue.getJobsForSchedule(SCHED1.getScheduleId()), true)) {
+        deleteTimes.put(job.getGenerationId(), job.getDeleteTimeMillis());
+      }
+      Map<Integer, Long> expected = new HashMap<>();
+      expected.put(0, markedTime - 1000);
+      expected.put(1, markedTime);
+      expected.put(2, markedTime);
+      expected.put(3, markedTime);
+      expected.put(4, null);
+      Assert.assertEquals(expected, deleteTimes);
+      Assert.assertEquals(ImmutableSet.of(SCHED2_JOB), toSet(jobQueue.getJobsForSchedule(SCHED2.getScheduleId())));
+    });
+  }
+
   @Test
   public void testJobTimeout() {
     TransactionRunners.run(transactionRunner, context -> {
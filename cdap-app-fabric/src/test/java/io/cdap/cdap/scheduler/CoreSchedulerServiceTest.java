@@ -18,7 +18,9 @@ package io.cdap.cdap.scheduler;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Service;
 import com.google.gson.Gson;
@@ -56,10 +58,13 @@ import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
 import io.cdap.cdap.internal.app.runtime.schedule.TriggeringScheduleInfoAdapter;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
+import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.PartitionTrigger;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.TimeTrigger;
 import io.cdap.cdap.internal.app.services.http.AppFabricTestBase;
@@ -86,8 +91,12 @@ import io.cdap.cdap.proto.id.ScheduleId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.proto.id.WorkflowId;
 import io.cdap.cdap.proto.profile.Profile;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.StructuredTableContext;
+import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
 import io.cdap.cdap.test.XSlowTests;
 import io.cdap.common.http.HttpResponse;
 import org.junit.AfterClass;
@@ -98,10 +107,14 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.TemporaryFolder;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 public class CoreSchedulerServiceTest extends AppFabricTestBase {
@@ -255,6 +268,123 @@ public class CoreSchedulerServiceTest extends AppFabricTestBase {
     Assert.assertEquals(ImmutableList.of(psched2), scheduler.listSchedules(PROG2_ID));
   }
 
+  @Test
+  public void testFindSchedules() throws Exception {
+    String ds1TriggerKey = Schedulers.triggerKeyForPartition(NS_ID.dataset("findds1"));
+    String ds2TriggerKey = Schedulers.triggerKeyForPartition(NS_ID.dataset("findds2"));
+    Assert.assertTrue(scheduler.findSchedules(ds1TriggerKey).isEmpty());
+
+    // the trigger index must reflect additions, status changes, updates and deletions of schedules
+    ScheduleId scheduleId = APP2_ID.schedule("findsched");
+    ProgramSchedule sched = new ProgramSchedule("findsched", "partition schedule", PROG2_ID, ImmutableMap.of(),
+                                                new PartitionTrigger(NS_ID.dataset("findds1"), 1),
+                                                Collections.emptyList());
+    scheduler.addSchedule(sched);
+    ProgramScheduleRecord record = Iterables.getOnlyElement(scheduler.findSchedules(ds1TriggerKey));
+    Assert.assertEquals(sched, record.getSchedule());
+    Assert.assertEquals(ProgramScheduleStatus.SUSPENDED, record.getMeta().getStatus());
+
+    scheduler.enableSchedule(scheduleId);
+    record = Iterables.getOnlyElement(scheduler.findSchedules(ds1TriggerKey));
+    Assert.assertEquals(ProgramScheduleStatus.SCHEDULED, record.getMeta().getStatus());
+
+    ProgramSchedule updated = new ProgramSchedule("findsched", "partition schedule", PROG2_ID, ImmutableMap.of(),
+                                                  new PartitionTrigger(NS_ID.dataset("findds2"), 1),
+                                                  Collections.emptyList());
+    scheduler.updateSchedule(updated);
+    Assert.assertTrue(scheduler.findSchedules(ds1TriggerKey).isEmpty());
+    Assert.assertEquals(updated, Iterables.getOnlyElement(scheduler.findSchedules(ds2TriggerKey)).getSchedule());
+
+    scheduler.deleteSchedule(scheduleId);
+    Assert.assertTrue(scheduler.findSchedules(ds2TriggerKey).isEmpty());
+  }
+
+  @Test
+  public void testFindSchedulesDuringUpdate() throws Exception {
+    ScheduleTriggerIndex triggerIndex = getInjector().getInstance(ScheduleTriggerIndex.class);
+    String triggerKey = Schedulers.triggerKeyForPartition(NS_ID.dataset("updateds"));
+    Assert.assertTrue(scheduler.findSchedules(triggerKey).isEmpty());
+
+    // a schedule committed before the index is updated should already be found
+    ProgramSchedule sched = new ProgramSchedule("updatesched", "partition schedule", PROG2_ID, ImmutableMap.of(),
+                                                new PartitionTrigger(NS_ID.dataset("updateds"), 1),
+                                                Collections.emptyList());
+    triggerIndex.startUpdate();
+    ProgramScheduleRecord record = TransactionRunners.run(transactionRunner, context -> {
+      ProgramScheduleStoreDataset scheduleStore = Schedulers.getScheduleStore(context);
+      scheduleStore.addSchedules(Collections.singleton(sched));
+      return scheduleStore.getScheduleRecord(sched.getScheduleId());
+    }, Exception.class);
+    Assert.assertEquals(record, Iterables.getOnlyElement(scheduler.findSchedules(triggerKey)));
+
+    triggerIndex.endUpdate(Collections.singletonMap(sched.getScheduleId(), record));
+    Assert.assertEquals(record, Iterables.getOnlyElement(scheduler.findSchedules(triggerKey)));
+
+    scheduler.deleteSchedule(sched.getScheduleId());
+    Assert.assertTrue(scheduler.findSchedules(triggerKey).isEmpty());
+  }
+
+  @Test
+  public void testScheduleStoreReadsPerNotification() throws Exception {
+    ScheduleNotificationSubscriberService subscriberService =
+      getInjector().getInstance(ScheduleNotificationSubscriberService.class);
+    DatasetId datasetId = NS_ID.dataset("readsds");
+    String triggerKey = Schedulers.triggerKeyForPartition(datasetId);
+    ProgramSchedule sched = new ProgramSchedule("readsched", "partition schedule", PROG2_ID, ImmutableMap.of(),
+                                                new PartitionTrigger(datasetId, 4), Collections.emptyList());
+    scheduler.addSchedule(sched);
+    scheduler.enableSchedule(sched.getScheduleId());
+    // load the trigger index
+    Assert.assertEquals(1, scheduler.findSchedules(triggerKey).size());
+
+    Notification notification = Notification.forPartitions(
+      datasetId, ImmutableList.of(PartitionKey.builder().addIntField("part1", 1).build()));
+    AtomicInteger scheduleStoreReads = new AtomicInteger();
+    int jobCreationReads = 0;
+    Set<StructuredTableId> scheduleTables = ImmutableSet.of(StoreDefinition.ProgramScheduleStore.PROGRAM_SCHEDULE_TABLE,
+                                                            StoreDefinition.ProgramScheduleStore.PROGRAM_TRIGGER_TABLE);
+    for (int i = 0; i < 3; i++) {
+      TransactionRunners.run(transactionRunner, context -> {
+        // count the calls to the tables of the schedule store
+        StructuredTableContext countingContext = tableId -> {
+          StructuredTable table = context.getTable(tableId);
+          if (!scheduleTables.contains(tableId)) {
+            return table;
+          }
+          return (StructuredTable) Proxy.newProxyInstance(
+            StructuredTable.class.getClassLoader(), new Class<?>[] { StructuredTable.class }, (proxy, method, args) -> {
+              scheduleStoreReads.incrementAndGet();
+              try {
+                return method.invoke(table, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+        };
+        subscriberService.addNotification(Schedulers.getScheduleStore(countingContext),
+                                          JobQueueTable.getJobQueue(context, cConf), triggerKey, notification);
+      }, Exception.class);
+      // only the notification that creates the job needs to read the schedule
+      if (i == 0) {
+        jobCreationReads = scheduleStoreReads.get();
+        Assert.assertTrue(jobCreationReads > 0);
+      }
+      Assert.assertEquals(jobCreationReads, scheduleStoreReads.get());
+    }
+
+    // all notifications are added to the same job
+    Job job = TransactionRunners.run(transactionRunner, context -> {
+      try (CloseableIterator<Job> jobs = JobQueueTable.getJobQueue(context, cConf)
+        .getJobsForSchedule(sched.getScheduleId())) {
+        return Iterators.getOnlyElement(jobs);
+      }
+    }, Exception.class);
+    Assert.assertEquals(3, job.getNotifications().size());
+    Assert.assertEquals(Job.State.PENDING_TRIGGER, job.getState());
+
+    scheduler.deleteSchedule(sched.getScheduleId());
+  }
+
   private static void verifyNotFound(Scheduler scheduler, ScheduleId scheduleId) {
     try {
       scheduler.getSchedule(scheduleId);
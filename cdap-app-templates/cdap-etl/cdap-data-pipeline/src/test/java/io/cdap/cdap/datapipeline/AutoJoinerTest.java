@@ -355,6 +355,93 @@ public class AutoJoinerTest extends HydratorTestBase {
     testSimpleAutoJoinSkewed(Collections.singletonList("interests"), expected, Engine.MAPREDUCE);
   }
 
+  @Test
+  public void testAutoJoinHotKeys() throws Exception {
+    testAutoJoinHotKeys(Engine.SPARK);
+    testAutoJoinHotKeys(Engine.MAPREDUCE);
+  }
+
+  private void testAutoJoinHotKeys(Engine engine) throws Exception {
+    /*
+         users ------|
+                     |--> join --> sink
+         interests --|
+
+         joinOn: users.region = interests.region and users.user_id = interests.user_id
+
+         Synthetic skewed data, where almost all interests belong to alice, so only her key should be distributed.
+     */
+    String userInput = UUID.randomUUID().toString();
+    String interestInput = UUID.randomUUID().toString();
+    String output = UUID.randomUUID().toString();
+    ETLBatchConfig config = ETLBatchConfig.builder()
+      .addStage(new ETLStage("users", MockSource.getPlugin(userInput, USER_SCHEMA)))
+      .addStage(new ETLStage("interests", MockSource.getPlugin(interestInput, INTEREST_SCHEMA)))
+      .addStage(new ETLStage("join", MockAutoJoiner.getPlugin(Arrays.asList("interests", "users"),
+                                                              Arrays.asList("region", "user_id"),
+                                                              Arrays.asList("interests", "users"),
+                                                              Collections.emptyList(), true,
+                                                              new JoinDistribution(4, "interests", 0.5d))))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(output)))
+      .addConnection("users", "join")
+      .addConnection("interests", "join")
+      .addConnection("join", "sink")
+      .setEngine(engine)
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, config);
+    ApplicationId appId = NamespaceId.DEFAULT.app(UUID.randomUUID().toString());
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    // write input data
+    List<StructuredRecord> userData = Arrays.asList(USER_ALICE, USER_BOB, USER_JOHN);
+    DataSetManager<Table> inputManager = getDataset(userInput);
+    MockSource.writeInput(inputManager, userData);
+
+    Schema expectedSchema = Schema.recordOf("interests.users",
+                                            Schema.Field.of("interests_region", Schema.of(Schema.Type.STRING)),
+                                            Schema.Field.of("interests_user_id", Schema.of(Schema.Type.INT)),
+                                            Schema.Field.of("interests_interest", Schema.of(Schema.Type.STRING)),
+                                            Schema.Field.of("users_region", Schema.of(Schema.Type.STRING)),
+                                            Schema.Field.of("users_user_id", Schema.of(Schema.Type.INT)),
+                                            Schema.Field.of("users_name", Schema.of(Schema.Type.STRING)));
+    List<StructuredRecord> interestData = new ArrayList<>();
+    Set<StructuredRecord> expected = new HashSet<>();
+    for (int i = 0; i < 2000; i++) {
+      int userId = i % 1000 == 0 ? 1 : 0;
+      String interest = "interest" + i;
+      interestData.add(StructuredRecord.builder(INTEREST_SCHEMA)
+                         .set("region", "us")
+                         .set("interest", interest)
+                         .set("user_id", userId).build());
+      expected.add(StructuredRecord.builder(expectedSchema)
+                     .set("interests_region", "us")
+                     .set("interests_interest", interest)
+                     .set("interests_user_id", userId)
+                     .set("users_region", "us")
+                     .set("users_user_id", userId)
+                     .set("users_name", userId == 0 ? "alice" : "bob").build());
+    }
+    inputManager = getDataset(interestInput);
+    MockSource.writeInput(inputManager, interestData);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    Map<String, String> args = Collections.singletonMap(MockAutoJoiner.PARTITIONS_ARGUMENT, "4");
+    workflowManager.startAndWaitForRun(args, ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    DataSetManager<Table> outputManager = getDataset(output);
+    List<StructuredRecord> outputRecords = MockSink.readOutput(outputManager);
+
+    Assert.assertEquals(expected.size(), outputRecords.size());
+    Assert.assertEquals(expected, new HashSet<>(outputRecords));
+
+    // sampling the hot keys must not compute the join inputs a second time
+    validateMetric(3, appId, "users.records.out");
+    validateMetric(2000, appId, "interests.records.out");
+    validateMetric(2003, appId, "join.records.in");
+    validateMetric(expected.size(), appId, "join.records.out");
+  }
+
   @Test
   public void testAutoLeftOuterJoin() throws Exception {
     Schema expectedSchema = Schema.recordOf(
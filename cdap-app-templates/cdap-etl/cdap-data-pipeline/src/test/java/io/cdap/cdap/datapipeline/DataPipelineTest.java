@@ -96,6 +96,7 @@ import io.cdap.cdap.etl.mock.transform.FilterErrorTransform;
 import io.cdap.cdap.etl.mock.transform.FlattenErrorTransform;
 import io.cdap.cdap.etl.mock.transform.IdentityTransform;
 import io.cdap.cdap.etl.mock.transform.IntValueFilterTransform;
+import io.cdap.cdap.etl.mock.transform.JsonParseTransform;
 import io.cdap.cdap.etl.mock.transform.NullFieldSplitterTransform;
 import io.cdap.cdap.etl.mock.transform.SleepTransform;
 import io.cdap.cdap.etl.mock.transform.StringValueFilterTransform;
@@ -2883,6 +2884,57 @@ public class DataPipelineTest extends HydratorTestBase {
     }
   }
 
+  @Test
+  public void testMapReduceReusedSourceObjects() throws Exception {
+    testReusedSourceObjects(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkReusedSourceObjects() throws Exception {
+    testReusedSourceObjects(Engine.SPARK);
+  }
+
+  /**
+   * Tests a pipeline whose source emits the Text objects that the input format reuses for every value it reads,
+   * which must not be buffered by the stages after it.
+   */
+  private void testReusedSourceObjects(Engine engine) throws Exception {
+    Schema schema = Schema.recordOf("testRecord", Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+    Set<StructuredRecord> allInput = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      allInput.add(StructuredRecord.builder(schema).set("name", "name" + i).build());
+    }
+    File inputDir = TMP_FOLDER.newFolder("reused-input-" + engine);
+    MockExternalSource.writeInput(new File(inputDir, "input.txt").getAbsolutePath(), allInput);
+
+    for (boolean consolidate : new boolean[] { true, false }) {
+      String suffix = engine + "-" + consolidate;
+      File outputDir = new File(TMP_FOLDER.newFolder("reused-output-" + suffix), "output");
+      ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+        .setEngine(engine)
+        .addStage(new ETLStage("source", MockExternalSource.getPlugin("reusedInput-" + suffix,
+                                                                      inputDir.getAbsolutePath(), true)))
+        .addStage(new ETLStage("parse", JsonParseTransform.getPlugin()))
+        .addStage(new ETLStage("sink", MockExternalSink.getPlugin(null, "dir", outputDir.getAbsolutePath())))
+        .addConnection("source", "parse")
+        .addConnection("parse", "sink")
+        .build();
+
+      AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+      ApplicationId appId = NamespaceId.DEFAULT.app("ReusedSourceObjectsApp-" + suffix);
+      ApplicationManager appManager = deployApplication(appId, appRequest);
+
+      Map<String, String> args = Collections.singletonMap(io.cdap.cdap.etl.common.Constants.CONSOLIDATE_STAGES,
+                                                          String.valueOf(consolidate));
+      WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+      workflowManager.startAndWaitForRun(args, ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+      List<StructuredRecord> output = MockExternalSink.readOutput(outputDir.getAbsolutePath(), schema);
+      Assert.assertEquals(allInput.size(), output.size());
+      Assert.assertEquals(allInput, new HashSet<>(output));
+    }
+  }
+
   @Test
   public void testMacrosMapReducePipeline() throws Exception {
     /*
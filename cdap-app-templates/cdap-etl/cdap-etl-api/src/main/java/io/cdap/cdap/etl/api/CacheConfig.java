@@ -22,10 +22,21 @@ package io.cdap.cdap.etl.api;
 public final class CacheConfig {
   private final long expirySeconds;
   private final int maxSize;
+  private final boolean preload;
 
-  public CacheConfig(long expirySeconds, int maxSize) {
+  /**
+   * @param expirySeconds expiry after write in seconds, or zero for no expiry
+   * @param maxSize maximum number of elements in the cache, or zero for the default maximum
+   * @param preload true if the cache should be loaded with the content of the table when it is created
+   */
+  public CacheConfig(long expirySeconds, int maxSize, boolean preload) {
     this.expirySeconds = expirySeconds;
     this.maxSize = maxSize;
+    this.preload = preload;
+  }
+
+  public CacheConfig(long expirySeconds, int maxSize) {
+    this(expirySeconds, maxSize, false);
   }
 
   public CacheConfig() {
@@ -45,4 +56,12 @@ public final class CacheConfig {
   public int getMaxSize() {
     return maxSize;
   }
+
+  /**
+   * @return true if the cache should be loaded with the content of the table, up to the maximum size,
+   *         when it is created
+   */
+  public boolean isPreload() {
+    return preload;
+  }
 }
@@ -29,4 +29,19 @@ public interface LookupProvider {
    * @return a {@link Lookup} instance
    */
   <T> Lookup<T> provide(String table, Map<String, String> arguments);
+
+  /**
+   * Provides a {@link Lookup} that honors the given {@link LookupTableConfig}. If caching is enabled in the config,
+   * lookups are served from a cache configured by the {@link CacheConfig}. Implementations that don't support
+   * caching return the same {@link Lookup} as {@link #provide(String, Map)}.
+   *
+   * @param table the name of the {@link Lookup} table
+   * @param arguments arguments for initializing the {@link Lookup} table
+   * @param config configuration of the {@link Lookup} table
+   * @param <T> the type of value returned by the {@link Lookup}
+   * @return a {@link Lookup} instance
+   */
+  default <T> Lookup<T> provide(String table, Map<String, String> arguments, LookupTableConfig config) {
+    return provide(table, arguments);
+  }
 }
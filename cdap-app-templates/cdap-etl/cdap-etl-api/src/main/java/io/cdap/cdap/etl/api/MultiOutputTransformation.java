@@ -35,4 +35,19 @@ public interface MultiOutputTransformation<IN, E> {
    * @throws Exception if there's an error during this method invocation
    */
   void transform(IN input, MultiOutputEmitter<E> emitter) throws Exception;
+
+  /**
+   * Transform a batch of inputs and emit output using {@link MultiOutputEmitter}. The default implementation calls
+   * {@link #transform(Object, MultiOutputEmitter)} for each input. Implementations can override it to amortize
+   * per-call overhead over the whole batch. The inputs must be iterated over at most once.
+   *
+   * @param inputs batch of input data to be transformed
+   * @param emitter {@link MultiOutputEmitter} to emit data to the next stage
+   * @throws Exception if there's an error during this method invocation
+   */
+  default void transformBatch(Iterable<IN> inputs, MultiOutputEmitter<E> emitter) throws Exception {
+    for (IN input : inputs) {
+      transform(input, emitter);
+    }
+  }
 }
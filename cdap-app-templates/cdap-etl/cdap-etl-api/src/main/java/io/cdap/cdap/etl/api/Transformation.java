@@ -35,4 +35,19 @@ public interface Transformation<IN, OUT> {
    * @throws Exception if there's an error during this method invocation
    */
   void transform(IN input, Emitter<OUT> emitter) throws Exception;
+
+  /**
+   * Transform a batch of inputs and emit output using {@link Emitter}. The default implementation calls
+   * {@link #transform(Object, Emitter)} for each input. Implementations can override it to amortize per-call
+   * overhead over the whole batch. The inputs must be iterated over at most once.
+   *
+   * @param inputs batch of input data to be transformed
+   * @param emitter {@link Emitter} to emit data to the next stage
+   * @throws Exception if there's an error during this method invocation
+   */
+  default void transformBatch(Iterable<IN> inputs, Emitter<OUT> emitter) throws Exception {
+    for (IN input : inputs) {
+      transform(input, emitter);
+    }
+  }
 }
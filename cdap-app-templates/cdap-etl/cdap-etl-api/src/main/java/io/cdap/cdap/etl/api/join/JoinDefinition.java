@@ -146,6 +146,25 @@ public class JoinDefinition {
       return this;
     }
 
+    /**
+     * Set the distribution factor and stage name of the skewed stage, only distributing the hot keys of the skewed
+     * stage. The keys of the skewed stage are sampled before the join, and only the keys that make up at least the
+     * given fraction of the sampled records are salted. Only the records of the other stage that match those keys
+     * grow by the distribution factor. If no key is hot enough, the join is performed without distribution.
+     * Engines that cannot sample the data before the join distribute all keys.
+     *
+     * @param size      The number of distributions to split each hot key into
+     * @param stageName The name of the input stage that contains the skewed data, this stage must be marked as
+     *                  "required"
+     * @param hotKeyThreshold The minimum fraction of the sampled records of the skewed stage that a key must make up
+     *                        in order to be distributed, in the range (0, 1]
+     * @return this builder
+     */
+    public Builder setDistributionFactor(int size, String stageName, double hotKeyThreshold) {
+      this.distribution = new JoinDistribution(size, stageName, hotKeyThreshold);
+      return this;
+    }
+
     /**
      * Set the output schema for the join. This should only be set if the input JoinStages do not contain known
      * schemas. The most common scenario here is when the input schemas are not known when the pipeline is deployed
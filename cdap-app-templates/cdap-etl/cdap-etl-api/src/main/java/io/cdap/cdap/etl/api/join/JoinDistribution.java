@@ -24,18 +24,30 @@ import io.cdap.cdap.etl.api.join.error.JoinError;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /**
- * Join distribution settings for salting/exploding datasets to resolve skew
+ * Join distribution settings for salting/exploding datasets to resolve skew.
+ *
+ * By default, every key of the skewed stage is salted and every record of the other stage is exploded.
+ * If a hot key threshold is set, the join keys of the skewed stage are sampled first and only the keys that make up
+ * at least that fraction of the sampled records are salted, so only the records of the other stage that match those
+ * keys are exploded. If no key is hot enough, the join is performed without any salting.
  */
 public class JoinDistribution {
 
   private final int distributionFactor;
   private final String skewedStageName;
+  private final Double hotKeyThreshold;
 
   public JoinDistribution(Integer distributionFactor, String skewedStageName) {
+    this(distributionFactor, skewedStageName, null);
+  }
+
+  public JoinDistribution(Integer distributionFactor, String skewedStageName, @Nullable Double hotKeyThreshold) {
     this.distributionFactor = distributionFactor;
     this.skewedStageName = skewedStageName;
+    this.hotKeyThreshold = hotKeyThreshold;
   }
 
   public int getDistributionFactor() {
@@ -46,6 +58,15 @@ public class JoinDistribution {
     return skewedStageName;
   }
 
+  /**
+   * @return the minimum fraction of the skewed stage records that a key must make up in order to be salted,
+   *   or null if all keys should be salted
+   */
+  @Nullable
+  public Double getHotKeyThreshold() {
+    return hotKeyThreshold;
+  }
+
   public Collection<JoinError> validate(List<JoinStage> stages) {
     List<JoinError> errors = new ArrayList<>();
 
@@ -61,6 +82,10 @@ public class JoinDistribution {
       errors.add(new DistributionSizeError("Distribution size must be greater than 0"));
     }
 
+    if (hotKeyThreshold != null && (hotKeyThreshold <= 0 || hotKeyThreshold > 1)) {
+      errors.add(new DistributionSizeError("Distribution hot key threshold must be greater than 0 and at most 1"));
+    }
+
     //If skewedStageName does not match any of the names in stages
     JoinStage leftStage = stages.stream().filter(s -> s.getStageName().equals(skewedStageName)).findFirst()
       .orElse(null);
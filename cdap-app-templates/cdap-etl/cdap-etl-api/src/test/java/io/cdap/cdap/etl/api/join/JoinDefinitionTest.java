@@ -250,6 +250,39 @@ public class JoinDefinitionTest {
     }
   }
 
+  @Test
+  public void testDistributionHotKeyThreshold() {
+    JoinStage purchases = JoinStage.builder("purchases", PURCHASE_SCHEMA).build();
+    JoinStage users = JoinStage.builder("users", USER_SCHEMA).build();
+    JoinCondition condition = JoinCondition.onKeys()
+      .addKey(new JoinKey("purchases", Collections.singletonList("user_id")))
+      .addKey(new JoinKey("users", Collections.singletonList("id")))
+      .build();
+
+    JoinDefinition definition = JoinDefinition.builder()
+      .select(new JoinField("purchases", "id"), new JoinField("users", "id", "user_id"))
+      .from(purchases, users)
+      .on(condition)
+      .setDistributionFactor(4, "purchases", 0.1d)
+      .build();
+    Assert.assertEquals(0.1d, definition.getDistribution().getHotKeyThreshold(), 0d);
+
+    try {
+      JoinDefinition.builder()
+        .select(new JoinField("purchases", "id"), new JoinField("users", "id", "user_id"))
+        .from(purchases, users)
+        .on(condition)
+        .setDistributionFactor(4, "purchases", 1.5d)
+        .build();
+      Assert.fail("Invalid hot key threshold did not fail as expected");
+    } catch (InvalidJoinException e) {
+      // expected
+      Collection<JoinError> errors = e.getErrors();
+      Assert.assertEquals(1, errors.size());
+      Assert.assertEquals(JoinError.Type.DISTRIBUTION_SIZE, errors.iterator().next().getType());
+    }
+  }
+
   @Test
   public void testJoinKeyMissingFieldThrowsException() {
     JoinStage purchases = JoinStage.builder("purchases", PURCHASE_SCHEMA).build();
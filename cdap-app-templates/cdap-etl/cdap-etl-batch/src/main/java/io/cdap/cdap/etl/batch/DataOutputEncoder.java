@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.Encoder;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Encoder} for writing data to a {@link DataOutput}. Integral values are written as variable length
+ * integers.
+ */
+final class DataOutputEncoder implements Encoder {
+
+  private final DataOutput output;
+
+  DataOutputEncoder(DataOutput output) {
+    this.output = output;
+  }
+
+  @Override
+  public Encoder writeNull() {
+    return this;
+  }
+
+  @Override
+  public Encoder writeBool(boolean b) throws IOException {
+    output.writeBoolean(b);
+    return this;
+  }
+
+  @Override
+  public Encoder writeInt(int i) throws IOException {
+    WritableUtils.writeVInt(output, i);
+    return this;
+  }
+
+  @Override
+  public Encoder writeLong(long l) throws IOException {
+    WritableUtils.writeVLong(output, l);
+    return this;
+  }
+
+  @Override
+  public Encoder writeFloat(float f) throws IOException {
+    output.writeFloat(f);
+    return this;
+  }
+
+  @Override
+  public Encoder writeDouble(double d) throws IOException {
+    output.writeDouble(d);
+    return this;
+  }
+
+  @Override
+  public Encoder writeString(String s) throws IOException {
+    Text.writeString(output, s);
+    return this;
+  }
+
+  @Override
+  public Encoder writeBytes(byte[] bytes) throws IOException {
+    return writeBytes(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public Encoder writeBytes(byte[] bytes, int off, int len) throws IOException {
+    WritableUtils.writeVInt(output, len);
+    output.write(bytes, off, len);
+    return this;
+  }
+
+  @Override
+  public Encoder writeBytes(ByteBuffer bytes) throws IOException {
+    return writeBytes(Bytes.getBytes(bytes));
+  }
+}
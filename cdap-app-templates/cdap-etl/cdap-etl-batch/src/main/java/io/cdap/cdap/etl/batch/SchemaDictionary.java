@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.conf.Configuration;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A dictionary of the {@link Schema Schemas} known to all tasks of a MapReduce job. Schemas are registered in the
+ * job {@link Configuration} when the job is configured, so that the {@link StructuredRecordWritable} can refer
+ * to a registered schema with its id instead of serializing the full schema with every record.
+ */
+public final class SchemaDictionary {
+
+  public static final String SCHEMAS_KEY = "cdap.etl.structured.record.schemas";
+
+  private static final Gson GSON = new Gson();
+  private static final Type LIST_TYPE = new TypeToken<List<String>>() { }.getType();
+
+  // Cache the last dictionary so that it is not parsed again for every Writable created by Hadoop
+  private static volatile SchemaDictionary lastDictionary;
+
+  private final String serialized;
+  private final List<Schema> schemas;
+  private final Map<Schema, Integer> schemaIds;
+
+  /**
+   * Registers the given schemas in the given {@link Configuration}. Schemas registered before are replaced.
+   */
+  public static void register(Configuration conf, Collection<Schema> schemas) {
+    List<String> serialized = new ArrayList<>();
+    for (Schema schema : new LinkedHashSet<>(schemas)) {
+      serialized.add(schema.toString());
+    }
+    conf.set(SCHEMAS_KEY, GSON.toJson(serialized));
+  }
+
+  /**
+   * Returns the {@link SchemaDictionary} registered in the given {@link Configuration}, or {@code null}
+   * if there is no schema registered.
+   */
+  @Nullable
+  public static SchemaDictionary get(Configuration conf) throws IOException {
+    String serialized = conf.get(SCHEMAS_KEY);
+    if (serialized == null) {
+      return null;
+    }
+    SchemaDictionary dictionary = lastDictionary;
+    if (dictionary != null && dictionary.serialized.equals(serialized)) {
+      return dictionary;
+    }
+    List<Schema> schemas = new ArrayList<>();
+    for (String schema : GSON.<List<String>>fromJson(serialized, LIST_TYPE)) {
+      schemas.add(Schema.parseJson(schema));
+    }
+    dictionary = new SchemaDictionary(serialized, schemas);
+    lastDictionary = dictionary;
+    return dictionary;
+  }
+
+  private SchemaDictionary(String serialized, List<Schema> schemas) {
+    this.serialized = serialized;
+    this.schemas = schemas;
+    this.schemaIds = new HashMap<>();
+    for (int i = 0; i < schemas.size(); i++) {
+      schemaIds.put(schemas.get(i), i);
+    }
+  }
+
+  /**
+   * Returns the id of the given schema, or {@code -1} if the schema is not in this dictionary.
+   */
+  int getId(Schema schema) {
+    Integer id = schemaIds.get(schema);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the schema of the given id.
+   *
+   * @throws IOException if there is no schema with the given id
+   */
+  Schema getSchema(int id) throws IOException {
+    if (id < 0 || id >= schemas.size()) {
+      throw new IOException("Schema id " + id + " is not found in the schema dictionary");
+    }
+    return schemas.get(id);
+  }
+}
@@ -20,8 +20,12 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.common.record.StructuredRecordComparator;
-import io.cdap.cdap.format.StructuredRecordStringConverter;
+import io.cdap.cdap.format.io.StructuredRecordDatumReader;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -33,13 +37,21 @@ import java.util.TreeMap;
 
 /**
  * Wrapper around a {@link StructuredRecord} so that it can be used as the output key and/or value of a mapper.
- * This is not very performant and must be improved soon (CDAP-5347).
+ * The record is written in binary form. If a {@link Configuration} with a {@link SchemaDictionary} is set,
+ * records of a schema in the dictionary are written with the schema id instead of the full schema.
  */
-public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable> {
+public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable>, Configurable {
   // schema cache so that we do not parse schema string for each incoming record
   private static final Map<byte[], Schema> schemaCache = new TreeMap<>(Bytes.BYTES_COMPARATOR);
   private static final Comparator<StructuredRecord> COMPARATOR = new StructuredRecordComparator();
+  private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
+  private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
+  // Ids written in front of the record. Non-negative values are ids in the schema dictionary.
+  private static final int INLINE_SCHEMA = -1;
+
   private StructuredRecord record;
+  private Configuration conf;
+  private SchemaDictionary schemaDictionary;
 
   // required by Hadoop
   @SuppressWarnings("unused")
@@ -58,38 +70,40 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     return record;
   }
 
-  @SuppressWarnings("ConstantConditions")
   @Override
-  public void write(DataOutput out) throws IOException {
-    byte[] schemaBytes = Bytes.toBytes(record.getSchema().toString());
-    out.writeInt(schemaBytes.length);
-    out.write(schemaBytes);
-
-    byte[] recordBytes = Bytes.toBytes(StructuredRecordStringConverter.toJsonString(record));
-    out.writeInt(recordBytes.length);
-    out.write(recordBytes);
+  public void setConf(Configuration conf) {
+    this.conf = conf;
+    try {
+      this.schemaDictionary = SchemaDictionary.get(conf);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to parse the schema dictionary", e);
+    }
   }
 
   @Override
-  public void readFields(DataInput in) throws IOException {
-    int schemaLen = in.readInt();
-    byte[] schemaBytes = new byte[schemaLen];
-    in.readFully(schemaBytes, 0, schemaLen);
+  public Configuration getConf() {
+    return conf;
+  }
 
-    Schema schema;
-    if (schemaCache.containsKey(schemaBytes)) {
-      schema = schemaCache.get(schemaBytes);
-    } else {
-      String schemaStr = Bytes.toString(schemaBytes);
-      schema = Schema.parseJson(schemaStr);
-      schemaCache.put(schemaBytes, schema);
+  @SuppressWarnings("ConstantConditions")
+  @Override
+  public void write(DataOutput out) throws IOException {
+    Schema schema = record.getSchema();
+    int schemaId = schemaDictionary == null ? INLINE_SCHEMA : schemaDictionary.getId(schema);
+    WritableUtils.writeVInt(out, schemaId);
+    if (schemaId == INLINE_SCHEMA) {
+      byte[] schemaBytes = Bytes.toBytes(schema.toString());
+      WritableUtils.writeVInt(out, schemaBytes.length);
+      out.write(schemaBytes);
     }
+    DATUM_WRITER.encode(record, new DataOutputEncoder(out));
+  }
 
-    int recordLen = in.readInt();
-    byte[] recordBytes = new byte[recordLen];
-    in.readFully(recordBytes, 0, recordLen);
-    String recordStr = Bytes.toString(recordBytes);
-    this.record = StructuredRecordStringConverter.fromJsonString(recordStr, schema);
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    int schemaId = WritableUtils.readVInt(in);
+    Schema schema = schemaId == INLINE_SCHEMA ? readSchema(in) : getSchemaDictionary().getSchema(schemaId);
+    this.record = DATUM_READER.read(new DataInputDecoder(in), schema);
   }
 
   @Override
@@ -115,4 +129,27 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
   public int hashCode() {
     return record != null ? record.hashCode() : 0;
   }
+
+  private SchemaDictionary getSchemaDictionary() throws IOException {
+    if (schemaDictionary == null) {
+      throw new IOException("Record is written with a schema id, but there is no schema dictionary configured");
+    }
+    return schemaDictionary;
+  }
+
+  private static Schema readSchema(DataInput in) throws IOException {
+    int schemaLen = WritableUtils.readVInt(in);
+    byte[] schemaBytes = new byte[schemaLen];
+    in.readFully(schemaBytes, 0, schemaLen);
+
+    Schema schema;
+    if (schemaCache.containsKey(schemaBytes)) {
+      schema = schemaCache.get(schemaBytes);
+    } else {
+      String schemaStr = Bytes.toString(schemaBytes);
+      schema = Schema.parseJson(schemaStr);
+      schemaCache.put(schemaBytes, schema);
+    }
+    return schema;
+  }
 }
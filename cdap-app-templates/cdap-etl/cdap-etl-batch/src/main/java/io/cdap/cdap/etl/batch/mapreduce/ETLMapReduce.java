@@ -36,6 +36,7 @@ import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.batch.BatchPhaseSpec;
+import io.cdap.cdap.etl.batch.SchemaDictionary;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
 import io.cdap.cdap.etl.common.FieldOperationTypeAdapter;
@@ -56,11 +57,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -179,6 +182,13 @@ public class ETLMapReduce extends AbstractMapReduce {
       job.setNumReduceTasks(0);
     } else {
       job.setReducerClass(ETLReducer.class);
+      // The records shuffled to the reducer are the input records of the reducer stage. Register their schemas
+      // so that the schema is not serialized with every record.
+      List<Schema> shuffleSchemas = new ArrayList<>();
+      for (StageSpec reducer : reducers) {
+        reducer.getInputSchemas().values().stream().filter(Objects::nonNull).forEach(shuffleSchemas::add);
+      }
+      SchemaDictionary.register(hConf, shuffleSchemas);
     }
 
     // instantiate plugins and call their prepare methods
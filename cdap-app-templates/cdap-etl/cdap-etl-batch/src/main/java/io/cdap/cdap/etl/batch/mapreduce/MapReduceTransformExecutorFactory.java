@@ -70,6 +70,7 @@ import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.ReflectionUtils;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -91,6 +92,7 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
   private final BasicArguments arguments;
   private final OutputWriter<Object, Object> outputWriter;
   private final boolean isMapPhase;
+  private final Configuration hConf;
 
   public MapReduceTransformExecutorFactory(MapReduceTaskContext taskContext,
                                            PipelinePluginInstantiator pluginInstantiator,
@@ -104,7 +106,7 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
           metrics, sourceStageName, collectStageStatistics);
     this.taskContext = taskContext;
     JobContext hadoopContext = (JobContext) taskContext.getHadoopContext();
-    Configuration hConf = hadoopContext.getConfiguration();
+    this.hConf = hadoopContext.getConfiguration();
     this.mapOutputKeyClassName = hConf.get(ETLMapReduce.MAP_KEY_CLASS);
     this.mapOutputValClassName = hConf.get(ETLMapReduce.MAP_VAL_CLASS);
     this.isMapPhase = hadoopContext instanceof Mapper.Context;
@@ -166,7 +168,7 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
       batchAggregator.initialize(runtimeContext);
       if (isMapPhase) {
         return getTrackedEmitKeyStep(new MapperAggregatorTransformation(batchAggregator, mapOutputKeyClassName,
-                                                                        mapOutputValClassName),
+                                                                        mapOutputValClassName, hConf),
                                      stageMetrics, getDataTracer(stageName), collector);
       } else {
         return getTrackedAggregateStep(new ReducerAggregatorTransformation(batchAggregator,
@@ -206,7 +208,7 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
       if (isMapPhase) {
         return getTrackedEmitKeyStep(
           new MapperJoinerTransformation(batchJoiner, mapOutputKeyClassName,
-                                         mapOutputValClassName, filterNullKeyStages),
+                                         mapOutputValClassName, filterNullKeyStages, hConf),
           stageMetrics,
           getDataTracer(stageName), collector);
       } else {
@@ -260,10 +262,12 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     private final WritableConversion<JOIN_KEY, OUT_KEY> keyConversion;
     private final WritableConversion<INPUT_RECORD, OUT_VALUE> inputConversion;
     private final BiPredicate<String, JOIN_KEY> shouldFilter;
+    private final Configuration hConf;
 
     MapperJoinerTransformation(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, String joinKeyClassName,
-                               String joinInputClassName, Set<String> filterNullKeyStages) {
+                               String joinInputClassName, Set<String> filterNullKeyStages, Configuration hConf) {
       this.joiner = joiner;
+      this.hConf = hConf;
       WritableConversion<JOIN_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(joinKeyClassName);
       WritableConversion<INPUT_RECORD, OUT_VALUE> inputConversion =
         WritableConversions.getConversion(joinInputClassName);
@@ -315,8 +319,10 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
         if (shouldFilter.test(stageName, key)) {
           continue;
         }
-        TaggedWritable<OUT_VALUE> output = new TaggedWritable<>(stageName,
-                                                                inputConversion.toWritable(input.getValue()));
+        // Only the value is configured, since keys are deserialized without the Configuration for sorting
+        OUT_VALUE value = inputConversion.toWritable(input.getValue());
+        ReflectionUtils.setConf(value, hConf);
+        TaggedWritable<OUT_VALUE> output = new TaggedWritable<>(stageName, value);
 
         emitter.emit(new KeyValue<>(keyConversion.toWritable(key), output));
       }
@@ -386,11 +392,14 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     private final NoErrorEmitter<GROUP_KEY> groupKeyEmitter;
     private final WritableConversion<GROUP_KEY, OUT_KEY> keyConversion;
     private final WritableConversion<GROUP_VAL, OUT_VAL> valConversion;
+    private final Configuration hConf;
 
     MapperAggregatorTransformation(Aggregator<GROUP_KEY, GROUP_VAL, ?> aggregator,
                                    String groupKeyClassName,
-                                   String groupValClassName) {
+                                   String groupValClassName,
+                                   Configuration hConf) {
       this.aggregator = aggregator;
+      this.hConf = hConf;
       this.groupKeyEmitter =
         new NoErrorEmitter<>("Errors and Alerts cannot be emitted from the groupBy method of an aggregator");
       WritableConversion<GROUP_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
@@ -404,8 +413,11 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
     public void transform(GROUP_VAL input, Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter) throws Exception {
       groupKeyEmitter.reset();
       aggregator.groupBy(input, groupKeyEmitter);
+      // Only the value is configured, since keys are deserialized without the Configuration for sorting
+      OUT_VAL value = valConversion.toWritable(input);
+      ReflectionUtils.setConf(value, hConf);
       for (GROUP_KEY groupKey : groupKeyEmitter.getEntries()) {
-        emitter.emit(new KeyValue<>(keyConversion.toWritable(groupKey), valConversion.toWritable(input)));
+        emitter.emit(new KeyValue<>(keyConversion.toWritable(groupKey), value));
       }
     }
   }
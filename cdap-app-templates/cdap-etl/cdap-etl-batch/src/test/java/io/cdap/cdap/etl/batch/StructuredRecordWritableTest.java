@@ -18,6 +18,8 @@ package io.cdap.cdap.etl.batch;
 
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -28,6 +30,9 @@ import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  */
@@ -52,6 +57,104 @@ public class StructuredRecordWritableTest {
     Assert.assertEquals(writableIn.get(), record);
   }
 
+  @Test
+  public void testSchemaDictionary() throws IOException {
+    // a wide schema, typical for records shuffled by joiners and aggregators
+    List<Schema.Field> fields = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      switch (i % 5) {
+        case 0:
+          fields.add(Schema.Field.of("int_field_" + i, Schema.of(Schema.Type.INT)));
+          break;
+        case 1:
+          fields.add(Schema.Field.of("long_field_" + i, Schema.of(Schema.Type.LONG)));
+          break;
+        case 2:
+          fields.add(Schema.Field.of("double_field_" + i, Schema.of(Schema.Type.DOUBLE)));
+          break;
+        case 3:
+          fields.add(Schema.Field.of("boolean_field_" + i, Schema.of(Schema.Type.BOOLEAN)));
+          break;
+        default:
+          fields.add(Schema.Field.of("string_field_" + i, Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+      }
+    }
+    Schema schema = Schema.recordOf("wide", fields);
+
+    List<StructuredRecord> records = new ArrayList<>();
+    for (int r = 0; r < 100; r++) {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (int i = 0; i < 50; i++) {
+        switch (i % 5) {
+          case 0:
+            builder.set("int_field_" + i, r * i);
+            break;
+          case 1:
+            builder.set("long_field_" + i, (long) r * i);
+            break;
+          case 2:
+            builder.set("double_field_" + i, r / (i + 1.0d));
+            break;
+          case 3:
+            builder.set("boolean_field_" + i, r % 2 == 0);
+            break;
+          default:
+            builder.set("string_field_" + i, r % 3 == 0 ? null : "value" + r);
+        }
+      }
+      records.add(builder.build());
+    }
+
+    Configuration conf = new Configuration(false);
+    SchemaDictionary.register(conf, Collections.singletonList(schema));
+
+    byte[] inlineBytes = writeRecords(records, null);
+    byte[] dictionaryBytes = writeRecords(records, conf);
+    // Without the schema in front of every record, the serialized size is a fraction of it
+    Assert.assertTrue(dictionaryBytes.length * 5 < inlineBytes.length);
+
+    Assert.assertEquals(records, readRecords(inlineBytes, records.size(), null));
+    Assert.assertEquals(records, readRecords(inlineBytes, records.size(), conf));
+    Assert.assertEquals(records, readRecords(dictionaryBytes, records.size(), conf));
+
+    // Records written with a schema id cannot be read without the dictionary
+    try {
+      readRecords(dictionaryBytes, 1, null);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // expected
+    }
+
+    // Records of schemas not in the dictionary are written with the schema
+    Schema otherSchema = Schema.recordOf("other", Schema.Field.of("x", Schema.of(Schema.Type.STRING)));
+    List<StructuredRecord> otherRecords = Collections.singletonList(
+      StructuredRecord.builder(otherSchema).set("x", "y").build());
+    Assert.assertEquals(otherRecords, readRecords(writeRecords(otherRecords, conf), 1, null));
+  }
+
+  private byte[] writeRecords(List<StructuredRecord> records, Configuration conf) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    DataOutput output = new DataOutputStream(os);
+    for (StructuredRecord record : records) {
+      StructuredRecordWritable writable = new StructuredRecordWritable(record);
+      ReflectionUtils.setConf(writable, conf);
+      writable.write(output);
+    }
+    return os.toByteArray();
+  }
+
+  private List<StructuredRecord> readRecords(byte[] bytes, int count, Configuration conf) throws IOException {
+    DataInput input = new DataInputStream(new ByteArrayInputStream(bytes));
+    List<StructuredRecord> records = new ArrayList<>();
+    StructuredRecordWritable writable = new StructuredRecordWritable();
+    ReflectionUtils.setConf(writable, conf);
+    for (int i = 0; i < count; i++) {
+      writable.readFields(input);
+      records.add(writable.get());
+    }
+    return records;
+  }
+
   @Test
   public void testComparison() {
     Schema schema = Schema.recordOf("l", Schema.Field.of("l", Schema.of(Schema.Type.LONG)));
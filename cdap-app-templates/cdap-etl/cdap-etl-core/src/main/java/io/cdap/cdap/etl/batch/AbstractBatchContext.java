@@ -26,6 +26,7 @@ import io.cdap.cdap.etl.api.batch.BatchContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.common.AbstractTransformContext;
 import io.cdap.cdap.etl.common.DatasetContextLookupProvider;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.common.PipelineRuntime;
 import io.cdap.cdap.etl.common.plugin.Caller;
 import io.cdap.cdap.etl.common.plugin.NoStageLoggingCaller;
@@ -47,7 +48,8 @@ public abstract class AbstractBatchContext extends AbstractTransformContext impl
 
   protected AbstractBatchContext(PipelineRuntime pipelineRuntime, StageSpec stageSpec,
                                  DatasetContext datasetContext, Admin admin) {
-    super(pipelineRuntime, stageSpec, new DatasetContextLookupProvider(datasetContext));
+    super(pipelineRuntime, stageSpec, new DatasetContextLookupProvider(
+      datasetContext, new DefaultStageMetrics(pipelineRuntime.getMetrics(), stageSpec.getName())));
     this.datasetContext = datasetContext;
     this.admin = admin;
     this.fieldOperations = new ArrayList<>();
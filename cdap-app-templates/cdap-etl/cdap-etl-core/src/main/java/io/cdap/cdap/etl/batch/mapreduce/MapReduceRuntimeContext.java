@@ -23,6 +23,7 @@ import io.cdap.cdap.etl.api.batch.BatchJoinerRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.common.AbstractTransformContext;
 import io.cdap.cdap.etl.common.DatasetContextLookupProvider;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.common.PipelineRuntime;
 import io.cdap.cdap.etl.common.plugin.Caller;
 import io.cdap.cdap.etl.common.plugin.NoStageLoggingCaller;
@@ -43,7 +44,8 @@ public class MapReduceRuntimeContext extends AbstractTransformContext
   private final MapReduceTaskContext context;
 
   public MapReduceRuntimeContext(MapReduceTaskContext context, PipelineRuntime pipelineRuntime, StageSpec stageSpec) {
-    super(pipelineRuntime, stageSpec, new DatasetContextLookupProvider(context));
+    super(pipelineRuntime, stageSpec, new DatasetContextLookupProvider(
+      context, new DefaultStageMetrics(pipelineRuntime.getMetrics(), stageSpec.getName())));
     this.context = context;
   }
 
@@ -41,6 +41,11 @@ public class MapReduceStageStatisticsCollector implements StageStatisticsCollect
     context.getCounter(Constants.StageStatistics.PREFIX, inputRecordCountKey).increment(1);
   }
 
+  @Override
+  public void incrementInputRecordCount(int count) {
+    context.getCounter(Constants.StageStatistics.PREFIX, inputRecordCountKey).increment(count);
+  }
+
   @Override
   public void incrementOutputRecordCount() {
     context.getCounter(Constants.StageStatistics.PREFIX, outputRecordCountKey).increment(1);
@@ -16,21 +16,64 @@
 
 package io.cdap.cdap.etl.common;
 
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.Dataset;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.api.dataset.lib.KeyValueTable;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.etl.api.Lookup;
 import io.cdap.cdap.etl.api.LookupProvider;
+import io.cdap.cdap.etl.api.LookupTableConfig;
+import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.lookup.KeyValueTableLookup;
 import io.cdap.cdap.etl.api.lookup.TableLookup;
 
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
- * {@link Lookup} that provides common functionality.
+ * {@link Lookup} that provides common functionality. If caching is enabled in the {@link LookupTableConfig},
+ * lookups are wrapped in a {@link CachingLookup}, which emits cache metrics to the given {@link StageMetrics}.
  */
 public abstract class AbstractLookupProvider implements LookupProvider {
 
+  @Nullable
+  private final StageMetrics metrics;
+
+  protected AbstractLookupProvider() {
+    this(null);
+  }
+
+  protected AbstractLookupProvider(@Nullable StageMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments, LookupTableConfig config) {
+    Lookup<T> lookup = provide(table, arguments);
+    if (!config.isCacheEnabled()) {
+      return lookup;
+    }
+    CachingLookup<T> cachingLookup = new CachingLookup<>(lookup, config.getCacheConfig(), metrics);
+    if (config.getCacheConfig().isPreload()) {
+      preload(table, arguments, cachingLookup);
+    }
+    return cachingLookup;
+  }
+
+  /**
+   * Loads the content of the table into the cache of the given {@link CachingLookup}, up to the maximum size of
+   * the cache.
+   *
+   * @param table the name of the {@link Lookup} table
+   * @param arguments arguments for initializing the {@link Lookup} table
+   * @param lookup the lookup to load
+   */
+  protected abstract void preload(String table, Map<String, String> arguments, CachingLookup<?> lookup);
+
   @SuppressWarnings("unchecked")
   protected <T> Lookup<T> getLookup(String table, @Nullable Dataset dataset) {
     if (dataset == null) {
@@ -45,4 +88,38 @@ public abstract class AbstractLookupProvider implements LookupProvider {
       throw new RuntimeException(String.format("Dataset %s does not support lookup", table));
     }
   }
+
+  /**
+   * Scans the given dataset to load the cache of the given {@link CachingLookup}, with the same values as
+   * returned by the {@link Lookup} from {@link #getLookup(String, Dataset)}.
+   */
+  @SuppressWarnings("unchecked")
+  protected void loadCache(String table, @Nullable Dataset dataset, CachingLookup<?> lookup) {
+    if (dataset == null) {
+      throw new RuntimeException(String.format("Dataset %s does not exist", table));
+    }
+
+    int count = 0;
+    if (dataset instanceof KeyValueTable) {
+      CachingLookup<String> keyValueLookup = (CachingLookup<String>) lookup;
+      try (CloseableIterator<KeyValue<byte[], byte[]>> iterator = ((KeyValueTable) dataset).scan(null, null)) {
+        while (count < lookup.getMaxSize() && iterator.hasNext()) {
+          KeyValue<byte[], byte[]> entry = iterator.next();
+          keyValueLookup.put(Bytes.toString(entry.getKey()), Bytes.toString(entry.getValue()));
+          count++;
+        }
+      }
+    } else if (dataset instanceof Table) {
+      CachingLookup<Row> tableLookup = (CachingLookup<Row>) lookup;
+      try (Scanner scanner = ((Table) dataset).scan(null, null)) {
+        Row row;
+        while (count < lookup.getMaxSize() && (row = scanner.next()) != null) {
+          tableLookup.put(Bytes.toString(row.getRow()), row);
+          count++;
+        }
+      }
+    } else {
+      throw new RuntimeException(String.format("Dataset %s does not support lookup", table));
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.CacheConfig;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Lookup} that caches the values looked up from another {@link Lookup}, as configured by a
+ * {@link CacheConfig}. Keys that don't have a value are cached as well. For batch lookups, only the keys that
+ * are not cached are looked up, with a single batch lookup. Cache hits and misses are emitted as metrics.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class CachingLookup<T> implements Lookup<T> {
+
+  static final int DEFAULT_MAX_SIZE = 10000;
+
+  private final Lookup<T> delegate;
+  private final Cache<String, Optional<T>> cache;
+  private final int maxSize;
+  @Nullable
+  private final StageMetrics metrics;
+
+  public CachingLookup(Lookup<T> delegate, CacheConfig cacheConfig, @Nullable StageMetrics metrics) {
+    this.delegate = delegate;
+    this.maxSize = cacheConfig.getMaxSize() > 0 ? cacheConfig.getMaxSize() : DEFAULT_MAX_SIZE;
+    this.metrics = metrics;
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize);
+    if (cacheConfig.getExpirySeconds() > 0) {
+      builder.expireAfterWrite(cacheConfig.getExpirySeconds(), TimeUnit.SECONDS);
+    }
+    this.cache = builder.build();
+  }
+
+  /**
+   * Returns the maximum number of keys in the cache.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Adds a value to the cache without looking it up, used for preloading the cache.
+   */
+  public void put(String key, @Nullable T value) {
+    cache.put(key, Optional.fromNullable(value));
+  }
+
+  @Override
+  public T lookup(String key) {
+    Optional<T> value = cache.getIfPresent(key);
+    if (value != null) {
+      count(1, 0);
+      return value.orNull();
+    }
+    count(0, 1);
+    T result = delegate.lookup(key);
+    put(key, result);
+    return result;
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(ImmutableSet.copyOf(keys));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> results = new HashMap<>();
+    Set<String> missingKeys = new HashSet<>();
+    for (String key : keys) {
+      Optional<T> value = cache.getIfPresent(key);
+      if (value == null) {
+        missingKeys.add(key);
+      } else if (value.isPresent()) {
+        results.put(key, value.get());
+      }
+    }
+    count(keys.size() - missingKeys.size(), missingKeys.size());
+    if (missingKeys.isEmpty()) {
+      return results;
+    }
+
+    Map<String, T> missingResults = delegate.lookup(missingKeys);
+    for (String key : missingKeys) {
+      T value = missingResults.get(key);
+      put(key, value);
+      if (value != null) {
+        results.put(key, value);
+      }
+    }
+    return results;
+  }
+
+  private void count(int hits, int misses) {
+    if (metrics == null) {
+      return;
+    }
+    if (hits > 0) {
+      metrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, hits);
+    }
+    if (misses > 0) {
+      metrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, misses);
+    }
+  }
+}
@@ -55,6 +55,9 @@ public final class Constants {
    * Various metric constants.
    */
   public static final class Metrics {
+    // the number of operations is stored under this name, and the percentiles of their time in microseconds
+    // are queried from its distribution
+    public static final String TIME_DISTRIBUTION = "process.time";
     public static final String TOTAL_TIME = "process.time.total";
     public static final String MIN_TIME = "process.time.min";
     public static final String MAX_TIME = "process.time.max";
@@ -67,6 +70,8 @@ public final class Constants {
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
     public static final String DRAFT_COUNT = "draft.count";
+    public static final String LOOKUP_CACHE_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_CACHE_MISSES = "lookup.cache.misses";
   }
 
   /**
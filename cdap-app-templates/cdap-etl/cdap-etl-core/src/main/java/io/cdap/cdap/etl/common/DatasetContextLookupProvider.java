@@ -17,8 +17,10 @@ package io.cdap.cdap.etl.common;
 
 import io.cdap.cdap.api.data.DatasetContext;
 import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
 
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link AbstractLookupProvider} that uses {@link DatasetContext}.
@@ -30,6 +32,11 @@ public class DatasetContextLookupProvider extends AbstractLookupProvider {
   private final DatasetContext context;
 
   public DatasetContextLookupProvider(DatasetContext context) {
+    this(context, null);
+  }
+
+  public DatasetContextLookupProvider(DatasetContext context, @Nullable StageMetrics metrics) {
+    super(metrics);
     this.context = context;
   }
 
@@ -37,4 +44,9 @@ public class DatasetContextLookupProvider extends AbstractLookupProvider {
   public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
     return getLookup(table, context.getDataset(table, arguments));
   }
+
+  @Override
+  protected void preload(String table, Map<String, String> arguments, CachingLookup<?> lookup) {
+    loadCache(table, context.getDataset(table, arguments), lookup);
+  }
 }
@@ -32,6 +32,11 @@ public class NoopStageStatisticsCollector implements StageStatisticsCollector, S
     // no-op
   }
 
+  @Override
+  public void incrementInputRecordCount(int count) {
+    // no-op
+  }
+
   @Override
   public void incrementOutputRecordCount() {
     // no-op
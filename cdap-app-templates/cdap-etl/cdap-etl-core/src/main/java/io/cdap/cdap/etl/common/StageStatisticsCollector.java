@@ -25,6 +25,11 @@ public interface StageStatisticsCollector {
    */
   void incrementInputRecordCount();
 
+  /**
+   * Increment the input record count by the given number of records.
+   */
+  void incrementInputRecordCount(int count);
+
   /**
    * Increment the output record count.
    */
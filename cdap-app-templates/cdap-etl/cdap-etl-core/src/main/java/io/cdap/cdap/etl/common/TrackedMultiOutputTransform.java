@@ -23,6 +23,7 @@ import io.cdap.cdap.etl.api.MultiOutputTransformation;
 import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.Transformation;
 
+import java.util.Collection;
 
 /**
  * A {@link Transformation} that delegates transform operations while emitting metrics
@@ -57,6 +58,22 @@ public class TrackedMultiOutputTransform<IN, ERROR> implements MultiOutputTransf
     transform.transform(input, new TrackedMultiOutputEmitter<>(emitter, metrics, dataTracer, collector));
   }
 
+  @Override
+  public void transformBatch(Iterable<IN> inputs, MultiOutputEmitter<ERROR> emitter) throws Exception {
+    // the input count is only known upfront for collections
+    if (!(inputs instanceof Collection)) {
+      MultiOutputTransformation.super.transformBatch(inputs, emitter);
+      return;
+    }
+    int count = ((Collection<IN>) inputs).size();
+    if (count == 0) {
+      return;
+    }
+    metrics.count(Constants.Metrics.RECORDS_IN, count);
+    collector.incrementInputRecordCount(count);
+    transform.transformBatch(inputs, new TrackedMultiOutputEmitter<>(emitter, metrics, dataTracer, collector));
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
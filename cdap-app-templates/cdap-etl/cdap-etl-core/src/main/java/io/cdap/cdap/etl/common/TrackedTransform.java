@@ -22,6 +22,7 @@ import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.Transformation;
 
+import java.util.Collection;
 import javax.annotation.Nullable;
 
 /**
@@ -75,6 +76,27 @@ public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destr
       new TrackedEmitter<>(emitter, metrics, metricOutName, dataTracer, collector));
   }
 
+  @Override
+  public void transformBatch(Iterable<IN> inputs, Emitter<OUT> emitter) throws Exception {
+    // the input count is only known upfront for collections
+    if (!(inputs instanceof Collection)) {
+      Transformation.super.transformBatch(inputs, emitter);
+      return;
+    }
+    int count = ((Collection<IN>) inputs).size();
+    if (count == 0) {
+      return;
+    }
+    if (metricInName != null) {
+      metrics.count(metricInName, count);
+      if (metricInName.equals(Constants.Metrics.RECORDS_IN)) {
+        collector.incrementInputRecordCount(count);
+      }
+    }
+    transform.transformBatch(inputs, metricOutName == null ? emitter :
+      new TrackedEmitter<>(emitter, metrics, metricOutName, dataTracer, collector));
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
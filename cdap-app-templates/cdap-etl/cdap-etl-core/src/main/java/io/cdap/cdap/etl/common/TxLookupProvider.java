@@ -21,6 +21,7 @@ import io.cdap.cdap.api.Transactionals;
 import io.cdap.cdap.api.TxRunnable;
 import io.cdap.cdap.api.data.DatasetContext;
 import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
 
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +38,11 @@ public class TxLookupProvider extends AbstractLookupProvider {
   private final Transactional tx;
 
   public TxLookupProvider(Transactional tx) {
+    this(tx, null);
+  }
+
+  public TxLookupProvider(Transactional tx, @Nullable StageMetrics metrics) {
+    super(metrics);
     this.tx = tx;
   }
 
@@ -80,6 +86,16 @@ public class TxLookupProvider extends AbstractLookupProvider {
     };
   }
 
+  @Override
+  protected void preload(final String table, final Map<String, String> arguments, final CachingLookup<?> lookup) {
+    Transactionals.execute(tx, new TxRunnable() {
+      @Override
+      public void run(DatasetContext context) throws Exception {
+        loadCache(table, context.getDataset(table, arguments), lookup);
+      }
+    });
+  }
+
   @Nullable
   private <T, R> R executeLookup(final String table, final Map<String, String> arguments,
                                  final Function<Lookup<T>, R> func) {
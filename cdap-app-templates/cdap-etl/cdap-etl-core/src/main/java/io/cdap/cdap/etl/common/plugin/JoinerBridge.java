@@ -163,6 +163,8 @@ public class JoinerBridge<INPUT_RECORD> extends BatchJoiner<StructuredRecord, IN
       return keyRecords;
     }
 
+    // Keys cannot be sampled before the shuffle, so all keys are distributed even if a hot key threshold is set.
+    // This gives the same result as distributing only the hot keys, at the cost of exploding more records.
     int distributionFactor = distribution.getDistributionFactor();
 
     // If this is the skewed stage then we need to add salt
@@ -65,28 +65,44 @@ public class MetricsOperationTimer implements OperationTimer {
    */
   @Override
   public void reset() {
-    emitTimeMetrics(stopwatch.elapsedTime(TimeUnit.MICROSECONDS));
+    reset(1);
+  }
+
+  /**
+   * Resets the stopwatch and updates the timing metrics, with each of the operations taking an equal share of
+   * the elapsed time.
+   */
+  @Override
+  public void reset(int numOperations) {
+    if (numOperations > 0) {
+      emitTimeMetrics(stopwatch.elapsedTime(TimeUnit.MICROSECONDS), numOperations);
+    }
     stopwatch.reset();
   }
 
-  private void emitTimeMetrics(long micros) {
+  private void emitTimeMetrics(long totalMicros, int numOperations) {
+    long micros = totalMicros / numOperations;
+    for (int i = 0; i < numOperations; i++) {
+      stageMetrics.distribution(Constants.Metrics.TIME_DISTRIBUTION, micros);
+    }
     maxTime = maxTime < micros ? micros : maxTime;
     minTime = minTime > micros ? micros : minTime;
     // this shouldn't normally happen, it means ~35 minutes were spent in a method call
-    while (micros > Integer.MAX_VALUE) {
+    while (totalMicros > Integer.MAX_VALUE) {
       stageMetrics.count(Constants.Metrics.TOTAL_TIME, Integer.MAX_VALUE);
-      micros -= Integer.MAX_VALUE;
+      totalMicros -= Integer.MAX_VALUE;
     }
-    stageMetrics.count(Constants.Metrics.TOTAL_TIME, (int) micros);
+    stageMetrics.count(Constants.Metrics.TOTAL_TIME, (int) totalMicros);
     stageMetrics.gauge(Constants.Metrics.MAX_TIME, maxTime);
     stageMetrics.gauge(Constants.Metrics.MIN_TIME, minTime);
 
-    // see https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Online_algorithm
-    numValues++;
+    // see https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
+    // the operations are merged in as a group of values that are all equal to the average time
+    long count = numValues + numOperations;
     double delta = micros - mean;
-    mean += delta / numValues;
-    double delta2 = micros - mean;
-    m2 += delta * delta2;
+    mean += delta * numOperations / count;
+    m2 += delta * delta * numValues * numOperations / count;
+    numValues = count;
     double stddev = Math.sqrt(m2 / numValues);
 
     stageMetrics.gauge(Constants.Metrics.AVG_TIME, (long) mean);
@@ -39,4 +39,9 @@ public class NoOpOperationTimer implements OperationTimer {
   public void reset() {
     // no-op
   }
+
+  @Override
+  public void reset(int numOperations) {
+    // no-op
+  }
 }
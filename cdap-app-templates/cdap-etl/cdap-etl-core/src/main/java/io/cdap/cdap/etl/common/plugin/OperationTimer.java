@@ -42,4 +42,12 @@ public interface OperationTimer {
    * Resets the timer and updates the timing metrics.
    */
   void reset();
+
+  /**
+   * Resets the timer and updates the timing metrics for a number of operations that were timed together.
+   * Each operation is counted as taking an equal share of the elapsed time.
+   *
+   * @param numOperations the number of operations that were timed
+   */
+  void reset(int numOperations);
 }
@@ -22,6 +22,7 @@ import io.cdap.cdap.etl.api.SplitterTransform;
 import io.cdap.cdap.etl.api.StageSubmitterContext;
 import io.cdap.cdap.etl.api.TransformContext;
 
+import java.util.Collection;
 import java.util.concurrent.Callable;
 
 /**
@@ -80,4 +81,27 @@ public class WrappedSplitterTransform<T, E> extends SplitterTransform<T, E> {
       operationTimer.reset();
     }
   }
+
+  /**
+   * Transforms a batch of inputs with a single call through the {@link Caller}, so that logging context, timing
+   * and metrics are setup once per batch instead of once per record. The time of the batch is recorded as an equal
+   * share per input, so that the timing metrics remain per record.
+   */
+  @Override
+  public void transformBatch(Iterable<T> inputs, MultiOutputEmitter<E> emitter) throws Exception {
+    // the number of inputs is only known upfront for collections
+    if (!(inputs instanceof Collection)) {
+      super.transformBatch(inputs, emitter);
+      return;
+    }
+    operationTimer.start();
+    try {
+      caller.call((Callable<Void>) () -> {
+        transform.transformBatch(inputs, new UntimedMultiOutputEmitter<>(emitter, operationTimer));
+        return null;
+      });
+    } finally {
+      operationTimer.reset(((Collection<T>) inputs).size());
+    }
+  }
 }
@@ -22,6 +22,7 @@ import io.cdap.cdap.etl.api.StageSubmitterContext;
 import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.TransformContext;
 
+import java.util.Collection;
 import java.util.concurrent.Callable;
 
 /**
@@ -94,4 +95,27 @@ public class WrappedTransform<IN, OUT> extends Transform<IN, OUT> {
       operationTimer.reset();
     }
   }
+
+  /**
+   * Transforms a batch of inputs with a single call through the {@link Caller}, so that logging context, timing
+   * and metrics are setup once per batch instead of once per record. The time of the batch is recorded as an equal
+   * share per input, so that the timing metrics remain per record.
+   */
+  @Override
+  public void transformBatch(Iterable<IN> inputs, Emitter<OUT> emitter) throws Exception {
+    // the number of inputs is only known upfront for collections
+    if (!(inputs instanceof Collection)) {
+      super.transformBatch(inputs, emitter);
+      return;
+    }
+    operationTimer.start();
+    try {
+      caller.call((Callable<Void>) () -> {
+        transform.transformBatch(inputs, new UntimedEmitter<>(emitter, operationTimer));
+        return null;
+      });
+    } finally {
+      operationTimer.reset(((Collection<IN>) inputs).size());
+    }
+  }
 }
@@ -22,6 +22,7 @@ import io.cdap.cdap.etl.api.Transformation;
 import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.RecordInfo;
 
+import java.util.List;
 
 /**
  * Processing any stages that can be represented as a Transformation. Passes the RecordInfo directly to
@@ -45,6 +46,11 @@ public class DirectOutputPipeStage<T> extends PipeStage<RecordInfo<T>> {
     transform.transform(input, emitter);
   }
 
+  @Override
+  protected void consumeBatchInput(List<RecordInfo<T>> inputs) throws Exception {
+    transform.transformBatch(inputs, emitter);
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
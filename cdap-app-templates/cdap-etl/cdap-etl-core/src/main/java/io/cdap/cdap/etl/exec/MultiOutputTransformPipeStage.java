@@ -16,12 +16,14 @@
 
 package io.cdap.cdap.etl.exec;
 
+import com.google.common.collect.Lists;
 import io.cdap.cdap.etl.api.Destroyable;
 import io.cdap.cdap.etl.api.MultiOutputEmitter;
 import io.cdap.cdap.etl.api.MultiOutputTransformation;
 import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.RecordInfo;
 
+import java.util.List;
 
 /**
  * Processes any stages that can be represented as a MultiOutputTransform.
@@ -45,6 +47,15 @@ public class MultiOutputTransformPipeStage<T> extends PipeStage<RecordInfo<T>> {
     transform.transform(input.getValue(), emitter);
   }
 
+  @Override
+  protected void consumeBatchInput(List<RecordInfo<T>> inputs) throws Exception {
+    List<T> values = Lists.transform(inputs, RecordInfo::getValue);
+    runBatch(emitter, () -> {
+      transform.transformBatch(values, emitter);
+      return null;
+    });
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
@@ -32,7 +32,10 @@ import io.cdap.cdap.etl.common.RecordType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -41,6 +44,9 @@ import java.util.Set;
  * the transform method of one stage, another stage's transform method can be called.
  *
  * This class always emits RecordInfo for output.
+ *
+ * While a batch is started with {@link #startBatch()}, records are buffered per output stage instead, and are only
+ * sent to the output stages as a batch when {@link #finishBatch()} is called.
  */
 public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object> {
   private static final Logger LOG = LoggerFactory.getLogger(PipeEmitter.class);
@@ -50,7 +56,9 @@ public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object>
   private final Multimap<String, PipeStage<RecordInfo>> outputPortConsumers;
   private final Set<PipeStage<RecordInfo<ErrorRecord<Object>>>> errorConsumers;
   private final Set<PipeStage<RecordInfo<Alert>>> alertConsumers;
+  private final Map<PipeStage, List<Object>> batches;
   private boolean logWarning;
+  private boolean batching;
 
   public PipeEmitter(String stageName,
                      Set<PipeStage<RecordInfo>> outputConsumers,
@@ -62,9 +70,42 @@ public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object>
     this.outputPortConsumers = ImmutableMultimap.copyOf(outputPortConsumers);
     this.errorConsumers = ImmutableSet.copyOf(errorConsumers);
     this.alertConsumers = ImmutableSet.copyOf(alertConsumers);
+    this.batches = new LinkedHashMap<>();
     this.logWarning = true;
   }
 
+  /**
+   * Starts buffering emitted records, until {@link #finishBatch()} or {@link #discardBatch()} is called.
+   */
+  public void startBatch() {
+    batches.clear();
+    batching = true;
+  }
+
+  /**
+   * Stops buffering emitted records, and sends the records buffered since {@link #startBatch()} to the output
+   * stages, as one batch for each stage.
+   */
+  @SuppressWarnings("unchecked")
+  public void finishBatch() {
+    batching = false;
+    try {
+      for (Map.Entry<PipeStage, List<Object>> entry : batches.entrySet()) {
+        entry.getKey().consumeBatch(entry.getValue());
+      }
+    } finally {
+      batches.clear();
+    }
+  }
+
+  /**
+   * Stops buffering emitted records, and discards the records buffered since {@link #startBatch()}.
+   */
+  public void discardBatch() {
+    batching = false;
+    batches.clear();
+  }
+
   @Override
   public void emit(String port, Object value) {
     if (port == null) {
@@ -72,7 +113,7 @@ public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object>
     }
     RecordInfo record = getPipeRecord(value);
     for (PipeStage<RecordInfo> outputPortConsumer : outputPortConsumers.get(port)) {
-      outputPortConsumer.consume(record);
+      send(outputPortConsumer, record);
     }
   }
 
@@ -80,7 +121,7 @@ public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object>
   public void emit(Object value) {
     RecordInfo record = getPipeRecord(value);
     for (PipeStage<RecordInfo> outputConsumer : outputConsumers) {
-      outputConsumer.consume(record);
+      send(outputConsumer, record);
     }
   }
 
@@ -97,7 +138,7 @@ public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object>
     RecordInfo<ErrorRecord<Object>> errorRecordInfo =
       RecordInfo.builder(errorRecord, stageName, RecordType.ERROR).build();
     for (PipeStage<RecordInfo<ErrorRecord<Object>>> pipeTransform : errorConsumers) {
-      pipeTransform.consume(errorRecordInfo);
+      send(pipeTransform, errorRecordInfo);
     }
   }
 
@@ -106,7 +147,15 @@ public class PipeEmitter implements Emitter<Object>, MultiOutputEmitter<Object>
     Alert alert = new Alert(stageName, ImmutableMap.copyOf(payload));
     RecordInfo<Alert> alertRecord = RecordInfo.builder(alert, stageName, RecordType.ALERT).build();
     for (PipeStage<RecordInfo<Alert>> alertConsumer : alertConsumers) {
-      alertConsumer.consume(alertRecord);
+      send(alertConsumer, alertRecord);
+    }
+  }
+
+  private <T> void send(PipeStage<T> consumer, T record) {
+    if (batching) {
+      batches.computeIfAbsent(consumer, k -> new ArrayList<>()).add(record);
+    } else {
+      consumer.consume(record);
     }
   }
 
@@ -19,10 +19,13 @@ package io.cdap.cdap.etl.exec;
 import com.google.common.base.Throwables;
 import io.cdap.cdap.etl.api.Destroyable;
 
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * A stage in the PipeTransformExecutor. Pipe transforms should send each output record immediately to all output stages
- * without buffering anything in memory.
+ * without buffering anything in memory. The only exception is when consuming a batch of records, in which case the
+ * output of the batch may be buffered and sent to the output stages as a batch.
  *
  * @param <T> type of input record
  */
@@ -46,15 +49,36 @@ public abstract class PipeStage<T> implements Destroyable {
       // Another stage has already failed, just throw the exception as-is
       throw e;
     } catch (Exception e) {
-      Throwable rootCause = Throwables.getRootCause(e);
-      // Create StageFailureException to save the Stage information
-      throw new StageFailureException(
-        String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
-                        "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
-        rootCause);
+      throw createFailureException(e);
     }
   }
 
+  /**
+   * Consume a batch of records and send them to the relevant output transforms.
+   *
+   * @param inputs the records to consume
+   * @throws StageFailureException if there was an exception consuming the inputs
+   */
+  public void consumeBatch(List<T> inputs) {
+    try {
+      consumeBatchInput(inputs);
+    } catch (StageFailureException e) {
+      // Another stage has already failed, just throw the exception as-is
+      throw e;
+    } catch (Exception e) {
+      throw createFailureException(e);
+    }
+  }
+
+  private StageFailureException createFailureException(Exception e) {
+    Throwable rootCause = Throwables.getRootCause(e);
+    // Create StageFailureException to save the Stage information
+    return new StageFailureException(
+      String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
+                      "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
+      rootCause);
+  }
+
   /**
    * Consume an input record, throwing an exception if there is a failure
    *
@@ -62,4 +86,42 @@ public abstract class PipeStage<T> implements Destroyable {
    * @throws Exception if there was a failure processing the input
    */
   protected abstract void consumeInput(T input) throws Exception;
+
+  /**
+   * Consume a batch of input records, throwing an exception if there is a failure. By default, each record is
+   * consumed individually.
+   *
+   * @param inputs the inputs to consume
+   * @throws Exception if there was a failure processing the inputs
+   */
+  protected void consumeBatchInput(List<T> inputs) throws Exception {
+    for (T input : inputs) {
+      consumeInput(input);
+    }
+  }
+
+  /**
+   * Runs the transformation of a batch of inputs. If the transformation emits to a {@link PipeEmitter}, the output
+   * is buffered and sent to the output stages as a batch as well, or discarded if the transformation fails.
+   *
+   * @param emitter the emitter that the transformation emits to
+   * @param transformation the transformation of the batch
+   * @throws Exception if there was a failure transforming the batch
+   */
+  protected void runBatch(Object emitter, Callable<Void> transformation) throws Exception {
+    if (!(emitter instanceof PipeEmitter)) {
+      transformation.call();
+      return;
+    }
+
+    PipeEmitter pipeEmitter = (PipeEmitter) emitter;
+    pipeEmitter.startBatch();
+    try {
+      transformation.call();
+    } catch (Exception e) {
+      pipeEmitter.discardBatch();
+      throw e;
+    }
+    pipeEmitter.finishBatch();
+  }
 }
@@ -20,6 +20,8 @@ import io.cdap.cdap.etl.api.Destroyable;
 import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.RecordType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -44,6 +46,27 @@ public class PipeTransformExecutor<IN> implements Destroyable {
     }
   }
 
+  /**
+   * Runs a batch of inputs through the pipeline. Each stage transforms the whole batch at once, and sends its output
+   * to the next stages as a batch. This reduces the per record overhead of each stage, at the cost of buffering
+   * the output of the batch in memory.
+   *
+   * @param inputs the inputs to run through the pipeline
+   */
+  public void runBatch(List<IN> inputs) {
+    if (inputs.isEmpty()) {
+      return;
+    }
+    for (String stageName : startingPoints) {
+      PipeStage<RecordInfo> pipeStage = pipeStages.get(stageName);
+      List<RecordInfo> records = new ArrayList<>(inputs.size());
+      for (IN input : inputs) {
+        records.add(RecordInfo.builder(input, stageName, RecordType.OUTPUT).build());
+      }
+      pipeStage.consumeBatch(records);
+    }
+  }
+
   @Override
   public void destroy() {
     for (PipeStage stage : pipeStages.values()) {
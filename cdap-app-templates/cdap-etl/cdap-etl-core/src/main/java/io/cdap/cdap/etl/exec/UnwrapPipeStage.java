@@ -16,12 +16,14 @@
 
 package io.cdap.cdap.etl.exec;
 
+import com.google.common.collect.Lists;
 import io.cdap.cdap.etl.api.Destroyable;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.Transformation;
 import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.RecordInfo;
 
+import java.util.List;
 
 /**
  * Processing any stages that can be represented as a Transformation. Gets the value from a RecordInfo before
@@ -44,6 +46,15 @@ public class UnwrapPipeStage<T> extends PipeStage<RecordInfo<T>> {
     transform.transform(input.getValue(), emitter);
   }
 
+  @Override
+  protected void consumeBatchInput(List<RecordInfo<T>> inputs) throws Exception {
+    List<T> values = Lists.transform(inputs, RecordInfo::getValue);
+    runBatch(emitter, () -> {
+      transform.transformBatch(values, emitter);
+      return null;
+    });
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
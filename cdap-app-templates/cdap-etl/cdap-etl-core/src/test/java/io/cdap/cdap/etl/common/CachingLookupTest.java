@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.CacheConfig;
+import io.cdap.cdap.etl.api.Lookup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link CachingLookup}.
+ */
+public class CachingLookupTest {
+
+  private static final String HITS = "stage." + Constants.Metrics.LOOKUP_CACHE_HITS;
+  private static final String MISSES = "stage." + Constants.Metrics.LOOKUP_CACHE_MISSES;
+
+  @Test
+  public void testLookup() {
+    MockMetrics metrics = new MockMetrics();
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2"));
+    CachingLookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 10),
+                                                       new DefaultStageMetrics(metrics, "stage"));
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    // keys without a value should be cached too
+    Assert.assertNull(lookup.lookup("k3"));
+    Assert.assertNull(lookup.lookup("k3"));
+
+    Assert.assertEquals(2, delegate.lookups.size());
+    Assert.assertEquals(2, metrics.getCount(HITS));
+    Assert.assertEquals(2, metrics.getCount(MISSES));
+  }
+
+  @Test
+  public void testBatchLookup() {
+    MockMetrics metrics = new MockMetrics();
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3"));
+    CachingLookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 10),
+                                                       new DefaultStageMetrics(metrics, "stage"));
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), lookup.lookup("k1", "k2", "k4"));
+    Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3"),
+                        lookup.lookup(ImmutableSet.of("k1", "k2", "k3", "k4")));
+
+    // only the keys that are not cached should be looked up, with a single lookup for each batch
+    Assert.assertEquals(3, delegate.lookups.size());
+    Assert.assertEquals(ImmutableSet.of("k2", "k4"), delegate.lookups.get(1));
+    Assert.assertEquals(ImmutableSet.of("k3"), delegate.lookups.get(2));
+    Assert.assertEquals(4, metrics.getCount(HITS));
+    Assert.assertEquals(4, metrics.getCount(MISSES));
+  }
+
+  @Test
+  public void testPreloadAndMaxSize() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2"));
+    CachingLookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 1, true), null);
+    Assert.assertEquals(1, lookup.getMaxSize());
+    lookup.put("k1", "cached");
+    Assert.assertEquals("cached", lookup.lookup("k1"));
+    Assert.assertTrue(delegate.lookups.isEmpty());
+
+    // the cache is bounded, so looking up another key evicts the first one
+    Assert.assertEquals("v2", lookup.lookup("k2"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals(2, delegate.lookups.size());
+
+    Assert.assertEquals(CachingLookup.DEFAULT_MAX_SIZE,
+                        new CachingLookup<>(delegate, new CacheConfig(), null).getMaxSize());
+  }
+
+  /**
+   * A {@link Lookup} over a map that records the keys of every lookup.
+   */
+  private static final class CountingLookup implements Lookup<String> {
+    private final Map<String, String> values;
+    private final List<Set<String>> lookups = new ArrayList<>();
+
+    CountingLookup(Map<String, String> values) {
+      this.values = values;
+    }
+
+    @Override
+    public String lookup(String key) {
+      lookups.add(ImmutableSet.of(key));
+      return values.get(key);
+    }
+
+    @Override
+    public Map<String, String> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, String> lookup(Set<String> keys) {
+      lookups.add(ImmutableSet.copyOf(keys));
+      Map<String, String> result = new HashMap<>();
+      for (String key : keys) {
+        if (values.containsKey(key)) {
+          result.put(key, values.get(key));
+        }
+      }
+      return result;
+    }
+  }
+}
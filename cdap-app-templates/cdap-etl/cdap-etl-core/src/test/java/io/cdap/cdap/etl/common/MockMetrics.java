@@ -19,7 +19,9 @@ package io.cdap.cdap.etl.common;
 import com.google.common.collect.Maps;
 import io.cdap.cdap.api.metrics.Metrics;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +30,7 @@ import java.util.Map;
 public class MockMetrics implements Metrics {
   private final Map<String, Long> gauges = Maps.newHashMap();
   private final Map<String, Integer> counts = Maps.newHashMap();
+  private final Map<String, List<Long>> distributions = Maps.newHashMap();
 
   @Override
   public void count(String s, int i) {
@@ -43,6 +46,11 @@ public class MockMetrics implements Metrics {
     gauges.put(s, l);
   }
 
+  @Override
+  public void distribution(String s, long l) {
+    distributions.computeIfAbsent(s, k -> new ArrayList<>()).add(l);
+  }
+
   @Override
   public Metrics child(Map<String, String> tags) {
     return this;
@@ -63,8 +71,14 @@ public class MockMetrics implements Metrics {
     return val == null ? 0 : val;
   }
 
+  public List<Long> getDistribution(String metric) {
+    List<Long> values = distributions.get(metric);
+    return values == null ? Collections.emptyList() : values;
+  }
+
   public void clearMetrics() {
     counts.clear();
     gauges.clear();
+    distributions.clear();
   }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common.plugin;
+
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.MockMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link MetricsOperationTimer}.
+ */
+public class MetricsOperationTimerTest {
+
+  @Test
+  public void testBatchTimedPerOperation() throws Exception {
+    MockMetrics metrics = new MockMetrics();
+    MetricsOperationTimer timer = new MetricsOperationTimer(new DefaultStageMetrics(metrics, "stage"));
+
+    timer.start();
+    TimeUnit.MILLISECONDS.sleep(20);
+    timer.reset(10);
+
+    // the total time is the time of the batch, and every other metric is per operation
+    long total = metrics.getCount("stage." + Constants.Metrics.TOTAL_TIME);
+    Assert.assertTrue(total >= TimeUnit.MILLISECONDS.toMicros(20));
+    long perOperation = total / 10;
+    Assert.assertEquals(perOperation, metrics.getGauge("stage." + Constants.Metrics.AVG_TIME));
+    Assert.assertEquals(perOperation, metrics.getGauge("stage." + Constants.Metrics.MAX_TIME));
+    Assert.assertEquals(0L, metrics.getGauge("stage." + Constants.Metrics.STD_DEV_TIME));
+    Assert.assertEquals(Collections.nCopies(10, perOperation),
+                        metrics.getDistribution("stage." + Constants.Metrics.TIME_DISTRIBUTION));
+  }
+}
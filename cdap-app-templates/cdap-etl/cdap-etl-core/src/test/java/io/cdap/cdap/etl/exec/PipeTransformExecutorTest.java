@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.exec;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.ErrorRecord;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.plugin.Caller;
+import io.cdap.cdap.etl.common.plugin.NoOpOperationTimer;
+import io.cdap.cdap.etl.common.plugin.WrappedTransform;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Tests for {@link PipeTransformExecutor}.
+ */
+public class PipeTransformExecutorTest {
+
+  @Test
+  public void testRunBatch() {
+    List<Integer> inputs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      inputs.add(i);
+    }
+
+    // Running records one at a time and as a batch should give the same results
+    Pipeline pipeline = new Pipeline();
+    for (Integer input : inputs) {
+      pipeline.executor.runOneIteration(input);
+    }
+    Pipeline batchPipeline = new Pipeline();
+    batchPipeline.executor.runBatch(inputs.subList(0, 50));
+    batchPipeline.executor.runBatch(inputs.subList(50, 100));
+
+    Assert.assertEquals(pipeline.sink.values, batchPipeline.sink.values);
+    Assert.assertEquals(pipeline.errorSink.values, batchPipeline.errorSink.values);
+    Assert.assertFalse(batchPipeline.sink.values.isEmpty());
+    Assert.assertFalse(batchPipeline.errorSink.values.isEmpty());
+
+    // Each transform is called once per record, or once per batch
+    Assert.assertEquals(300, pipeline.caller.calls);
+    Assert.assertEquals(6, batchPipeline.caller.calls);
+    Assert.assertEquals(2, batchPipeline.sink.batches);
+    Assert.assertEquals(2, batchPipeline.errorSink.batches);
+  }
+
+  @Test
+  public void testRunBatchFailure() {
+    Pipeline pipeline = new Pipeline();
+    List<Integer> inputs = new ArrayList<>();
+    inputs.add(1);
+    inputs.add(-1);
+    try {
+      pipeline.executor.runBatch(inputs);
+      Assert.fail("Expected the batch to fail");
+    } catch (StageFailureException e) {
+      Assert.assertTrue(e.getMessage().contains("'add'"));
+    }
+    // The output of the failed batch should not be sent to the next stages
+    Assert.assertTrue(pipeline.sink.values.isEmpty());
+
+    // The pipeline should still work after the failure
+    pipeline.executor.runOneIteration(4);
+    Assert.assertEquals(1, pipeline.sink.values.size());
+  }
+
+  /**
+   * A pipeline of add --> multiply --> filter --> sink, with the errors of filter going to an error sink.
+   */
+  @SuppressWarnings("unchecked")
+  private static final class Pipeline {
+    private final CountingCaller caller = new CountingCaller();
+    private final CollectingPipeStage sink = new CollectingPipeStage("sink");
+    private final CollectingPipeStage errorSink = new CollectingPipeStage("errors");
+    private final PipeTransformExecutor<Integer> executor;
+
+    Pipeline() {
+      Map<String, PipeStage> stages = new HashMap<>();
+      stages.put("sink", sink);
+      stages.put("errors", errorSink);
+      stages.put("filter", createStage("filter", new Filter(),
+                                       PipeEmitter.builder("filter").addOutputConsumer((PipeStage) sink)
+                                         .addErrorConsumer((PipeStage) errorSink)));
+      stages.put("multiply", createStage("multiply", new Multiply(),
+                                         PipeEmitter.builder("multiply").addOutputConsumer(stages.get("filter"))));
+      stages.put("add", createStage("add", new Add(),
+                                    PipeEmitter.builder("add").addOutputConsumer(stages.get("multiply"))));
+      executor = new PipeTransformExecutor<>(stages, ImmutableSet.of("add"));
+    }
+
+    private PipeStage createStage(String name, Transform<Integer, Object> transform, PipeEmitter.Builder builder) {
+      return new UnwrapPipeStage<>(name, new WrappedTransform<>(transform, caller, NoOpOperationTimer.INSTANCE),
+                                   builder.build());
+    }
+  }
+
+  private static final class CountingCaller extends Caller {
+    private int calls;
+
+    @Override
+    public <T> T call(Callable<T> callable) throws Exception {
+      calls++;
+      return callable.call();
+    }
+  }
+
+  private static final class CollectingPipeStage extends PipeStage<RecordInfo<Object>> {
+    private final List<Object> values = new ArrayList<>();
+    private int batches;
+
+    CollectingPipeStage(String stageName) {
+      super(stageName);
+    }
+
+    @Override
+    protected void consumeInput(RecordInfo<Object> input) {
+      Object value = input.getValue();
+      values.add(value instanceof ErrorRecord ? ((ErrorRecord) value).getRecord() : value);
+    }
+
+    @Override
+    protected void consumeBatchInput(List<RecordInfo<Object>> inputs) throws Exception {
+      batches++;
+      super.consumeBatchInput(inputs);
+    }
+
+    @Override
+    public void destroy() {
+      // no-op
+    }
+  }
+
+  private static final class Add extends Transform<Integer, Object> {
+    @Override
+    public void transform(Integer input, Emitter<Object> emitter) {
+      if (input < 0) {
+        throw new IllegalArgumentException("Negative input " + input);
+      }
+      emitter.emit(input + 1);
+    }
+  }
+
+  private static final class Multiply extends Transform<Integer, Object> {
+    @Override
+    public void transform(Integer input, Emitter<Object> emitter) {
+      emitter.emit(input * 2);
+    }
+  }
+
+  private static final class Filter extends Transform<Integer, Object> {
+    @Override
+    public void transform(Integer input, Emitter<Object> emitter) {
+      if (input % 3 == 0) {
+        emitter.emitError(new InvalidEntry<>(1, "Multiple of 3", input));
+      } else {
+        emitter.emit(input);
+      }
+    }
+  }
+}
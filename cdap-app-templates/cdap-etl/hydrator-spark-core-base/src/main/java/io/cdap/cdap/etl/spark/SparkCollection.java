@@ -52,9 +52,20 @@ public interface SparkCollection<T> {
 
   SparkCollection<T> union(SparkCollection<T> other);
 
-  SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector);
-
-  SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec, StageStatisticsCollector collector);
+  /**
+   * Runs a Transform stage over the collection. If {@code batchInput} is true, records are buffered and transformed
+   * in batches. It must be false if the collection may contain objects that are reused for multiple records,
+   * such as the keys and values read by the Hadoop record reader of a source.
+   */
+  SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector,
+                                                boolean batchInput);
+
+  /**
+   * Runs a SplitterTransform stage over the collection, with the same batching as
+   * {@link #transform(StageSpec, StageStatisticsCollector, boolean)}.
+   */
+  SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec, StageStatisticsCollector collector,
+                                                           boolean batchInput);
 
   <U> SparkCollection<U> map(Function<T, U> function);
 
@@ -72,8 +83,12 @@ public interface SparkCollection<T> {
 
   Runnable createStoreTask(StageSpec stageSpec, PairFlatMapFunction<T, Object, Object> sinkFunction);
 
+  /**
+   * Creates a task that runs a group of stages ending in sinks, with the same batching as
+   * {@link #transform(StageSpec, StageStatisticsCollector, boolean)}.
+   */
   Runnable createMultiStoreTask(PhaseSpec phaseSpec, Set<String> group, Set<String> sinks,
-                                Map<String, StageStatisticsCollector> collectors);
+                                Map<String, StageStatisticsCollector> collectors, boolean batchInput);
 
   Runnable createStoreTask(StageSpec stageSpec, SparkSink<T> sink) throws Exception;
 
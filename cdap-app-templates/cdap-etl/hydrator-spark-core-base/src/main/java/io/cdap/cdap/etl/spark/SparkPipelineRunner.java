@@ -105,6 +105,10 @@ public abstract class SparkPipelineRunner {
   private static final Set<String> UNCOMBINABLE_PLUGIN_TYPES = ImmutableSet.of(
     BatchJoiner.PLUGIN_TYPE, BatchAggregator.PLUGIN_TYPE, Constants.Connector.PLUGIN_TYPE,
     SparkCompute.PLUGIN_TYPE, SparkSink.PLUGIN_TYPE, AlertPublisher.PLUGIN_TYPE);
+  // plugin types that can emit their input records as is
+  private static final Set<String> PASS_THROUGH_PLUGIN_TYPES = ImmutableSet.of(
+    Transform.PLUGIN_TYPE, SplitterTransform.PLUGIN_TYPE, ErrorTransform.PLUGIN_TYPE, SparkCompute.PLUGIN_TYPE,
+    Windower.PLUGIN_TYPE);
 
   protected final FunctionCache.Factory functionCacheFactory = FunctionCache.Factory.newInstance();
 
@@ -165,11 +169,18 @@ public abstract class SparkPipelineRunner {
       .map(StageSpec::getName)
       .collect(Collectors.toSet());
 
+    // Stages whose output may contain objects that are reused for multiple records. Sources can emit the keys and
+    // values of a Hadoop record reader as is, and stages that run on records one at a time can pass them through.
+    // Stages reading from them must process records one at a time, since a batch would hold many references
+    // to the same object.
+    Set<String> reusingStages = new HashSet<>();
     Collection<Runnable> sinkRunnables = new ArrayList<>();
     for (String stageName : groupedDag.getTopologicalOrder()) {
       if (groups.containsKey(stageName)) {
-        sinkRunnables.add(handleGroup(sec, phaseSpec, groups.get(stageName), groupedDag.getNodeInputs(stageName),
-                                      emittedRecords, collectors));
+        Set<String> groupInputs = groupedDag.getNodeInputs(stageName);
+        boolean batchInput = groupInputs.stream().noneMatch(reusingStages::contains);
+        sinkRunnables.add(handleGroup(sec, phaseSpec, groups.get(stageName), groupInputs,
+                                      emittedRecords, collectors, batchInput));
         continue;
       }
 
@@ -232,6 +243,11 @@ public abstract class SparkPipelineRunner {
         }
       }
 
+      boolean batchInput = stageInputs.stream().noneMatch(reusingStages::contains);
+      if (!batchInput && PASS_THROUGH_PLUGIN_TYPES.contains(pluginType)) {
+        reusingStages.add(stageName);
+      }
+
       boolean isConnectorSource =
         Constants.Connector.PLUGIN_TYPE.equals(pluginType) && pipelinePhase.getSources().contains(stageName);
       boolean isConnectorSink =
@@ -247,6 +263,7 @@ public abstract class SparkPipelineRunner {
         // this if-else is nested inside the stageRDD null check to avoid warnings about stageRDD possibly being
         // null in the other else-if conditions
         if (sourcePluginType.equals(pluginType) || isConnectorSource) {
+          reusingStages.add(stageName);
           SparkCollection<RecordInfo<Object>> combinedData = getSource(stageSpec, collector);
           emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                       combinedData, groupedDag, branchers, shufflers, hasErrorOutput, hasAlertOutput);
@@ -261,13 +278,14 @@ public abstract class SparkPipelineRunner {
 
       } else if (Transform.PLUGIN_TYPE.equals(pluginType)) {
 
-        SparkCollection<RecordInfo<Object>> combinedData = stageData.transform(stageSpec, collector);
+        SparkCollection<RecordInfo<Object>> combinedData = stageData.transform(stageSpec, collector, batchInput);
         emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                     combinedData, groupedDag, branchers, shufflers, hasErrorOutput, hasAlertOutput);
 
       } else if (SplitterTransform.PLUGIN_TYPE.equals(pluginType)) {
 
-        SparkCollection<RecordInfo<Object>> combinedData = stageData.multiOutputTransform(stageSpec, collector);
+        SparkCollection<RecordInfo<Object>> combinedData = stageData.multiOutputTransform(stageSpec, collector,
+                                                                                          batchInput);
         emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                     combinedData, groupedDag, branchers, shufflers, hasErrorOutput, hasAlertOutput);
 
@@ -403,7 +421,7 @@ public abstract class SparkPipelineRunner {
 
   private Runnable handleGroup(JavaSparkExecutionContext sec, PhaseSpec phaseSpec, Set<String> groupStages,
                                Set<String> groupInputs, Map<String, EmittedRecords> emittedRecords,
-                               Map<String, StageStatisticsCollector> collectors) {
+                               Map<String, StageStatisticsCollector> collectors, boolean batchInput) {
     /*
         with a pipeline like:
 
@@ -436,7 +454,7 @@ public abstract class SparkPipelineRunner {
 
     // Sets.intersection returns an unserializable Set, so copy it into a HashSet.
     Set<String> groupSinks = new HashSet<>(Sets.intersection(groupStages, phaseSpec.getPhase().getSinks()));
-    return fullInput.createMultiStoreTask(phaseSpec, groupStages, groupSinks, collectors);
+    return fullInput.createMultiStoreTask(phaseSpec, groupStages, groupSinks, collectors, batchInput);
   }
 
   protected SparkCollection<Object> handleJoin(Map<String, SparkCollection<Object>> inputDataCollections,
@@ -42,6 +42,11 @@ public class SparkStageStatisticsCollector implements StageStatisticsCollector,
     inputRecordCounter.add(1.0);
   }
 
+  @Override
+  public void incrementInputRecordCount(int count) {
+    inputRecordCounter.add((double) count);
+  }
+
   @Override
   public void incrementOutputRecordCount() {
     outputRecordCounter.add(1.0);
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.etl.spark.batch;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.gson.Gson;
 import io.cdap.cdap.api.data.DatasetContext;
@@ -68,13 +69,16 @@ import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.rdd.RDD;
 import org.apache.spark.sql.Column;
 import org.apache.spark.sql.SQLContext;
 import org.apache.spark.storage.StorageLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
+import scala.collection.JavaConversions;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -91,6 +95,8 @@ import javax.annotation.Nullable;
 public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   private static final Logger LOG = LoggerFactory.getLogger(BaseRDDCollection.class);
   private static final Gson GSON = new Gson();
+  @VisibleForTesting
+  static final String SAMPLED_JOIN_INPUT_PREFIX = "cdap.join.sampled.";
   protected final JavaSparkExecutionContext sec;
   protected final JavaSparkContext jsc;
   protected final SQLContext sqlContext;
@@ -120,15 +126,42 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   public SparkCollection<T> cache() {
     SparkConf sparkConf = jsc.getConf();
     if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
-      String cacheStorageLevelString = sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL, 
-                                                     Constants.DEFAULT_CACHING_STORAGE_LEVEL);
-      StorageLevel cacheStorageLevel = StorageLevel.fromString(cacheStorageLevelString);
-      return wrap(rdd.persist(cacheStorageLevel));
+      return wrap(rdd.persist(getCacheStorageLevel()));
     } else {
       return wrap(rdd);
     }
   }
 
+  /**
+   * Unpersists the join inputs that were persisted by {@link #persistSampledJoinInput(JavaRDD, String, String)}.
+   * This should be called once all the sinks of the pipeline phase have run.
+   */
+  public static void unpersistSampledJoinInputs(JavaSparkContext jsc) {
+    // JavaSparkContext only exposes the persisted RDDs in Spark2
+    for (RDD<?> persisted : JavaConversions.mapAsJavaMap(jsc.sc().getPersistentRDDs()).values()) {
+      String name = persisted.name();
+      if (name != null && name.startsWith(SAMPLED_JOIN_INPUT_PREFIX)) {
+        persisted.unpersist(false);
+      }
+    }
+  }
+
+  /**
+   * Persists the input of a join whose keys are sampled before the join. Otherwise the sampling job would compute
+   * the input a second time, running the stages before the join and counting their metrics again.
+   * The join output is computed lazily by the sinks, so the input is only unpersisted by
+   * {@link #unpersistSampledJoinInputs(JavaSparkContext)}.
+   */
+  protected <U> JavaRDD<U> persistSampledJoinInput(JavaRDD<U> input, String joinStage, String inputStage) {
+    return input.setName(SAMPLED_JOIN_INPUT_PREFIX + joinStage + "." + inputStage).persist(getCacheStorageLevel());
+  }
+
+  private StorageLevel getCacheStorageLevel() {
+    String cacheStorageLevelString = jsc.getConf().get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL,
+                                                       Constants.DEFAULT_CACHING_STORAGE_LEVEL);
+    return StorageLevel.fromString(cacheStorageLevelString);
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public SparkCollection<T> union(SparkCollection<T> other) {
@@ -136,18 +169,20 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   }
 
   @Override
-  public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
+  public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector,
+                                                       boolean batchInput) {
     PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
-    return wrap(rdd.flatMap(Compat.convert(new TransformFunction<T>(
-      pluginFunctionContext, functionCacheFactory.newCache()))));
+    return wrap(rdd.mapPartitions(Compat.convert(new TransformFunction<T>(
+      pluginFunctionContext, functionCacheFactory.newCache(), batchInput))));
   }
 
   @Override
   public SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec,
-                                                                  StageStatisticsCollector collector) {
+                                                                  StageStatisticsCollector collector,
+                                                                  boolean batchInput) {
     PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
-    return wrap(rdd.flatMap(Compat.convert(new MultiOutputTransformFunction<T>(
-      pluginFunctionContext, functionCacheFactory.newCache()))));
+    return wrap(rdd.mapPartitions(Compat.convert(new MultiOutputTransformFunction<T>(
+      pluginFunctionContext, functionCacheFactory.newCache(), batchInput))));
   }
 
   @Override
@@ -245,14 +280,15 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
 
   @Override
   public Runnable createMultiStoreTask(PhaseSpec phaseSpec, Set<String> group, Set<String> sinks,
-                                       Map<String, StageStatisticsCollector> collectors) {
+                                       Map<String, StageStatisticsCollector> collectors, boolean batchInput) {
     return new Runnable() {
       @Override
       public void run() {
-        PairFlatMapFunction<T, String, KeyValue<Object, Object>> multiSinkFunction =
-          (PairFlatMapFunction<T, String, KeyValue<Object, Object>>)
-            Compat.convert(new MultiSinkFunction(sec, phaseSpec, group, collectors));
-        JavaPairRDD<String, KeyValue<Object, Object>> taggedOutput = rdd.flatMapToPair(multiSinkFunction);
+        PairFlatMapFunction<Iterator<T>, String, KeyValue<Object, Object>> multiSinkFunction =
+          (PairFlatMapFunction<Iterator<T>, String, KeyValue<Object, Object>>)
+            (PairFlatMapFunction) Compat.convert(new MultiSinkFunction(sec, phaseSpec, group, collectors,
+                                                                       batchInput));
+        JavaPairRDD<String, KeyValue<Object, Object>> taggedOutput = rdd.mapPartitionsToPair(multiSinkFunction);
         for (String outputName : sinkFactory.writeCombinedRDD(taggedOutput, sec, sinks)) {
           recordLineage(outputName);
         }
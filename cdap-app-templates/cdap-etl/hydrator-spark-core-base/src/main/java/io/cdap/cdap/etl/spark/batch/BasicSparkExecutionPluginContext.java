@@ -27,6 +27,7 @@ import io.cdap.cdap.etl.api.Lookup;
 import io.cdap.cdap.etl.api.batch.SparkExecutionPluginContext;
 import io.cdap.cdap.etl.common.AbstractTransformContext;
 import io.cdap.cdap.etl.common.DatasetContextLookupProvider;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.common.PipelineRuntime;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import org.apache.spark.api.java.JavaPairRDD;
@@ -48,7 +49,8 @@ public class BasicSparkExecutionPluginContext extends AbstractTransformContext i
   public BasicSparkExecutionPluginContext(JavaSparkExecutionContext sec, JavaSparkContext jsc,
                                           DatasetContext datasetContext, PipelineRuntime pipelineRuntime,
                                           StageSpec stageSpec) {
-    super(pipelineRuntime, stageSpec, new DatasetContextLookupProvider(datasetContext));
+    super(pipelineRuntime, stageSpec, new DatasetContextLookupProvider(
+      datasetContext, new DefaultStageMetrics(pipelineRuntime.getMetrics(), stageSpec.getName())));
     this.sec = sec;
     this.jsc = jsc;
     this.datasetContext = datasetContext;
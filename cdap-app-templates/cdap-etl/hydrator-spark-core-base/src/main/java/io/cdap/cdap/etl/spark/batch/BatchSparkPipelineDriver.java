@@ -155,6 +155,7 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
       runPipeline(phaseSpec, BatchSource.PLUGIN_TYPE, sec, stagePartitions, pluginInstantiator, collectors,
                   sinkFactory.getUncombinableSinks(), shouldConsolidateStages);
     } finally {
+      BaseRDDCollection.unpersistSampledJoinInputs(jsc);
       updateWorkflowToken(sec.getWorkflowToken(), collectors);
     }
   }
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An iterator over the output of processing the records of a partition in batches. Batches are read from the input
+ * lazily, and the next batch is only processed after all output of the previous batch has been consumed, so that
+ * only the output of a single batch is kept in memory.
+ *
+ * Each batch is fully read from the input before it is processed. This makes sure that the time spent and
+ * the logs written while computing the input records are not attributed to the stage processing the batch.
+ * Since a batch holds references to many input records at once, a batch size of 1 must be used if the input may
+ * contain objects that are reused for multiple records, such as the keys and values read by a Hadoop record reader.
+ *
+ * @param <T> type of input record
+ * @param <R> type of output record
+ */
+abstract class BatchingIterator<T, R> extends AbstractIterator<R> {
+
+  static final int BATCH_SIZE = 1000;
+
+  private final Iterator<T> input;
+  private final int batchSize;
+  private final List<T> batch;
+  private Iterator<R> output;
+
+  BatchingIterator(Iterator<T> input, int batchSize) {
+    this.input = input;
+    this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
+    this.output = Collections.emptyIterator();
+  }
+
+  @Override
+  protected R computeNext() {
+    while (!output.hasNext()) {
+      if (!input.hasNext()) {
+        return endOfData();
+      }
+      batch.clear();
+      while (batch.size() < batchSize && input.hasNext()) {
+        batch.add(input.next());
+      }
+      try {
+        output = processBatch(batch).iterator();
+      } catch (Exception e) {
+        throw Throwables.propagate(e);
+      }
+    }
+    return output.next();
+  }
+
+  /**
+   * Processes a batch of input records. The returned output is fully consumed before this method is called again.
+   *
+   * @param batch the batch of input records
+   * @return the output of the batch
+   * @throws Exception if there was an error processing the batch
+   */
+  protected abstract Iterable<R> processBatch(List<T> batch) throws Exception;
+}
@@ -21,33 +21,54 @@ import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.TrackedMultiOutputTransform;
 import io.cdap.cdap.etl.spark.CombinedEmitter;
 
+import java.util.Iterator;
+import java.util.List;
+
 /**
- * Function that uses a MultiOutputTransform to perform a flatmap.
+ * Function that uses a MultiOutputTransform to perform a flatmap over a partition. Records are transformed in batches
+ * of {@link BatchingIterator#BATCH_SIZE} records, unless the input may contain reused objects.
  * Non-serializable fields are lazily created since this is used in a Spark closure.
  *
  * @param <T> type of input object
  */
-public class MultiOutputTransformFunction<T> implements FlatMapFunc<T, RecordInfo<Object>> {
+public class MultiOutputTransformFunction<T> implements FlatMapFunc<Iterator<T>, RecordInfo<Object>> {
   private final PluginFunctionContext pluginFunctionContext;
   private final FunctionCache functionCache;
+  private final boolean batchInput;
   private transient TrackedMultiOutputTransform<T, Object> transform;
   private transient CombinedEmitter<Object> emitter;
 
-  public MultiOutputTransformFunction(PluginFunctionContext pluginFunctionContext, FunctionCache functionCache) {
+  /**
+   * Creates the function.
+   *
+   * @param pluginFunctionContext the context for the plugin
+   * @param functionCache the cache for the plugin instance
+   * @param batchInput whether the input records can be processed in batches. It must be {@code false} if the input
+   *                   may contain objects that are reused for multiple records
+   */
+  public MultiOutputTransformFunction(PluginFunctionContext pluginFunctionContext, FunctionCache functionCache,
+                                      boolean batchInput) {
     this.pluginFunctionContext = pluginFunctionContext;
     this.functionCache = functionCache;
+    this.batchInput = batchInput;
   }
 
   @Override
-  public Iterable<RecordInfo<Object>> call(T input) throws Exception {
+  public Iterable<RecordInfo<Object>> call(Iterator<T> input) throws Exception {
     if (transform == null) {
       SplitterTransform<T, Object> plugin = pluginFunctionContext.createAndInitializePlugin(functionCache);
       transform = new TrackedMultiOutputTransform<>(plugin, pluginFunctionContext.createStageMetrics(),
                                                     pluginFunctionContext.getDataTracer());
       emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
     }
-    emitter.reset();
-    transform.transform(input, emitter);
-    return emitter.getEmitted();
+    int batchSize = batchInput ? BatchingIterator.BATCH_SIZE : 1;
+    return () -> new BatchingIterator<T, RecordInfo<Object>>(input, batchSize) {
+      @Override
+      protected Iterable<RecordInfo<Object>> processBatch(List<T> batch) throws Exception {
+        emitter.reset();
+        transform.transformBatch(batch, emitter);
+        return emitter.getEmitted();
+      }
+    };
   }
 }
@@ -39,9 +39,13 @@ import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.SparkTransformExecutorFactory;
 import scala.Tuple2;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -69,20 +73,26 @@ import javax.annotation.Nullable;
  *
  * This function is meant to be executed right before saving the Spark collection using a Multi OutputFormat that
  * delegates to underlying output formats.
+ *
+ * The records of a partition are processed in batches of {@link BatchingIterator#BATCH_SIZE} records, with the
+ * records of a batch sent to each branch of the group as a single batch. If the input may contain objects that are
+ * reused for multiple records, the records are processed one at a time instead.
  */
-public class MultiSinkFunction implements PairFlatMapFunc<RecordInfo<Object>, String, KeyValue<Object, Object>> {
+public class MultiSinkFunction
+  implements PairFlatMapFunc<Iterator<RecordInfo<Object>>, String, KeyValue<Object, Object>> {
   private final PipelineRuntime pipelineRuntime;
   private final PhaseSpec phaseSpec;
   private final Set<String> group;
   private final Map<String, DataTracer> dataTracers;
   private final Map<String, StageStatisticsCollector> collectors;
+  private final boolean batchInput;
   private transient DefaultEmitter<Tuple2<String, KeyValue<Object, Object>>> emitter;
   private transient SparkTransformExecutorFactory executorFactory;
   private transient Map<InputInfo, Set<String>> inputConnections;
   private transient Map<String, PipeTransformExecutor<Object>> branchExecutors;
 
   public MultiSinkFunction(JavaSparkExecutionContext sec, PhaseSpec phaseSpec, Set<String> group,
-                           Map<String, StageStatisticsCollector> collectors) {
+                           Map<String, StageStatisticsCollector> collectors, boolean batchInput) {
     this.pipelineRuntime = new PipelineRuntime(
       sec.getNamespace(), sec.getApplicationSpecification().getName(), sec.getLogicalStartTime(),
       new BasicArguments(sec), sec.getMetrics(), sec.getPluginContext(), sec.getServiceDiscoverer(),
@@ -92,6 +102,7 @@ public class MultiSinkFunction implements PairFlatMapFunc<RecordInfo<Object>, St
                                    phaseSpec.isStageLoggingEnabled(), phaseSpec.isProcessTimingEnabled());
     this.group = group;
     this.collectors = collectors;
+    this.batchInput = batchInput;
     this.dataTracers = new HashMap<>();
     for (String stage : group) {
       dataTracers.put(stage, sec.getDataTracer(stage));
@@ -99,7 +110,8 @@ public class MultiSinkFunction implements PairFlatMapFunc<RecordInfo<Object>, St
   }
 
   @Override
-  public Iterable<Tuple2<String, KeyValue<Object, Object>>> call(RecordInfo<Object> input) throws Exception {
+  public Iterable<Tuple2<String, KeyValue<Object, Object>>> call(Iterator<RecordInfo<Object>> input)
+    throws Exception {
     if (branchExecutors == null) {
       // branch executors must be created lazily here instead of passed into the constructor to ensure that
       // they are not serialized in the function. This ensures that macros are evaluated each run instead of just for
@@ -123,22 +135,39 @@ public class MultiSinkFunction implements PairFlatMapFunc<RecordInfo<Object>, St
        Records from portB need to be sent to the k2 branch, errors need to be sent to the error collector branch,
        and portA records need to be dropped.
      */
-    InputInfo inputInfo = new InputInfo(input.getFromStage(), input.getType(), input.getFromPort());
-    Object record = input.getValue();
-    emitter.reset();
+    int batchSize = batchInput ? BatchingIterator.BATCH_SIZE : 1;
+    return () -> new BatchingIterator<RecordInfo<Object>, Tuple2<String, KeyValue<Object, Object>>>(input, batchSize) {
+      @Override
+      protected Iterable<Tuple2<String, KeyValue<Object, Object>>> processBatch(List<RecordInfo<Object>> batch) {
+        emitter.reset();
+        for (Map.Entry<String, List<Object>> entry : getBranchInputs(batch).entrySet()) {
+          branchExecutors.get(entry.getKey()).runBatch(entry.getValue());
+        }
+        return emitter.getEntries();
+      }
+    };
+  }
 
-    /*
-        inputConnections contains a map from input source to the branch that should receive it.
-        With the example pipeline above, it will look like:
-          { stageName: splitter, port: B, type: output } -> [k2]
-          { stageName: splitter, type: error } -> [error collector]
-     */
-    Set<String> groupSources = inputConnections.getOrDefault(inputInfo, Collections.emptySet());
-    for (String groupSource : groupSources) {
-      branchExecutors.get(groupSource).runOneIteration(record);
-    }
+  /**
+   * Splits the batch into the inputs for each branch, preserving the order of the records sent to each branch.
+   */
+  private Map<String, List<Object>> getBranchInputs(List<RecordInfo<Object>> batch) {
+    Map<String, List<Object>> branchInputs = new LinkedHashMap<>();
+    for (RecordInfo<Object> input : batch) {
+      InputInfo inputInfo = new InputInfo(input.getFromStage(), input.getType(), input.getFromPort());
 
-    return emitter.getEntries();
+      /*
+          inputConnections contains a map from input source to the branch that should receive it.
+          With the example pipeline above, it will look like:
+            { stageName: splitter, port: B, type: output } -> [k2]
+            { stageName: splitter, type: error } -> [error collector]
+       */
+      Set<String> groupSources = inputConnections.getOrDefault(inputInfo, Collections.emptySet());
+      for (String groupSource : groupSources) {
+        branchInputs.computeIfAbsent(groupSource, k -> new ArrayList<>()).add(input.getValue());
+      }
+    }
+    return branchInputs;
   }
 
   private void initializeBranchExecutors() {
@@ -27,6 +27,12 @@ import javax.annotation.Nullable;
  * Request to join some collection to another collection.
  */
 public class JoinRequest {
+  /**
+   * Fraction of the skewed stage records that are sampled to find the hot keys, if the distribution has a hot key
+   * threshold.
+   */
+  public static final double HOT_KEY_SAMPLE_FRACTION = 0.01d;
+
   private final String stageName;
   private final String leftStage;
   private final List<String> leftKey;
@@ -104,4 +110,12 @@ public class JoinRequest {
   public boolean isDistributionEnabled() {
     return distribution != null && toJoin.size() == 1;
   }
+
+  /**
+   * Returns whether the join keys of the given input stage are sampled to find the hot keys before the join.
+   */
+  public boolean isHotKeySampled(String stage) {
+    return isDistributionEnabled() && distribution.getHotKeyThreshold() != null
+      && stage.equals(distribution.getSkewedStageName());
+  }
 }
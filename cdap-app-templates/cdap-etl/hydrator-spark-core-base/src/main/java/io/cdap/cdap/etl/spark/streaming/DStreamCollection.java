@@ -106,20 +106,22 @@ public class DStreamCollection<T> implements SparkCollection<T> {
   }
 
   @Override
-  public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
+  public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector,
+                                                       boolean batchInput) {
     return wrap(stream.transform(new DynamicTransform<T>(
       new DynamicDriverContext(stageSpec, sec, collector),
       functionCacheFactory.newCache(),
-      false)));
+      false, batchInput)));
   }
 
   @Override
   public SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec,
-                                                                  StageStatisticsCollector collector) {
+                                                                  StageStatisticsCollector collector,
+                                                                  boolean batchInput) {
     return wrap(stream.transform(new DynamicTransform<T>(
       new DynamicDriverContext(stageSpec, sec, collector),
       functionCacheFactory.newCache(),
-      true)));
+      true, batchInput)));
   }
 
   @Override
@@ -187,12 +189,12 @@ public class DStreamCollection<T> implements SparkCollection<T> {
 
   @Override
   public Runnable createMultiStoreTask(PhaseSpec phaseSpec, Set<String> group, Set<String> sinks,
-                                       Map<String, StageStatisticsCollector> collectors) {
+                                       Map<String, StageStatisticsCollector> collectors, boolean batchInput) {
     return new Runnable() {
       @Override
       public void run() {
         Compat.foreachRDD((JavaDStream<RecordInfo<Object>>) stream,
-                          new StreamingMultiSinkFunction(sec, phaseSpec, group, sinks, collectors));
+                          new StreamingMultiSinkFunction(sec, phaseSpec, group, sinks, collectors, batchInput));
       }
     };
   }
@@ -28,6 +28,8 @@ import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.streaming.Time;
 
+import java.util.Iterator;
+
 /**
  * Serializable function that can be used to perform a flat map on a DStream. Dynamically instantiates
  * the Transform plugin used to perform the flat map to ensure that code changes are picked up and to ensure
@@ -39,24 +41,27 @@ public class DynamicTransform<T> implements Function2<JavaRDD<T>, Time, JavaRDD<
   private final DynamicDriverContext dynamicDriverContext;
   private final FunctionCache functionCache;
   private final boolean isMultiOutput;
-  private transient FlatMapFunction<T, RecordInfo<Object>> function;
+  private final boolean batchInput;
+  private transient FlatMapFunction<Iterator<T>, RecordInfo<Object>> function;
 
   public DynamicTransform(DynamicDriverContext dynamicDriverContext,
                           FunctionCache functionCache,
-                          boolean isMultiOutput) {
+                          boolean isMultiOutput, boolean batchInput) {
     this.dynamicDriverContext = dynamicDriverContext;
     this.functionCache = functionCache;
     this.isMultiOutput = isMultiOutput;
+    this.batchInput = batchInput;
   }
 
   @Override
   public JavaRDD<RecordInfo<Object>> call(JavaRDD<T> input, Time batchTime) throws Exception {
     if (function == null) {
-      FlatMapFunc<T, RecordInfo<Object>> flatMap = isMultiOutput ?
-        new MultiOutputTransformFunction<T>(dynamicDriverContext.getPluginFunctionContext(), functionCache) :
-        new TransformFunction<T>(dynamicDriverContext.getPluginFunctionContext(), functionCache);
+      FlatMapFunc<Iterator<T>, RecordInfo<Object>> flatMap = isMultiOutput ?
+        new MultiOutputTransformFunction<T>(dynamicDriverContext.getPluginFunctionContext(), functionCache,
+                                            batchInput) :
+        new TransformFunction<T>(dynamicDriverContext.getPluginFunctionContext(), functionCache, batchInput);
       function = Compat.convert(flatMap);
     }
-    return input.flatMap(function);
+    return input.mapPartitions(function);
   }
 }
@@ -65,15 +65,17 @@ public class StreamingMultiSinkFunction implements Function2<JavaRDD<RecordInfo<
   private final Set<String> group;
   private final Set<String> sinkNames;
   private final Map<String, StageStatisticsCollector> collectors;
+  private final boolean batchInput;
 
   public StreamingMultiSinkFunction(JavaSparkExecutionContext sec, PhaseSpec phaseSpec,
                                     Set<String> group, Set<String> sinkNames,
-                                    Map<String, StageStatisticsCollector> collectors) {
+                                    Map<String, StageStatisticsCollector> collectors, boolean batchInput) {
     this.sec = sec;
     this.phaseSpec = phaseSpec;
     this.group = group;
     this.sinkNames = sinkNames;
     this.collectors = collectors;
+    this.batchInput = batchInput;
   }
 
   @Override
@@ -115,9 +117,9 @@ public class StreamingMultiSinkFunction implements Function2<JavaRDD<RecordInfo<
     // run the actual transforms and sinks in this group
     boolean ranSuccessfully = true;
     try {
-      MultiSinkFunction multiSinkFunction = new MultiSinkFunction(sec, phaseSpec, group, collectors);
-      Set<String> outputNames = sinkFactory.writeCombinedRDD(data.flatMapToPair(Compat.convert(multiSinkFunction)),
-                                                             sec, sinkNames);
+      MultiSinkFunction multiSinkFunction = new MultiSinkFunction(sec, phaseSpec, group, collectors, batchInput);
+      Set<String> outputNames =
+        sinkFactory.writeCombinedRDD(data.mapPartitionsToPair(Compat.convert(multiSinkFunction)), sec, sinkNames);
       sec.execute(new TxRunnable() {
         @Override
         public void run(DatasetContext context) throws Exception {
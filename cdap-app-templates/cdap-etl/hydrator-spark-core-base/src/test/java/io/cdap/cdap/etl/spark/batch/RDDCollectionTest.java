@@ -0,0 +1,293 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.api.join.JoinDistribution;
+import io.cdap.cdap.etl.api.join.JoinField;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.spark.join.JoinCollection;
+import io.cdap.cdap.etl.spark.join.JoinRequest;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.sql.SQLContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import scala.collection.JavaConversions;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Tests for {@link RDDCollection}.
+ */
+public class RDDCollectionTest {
+
+  private static final Schema PURCHASE_SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+  private static final Schema USER_SCHEMA = Schema.recordOf(
+    "user",
+    Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+  private static final Schema OUTPUT_SCHEMA = Schema.recordOf(
+    "joined",
+    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+  private static final int NUM_PURCHASES = 20000;
+
+  private static JavaSparkContext jsc;
+  private static SQLContext sqlContext;
+  private static JavaSparkExecutionContext sec;
+  private static List<StructuredRecord> purchases;
+  private static List<StructuredRecord> users;
+  private static int joinCount;
+
+  @BeforeClass
+  public static void init() {
+    SparkConf sparkConf = new SparkConf()
+      .setMaster("local[2]")
+      .setAppName(RDDCollectionTest.class.getSimpleName())
+      .set("spark.sql.shuffle.partitions", "4")
+      .set("spark.ui.enabled", "false");
+    jsc = new JavaSparkContext(sparkConf);
+    sqlContext = new SQLContext(jsc);
+    sec = Mockito.mock(JavaSparkExecutionContext.class);
+    Mockito.when(sec.getMetrics()).thenReturn(new CountingMetrics());
+
+    // Half of the purchases are from a single user, and a fifth of them have no user
+    purchases = new ArrayList<>();
+    for (int i = 0; i < NUM_PURCHASES; i++) {
+      String user;
+      if (i % 10 < 5) {
+        user = "hot";
+      } else if (i % 10 < 7) {
+        user = null;
+      } else {
+        user = "u" + (i % 50);
+      }
+      purchases.add(StructuredRecord.builder(PURCHASE_SCHEMA).set("id", i).set("user", user).build());
+    }
+
+    // The hot user has two names, and the users u40 to u49 are missing
+    users = new ArrayList<>();
+    users.add(createUser("hot", "hot0"));
+    users.add(createUser("hot", "hot1"));
+    users.add(createUser(null, "nobody"));
+    for (int i = 0; i < 40; i++) {
+      users.add(createUser("u" + i, "user" + i));
+    }
+  }
+
+  @AfterClass
+  public static void finish() {
+    jsc.stop();
+  }
+
+  /*
+      The join output has two records for each of the 10000 purchases from the hot user, and one record for each of
+      the 4800 purchases from u7 to u39. The 4000 purchases without a user are only joined with a null safe join,
+      and the 1200 purchases from u47 to u49 are only kept by a left outer join.
+   */
+
+  @Test
+  public void testSaltedInnerJoin() {
+    testSaltedJoin(true, false, null, 24800);
+  }
+
+  @Test
+  public void testSaltedNullSafeInnerJoin() {
+    testSaltedJoin(true, true, 3, 28800);
+  }
+
+  @Test
+  public void testSaltedLeftOuterJoin() {
+    testSaltedJoin(false, false, null, 30000);
+  }
+
+  @Test
+  public void testSaltedNullSafeLeftOuterJoin() {
+    testSaltedJoin(false, true, 3, 30000);
+  }
+
+  @Test
+  public void testNoHotKeys() {
+    // No key makes up the whole sample, so the join is not salted
+    List<String> expected = join(true, true, null, null);
+    Assert.assertEquals(expected, join(true, true, null, new JoinDistribution(4, "purchases", 1.0d)));
+  }
+
+  @Test
+  public void testHotKeysDistributed() {
+    // The records of the hot keys, including the null key, are spread over the partitions of the join.
+    // The records of the other keys all have the same salt, so they are joined in a single partition.
+    JavaRDD<StructuredRecord> joined = joinRecords(true, true, 4, new JoinDistribution(4, "purchases", 0.1d));
+    List<String> userPartitions = joined.mapPartitionsWithIndex((index, records) -> {
+      Set<String> users = new HashSet<>();
+      while (records.hasNext()) {
+        users.add(index + "|" + records.next().get("user"));
+      }
+      return users.iterator();
+    }, false).collect();
+    BaseRDDCollection.unpersistSampledJoinInputs(jsc);
+
+    Map<String, Integer> numPartitions = new HashMap<>();
+    for (String userPartition : userPartitions) {
+      numPartitions.merge(userPartition.substring(userPartition.indexOf('|') + 1), 1, Integer::sum);
+    }
+    Assert.assertTrue(numPartitions.get("hot") > 1);
+    Assert.assertTrue(numPartitions.get("null") > 1);
+    Assert.assertEquals(1, (int) numPartitions.get("u7"));
+  }
+
+  @Test
+  public void testUnpersistSampledJoinInputs() {
+    JoinDistribution distribution = new JoinDistribution(4, "purchases", 0.1d);
+    String stageName = "join" + joinCount;
+    join(true, true, null, distribution);
+    String sampledInput = BaseRDDCollection.SAMPLED_JOIN_INPUT_PREFIX + stageName + ".purchases";
+    Assert.assertEquals(Collections.singletonList(sampledInput), getSampledJoinInputs());
+
+    BaseRDDCollection.unpersistSampledJoinInputs(jsc);
+    Assert.assertEquals(Collections.emptyList(), getSampledJoinInputs());
+  }
+
+  /**
+   * Joins the skewed purchases with the users, salting all keys and only the hot keys, and checks that the output
+   * is the same as the output of the join without salting.
+   */
+  private void testSaltedJoin(boolean usersRequired, boolean nullSafe, @Nullable Integer numPartitions,
+                              int expectedSize) {
+    List<String> expected = join(usersRequired, nullSafe, numPartitions, null);
+    Assert.assertEquals(expectedSize, expected.size());
+    long nullUserRecords = expected.stream().filter(r -> r.endsWith("|null|nobody")).count();
+    Assert.assertEquals(nullSafe ? 4000 : 0, nullUserRecords);
+
+    // Salt all the keys
+    Assert.assertEquals(expected, join(usersRequired, nullSafe, numPartitions,
+                                       new JoinDistribution(4, "purchases")));
+
+    // Salt only the hot keys. Records in of the join is only counted once, even though the purchases are sampled
+    String stageName = "join" + joinCount;
+    Assert.assertEquals(expected, join(usersRequired, nullSafe, numPartitions,
+                                       new JoinDistribution(4, "purchases", 0.1d)));
+    Assert.assertEquals(NUM_PURCHASES + users.size(),
+                        CountingMetrics.getCount(stageName + "." + Constants.Metrics.RECORDS_IN));
+    BaseRDDCollection.unpersistSampledJoinInputs(jsc);
+  }
+
+  /**
+   * Joins the purchases with the users on the user, and returns the sorted output records as strings.
+   */
+  private List<String> join(boolean usersRequired, boolean nullSafe, @Nullable Integer numPartitions,
+                            @Nullable JoinDistribution distribution) {
+    List<String> output = new ArrayList<>();
+    for (StructuredRecord record : joinRecords(usersRequired, nullSafe, numPartitions, distribution).collect()) {
+      output.add(record.get("id") + "|" + record.get("user") + "|" + record.get("name"));
+    }
+    Collections.sort(output);
+    return output;
+  }
+
+  private JavaRDD<StructuredRecord> joinRecords(boolean usersRequired, boolean nullSafe,
+                                                @Nullable Integer numPartitions,
+                                                @Nullable JoinDistribution distribution) {
+    String stageName = "join" + joinCount++;
+    RDDCollection<StructuredRecord> purchaseCollection = createCollection(purchases);
+    JoinCollection userCollection = new JoinCollection("users", createCollection(users), USER_SCHEMA,
+                                                       Collections.singletonList("user"), usersRequired, false);
+    List<JoinField> fields = Arrays.asList(new JoinField("purchases", "id"), new JoinField("purchases", "user"),
+                                           new JoinField("users", "name"));
+    JoinRequest joinRequest = new JoinRequest(stageName, "purchases", Collections.singletonList("user"),
+                                              PURCHASE_SCHEMA, true, nullSafe, fields, OUTPUT_SCHEMA,
+                                              Collections.singletonList(userCollection), numPartitions, distribution);
+
+    return purchaseCollection.join(joinRequest).getUnderlying();
+  }
+
+  private RDDCollection<StructuredRecord> createCollection(List<StructuredRecord> records) {
+    return new RDDCollection<>(sec, jsc, sqlContext, null, null, jsc.parallelize(records, 4));
+  }
+
+  private static List<String> getSampledJoinInputs() {
+    List<String> names = new ArrayList<>();
+    for (RDD<?> rdd : JavaConversions.mapAsJavaMap(jsc.sc().getPersistentRDDs()).values()) {
+      if (rdd.name() != null && rdd.name().startsWith(BaseRDDCollection.SAMPLED_JOIN_INPUT_PREFIX)) {
+        names.add(rdd.name());
+      }
+    }
+    return names;
+  }
+
+  private static StructuredRecord createUser(@Nullable String user, String name) {
+    return StructuredRecord.builder(USER_SCHEMA).set("user", user).set("name", name).build();
+  }
+
+  /**
+   * {@link Metrics} that keeps the counts in a static map, so that the counts of the Spark tasks in the local
+   * executor can be checked.
+   */
+  private static final class CountingMetrics implements Metrics, Serializable {
+
+    private static final Map<String, AtomicInteger> COUNTS = new ConcurrentHashMap<>();
+
+    static int getCount(String metricName) {
+      AtomicInteger count = COUNTS.get(metricName);
+      return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void count(String metricName, int delta) {
+      COUNTS.computeIfAbsent(metricName, k -> new AtomicInteger()).addAndGet(delta);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+
+    @Override
+    public Metrics child(Map<String, String> tags) {
+      return this;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+      return Collections.emptyMap();
+    }
+  }
+}
@@ -21,6 +21,7 @@ import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.api.spark.sql.DataFrames;
+import io.cdap.cdap.etl.api.join.JoinDistribution;
 import io.cdap.cdap.etl.api.join.JoinField;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.spark.SparkCollection;
@@ -44,6 +45,7 @@ import scala.collection.Seq;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -51,6 +53,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import javax.annotation.Nullable;
 
 import static org.apache.spark.sql.functions.floor;
 
@@ -74,7 +77,11 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     Function<StructuredRecord, StructuredRecord> recordsInCounter =
       new CountingFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_IN, sec.getDataTracer(stageName));
     StructType leftSparkSchema = DataFrames.toDataType(joinRequest.getLeftSchema());
-    DataFrame left = toDataFrame(((JavaRDD<StructuredRecord>) rdd).map(recordsInCounter), leftSparkSchema);
+    JavaRDD<StructuredRecord> leftInput = ((JavaRDD<StructuredRecord>) rdd).map(recordsInCounter);
+    if (joinRequest.isHotKeySampled(joinRequest.getLeftStage())) {
+      leftInput = persistSampledJoinInput(leftInput, stageName, joinRequest.getLeftStage());
+    }
+    DataFrame left = toDataFrame(leftInput, leftSparkSchema);
     collections.put(joinRequest.getLeftStage(), left);
 
     List<Column> leftJoinColumns = joinRequest.getLeftKey().stream()
@@ -103,7 +110,11 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     for (JoinCollection toJoin : joinRequest.getToJoin()) {
       RDDCollection<StructuredRecord> data = (RDDCollection<StructuredRecord>) toJoin.getData();
       StructType sparkSchema = DataFrames.toDataType(toJoin.getSchema());
-      DataFrame right = toDataFrame(data.rdd.map(recordsInCounter), sparkSchema);
+      JavaRDD<StructuredRecord> rightInput = data.rdd.map(recordsInCounter);
+      if (joinRequest.isHotKeySampled(toJoin.getStage())) {
+        rightInput = persistSampledJoinInput(rightInput, stageName, toJoin.getStage());
+      }
+      DataFrame right = toDataFrame(rightInput, sparkSchema);
       collections.put(toJoin.getStage(), right);
 
       List<Column> rightJoinColumns = toJoin.getKey().stream()
@@ -124,18 +135,30 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
 
       // UUID for salt column name to avoid name collisions
       String saltColumn = UUID.randomUUID().toString();
-      if (joinRequest.isDistributionEnabled()) {
-
-        boolean isLeftStageSkewed =
-          joinRequest.getLeftStage().equals(joinRequest.getDistribution().getSkewedStageName());
+      // If a hot key threshold is set, the keys of the skewed stage are sampled and only the hot keys are salted.
+      // If none of the keys are hot, the join is performed without any salting.
+      JoinDistribution distribution = joinRequest.getDistribution();
+      List<Row> hotKeys = null;
+      // The sampled input is persisted above, so sampling doesn't compute the stages before the join twice
+      if (joinRequest.isDistributionEnabled() && distribution.getHotKeyThreshold() != null) {
+        hotKeys = joinRequest.isHotKeySampled(joinRequest.getLeftStage()) ?
+          sampleHotKeys(left, leftJoinColumns, distribution.getHotKeyThreshold()) :
+          sampleHotKeys(right, rightJoinColumns, distribution.getHotKeyThreshold());
+      }
+      boolean distributed = joinRequest.isDistributionEnabled() && (hotKeys == null || !hotKeys.isEmpty());
+      if (distributed) {
+        boolean isLeftStageSkewed = joinRequest.getLeftStage().equals(distribution.getSkewedStageName());
+        int distributionFactor = distribution.getDistributionFactor();
+        Column leftHotKeys = hotKeys == null ? null : isHotKey(leftJoinColumns, hotKeys);
+        Column rightHotKeys = hotKeys == null ? null : isHotKey(rightJoinColumns, hotKeys);
 
         // Apply salt/explode transformations to each Dataframe
         if (isLeftStageSkewed) {
-          left = saltDataFrame(left, saltColumn, joinRequest.getDistribution().getDistributionFactor());
-          right = explodeDataFrame(right, saltColumn, joinRequest.getDistribution().getDistributionFactor());
+          left = saltDataFrame(left, saltColumn, distributionFactor, leftHotKeys);
+          right = explodeDataFrame(right, saltColumn, distributionFactor, rightHotKeys);
         } else {
-          left = explodeDataFrame(left, saltColumn, joinRequest.getDistribution().getDistributionFactor());
-          right = saltDataFrame(right, saltColumn, joinRequest.getDistribution().getDistributionFactor());
+          left = explodeDataFrame(left, saltColumn, distributionFactor, leftHotKeys);
+          right = saltDataFrame(right, saltColumn, distributionFactor, rightHotKeys);
         }
 
         // Add the salt column to the join key
@@ -168,7 +191,7 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
 
         // If distribution is enabled we need to add it to the partition keys to ensure we end up with the desired
         // number of partitions
-        if (joinRequest.isDistributionEnabled()) {
+        if (distributed) {
           rightKeys.add(saltColumn);
           leftKeys.add(saltColumn);
         }
@@ -233,18 +256,68 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     return (SparkCollection<T>) wrap(output);
   }
 
+  /**
+   * Samples the join keys of the skewed side of a join to find the hot keys, which are the keys that make up at
+   * least the given fraction of the sampled rows.
+   *
+   * @param data       Dataframe to sample
+   * @param keyColumns Join key columns of the dataframe
+   * @param threshold  Minimum fraction of the sampled rows for a key to be hot
+   * @return the hot keys, with the values of the key columns in order
+   */
+  private List<Row> sampleHotKeys(DataFrame data, List<Column> keyColumns, double threshold) {
+    DataFrame sample = data.select(keyColumns.toArray(new Column[0]))
+      .sample(false, JoinRequest.HOT_KEY_SAMPLE_FRACTION)
+      .persist();
+    try {
+      long sampleSize = sample.count();
+      if (sampleSize == 0) {
+        return Collections.emptyList();
+      }
+      long minCount = (long) Math.ceil(threshold * sampleSize);
+      return sample.groupBy(sample.columns()[0], Arrays.copyOfRange(sample.columns(), 1, sample.columns().length))
+        .count()
+        .filter(functions.col("count").geq(minCount))
+        .collectAsList();
+    } finally {
+      sample.unpersist();
+    }
+  }
+
+  /**
+   * Creates a condition that is true for rows whose join key is one of the given hot keys. Keys are compared
+   * null safe, so that a hot null key is also distributed.
+   */
+  private static Column isHotKey(List<Column> keyColumns, List<Row> hotKeys) {
+    Column isHotKey = functions.lit(false);
+    for (Row hotKey : hotKeys) {
+      Column isKey = functions.lit(true);
+      for (int i = 0; i < keyColumns.size(); i++) {
+        isKey = isKey.and(keyColumns.get(i).eqNullSafe(functions.lit(hotKey.get(i))));
+      }
+      isHotKey = isHotKey.or(isKey);
+    }
+    return isHotKey;
+  }
+
   /**
    * Helper method that adds a salt column to a dataframe for join distribution
    *
    * @param data               Dataframe add salt to
    * @param saltColumnName     Name to use for the new salt column
    * @param distributionFactor The desired salt size, values in the salt column will range [0,distributionFactor)
+   * @param hotKeys            Condition for the rows to salt, or null to salt all rows. Other rows get a salt of 0
    * @return Dataframe with an additional salt column
    */
-  private DataFrame saltDataFrame(DataFrame data, String saltColumnName, int distributionFactor) {
+  private DataFrame saltDataFrame(DataFrame data, String saltColumnName, int distributionFactor,
+                                  @Nullable Column hotKeys) {
     DataFrame saltedData = data.withColumn(saltColumnName, functions.rand().multiply(distributionFactor));
     saltedData = saltedData.withColumn(saltColumnName,
       floor(saltedData.col(saltColumnName)).cast(DataTypes.IntegerType));
+    if (hotKeys != null) {
+      saltedData = saltedData.withColumn(saltColumnName,
+        functions.when(hotKeys, saltedData.col(saltColumnName)).otherwise(0));
+    }
     return saltedData;
   }
 
@@ -255,17 +328,21 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
    * @param saltColumnName     Name to use for the new salt column
    * @param distributionFactor The desired salt size, this will increase the number of rows by a factor of
    *                           distributionFactor
+   * @param hotKeys            Condition for the rows to explode, or null to explode all rows. Other rows are kept
+   *                           as is, with a salt of 0
    * @return Dataframe with an additional salt column
    */
-  private DataFrame explodeDataFrame(DataFrame data, String saltColumnName, int distributionFactor) {
+  private DataFrame explodeDataFrame(DataFrame data, String saltColumnName, int distributionFactor,
+                                     @Nullable Column hotKeys) {
     //Array of [0,distributionFactor) to be used in to prepare for the explode
     Integer[] numbers = IntStream.range(0, distributionFactor).boxed().toArray(Integer[]::new);
+    Column salts = functions.array(Arrays.stream(numbers).map(functions::lit).toArray(Column[]::new));
+    if (hotKeys != null) {
+      salts = functions.when(hotKeys, salts).otherwise(functions.array(functions.lit(0)));
+    }
 
-    // Add a column that uses the 'numbers' array as the value for every row
-    DataFrame explodedData = data.withColumn(saltColumnName,
-      functions.array(
-        Arrays.stream(numbers).map(functions::lit).toArray(Column[]::new)
-      ));
+    // Add a column that uses the salts array as the value for every row
+    DataFrame explodedData = data.withColumn(saltColumnName, salts);
     explodedData = explodedData.withColumn(saltColumnName, functions.explode(explodedData.col(saltColumnName)));
     return explodedData;
   }
@@ -43,13 +43,14 @@ import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Mock source that can be used to write a list of records in a Table and reads them out in a pipeline run.
  */
 @Plugin(type = BatchSource.PLUGIN_TYPE)
 @Name(MockExternalSource.PLUGIN_NAME)
-public class MockExternalSource extends BatchSource<LongWritable, Text, StructuredRecord> {
+public class MockExternalSource extends BatchSource<LongWritable, Text, Object> {
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
   public static final String PLUGIN_NAME = "MockExternalSource";
   private static final Gson GSON = new Gson();
@@ -65,10 +66,18 @@ public class MockExternalSource extends BatchSource<LongWritable, Text, Structur
   public static class Config extends PluginConfig {
     private String name;
     private String dirName;
+    // whether to emit the Text values read by the input format as is, instead of records
+    @Nullable
+    private Boolean emitText;
   }
 
   @Override
-  public void transform(KeyValue<LongWritable, Text> input, Emitter<StructuredRecord> emitter) throws Exception {
+  public void transform(KeyValue<LongWritable, Text> input, Emitter<Object> emitter) throws Exception {
+    if (config.emitText != null && config.emitText) {
+      // the input format reuses the same Text object for every value it reads
+      super.transform(input, emitter);
+      return;
+    }
     emitter.emit(GSON.fromJson(input.getValue().toString(), StructuredRecord.class));
   }
 
@@ -88,9 +97,14 @@ public class MockExternalSource extends BatchSource<LongWritable, Text, Structur
   }
 
   public static ETLPlugin getPlugin(String name, String dirName) {
+    return getPlugin(name, dirName, false);
+  }
+
+  public static ETLPlugin getPlugin(String name, String dirName, boolean emitText) {
     Map<String, String> properties = new HashMap<>();
     properties.put("name", name);
     properties.put("dirName", dirName);
+    properties.put("emitText", String.valueOf(emitText));
     return new ETLPlugin(PLUGIN_NAME, BatchSource.PLUGIN_TYPE, properties, null);
   }
 
@@ -117,6 +131,7 @@ public class MockExternalSource extends BatchSource<LongWritable, Text, Structur
     Map<String, PluginPropertyField> properties = new HashMap<>();
     properties.put("name", new PluginPropertyField("name", "", "string", true, false));
     properties.put("dirName", new PluginPropertyField("dirName", "", "string", true, false));
+    properties.put("emitText", new PluginPropertyField("emitText", "", "boolean", false, false));
     return new PluginClass(BatchSource.PLUGIN_TYPE, PLUGIN_NAME, "", MockExternalSource.class.getName(),
                            "config", properties);
   }
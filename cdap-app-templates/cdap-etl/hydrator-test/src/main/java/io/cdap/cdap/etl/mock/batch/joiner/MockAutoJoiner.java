@@ -118,7 +118,11 @@ public class MockAutoJoiner extends BatchAutoJoiner {
     if (outputSchema != null) {
       builder.setOutputSchema(outputSchema);
     }
-    if (conf.getDistributionName() != null && conf.getDistributionSize() != null) {
+    if (conf.getDistributionName() != null && conf.getDistributionSize() != null &&
+      conf.getDistributionThreshold() != null) {
+      builder.setDistributionFactor(conf.getDistributionSize(), conf.getDistributionName(),
+                                    conf.getDistributionThreshold());
+    } else if (conf.getDistributionName() != null && conf.getDistributionSize() != null) {
       builder.setDistributionFactor(conf.getDistributionSize(), conf.getDistributionName());
     }
     return builder.build();
@@ -147,6 +151,7 @@ public class MockAutoJoiner extends BatchAutoJoiner {
     public static final String SCHEMA = "schema";
     public static final String DISTRIBUTION_NAME = "distributionName";
     public static final String DISTRIBUTION_SIZE = "distributionSize";
+    public static final String DISTRIBUTION_THRESHOLD = "distributionThreshold";
 
     @Macro
     private String stages;
@@ -175,6 +180,8 @@ public class MockAutoJoiner extends BatchAutoJoiner {
 
     private Integer distributionSize;
 
+    private Double distributionThreshold;
+
     public String getDistributionName() {
       return distributionName;
     }
@@ -183,6 +190,10 @@ public class MockAutoJoiner extends BatchAutoJoiner {
       return distributionSize;
     }
 
+    public Double getDistributionThreshold() {
+      return distributionThreshold;
+    }
+
     List<String> getKey() {
       return GSON.fromJson(key, LIST);
     }
@@ -246,6 +257,8 @@ public class MockAutoJoiner extends BatchAutoJoiner {
     properties.put(Conf.DISTRIBUTION_SIZE, distribution == null ? null :
       String.valueOf(distribution.getDistributionFactor()));
     properties.put(Conf.DISTRIBUTION_NAME, distribution == null ? null : distribution.getSkewedStageName());
+    properties.put(Conf.DISTRIBUTION_THRESHOLD, distribution == null || distribution.getHotKeyThreshold() == null ?
+      null : String.valueOf(distribution.getHotKeyThreshold()));
     return properties;
   }
 
@@ -261,6 +274,8 @@ public class MockAutoJoiner extends BatchAutoJoiner {
     properties.put(Conf.DISTRIBUTION_SIZE, new PluginPropertyField(Conf.DISTRIBUTION_SIZE, "", "integer", false,
                                                                    false));
     properties.put(Conf.DISTRIBUTION_NAME, new PluginPropertyField(Conf.DISTRIBUTION_NAME, "", "string", false, false));
+    properties.put(Conf.DISTRIBUTION_THRESHOLD, new PluginPropertyField(Conf.DISTRIBUTION_THRESHOLD, "", "double",
+                                                                        false, false));
     return new PluginClass(BatchJoiner.PLUGIN_TYPE, NAME, "", MockAutoJoiner.class.getName(), "conf", properties);
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.mock.transform;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.plugin.PluginClass;
+import io.cdap.cdap.api.plugin.PluginPropertyField;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.proto.v2.ETLPlugin;
+import org.apache.hadoop.io.Text;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transform that parses the json written by {@link io.cdap.cdap.etl.mock.batch.MockExternalSource#writeInput}
+ * into a record. Used together with a source that emits the Text values it reads as is.
+ */
+@Plugin(type = Transform.PLUGIN_TYPE)
+@Name(JsonParseTransform.PLUGIN_NAME)
+public class JsonParseTransform extends Transform<Text, StructuredRecord> {
+  public static final String PLUGIN_NAME = "JsonParse";
+  public static final PluginClass PLUGIN_CLASS = getPluginClass();
+  private static final Gson GSON = new Gson();
+
+  @Override
+  public void transform(Text input, Emitter<StructuredRecord> emitter) throws Exception {
+    emitter.emit(GSON.fromJson(input.toString(), StructuredRecord.class));
+  }
+
+  public static ETLPlugin getPlugin() {
+    return new ETLPlugin(PLUGIN_NAME, Transform.PLUGIN_TYPE, new HashMap<>(), null);
+  }
+
+  private static PluginClass getPluginClass() {
+    Map<String, PluginPropertyField> properties = new HashMap<>();
+    return new PluginClass(Transform.PLUGIN_TYPE, PLUGIN_NAME, "", JsonParseTransform.class.getName(),
+                           null, properties);
+  }
+}
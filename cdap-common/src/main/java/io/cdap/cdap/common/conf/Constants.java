@@ -53,6 +53,7 @@ public final class Constants {
   public static final String COLLECT_APP_CONTAINER_LOG_LEVEL = "master.collect.app.containers.log.level";
   public static final String HTTP_CLIENT_CONNECTION_TIMEOUT_MS = "http.client.connection.timeout.ms";
   public static final String HTTP_CLIENT_READ_TIMEOUT_MS = "http.client.read.timeout.ms";
+  public static final String NETTY_NATIVE_TRANSPORT_ENABLED = "netty.native.transport.enabled";
   /** Uniquely identifies a CDAP instance */
   public static final String INSTANCE_NAME = "instance.name";
   // Environment variable name for spark home
@@ -204,6 +205,7 @@ public final class Constants {
     public static final String LOCAL_DATASET_DELETER_INITIAL_DELAY_SECONDS
       = "app.program.local.dataset.deleter.initial.delay";
     public static final String SYSTEM_ARTIFACTS_DIR = "app.artifact.dir";
+    public static final String ARTIFACT_UNPACK_CACHE_SIZE_MB = "app.artifact.unpack.cache.size.mb";
     public static final String PROGRAM_EXTRA_CLASSPATH = "app.program.extra.classpath";
     public static final String SPARK_YARN_CLIENT_REWRITE = "app.program.spark.yarn.client.rewrite.enabled";
     public static final String SPARK_EVENT_LOGS_ENABLED = "app.program.spark.event.logs.enabled";
@@ -377,6 +379,7 @@ public final class Constants {
     public static final String PROGRAM_STATUS_EVENT_FETCH_SIZE = "scheduler.program.status.event.fetch.size";
 
     public static final String JOB_QUEUE_NUM_PARTITIONS = "scheduler.job.queue.num.partitions";
+    public static final String TRIGGER_INDEX_REFRESH_SECONDS = "scheduler.trigger.index.refresh.seconds";
   }
 
   /**
@@ -578,6 +581,7 @@ public final class Constants {
     public static final String SERVER_BOSS_THREADS = "router.server.boss.threads";
     public static final String SERVER_WORKER_THREADS = "router.server.worker.threads";
     public static final String CONNECTION_TIMEOUT_SECS = "router.connection.idle.timeout.secs";
+    public static final String BACKEND_POOL_MAX_CONNECTIONS = "router.backend.connection.pool.max.connections";
     public static final String ROUTER_AUDIT_PATH_CHECK_ENABLED = "router.audit.path.check.enabled";
     public static final String ROUTER_AUDIT_LOG_ENABLED = "router.audit.log.enabled";
 
@@ -615,6 +619,10 @@ public final class Constants {
     public static final String TIME_SERIES_TABLE_ROLL_TIME = "metrics.data.table.ts.rollTime";
 
     public static final String METRICS_MINIMUM_RESOLUTION_SECONDS = "metrics.minimum.resolution.seconds";
+    public static final String QUERY_SCAN_PARALLELISM = "metrics.query.scan.parallelism";
+    public static final String QUERY_CACHE_SIZE = "metrics.query.cache.size";
+    public static final String QUERY_CACHE_COMPLETION_DELAY_SECONDS = "metrics.query.cache.completion.delay.seconds";
+    public static final String QUERY_CACHE_EXPIRE_SECONDS = "metrics.query.cache.expire.seconds";
     public static final String MINIMUM_RESOLUTION_RETENTION_SECONDS =
       "metrics.data.table.retention.minimum.resolution.seconds";
     // Key prefix for retention seconds. The actual key is suffixed by the table resolution.
@@ -727,6 +735,9 @@ public final class Constants {
       public static final String PROGRAM = "prg";
       public static final String PROGRAM_TYPE = "prt";
       public static final String PROGRAM_ENTITY = "ent";
+
+      // For the buckets of distribution metrics
+      public static final String BUCKET = "bkt";
     }
 
     /**
@@ -836,6 +847,10 @@ public final class Constants {
   public static final class LogQuery {
     public static final String ADDRESS = "log.query.server.bind.address";
     public static final String PORT = "log.query.server.bind.port";
+    public static final String TAIL_THREADS = "log.query.tail.threads";
+    public static final String TAIL_POLL_INTERVAL_MS = "log.query.tail.poll.interval.ms";
+    public static final String TAIL_BATCH_INTERVAL_MS = "log.query.tail.batch.interval.ms";
+    public static final String TAIL_TIMEOUT_SECONDS = "log.query.tail.timeout.seconds";
   }
 
   /**
@@ -1379,6 +1394,11 @@ public final class Constants {
 
     public static final String LOCAL_DATA_DIR = "messaging.local.data.dir";
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
+    public static final String LOCAL_STORAGE_TYPE = "messaging.local.storage.type";
+    public static final String LOCAL_SEGMENT_MAX_SIZE_MB = "messaging.local.segment.max.size.mb";
+    public static final String LOCAL_SEGMENT_ROLL_INTERVAL_SECONDS = "messaging.local.segment.roll.interval.secs";
+    public static final String LOCAL_SEGMENT_INDEX_INTERVAL_BYTES = "messaging.local.segment.index.interval.bytes";
+    public static final String LOCAL_SEGMENT_FLUSH_INTERVAL_MS = "messaging.local.segment.flush.interval.ms";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
 
@@ -1400,7 +1420,10 @@ public final class Constants {
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
+    public static final String HTTP_SERVER_MAX_POLL_TIMEOUT_MS = "messaging.http.server.max.poll.timeout.ms";
+    public static final String HTTP_SERVER_POLL_THREADS = "messaging.http.server.poll.threads";
     public static final String HTTP_COMPRESS_PAYLOAD = "messaging.http.compress.payload";
+    public static final String HTTP_BINARY_FETCH = "messaging.http.binary.fetch";
 
     // Distributed mode related configurations
     public static final String HA_FENCING_DELAY_SECONDS = "messaging.ha.fencing.delay.seconds";
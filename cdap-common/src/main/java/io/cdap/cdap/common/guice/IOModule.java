@@ -18,6 +18,7 @@ package io.cdap.cdap.common.guice;
 
 import com.google.inject.PrivateModule;
 import com.google.inject.Scopes;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
 import io.cdap.cdap.internal.io.ASMDatumWriterFactory;
 import io.cdap.cdap.internal.io.ASMFieldAccessorFactory;
 import io.cdap.cdap.internal.io.DatumReaderFactory;
@@ -42,8 +43,11 @@ public class IOModule extends PrivateModule {
 
     expose(DatumWriterFactory.class);
 
-    // Note: Need to add the DatumReader counter parts when those are refactored to use ASM as well.
     bind(DatumReaderFactory.class).to(ReflectionDatumReaderFactory.class).in(Scopes.SINGLETON);
     expose(DatumReaderFactory.class);
+
+    // The ASM generated DatumReader is only used by services that explicitly ask for it
+    bind(ASMDatumReaderFactory.class).in(Scopes.SINGLETON);
+    expose(ASMDatumReaderFactory.class);
   }
 }
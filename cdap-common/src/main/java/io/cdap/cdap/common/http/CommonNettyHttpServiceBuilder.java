@@ -20,6 +20,7 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.http.ChannelPipelineModifier;
 import io.cdap.http.NettyHttpService;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.util.concurrent.EventExecutor;
 
@@ -50,6 +51,8 @@ public class CommonNettyHttpServiceBuilder extends NettyHttpService.Builder {
       };
     }
     this.setExceptionHandler(new HttpExceptionHandler());
+    // Always use the shared pooled allocator to avoid copying between heap and direct buffers on socket IO
+    this.setChildChannelConfig(ChannelOption.ALLOCATOR, NettyTransports.getAllocator());
   }
 
   @Override
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.http;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Helper class for selecting the Netty transport. The native epoll transport is used when it is enabled through
+ * {@link Constants#NETTY_NATIVE_TRANSPORT_ENABLED} and available on the platform, otherwise the NIO transport is used.
+ * Channels must be created with the channel classes matching the {@link EventLoopGroup} they are registered to.
+ */
+public final class NettyTransports {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NettyTransports.class);
+
+  /**
+   * Returns {@code true} if the native epoll transport should be used.
+   */
+  public static boolean isNativeTransport(CConfiguration cConf) {
+    if (!cConf.getBoolean(Constants.NETTY_NATIVE_TRANSPORT_ENABLED)) {
+      return false;
+    }
+    if (!Epoll.isAvailable()) {
+      LOG.debug("Native epoll transport is not available, using NIO transport", Epoll.unavailabilityCause());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Creates a new {@link EventLoopGroup} of the transport selected by the given configuration.
+   *
+   * @param cConf the configuration for selecting the transport
+   * @param threads number of threads in the group
+   * @param threadFactory the {@link ThreadFactory} for creating threads
+   * @return a new {@link EventLoopGroup}
+   */
+  public static EventLoopGroup createEventLoopGroup(CConfiguration cConf, int threads, ThreadFactory threadFactory) {
+    return isNativeTransport(cConf)
+      ? new EpollEventLoopGroup(threads, threadFactory)
+      : new NioEventLoopGroup(threads, threadFactory);
+  }
+
+  /**
+   * Returns the {@link ServerSocketChannel} class that can be registered to the given {@link EventLoopGroup}.
+   */
+  public static Class<? extends ServerSocketChannel> getServerSocketChannelClass(EventLoopGroup group) {
+    return isEpoll(group) ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+  }
+
+  /**
+   * Returns the {@link SocketChannel} class that can be registered to the given {@link EventLoopGroup}.
+   */
+  public static Class<? extends SocketChannel> getSocketChannelClass(EventLoopGroup group) {
+    return isEpoll(group) ? EpollSocketChannel.class : NioSocketChannel.class;
+  }
+
+  /**
+   * Returns the {@link ByteBufAllocator} to use for channels. It is the shared pooled allocator, which allocates
+   * direct buffers whenever the platform supports it.
+   */
+  public static ByteBufAllocator getAllocator() {
+    return PooledByteBufAllocator.DEFAULT;
+  }
+
+  private static boolean isEpoll(EventLoopGroup group) {
+    EventLoopGroup parent = group instanceof EventLoop ? ((EventLoop) group).parent() : group;
+    return parent instanceof EpollEventLoopGroup;
+  }
+
+  private NettyTransports() {
+    // private
+  }
+}
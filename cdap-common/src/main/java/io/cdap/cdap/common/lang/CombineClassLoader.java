@@ -16,33 +16,67 @@
 
 package io.cdap.cdap.common.lang;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import javax.annotation.Nullable;
 
 /**
  * A {@link ClassLoader} that load classes from list of other {@link ClassLoader}s. Note that
  * this ClassLoader just delegates to other ClassLoaders, but never define class, hence no Class
  * loaded by this class would have {@link Class#getClassLoader()}} returning this ClassLoader.
+ *
+ * Delegates are always tried in order. To avoid searching delegates that cannot have a class, the packages
+ * contained in the jars and directories of each delegate are indexed the first time a class or resource is looked
+ * up. For a package that a delegate doesn't contain, a delegate without a parent is skipped, and a delegate that
+ * delegates to its parent first is replaced by its parent, so that only the parent is consulted. Only delegates that
+ * can be skipped or replaced this way are indexed. If a lookup misses, the delegates with directories that were
+ * skipped or replaced are searched again, since the content of a directory can change after it was indexed.
+ * The index of a delegate is shared by all CombineClassLoaders that delegate to it. If all delegates have no parent
+ * and only load from jars, the names of classes that cannot be loaded from any delegate are cached.
  */
 public class CombineClassLoader extends URLClassLoader {
 
   private static final Logger LOG = LoggerFactory.getLogger(CombineClassLoader.class);
+  private static final int MAX_MISSING_CLASSES = 10000;
+  // Packages of each delegate ClassLoader, weakly keyed to not prevent the ClassLoaders from being collected
+  private static final LoadingCache<ClassLoader, DelegatePackages> DELEGATE_PACKAGES = CacheBuilder.newBuilder()
+    .weakKeys()
+    .build(new CacheLoader<ClassLoader, DelegatePackages>() {
+      @Override
+      public DelegatePackages load(ClassLoader classLoader) {
+        return new DelegatePackages(classLoader);
+      }
+    });
+
   private final List<ClassLoader> delegates;
+  private final Set<String> missingClasses;
+  private volatile DelegateIndex index;
 
   /**
    * Creates a CombineClassLoader with the given parent and a list of ClassLoaders for delegation.
@@ -63,6 +97,7 @@ public class CombineClassLoader extends URLClassLoader {
   public CombineClassLoader(@Nullable ClassLoader parent, Iterable<? extends ClassLoader> delegates) {
     super(new URL[0], parent);
     this.delegates = ImmutableList.copyOf(delegates);
+    this.missingClasses = Collections.newSetFromMap(new ConcurrentHashMap<>());
   }
 
   @Override
@@ -85,26 +120,52 @@ public class CombineClassLoader extends URLClassLoader {
 
   @Override
   protected Class<?> findClass(String name) throws ClassNotFoundException {
-    for (ClassLoader classLoader : delegates) {
-      try {
-        return classLoader.loadClass(name);
-      } catch (ClassNotFoundException e) {
-        LOG.trace("Class {} not found in ClassLoader {}", name, classLoader);
+    int idx = name.lastIndexOf('.');
+    String packagePath = idx < 0 ? "" : name.substring(0, idx).replace('.', '/');
+
+    DelegateIndex index = getIndex();
+    if (!index.isCacheMissingClasses() || !missingClasses.contains(name)) {
+      Class<?> cls = loadClass(index.getDelegates(packagePath), name);
+      if (cls != null) {
+        return cls;
+      }
+      cls = loadClass(index.getSkippedDirectoryDelegates(packagePath), name);
+      if (cls != null) {
+        rebuildIndex(index);
+        return cls;
+      }
+    }
+
+    // If a delegate had URLs added since the index was built, the class might be found in the skipped delegates
+    if (index.isStale(delegates)) {
+      index = rebuildIndex(index);
+      Class<?> cls = loadClass(index.getDelegates(packagePath), name);
+      if (cls != null) {
+        return cls;
       }
     }
 
+    if (index.isCacheMissingClasses() && missingClasses.size() < MAX_MISSING_CLASSES) {
+      missingClasses.add(name);
+    }
     throw new ClassNotFoundException("Class not found in all delegated ClassLoaders: " + name);
   }
 
   @Override
   public URL findResource(String name) {
-    for (ClassLoader classLoader : delegates) {
-      URL url = classLoader.getResource(name);
+    String parentPath = getParentPath(name);
+    DelegateIndex index = getIndex();
+    URL url = getResource(index.getDelegates(parentPath), name);
+    if (url == null) {
+      url = getResource(index.getSkippedDirectoryDelegates(parentPath), name);
       if (url != null) {
-        return url;
+        rebuildIndex(index);
       }
     }
-    return null;
+    if (url == null && index.isStale(delegates)) {
+      url = getResource(rebuildIndex(index).getDelegates(parentPath), name);
+    }
+    return url;
   }
 
   @Override
@@ -119,7 +180,47 @@ public class CombineClassLoader extends URLClassLoader {
 
   @Override
   public InputStream getResourceAsStream(String name) {
-    for (ClassLoader classLoader : delegates) {
+    String parentPath = getParentPath(name);
+    DelegateIndex index = getIndex();
+    InputStream is = getResourceAsStream(index.getDelegates(parentPath), name);
+    if (is == null) {
+      is = getResourceAsStream(index.getSkippedDirectoryDelegates(parentPath), name);
+      if (is != null) {
+        rebuildIndex(index);
+      }
+    }
+    if (is == null && index.isStale(delegates)) {
+      is = getResourceAsStream(rebuildIndex(index).getDelegates(parentPath), name);
+    }
+    return is;
+  }
+
+  @Nullable
+  private static Class<?> loadClass(List<ClassLoader> classLoaders, String name) {
+    for (ClassLoader classLoader : classLoaders) {
+      try {
+        return classLoader.loadClass(name);
+      } catch (ClassNotFoundException e) {
+        LOG.trace("Class {} not found in ClassLoader {}", name, classLoader);
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static URL getResource(List<ClassLoader> classLoaders, String name) {
+    for (ClassLoader classLoader : classLoaders) {
+      URL url = classLoader.getResource(name);
+      if (url != null) {
+        return url;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static InputStream getResourceAsStream(List<ClassLoader> classLoaders, String name) {
+    for (ClassLoader classLoader : classLoaders) {
       InputStream is = classLoader.getResourceAsStream(name);
       if (is != null) {
         return is;
@@ -127,4 +228,303 @@ public class CombineClassLoader extends URLClassLoader {
     }
     return null;
   }
+
+  private DelegateIndex getIndex() {
+    DelegateIndex index = this.index;
+    if (index != null) {
+      return index;
+    }
+    synchronized (this) {
+      if (this.index == null) {
+        this.index = new DelegateIndex(delegates);
+      }
+      return this.index;
+    }
+  }
+
+  private synchronized DelegateIndex rebuildIndex(DelegateIndex oldIndex) {
+    if (index == oldIndex) {
+      missingClasses.clear();
+      DELEGATE_PACKAGES.invalidateAll(delegates);
+      index = new DelegateIndex(delegates);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the directory part of the given resource name, which is the package path for class files.
+   */
+  private static String getParentPath(String name) {
+    int idx = name.lastIndexOf('/');
+    return idx < 0 ? "" : name.substring(0, idx);
+  }
+
+  private static int countURLs(List<ClassLoader> classLoaders) {
+    int count = 0;
+    for (ClassLoader classLoader : classLoaders) {
+      if (classLoader instanceof URLClassLoader) {
+        count += ((URLClassLoader) classLoader).getURLs().length;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Index of the packages contained in each delegate ClassLoader.
+   */
+  private static final class DelegateIndex {
+
+    private final List<ClassLoader> delegates;
+    private final List<DelegatePackages> packages;
+    private final boolean hasIndexed;
+    private final boolean hasDirectories;
+    private final boolean cacheMissingClasses;
+    private final int urlCount;
+
+    DelegateIndex(List<ClassLoader> delegates) {
+      this.delegates = delegates;
+      this.packages = new ArrayList<>(delegates.size());
+      for (ClassLoader delegate : delegates) {
+        packages.add(DELEGATE_PACKAGES.getUnchecked(delegate));
+      }
+      this.hasIndexed = packages.stream().anyMatch(DelegatePackages::isIndexed);
+      this.hasDirectories = packages.stream().anyMatch(DelegatePackages::hasDirectories);
+      this.cacheMissingClasses = packages.stream().allMatch(p -> p.isIndexed() && p.getParent() == null
+                                                                   && !p.hasDirectories());
+      this.urlCount = hasIndexed ? countURLs(delegates) : 0;
+    }
+
+    /**
+     * Returns true if classes not found in any delegate can be cached, which is the case if all delegates are
+     * indexed, have no parent and only load from jar files.
+     */
+    boolean isCacheMissingClasses() {
+      return cacheMissingClasses;
+    }
+
+    /**
+     * Returns true if the delegates have URLs added since this index was built.
+     */
+    boolean isStale(List<ClassLoader> delegates) {
+      return hasIndexed && urlCount != countURLs(delegates);
+    }
+
+    /**
+     * Returns the {@link ClassLoader}s to look up a class or resource in the given package path from, in the order
+     * of delegation. An indexed delegate that does not contain the package is replaced by its parent, or excluded
+     * if it has no parent. A ClassLoader is only returned once, since looking it up again would give the same result.
+     */
+    List<ClassLoader> getDelegates(String packagePath) {
+      if (!hasIndexed) {
+        return delegates;
+      }
+      Set<ClassLoader> result = Collections.newSetFromMap(new IdentityHashMap<>());
+      List<ClassLoader> classLoaders = new ArrayList<>(delegates.size());
+      for (int i = 0; i < delegates.size(); i++) {
+        DelegatePackages delegatePackages = packages.get(i);
+        ClassLoader classLoader = delegates.get(i);
+        if (delegatePackages.isIndexed() && !delegatePackages.contains(packagePath)) {
+          classLoader = delegatePackages.getParent();
+        }
+        if (classLoader != null && result.add(classLoader)) {
+          classLoaders.add(classLoader);
+        }
+      }
+      return classLoaders;
+    }
+
+    /**
+     * Returns the delegates with directories that {@link #getDelegates(String)} skipped or replaced by their parent
+     * for the given package path, in the order of delegation.
+     */
+    List<ClassLoader> getSkippedDirectoryDelegates(String packagePath) {
+      if (!hasDirectories) {
+        return Collections.emptyList();
+      }
+      List<ClassLoader> classLoaders = new ArrayList<>();
+      for (int i = 0; i < delegates.size(); i++) {
+        DelegatePackages delegatePackages = packages.get(i);
+        if (delegatePackages.hasDirectories() && !delegatePackages.contains(packagePath)) {
+          classLoaders.add(delegates.get(i));
+        }
+      }
+      return classLoaders;
+    }
+  }
+
+  /**
+   * The packages contained in the jars and directories of a ClassLoader.
+   */
+  private static final class DelegatePackages {
+
+    // Package paths of the ClassLoader, null if it is not indexed
+    private final Set<String> packages;
+    private final ClassLoader parent;
+    private final boolean directories;
+
+    DelegatePackages(ClassLoader classLoader) {
+      this.parent = classLoader.getParent();
+      Set<String> packages = null;
+      boolean directories = false;
+      if (classLoader instanceof URLClassLoader && (parent == null || isParentFirst(classLoader))) {
+        packages = new HashSet<>();
+        directories = hasDirectories(classLoader);
+        if (!addPackages(classLoader, packages)) {
+          packages = null;
+          directories = false;
+        }
+      }
+      this.packages = packages;
+      this.directories = directories;
+    }
+
+    /**
+     * Returns true if the packages of the ClassLoader are known.
+     */
+    boolean isIndexed() {
+      return packages != null;
+    }
+
+    /**
+     * Returns true if the ClassLoader is indexed and contains the given package path.
+     */
+    boolean contains(String packagePath) {
+      return packages != null && packages.contains(packagePath);
+    }
+
+    /**
+     * Returns true if the ClassLoader is indexed and loads from directories.
+     */
+    boolean hasDirectories() {
+      return directories;
+    }
+
+    @Nullable
+    ClassLoader getParent() {
+      return parent;
+    }
+
+    /**
+     * Returns true if the given ClassLoader always looks up classes and resources from its parent before its own
+     * URLs, which is the case for a {@link URLClassLoader} that doesn't override the lookup methods. For a package
+     * it doesn't contain, such a ClassLoader gives the same result as its parent.
+     */
+    private static boolean isParentFirst(ClassLoader classLoader) {
+      for (Class<?> cls = classLoader.getClass(); cls != URLClassLoader.class; cls = cls.getSuperclass()) {
+        if (declaresMethod(cls, "loadClass", String.class, boolean.class)
+          || declaresMethod(cls, "loadClass", String.class)
+          || declaresMethod(cls, "getResource", String.class)
+          || declaresMethod(cls, "getResourceAsStream", String.class)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean declaresMethod(Class<?> cls, String name, Class<?>... parameterTypes) {
+      try {
+        cls.getDeclaredMethod(name, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+
+    private static boolean hasDirectories(ClassLoader classLoader) {
+      if (classLoader instanceof CombineClassLoader) {
+        return ((CombineClassLoader) classLoader).getDelegates().stream()
+          .anyMatch(delegate -> DELEGATE_PACKAGES.getUnchecked(delegate).hasDirectories());
+      }
+      for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+        File file = toFile(url);
+        if (file != null && file.isDirectory()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Adds the package paths of the classes and resources in the jars and directories of the given ClassLoader.
+     * Returns false if the ClassLoader cannot be indexed.
+     */
+    private static boolean addPackages(ClassLoader classLoader, Set<String> packages) {
+      if (classLoader instanceof CombineClassLoader) {
+        // A CombineClassLoader can load from the parents of its delegates, hence it can only be indexed if none
+        // of its delegates has a parent
+        for (ClassLoader delegate : ((CombineClassLoader) classLoader).getDelegates()) {
+          DelegatePackages delegatePackages = DELEGATE_PACKAGES.getUnchecked(delegate);
+          if (!delegatePackages.isIndexed() || delegatePackages.getParent() != null) {
+            return false;
+          }
+          packages.addAll(delegatePackages.packages);
+        }
+        return true;
+      }
+
+      for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+        File file = toFile(url);
+        if (file == null) {
+          return false;
+        }
+        if (file.isDirectory()) {
+          addDirectoryPackages(file, "", packages);
+        } else if (!file.isFile() || !addJarPackages(file, packages)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Nullable
+    private static File toFile(URL url) {
+      if (!"file".equals(url.getProtocol())) {
+        return null;
+      }
+      try {
+        return new File(url.toURI());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    private static void addDirectoryPackages(File dir, String packagePath, Set<String> packages) {
+      File[] files = dir.listFiles();
+      if (files == null) {
+        return;
+      }
+      for (File file : files) {
+        if (file.isDirectory()) {
+          addDirectoryPackages(file, packagePath.isEmpty() ? file.getName() : packagePath + "/" + file.getName(),
+                               packages);
+        } else {
+          packages.add(packagePath);
+        }
+      }
+    }
+
+    /**
+     * Adds the packages of the given jar file. Returns false if the jar cannot be indexed.
+     */
+    private static boolean addJarPackages(File file, Set<String> packages) {
+      try (JarFile jarFile = new JarFile(file)) {
+        Manifest manifest = jarFile.getManifest();
+        if (manifest != null && manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null) {
+          // URLClassLoader also loads from the jars in the manifest class path
+          return false;
+        }
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+          JarEntry entry = entries.nextElement();
+          if (!entry.isDirectory()) {
+            packages.add(getParentPath(entry.getName()));
+          }
+        }
+        return true;
+      } catch (IOException e) {
+        LOG.trace("Failed to index jar file {}", file, e);
+        return false;
+      }
+    }
+  }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.lang.InstantiatorFactory;
+import io.cdap.cdap.internal.asm.ByteCodeClassLoader;
+import io.cdap.cdap.internal.asm.ClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * A factory class for creating {@link DatumReader} instance for different data type and schema.
+ * It serves as an in memory cache for generated {@link DatumReader} {@link Class} using ASM.
+ * Since a generated class is specific to the schema of the data being decoded, the {@link DatumReader} created
+ * generates a new class whenever it is used to decode data with a different source schema. If the class cannot be
+ * generated for a data type, it falls back to use {@link ReflectionDatumReader}.
+ */
+public final class ASMDatumReaderFactory implements DatumReaderFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ASMDatumReaderFactory.class);
+
+  private final LoadingCache<CacheKey, Optional<Class<DatumReader<?>>>> datumReaderClasses;
+  private final FieldAccessorFactory fieldAccessorFactory;
+  private final InstantiatorFactory instantiatorFactory;
+
+  @Inject
+  public ASMDatumReaderFactory(FieldAccessorFactory fieldAccessorFactory) {
+    this.fieldAccessorFactory = fieldAccessorFactory;
+    this.instantiatorFactory = new InstantiatorFactory(true);
+    this.datumReaderClasses = CacheBuilder.newBuilder().build(new ASMCacheLoader());
+  }
+
+  /**
+   * Creates a {@link DatumReader} that is able to decode given data type with the given {@link Schema}.
+   * The instance created is thread safe and reusable.
+   *
+   * @param type Type information of the data type to be decoded.
+   * @param schema Schema of the data type.
+   * @param <T> Type of the data type.
+   * @return A {@link DatumReader} instance.
+   */
+  @Override
+  public <T> DatumReader<T> create(TypeToken<T> type, Schema schema) {
+    return new SchemaResolvingDatumReader<>(type, schema);
+  }
+
+  /**
+   * Creates a {@link DatumReader} for decoding data of the given source schema to the given type.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> DatumReader<T> createReader(TypeToken<T> type, Schema sourceSchema, Schema targetSchema) {
+    Optional<Class<DatumReader<?>>> readerClass =
+      datumReaderClasses.getUnchecked(new CacheKey(type, sourceSchema, targetSchema));
+    if (!readerClass.isPresent()) {
+      return new ReflectionDatumReader<>(targetSchema, type);
+    }
+    try {
+      return (DatumReader<T>) readerClass.get().getConstructor(Schema.class, Schema.class, FieldAccessorFactory.class,
+                                                               InstantiatorFactory.class)
+        .newInstance(sourceSchema, targetSchema, fieldAccessorFactory, instantiatorFactory);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * A {@link DatumReader} that delegates to the generated {@link DatumReader} of the source schema
+   * of the data being decoded.
+   *
+   * @param <T> Type of the data type.
+   */
+  private final class SchemaResolvingDatumReader<T> implements DatumReader<T> {
+
+    private final TypeToken<T> type;
+    private final Schema schema;
+    private volatile ResolvedReader<T> resolvedReader;
+
+    private SchemaResolvingDatumReader(TypeToken<T> type, Schema schema) {
+      this.type = type;
+      this.schema = schema;
+    }
+
+    @Override
+    public T read(Decoder decoder, Schema sourceSchema) throws IOException {
+      ResolvedReader<T> reader = resolvedReader;
+      if (reader == null || !reader.sourceSchema.equals(sourceSchema)) {
+        reader = new ResolvedReader<>(sourceSchema, createReader(type, sourceSchema, schema));
+        resolvedReader = reader;
+      }
+      return reader.delegate.read(decoder, sourceSchema);
+    }
+  }
+
+  /**
+   * Holds the {@link DatumReader} for a given source schema.
+   */
+  private static final class ResolvedReader<T> {
+    private final Schema sourceSchema;
+    private final DatumReader<T> delegate;
+
+    private ResolvedReader(Schema sourceSchema, DatumReader<T> delegate) {
+      this.sourceSchema = sourceSchema;
+      this.delegate = delegate;
+    }
+  }
+
+  /**
+   * A private {@link CacheLoader} for generating different {@link DatumReader} {@link Class}.
+   */
+  private static final class ASMCacheLoader extends CacheLoader<CacheKey, Optional<Class<DatumReader<?>>>> {
+
+    private final Map<TypeToken<?>, ByteCodeClassLoader> classloaders = Maps.newIdentityHashMap();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Optional<Class<DatumReader<?>>> load(CacheKey key) {
+      try {
+        ClassDefinition classDef = new DatumReaderGenerator().generate(key.getType(), key.getSourceSchema(),
+                                                                       key.getTargetSchema());
+        ByteCodeClassLoader classloader;
+        synchronized (classloaders) {
+          classloader = classloaders.get(key.getType());
+          if (classloader == null) {
+            // The ClassLoader of the generated DatumReader has CDAP system ClassLoader as parent.
+            // The ClassDefinition contains list of classes that should not be loaded by the generated class ClassLoader
+            classloader = new ByteCodeClassLoader(ASMDatumReaderFactory.class.getClassLoader());
+            classloaders.put(key.getType(), classloader);
+          }
+        }
+        // Initialize the class so that it gets verified here instead of at the first read
+        Class<?> readerClass = classloader.addClass(classDef).loadClass(classDef.getClassName());
+        return Optional.of((Class<DatumReader<?>>) Class.forName(readerClass.getName(), true, classloader));
+      } catch (Exception | LinkageError e) {
+        LOG.debug("Failed to generate DatumReader for type {}. Fallback to use reflection.", key.getType(), e);
+        return Optional.absent();
+      }
+    }
+  }
+
+  private static final class CacheKey {
+    private final TypeToken<?> type;
+    private final Schema sourceSchema;
+    private final Schema targetSchema;
+
+    private CacheKey(TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+      this.type = type;
+      this.sourceSchema = sourceSchema;
+      this.targetSchema = targetSchema;
+    }
+
+    public TypeToken<?> getType() {
+      return type;
+    }
+
+    public Schema getSourceSchema() {
+      return sourceSchema;
+    }
+
+    public Schema getTargetSchema() {
+      return targetSchema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      CacheKey cacheKey = (CacheKey) o;
+      return type.equals(cacheKey.type) && sourceSchema.equals(cacheKey.sourceSchema)
+        && targetSchema.equals(cacheKey.targetSchema);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(type, sourceSchema, targetSchema);
+    }
+  }
+}
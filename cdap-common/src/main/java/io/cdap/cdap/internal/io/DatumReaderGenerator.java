@@ -0,0 +1,1155 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.lang.Instantiator;
+import io.cdap.cdap.common.lang.InstantiatorFactory;
+import io.cdap.cdap.internal.asm.ClassDefinition;
+import io.cdap.cdap.internal.asm.Methods;
+import io.cdap.cdap.internal.asm.Signatures;
+import io.cdap.cdap.internal.lang.Fields;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.commons.TableSwitchGenerator;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.net.URI;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Class for generating {@link DatumReader} bytecodes using ASM. A generated class decodes data written with a
+ * given source {@link Schema} to a data type with a given target {@link Schema}. Schema resolution is done while
+ * generating the class, hence the generated code only contains the decode calls and type conversions needed
+ * for the pair of schemas. The class generated will have a skeleton looks like the following:
+ * <pre>
+ * {@code
+ *
+ *  public final class generatedClassName implements DatumReader<InputType> {
+ *    private static final String SOURCE_SCHEMA_HASH = "source_schema_hash_as_hex_string";
+ *    private static final String TARGET_SCHEMA_HASH = "target_schema_hash_as_hex_string";
+ *
+ *    // Instantiator for each record, collection and map type, FieldAccessor for each record field to set
+ *    // and Class for each array component type.
+ *    private final Instantiator<?> instantiatorName;
+ *    private final FieldAccessor fieldAccessorName;
+ *    private final Class<?> className;
+ *
+ *    public generatedClassName(Schema sourceSchema, Schema targetSchema,
+ *                              FieldAccessorFactory accessorFactory, InstantiatorFactory instantiatorFactory) {
+ *      if (!SOURCE_SCHEMA_HASH.equals(sourceSchema.getSchemaHash().toString())
+ *          || !TARGET_SCHEMA_HASH.equals(targetSchema.getSchemaHash().toString())) {
+ *        throw new IllegalArgumentException("Schema not match.");
+ *      }
+ *      // Initialize the instantiator, field accessor and class fields
+ *    }
+ *
+ *    @Override
+ *    public InputType read(Decoder decoder, Schema sourceSchema) throws IOException {
+ *      return generatedDecodeMethod(decoder);
+ *    }
+ *
+ *    private InputType generatedDecodeMethod(Decoder decoder) throws IOException {
+ *      // Do actual decoding by calling methods on decoder based on the source and target schema.
+ *    }
+ *
+ *    // Could have more generatedDecodeMethods and generatedSkipMethods...
+ *  }
+ * }
+ * </pre>
+ *
+ * The schema resolution follows the one done by {@link ReflectionDatumReader}. If the data type or the schema
+ * resolution is not supported by the generator, an {@link UnsupportedOperationException} will be thrown.
+ */
+@NotThreadSafe
+final class DatumReaderGenerator {
+
+  private final Map<String, Method> decodeMethods = Maps.newHashMap();
+  private final Map<String, Method> skipMethods = Maps.newHashMap();
+  private final Multimap<TypeToken<?>, String> fieldAccessorRequests = LinkedHashMultimap.create();
+  private final Map<String, Class<?>> instantiatorRequests = Maps.newLinkedHashMap();
+  private final Map<String, Class<?>> classRequests = Maps.newLinkedHashMap();
+  private ClassWriter classWriter;
+  private Type classType;
+  private Set<Class<?>> preservedClasses;
+
+  /**
+   * Generates a {@link DatumReader} class for decoding data of the given input type.
+   *
+   * @param inputType Type information of the input data type.
+   * @param sourceSchema Schema of the data to decode.
+   * @param targetSchema Schema of the input data type.
+   * @return A {@link ClassDefinition} that contains generated class information.
+   * @throws UnsupportedOperationException if the input type or the schema resolution is not supported
+   */
+  ClassDefinition generate(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    preservedClasses = Sets.newLinkedHashSet();
+
+    TypeToken<?> interfaceType = getInterfaceType(inputType);
+
+    // Generate the class
+    String className = getClassName(interfaceType, sourceSchema, targetSchema);
+    classType = Type.getObjectType(className);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC + Opcodes.ACC_FINAL,
+                      className, Signatures.getClassSignature(interfaceType),
+                      Type.getInternalName(Object.class),
+                      new String[]{Type.getInternalName(interfaceType.getRawType())});
+
+    // Static schema hash fields, for verification
+    classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC + Opcodes.ACC_FINAL, "SOURCE_SCHEMA_HASH",
+                           Type.getDescriptor(String.class), null,
+                           sourceSchema.getSchemaHash().toString()).visitEnd();
+    classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC + Opcodes.ACC_FINAL, "TARGET_SCHEMA_HASH",
+                           Type.getDescriptor(String.class), null,
+                           targetSchema.getSchemaHash().toString()).visitEnd();
+
+    // Read method
+    generateRead(inputType, sourceSchema, targetSchema);
+
+    // Constructor
+    generateConstructor();
+
+    ClassDefinition classDefinition = new ClassDefinition(classWriter.toByteArray(), className, preservedClasses);
+    // DEBUG block. Uncomment for debug
+//    io.cdap.cdap.internal.asm.Debugs.debugByteCode(classDefinition, new java.io.PrintWriter(System.out));
+    // End DEBUG block
+    return classDefinition;
+  }
+
+  /**
+   * Generates the constructor. The constructor generated has signature
+   * {@code (Schema, Schema, FieldAccessorFactory, InstantiatorFactory)}.
+   */
+  private void generateConstructor() {
+    Method constructor = getMethod(void.class, "<init>", Schema.class, Schema.class,
+                                   FieldAccessorFactory.class, InstantiatorFactory.class);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, constructor, null, null, classWriter);
+
+    // super(); // Calling Object constructor
+    mg.loadThis();
+    mg.invokeConstructor(Type.getType(Object.class), getMethod(void.class, "<init>"));
+
+    // if (!SOURCE_SCHEMA_HASH.equals(sourceSchema.getSchemaHash().toString())
+    //     || !TARGET_SCHEMA_HASH.equals(targetSchema.getSchemaHash().toString())) { throw IllegalArgumentException }
+    Label hashNotEquals = mg.newLabel();
+    Label hashEquals = mg.newLabel();
+    verifySchemaHash(mg, "SOURCE_SCHEMA_HASH", 0);
+    mg.ifZCmp(GeneratorAdapter.EQ, hashNotEquals);
+    verifySchemaHash(mg, "TARGET_SCHEMA_HASH", 1);
+    mg.ifZCmp(GeneratorAdapter.NE, hashEquals);
+    mg.mark(hashNotEquals);
+    mg.throwException(Type.getType(IllegalArgumentException.class), "Schema not match.");
+    mg.mark(hashEquals);
+
+    // For each record field that needs an accessor, get the accessor and store it in field.
+    for (Map.Entry<TypeToken<?>, String> entry : fieldAccessorRequests.entries()) {
+      String fieldAccessorName = getFieldAccessorName(entry.getKey(), entry.getValue());
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL,
+                             fieldAccessorName,
+                             Type.getDescriptor(FieldAccessor.class), null, null);
+      // this.fieldAccessorName
+      //  = accessorFactory.getFieldAccessor(TypeToken.of(Class.forName("className")), "fieldName");
+      mg.loadThis();
+      mg.loadArg(2);
+      loadClass(mg, entry.getKey().getRawType());
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.push(entry.getValue());
+      mg.invokeInterface(Type.getType(FieldAccessorFactory.class),
+                         getMethod(FieldAccessor.class, "getFieldAccessor", TypeToken.class, String.class));
+      mg.putField(classType, fieldAccessorName, Type.getType(FieldAccessor.class));
+    }
+
+    // For each type that needs to be instantiated, get the instantiator and store it in field.
+    for (Map.Entry<String, Class<?>> entry : instantiatorRequests.entrySet()) {
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, entry.getKey(),
+                             Type.getDescriptor(Instantiator.class), null, null);
+      // this.instantiatorName = instantiatorFactory.get(TypeToken.of(Class.forName("className")));
+      mg.loadThis();
+      mg.loadArg(3);
+      loadClass(mg, entry.getValue());
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.invokeVirtual(Type.getType(InstantiatorFactory.class),
+                       getMethod(Instantiator.class, "get", TypeToken.class));
+      mg.putField(classType, entry.getKey(), Type.getType(Instantiator.class));
+    }
+
+    // For each class needed for creating arrays and enums, store it in field.
+    for (Map.Entry<String, Class<?>> entry : classRequests.entrySet()) {
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, entry.getKey(),
+                             Type.getDescriptor(Class.class), null, null);
+      // this.className = Class.forName("className");
+      mg.loadThis();
+      loadClass(mg, entry.getValue());
+      mg.putField(classType, entry.getKey(), Type.getType(Class.class));
+    }
+
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates code to compare the schema hash constant of the given name with the hash of the schema
+   * at the given argument index. It leaves the boolean result on the stack.
+   */
+  private void verifySchemaHash(GeneratorAdapter mg, String hashField, int schemaArg) {
+    mg.getStatic(classType, hashField, Type.getType(String.class));
+    mg.loadArg(schemaArg);
+    mg.invokeVirtual(Type.getType(Schema.class), getMethod(SchemaHash.class, "getSchemaHash"));
+    mg.invokeVirtual(Type.getType(SchemaHash.class), getMethod(String.class, "toString"));
+    mg.invokeVirtual(Type.getType(String.class), getMethod(boolean.class, "equals", Object.class));
+  }
+
+  /**
+   * Generates code to load the given class with {@link Class#forName(String)}. It is used instead of class constant
+   * so that classes not accessible by the generated class can be used.
+   */
+  private void loadClass(GeneratorAdapter mg, Class<?> cls) {
+    // Class might be defined by the user, hence need to preserve class loading of it
+    Class<?> elementClass = cls;
+    while (elementClass.isArray()) {
+      elementClass = elementClass.getComponentType();
+    }
+    if (!elementClass.isPrimitive()) {
+      preservedClasses.add(elementClass);
+    }
+    mg.push(cls.getName());
+    mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+  }
+
+  /**
+   * Generates the {@link DatumReader#read(Decoder, Schema)} method.
+   */
+  private void generateRead(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    Method readMethod = getMethod(Object.class, "read", Decoder.class, Schema.class);
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, readMethod, null,
+                                               new Type[] {Type.getType(IOException.class)}, classWriter);
+
+    // The class is generated for the source schema, hence the schema parameter is not used.
+    decodeValue(mg, inputType, sourceSchema, targetSchema);
+    box(mg, inputType);
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates code to call the decode method for the given type and schemas. It leaves the decoded value
+   * on the stack, which is a primitive if the type is primitive, or an {@link Object} otherwise.
+   */
+  private void decodeValue(GeneratorAdapter mg, TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, getDecodeMethod(type, sourceSchema, targetSchema));
+  }
+
+  /**
+   * Generates code to box the value on the stack if the given type is a primitive type.
+   */
+  private void box(GeneratorAdapter mg, TypeToken<?> type) {
+    if (type.getRawType().isPrimitive()) {
+      mg.valueOf(Type.getType(type.getRawType()));
+    }
+  }
+
+  /**
+   * Returns the decode method for the given type and schemas. The same method will be returned if the same
+   * type and schemas has been passed to the method before.
+   */
+  private Method getDecodeMethod(TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+    String key = String.format("%s%s%s", normalizeTypeName(type),
+                               sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+
+    Method method = decodeMethods.get(key);
+    if (method != null) {
+      return method;
+    }
+
+    // Generate the decode method (decoder)
+    Class<?> returnType = type.getRawType().isPrimitive() ? type.getRawType() : Object.class;
+    method = getMethod(returnType, "decode" + key, Decoder.class);
+
+    // Put the method into map first before generating the body in order to support recursive data type.
+    decodeMethods.put(key, method);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                               new Type[]{Type.getType(IOException.class)}, classWriter);
+    generateDecodeBody(mg, type, sourceSchema, targetSchema);
+    mg.returnValue();
+    mg.endMethod();
+
+    return method;
+  }
+
+  /**
+   * Generates the decode method body, which leaves the decoded value on the stack.
+   */
+  private void generateDecodeBody(GeneratorAdapter mg, TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+    Schema.Type sourceType = sourceSchema.getType();
+    Schema.Type targetType = targetSchema.getType();
+
+    if (sourceType == Schema.Type.UNION) {
+      decodeUnion(mg, type, sourceSchema, targetSchema);
+      return;
+    }
+    if (targetType == Schema.Type.UNION) {
+      // Use the first schema in the target union that the source schema can be resolved to
+      Schema resolvedSchema = findResolvableSchema(sourceSchema, targetSchema.getUnionSchemas());
+      if (resolvedSchema == null) {
+        mg.throwException(Type.getType(IOException.class),
+                          String.format("No matching schema to resolve %s to %s", sourceSchema, targetSchema));
+        return;
+      }
+      decodeValue(mg, type, sourceSchema, resolvedSchema);
+      return;
+    }
+    if (!isResolvable(sourceSchema, targetSchema)) {
+      mg.throwException(Type.getType(IOException.class),
+                        String.format("Fails to resolve %s to %s", sourceType, targetType));
+      return;
+    }
+
+    switch (sourceType) {
+      case NULL:
+        checkSupported(!type.getRawType().isPrimitive(), "Cannot decode null to primitive type %s", type);
+        mg.loadArg(0);
+        mg.invokeInterface(Type.getType(Decoder.class), getMethod(Object.class, "readNull"));
+        break;
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        decodeSimple(mg, type, sourceType, targetType);
+        break;
+      case BYTES:
+        decodeBytes(mg, type);
+        break;
+      case ENUM:
+        decodeEnum(mg, type, sourceSchema, targetSchema);
+        break;
+      case ARRAY:
+        decodeArray(mg, type, sourceSchema.getComponentSchema(), targetSchema.getComponentSchema());
+        break;
+      case MAP:
+        decodeMap(mg, type, sourceSchema.getMapSchema(), targetSchema.getMapSchema());
+        break;
+      case RECORD:
+        decodeRecord(mg, type, sourceSchema, targetSchema);
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported schema type " + sourceType);
+    }
+  }
+
+  /**
+   * Generates method body for decoding simple schema type, converting the value to the target schema type.
+   */
+  private void decodeSimple(GeneratorAdapter mg, TypeToken<?> type,
+                            Schema.Type sourceType, Schema.Type targetType) {
+    // value = decoder.readXXX();
+    Type valueType = getValueType(sourceType);
+    String readMethod = "read" + (sourceType == Schema.Type.BOOLEAN ? "Bool"
+      : sourceType.name().charAt(0) + sourceType.name().substring(1).toLowerCase());
+    mg.loadArg(0);
+    mg.invokeInterface(Type.getType(Decoder.class), new Method(readMethod, valueType, new Type[0]));
+
+    if (sourceType != targetType) {
+      if (targetType == Schema.Type.STRING) {
+        // value = String.valueOf(value)
+        mg.invokeStatic(Type.getType(String.class),
+                        new Method("valueOf", Type.getType(String.class), new Type[] {valueType}));
+      } else {
+        mg.cast(valueType, getValueType(targetType));
+      }
+      valueType = getValueType(targetType);
+    }
+
+    Class<?> rawType = type.getRawType();
+    if (targetType == Schema.Type.STRING) {
+      if (URI.class.equals(rawType)) {
+        mg.invokeStatic(Type.getType(URI.class), getMethod(URI.class, "create", String.class));
+      } else if (URL.class.equals(rawType)) {
+        // new URL(value)
+        Type urlType = Type.getType(URL.class);
+        mg.newInstance(urlType);
+        mg.dupX1();
+        mg.swap();
+        mg.invokeConstructor(urlType, getMethod(void.class, "<init>", String.class));
+      } else {
+        checkSupported(rawType.isAssignableFrom(String.class), "Cannot decode string to %s", type);
+      }
+      return;
+    }
+
+    Class<?> valueClass = Primitives.unwrap(rawType);
+    if (valueClass.isPrimitive()) {
+      // A special case since INT type represents (byte, char, short and int).
+      boolean isIntType = targetType == Schema.Type.INT
+        && (valueClass == byte.class || valueClass == char.class || valueClass == short.class);
+      checkSupported(isIntType || Type.getType(valueClass).equals(valueType),
+                     "Cannot decode %s to %s", targetType, type);
+      mg.cast(valueType, Type.getType(valueClass));
+      if (!rawType.isPrimitive()) {
+        mg.valueOf(Type.getType(valueClass));
+      }
+    } else {
+      checkSupported(rawType.isAssignableFrom(Primitives.wrap(getValueClass(valueType))),
+                     "Cannot decode %s to %s", targetType, type);
+      mg.valueOf(valueType);
+    }
+  }
+
+  /**
+   * Generates method body for decoding bytes, converting it to {@code byte[]} or {@link UUID} based on the type.
+   */
+  private void decodeBytes(GeneratorAdapter mg, TypeToken<?> type) {
+    Type byteBufferType = Type.getType(ByteBuffer.class);
+    Class<?> rawType = type.getRawType();
+
+    // ByteBuffer buffer = decoder.readBytes();
+    mg.loadArg(0);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(ByteBuffer.class, "readBytes"));
+
+    if (byte[].class.equals(rawType)) {
+      // if (buffer.hasArray() && buffer.remaining() == buffer.array().length) {
+      //   return buffer.array();
+      // }
+      // byte[] bytes = new byte[buffer.remaining()];
+      // buffer.get(bytes);
+      // return bytes;
+      int buffer = mg.newLocal(byteBufferType);
+      mg.storeLocal(buffer);
+
+      Label copy = mg.newLabel();
+      Label end = mg.newLabel();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(boolean.class, "hasArray"));
+      mg.ifZCmp(GeneratorAdapter.EQ, copy);
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(Type.getType(Buffer.class), getMethod(int.class, "remaining"));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(byte[].class, "array"));
+      mg.arrayLength();
+      mg.ifICmp(GeneratorAdapter.NE, copy);
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(byte[].class, "array"));
+      mg.goTo(end);
+
+      mg.mark(copy);
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(Type.getType(Buffer.class), getMethod(int.class, "remaining"));
+      mg.newArray(Type.BYTE_TYPE);
+      int bytes = mg.newLocal(Type.getType(byte[].class));
+      mg.storeLocal(bytes);
+      mg.loadLocal(buffer);
+      mg.loadLocal(bytes);
+      mg.invokeVirtual(byteBufferType, getMethod(ByteBuffer.class, "get", byte[].class));
+      mg.pop();
+      mg.loadLocal(bytes);
+      mg.mark(end);
+
+    } else if (UUID.class.equals(rawType)) {
+      // return new UUID(buffer.getLong(), buffer.getLong());
+      int buffer = mg.newLocal(byteBufferType);
+      mg.storeLocal(buffer);
+
+      Type uuidType = Type.getType(UUID.class);
+      mg.newInstance(uuidType);
+      mg.dup();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(long.class, "getLong"));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(long.class, "getLong"));
+      mg.invokeConstructor(uuidType, getMethod(void.class, "<init>", long.class, long.class));
+    } else {
+      checkSupported(rawType.isAssignableFrom(ByteBuffer.class), "Cannot decode bytes to %s", type);
+    }
+  }
+
+  /**
+   * Generates method body for decoding enum value. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * String name;
+   * switch (decoder.readInt()) {
+   *   case 0:
+   *     name = "sourceEnumValue0";
+   *     break;
+   *   ...
+   *   default:
+   *     throw new IOException(...);
+   * }
+   * return Enum.valueOf(this.enumClass, name);
+   * }
+   * </pre>
+   */
+  private void decodeEnum(GeneratorAdapter mg, TypeToken<?> type, Schema sourceSchema, final Schema targetSchema) {
+    Class<?> rawType = type.getRawType();
+    checkSupported(rawType.isEnum(), "Cannot decode enum to %s", type);
+
+    mg.loadThis();
+    mg.getField(classType, getClassFieldName(rawType), Type.getType(Class.class));
+
+    final List<String> enumValues = new ArrayList<>(sourceSchema.getEnumValues());
+    int[] keys = new int[enumValues.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = i;
+    }
+
+    mg.loadArg(0);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.tableSwitch(keys, new TableSwitchGenerator() {
+      @Override
+      public void generateCase(int key, Label end) {
+        String enumValue = enumValues.get(key);
+        if (targetSchema.getEnumValues().contains(enumValue)) {
+          mg.push(enumValue);
+          mg.goTo(end);
+        } else {
+          mg.throwException(Type.getType(IOException.class),
+                            String.format("Enum value '%s' missing in target.", enumValue));
+        }
+      }
+
+      @Override
+      public void generateDefault() {
+        mg.throwException(Type.getType(IOException.class), "Invalid enum index.");
+      }
+    });
+    mg.invokeStatic(Type.getType(Enum.class), getMethod(Enum.class, "valueOf", Class.class, String.class));
+  }
+
+  /**
+   * Generates method body for decoding array into {@link Collection} or array. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Collection collection = (Collection) this.instantiator.create();
+   * int len = decoder.readInt();
+   * while (len != 0) {
+   *   for (int i = 0; i < len; i++) {
+   *     collection.add(decodeElement(decoder));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return collection;
+   * }
+   * </pre>
+   *
+   * For array type, the elements are first decoded into an {@link ArrayList}, which then get copied to an array
+   * created by {@link Array#newInstance(Class, int)}.
+   */
+  private void decodeArray(final GeneratorAdapter mg, TypeToken<?> type,
+                           final Schema sourceComponentSchema, final Schema targetComponentSchema) {
+    Class<?> rawType = type.getRawType();
+    final TypeToken<?> componentType;
+    final int collection;
+
+    if (Collection.class.isAssignableFrom(rawType)) {
+      checkSupported(type.getType() instanceof ParameterizedType, "Only parameterized collection is supported.");
+      componentType = TypeToken.of(((ParameterizedType) type.getType()).getActualTypeArguments()[0]);
+
+      createInstance(mg, rawType);
+      mg.checkCast(Type.getType(Collection.class));
+      collection = mg.newLocal(Type.getType(Collection.class));
+      mg.storeLocal(collection);
+    } else if (rawType.isArray()) {
+      componentType = type.getComponentType();
+
+      Type arrayListType = Type.getType(ArrayList.class);
+      mg.newInstance(arrayListType);
+      mg.dup();
+      mg.invokeConstructor(arrayListType, getMethod(void.class, "<init>"));
+      collection = mg.newLocal(Type.getType(Collection.class));
+      mg.storeLocal(collection);
+    } else {
+      throw new UnsupportedOperationException("Only array or collection type is supported for array value.");
+    }
+
+    decodeBlocks(mg, new Runnable() {
+      @Override
+      public void run() {
+        // collection.add(decodeElement(decoder));
+        mg.loadLocal(collection);
+        decodeValue(mg, componentType, sourceComponentSchema, targetComponentSchema);
+        box(mg, componentType);
+        mg.invokeInterface(Type.getType(Collection.class), getMethod(boolean.class, "add", Object.class));
+        mg.pop();
+      }
+    });
+
+    if (!rawType.isArray()) {
+      mg.loadLocal(collection);
+      return;
+    }
+
+    // Object array = Array.newInstance(componentClass, collection.size());
+    Class<?> componentClass = componentType.getRawType();
+    if (componentClass.isPrimitive()) {
+      mg.push(Type.getType(componentClass));
+    } else {
+      mg.loadThis();
+      mg.getField(classType, getClassFieldName(componentClass), Type.getType(Class.class));
+    }
+    mg.loadLocal(collection);
+    mg.invokeInterface(Type.getType(Collection.class), getMethod(int.class, "size"));
+    mg.invokeStatic(Type.getType(Array.class), getMethod(Object.class, "newInstance", Class.class, int.class));
+    int array = mg.newLocal(Type.getType(Object.class));
+    mg.storeLocal(array);
+
+    // for (int idx = 0; idx < collection.size(); idx++) { Array.set(array, idx, list.get(idx)); }
+    Type listType = Type.getType(List.class);
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(collection);
+    mg.invokeInterface(Type.getType(Collection.class), getMethod(int.class, "size"));
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+    mg.loadLocal(array);
+    mg.loadLocal(idx);
+    mg.loadLocal(collection);
+    mg.checkCast(listType);
+    mg.loadLocal(idx);
+    mg.invokeInterface(listType, getMethod(Object.class, "get", int.class));
+    mg.invokeStatic(Type.getType(Array.class), getMethod(void.class, "set", Object.class, int.class, Object.class));
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    mg.loadLocal(array);
+  }
+
+  /**
+   * Generates method body for decoding map. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Map map = (Map) this.instantiator.create();
+   * int len = decoder.readInt();
+   * while (len != 0) {
+   *   for (int i = 0; i < len; i++) {
+   *     map.put(decodeKey(decoder), decodeValue(decoder));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return map;
+   * }
+   * </pre>
+   */
+  private void decodeMap(final GeneratorAdapter mg, TypeToken<?> type,
+                         final Map.Entry<Schema, Schema> sourceMapSchema,
+                         final Map.Entry<Schema, Schema> targetMapSchema) {
+    Class<?> rawType = type.getRawType();
+    checkSupported(Map.class.isAssignableFrom(rawType), "Only map type is supported for map data.");
+    checkSupported(type.getType() instanceof ParameterizedType, "Only parameterized map is supported.");
+
+    java.lang.reflect.Type[] typeArgs = ((ParameterizedType) type.getType()).getActualTypeArguments();
+    final TypeToken<?> keyType = TypeToken.of(typeArgs[0]);
+    final TypeToken<?> valueType = TypeToken.of(typeArgs[1]);
+
+    createInstance(mg, rawType);
+    mg.checkCast(Type.getType(Map.class));
+    final int map = mg.newLocal(Type.getType(Map.class));
+    mg.storeLocal(map);
+
+    decodeBlocks(mg, new Runnable() {
+      @Override
+      public void run() {
+        // map.put(decodeKey(decoder), decodeValue(decoder));
+        mg.loadLocal(map);
+        decodeValue(mg, keyType, sourceMapSchema.getKey(), targetMapSchema.getKey());
+        box(mg, keyType);
+        decodeValue(mg, valueType, sourceMapSchema.getValue(), targetMapSchema.getValue());
+        box(mg, valueType);
+        mg.invokeInterface(Type.getType(Map.class), getMethod(Object.class, "put", Object.class, Object.class));
+        mg.pop();
+      }
+    });
+
+    mg.loadLocal(map);
+  }
+
+  /**
+   * Generates method body for decoding record into java class. Fields are set through {@link FieldAccessor}.
+   * Fields in the source schema that are not in the target schema are skipped.
+   */
+  private void decodeRecord(GeneratorAdapter mg, TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+    Class<?> rawType = type.getRawType();
+    checkSupported(!rawType.isInterface() && !rawType.isPrimitive() && !rawType.isArray(),
+                   "Cannot decode record to %s", type);
+
+    // Object record = this.instantiator.create();
+    createInstance(mg, rawType);
+    int record = mg.newLocal(Type.getType(Object.class));
+    mg.storeLocal(record);
+
+    for (Schema.Field sourceField : sourceSchema.getFields()) {
+      Schema.Field targetField = targetSchema.getField(sourceField.getName());
+      if (targetField == null) {
+        // skipField(decoder);
+        mg.loadThis();
+        mg.loadArg(0);
+        mg.invokeVirtual(classType, getSkipMethod(sourceField.getSchema()));
+        continue;
+      }
+
+      TypeToken<?> fieldType;
+      try {
+        fieldType = type.resolveType(Fields.findField(type.getType(), sourceField.getName()).getGenericType());
+      } catch (NoSuchFieldException e) {
+        throw new UnsupportedOperationException(e.getMessage(), e);
+      }
+
+      // this.fieldAccessor.setXXX(record, decodeField(decoder));
+      fieldAccessorRequests.put(type, sourceField.getName());
+      mg.loadThis();
+      mg.getField(classType, getFieldAccessorName(type, sourceField.getName()), Type.getType(FieldAccessor.class));
+      mg.loadLocal(record);
+      decodeValue(mg, fieldType, sourceField.getSchema(), targetField.getSchema());
+      mg.invokeInterface(Type.getType(FieldAccessor.class), getAccessorMethod(fieldType));
+    }
+
+    mg.loadLocal(record);
+  }
+
+  /**
+   * Generates method body for decoding union. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * switch (decoder.readInt()) {
+   *   case 0:
+   *     return decodeUnionSchema0(decoder);
+   *   ...
+   *   default:
+   *     throw new IOException(...);
+   * }
+   * }
+   * </pre>
+   *
+   * The target schema for each source union schema is resolved when generating the code.
+   */
+  private void decodeUnion(final GeneratorAdapter mg, final TypeToken<?> type,
+                           Schema sourceSchema, final Schema targetSchema) {
+    final List<Schema> sourceUnionSchemas = sourceSchema.getUnionSchemas();
+    int[] keys = new int[sourceUnionSchemas.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = i;
+    }
+
+    mg.loadArg(0);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.tableSwitch(keys, new TableSwitchGenerator() {
+      @Override
+      public void generateCase(int key, Label end) {
+        Schema sourceValueSchema = sourceUnionSchemas.get(key);
+        Schema targetValueSchema = resolveUnionSchema(key, sourceValueSchema, targetSchema);
+        if (targetValueSchema == null) {
+          mg.throwException(Type.getType(IOException.class),
+                            String.format("Fail to resolve %s to %s", sourceValueSchema, targetSchema));
+        } else {
+          decodeValue(mg, type, sourceValueSchema, targetValueSchema);
+          mg.goTo(end);
+        }
+      }
+
+      @Override
+      public void generateDefault() {
+        mg.throwException(Type.getType(IOException.class), "Invalid union index.");
+      }
+    });
+  }
+
+  /**
+   * Returns the target schema to use for a schema inside a source union, or {@code null} if there is no
+   * schema in the target union that the source schema can be resolved to.
+   */
+  @Nullable
+  private Schema resolveUnionSchema(int index, Schema sourceValueSchema, Schema targetSchema) {
+    if (targetSchema.getType() != Schema.Type.UNION) {
+      return targetSchema;
+    }
+    // Try the target schema at the same index first, before trying the target union schemas in order.
+    List<Schema> targetUnionSchemas = targetSchema.getUnionSchemas();
+    if (index < targetUnionSchemas.size()
+      && targetUnionSchemas.get(index).getType() == sourceValueSchema.getType()) {
+      return targetUnionSchemas.get(index);
+    }
+    return findResolvableSchema(sourceValueSchema, targetUnionSchemas);
+  }
+
+  @Nullable
+  private Schema findResolvableSchema(Schema sourceSchema, List<Schema> targetSchemas) {
+    for (Schema targetSchema : targetSchemas) {
+      if (isResolvable(sourceSchema, targetSchema)) {
+        return targetSchema;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether data of the source schema can be resolved to the target schema. This follows the schema
+   * resolution done by {@link ReflectionReader}.
+   */
+  private boolean isResolvable(Schema sourceSchema, Schema targetSchema) {
+    Schema.Type sourceType = sourceSchema.getType();
+    Schema.Type targetType = targetSchema.getType();
+
+    if (sourceType == Schema.Type.UNION) {
+      return true;
+    }
+    if (targetType == Schema.Type.UNION) {
+      return findResolvableSchema(sourceSchema, targetSchema.getUnionSchemas()) != null;
+    }
+
+    switch (sourceType) {
+      case BOOLEAN:
+        return targetType == Schema.Type.BOOLEAN || targetType == Schema.Type.STRING;
+      case INT:
+        return targetType == Schema.Type.INT || targetType == Schema.Type.LONG || targetType == Schema.Type.FLOAT
+          || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case LONG:
+        return targetType == Schema.Type.LONG || targetType == Schema.Type.FLOAT
+          || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case FLOAT:
+        return targetType == Schema.Type.FLOAT || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case DOUBLE:
+        return targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      default:
+        return sourceType == targetType;
+    }
+  }
+
+  /**
+   * Generates code for decoding blocks of array or map items. The code generated by the given {@link Runnable}
+   * is called for each item.
+   */
+  private void decodeBlocks(GeneratorAdapter mg, Runnable itemGenerator) {
+    // int len = decoder.readInt();
+    int len = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(0);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // for (int i = 0; i < len; i++)
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(len);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+    itemGenerator.run();
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    // len = decoder.readInt();
+    mg.loadArg(0);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+  }
+
+  /**
+   * Returns the method for skipping data of the given schema. The same method will be returned if the same
+   * schema has been passed to the method before.
+   */
+  private Method getSkipMethod(Schema schema) {
+    String key = schema.getSchemaHash().toString();
+
+    Method method = skipMethods.get(key);
+    if (method != null) {
+      return method;
+    }
+
+    method = getMethod(void.class, "skip" + key, Decoder.class);
+
+    // Put the method into map first before generating the body in order to support recursive data type.
+    skipMethods.put(key, method);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                               new Type[]{Type.getType(IOException.class)}, classWriter);
+    generateSkipBody(mg, schema);
+    mg.returnValue();
+    mg.endMethod();
+
+    return method;
+  }
+
+  /**
+   * Generates the skip method body.
+   */
+  private void generateSkipBody(final GeneratorAdapter mg, Schema schema) {
+    Type decoderType = Type.getType(Decoder.class);
+
+    switch (schema.getType()) {
+      case NULL:
+        break;
+      case BOOLEAN:
+        mg.loadArg(0);
+        mg.invokeInterface(decoderType, getMethod(boolean.class, "readBool"));
+        mg.pop();
+        break;
+      case INT:
+      case ENUM:
+        mg.loadArg(0);
+        mg.invokeInterface(decoderType, getMethod(int.class, "readInt"));
+        mg.pop();
+        break;
+      case LONG:
+        mg.loadArg(0);
+        mg.invokeInterface(decoderType, getMethod(long.class, "readLong"));
+        mg.pop2();
+        break;
+      case FLOAT:
+      case DOUBLE:
+      case BYTES:
+      case STRING:
+        mg.loadArg(0);
+        mg.invokeInterface(decoderType, getMethod(void.class, "skip" + schema.getType().name().charAt(0)
+          + schema.getType().name().substring(1).toLowerCase()));
+        break;
+      case ARRAY:
+        final Schema componentSchema = schema.getComponentSchema();
+        decodeBlocks(mg, new Runnable() {
+          @Override
+          public void run() {
+            skipValue(mg, componentSchema);
+          }
+        });
+        break;
+      case MAP:
+        final Map.Entry<Schema, Schema> mapSchema = schema.getMapSchema();
+        decodeBlocks(mg, new Runnable() {
+          @Override
+          public void run() {
+            skipValue(mg, mapSchema.getKey());
+            skipValue(mg, mapSchema.getValue());
+          }
+        });
+        break;
+      case RECORD:
+        for (Schema.Field field : schema.getFields()) {
+          skipValue(mg, field.getSchema());
+        }
+        break;
+      case UNION:
+        final List<Schema> unionSchemas = schema.getUnionSchemas();
+        int[] keys = new int[unionSchemas.size()];
+        for (int i = 0; i < keys.length; i++) {
+          keys[i] = i;
+        }
+        mg.loadArg(0);
+        mg.invokeInterface(decoderType, getMethod(int.class, "readInt"));
+        mg.tableSwitch(keys, new TableSwitchGenerator() {
+          @Override
+          public void generateCase(int key, Label end) {
+            skipValue(mg, unionSchemas.get(key));
+            mg.goTo(end);
+          }
+
+          @Override
+          public void generateDefault() {
+            mg.throwException(Type.getType(IOException.class), "Invalid union index.");
+          }
+        });
+        break;
+    }
+  }
+
+  private void skipValue(GeneratorAdapter mg, Schema schema) {
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, getSkipMethod(schema));
+  }
+
+  /**
+   * Generates code to create a new instance of the given class using the {@link Instantiator}.
+   */
+  private void createInstance(GeneratorAdapter mg, Class<?> rawType) {
+    String fieldName = "instantiator$" + normalizeTypeName(TypeToken.of(rawType));
+    instantiatorRequests.put(fieldName, rawType);
+    mg.loadThis();
+    mg.getField(classType, fieldName, Type.getType(Instantiator.class));
+    mg.invokeInterface(Type.getType(Instantiator.class), getMethod(Object.class, "create"));
+  }
+
+  private String getClassFieldName(Class<?> rawType) {
+    String fieldName = "class$" + normalizeTypeName(TypeToken.of(rawType));
+    classRequests.put(fieldName, rawType);
+    return fieldName;
+  }
+
+  private void checkSupported(boolean condition, String message, Object... args) {
+    if (!condition) {
+      throw new UnsupportedOperationException(String.format(message, args));
+    }
+  }
+
+  /**
+   * Returns the JVM type of the value decoded for the given simple schema type.
+   */
+  private Type getValueType(Schema.Type schemaType) {
+    switch (schemaType) {
+      case BOOLEAN:
+        return Type.BOOLEAN_TYPE;
+      case INT:
+        return Type.INT_TYPE;
+      case LONG:
+        return Type.LONG_TYPE;
+      case FLOAT:
+        return Type.FLOAT_TYPE;
+      case DOUBLE:
+        return Type.DOUBLE_TYPE;
+      case STRING:
+        return Type.getType(String.class);
+    }
+    throw new IllegalArgumentException("Not a simple schema type " + schemaType);
+  }
+
+  private Class<?> getValueClass(Type valueType) {
+    switch (valueType.getSort()) {
+      case Type.BOOLEAN:
+        return boolean.class;
+      case Type.INT:
+        return int.class;
+      case Type.LONG:
+        return long.class;
+      case Type.FLOAT:
+        return float.class;
+      case Type.DOUBLE:
+        return double.class;
+    }
+    return String.class;
+  }
+
+  private <T> TypeToken<DatumReader<T>> getInterfaceType(TypeToken<T> type) {
+    return new TypeToken<DatumReader<T>>() {
+    }.where(new TypeParameter<T>() {
+    }, type);
+  }
+
+  private String getClassName(TypeToken<?> interfaceType, Schema sourceSchema, Schema targetSchema) {
+    return String.format("%s/%s%s%s%s",
+                         interfaceType.getRawType().getPackage().getName().replace('.', '/'),
+                         normalizeTypeName(TypeToken.of(((ParameterizedType) interfaceType.getType())
+                                                          .getActualTypeArguments()[0])),
+                         interfaceType.getRawType().getSimpleName(),
+                         sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+  }
+
+  private String normalizeTypeName(TypeToken<?> type) {
+    String typeName = type.toString();
+    int dimension = 0;
+    while (type.isArray()) {
+      type = type.getComponentType();
+      typeName = type.toString();
+      dimension++;
+    }
+
+    typeName = typeName.replace(".", "")
+                        .replace("<", "Of")
+                        .replace(">", "")
+                        .replace(",", "To")
+                        .replace(" ", "")
+                        .replace("$", "")
+                        .replace("?", "Wildcard");
+    if (dimension > 0) {
+      typeName = "Array" + dimension + typeName;
+    }
+    return typeName;
+  }
+
+  private Method getMethod(Class<?> returnType, String name, Class<?>...args) {
+    return Methods.getMethod(returnType, name, args);
+  }
+
+  /**
+   * Returns the method for calling {@link FieldAccessor} to set a field based on the data type.
+   * @param type Data type.
+   * @return A {@link Method} for calling {@link FieldAccessor}.
+   */
+  private Method getAccessorMethod(TypeToken<?> type) {
+    Class<?> rawType = type.getRawType();
+    if (rawType.isPrimitive()) {
+      return getMethod(void.class,
+                       String.format("set%c%s",
+                                     Character.toUpperCase(rawType.getName().charAt(0)),
+                                     rawType.getName().substring(1)),
+                       Object.class, rawType);
+    } else {
+      return getMethod(void.class, "set", Object.class, Object.class);
+    }
+  }
+
+  /**
+   * Generates the name of the class field for storing {@link FieldAccessor} for the given record field.
+   * @param recordType Type of the record.
+   * @param fieldName name of the field.
+   * @return name of the class field.
+   */
+  private String getFieldAccessorName(TypeToken<?> recordType, String fieldName) {
+    return String.format("%s$%s", normalizeTypeName(recordType), fieldName);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.http;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.internal.PlatformDependent;
+import org.apache.twill.common.Threads;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link NettyTransports}.
+ */
+public class NettyTransportsTest {
+
+  @Test
+  public void testNioTransport() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.NETTY_NATIVE_TRANSPORT_ENABLED, false);
+    Assert.assertFalse(NettyTransports.isNativeTransport(cConf));
+
+    EventLoopGroup group = NettyTransports.createEventLoopGroup(cConf, 1,
+                                                                Threads.createDaemonThreadFactory("test-%d"));
+    try {
+      Assert.assertTrue(group instanceof NioEventLoopGroup);
+      Assert.assertEquals(NioServerSocketChannel.class, NettyTransports.getServerSocketChannelClass(group));
+      Assert.assertEquals(NioSocketChannel.class, NettyTransports.getSocketChannelClass(group.next()));
+      testEcho(group);
+    } finally {
+      group.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+    }
+  }
+
+  @Test
+  public void testNativeTransport() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.NETTY_NATIVE_TRANSPORT_ENABLED, true);
+    Assert.assertEquals(Epoll.isAvailable(), NettyTransports.isNativeTransport(cConf));
+
+    EventLoopGroup group = NettyTransports.createEventLoopGroup(cConf, 1,
+                                                                Threads.createDaemonThreadFactory("test-%d"));
+    try {
+      if (Epoll.isAvailable()) {
+        Assert.assertTrue(group instanceof EpollEventLoopGroup);
+        Assert.assertEquals(EpollServerSocketChannel.class, NettyTransports.getServerSocketChannelClass(group));
+        Assert.assertEquals(EpollSocketChannel.class, NettyTransports.getSocketChannelClass(group.next()));
+      }
+      testEcho(group);
+    } finally {
+      group.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+    }
+  }
+
+  private void testEcho(EventLoopGroup group) throws Exception {
+    Channel serverChannel = new ServerBootstrap()
+      .group(group)
+      .channel(NettyTransports.getServerSocketChannelClass(group))
+      .childOption(ChannelOption.ALLOCATOR, NettyTransports.getAllocator())
+      .childHandler(new ChannelInitializer<SocketChannel>() {
+        @Override
+        protected void initChannel(SocketChannel ch) {
+          ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+              ctx.writeAndFlush(msg);
+            }
+          });
+        }
+      })
+      .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+      .sync().channel();
+
+    try {
+      CompletableFuture<String> result = new CompletableFuture<>();
+      Channel clientChannel = new Bootstrap()
+        .group(group)
+        .channel(NettyTransports.getSocketChannelClass(group))
+        .option(ChannelOption.ALLOCATOR, NettyTransports.getAllocator())
+        .handler(new SimpleChannelInboundHandler<ByteBuf>() {
+          @Override
+          protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+            result.complete(msg.toString(StandardCharsets.UTF_8));
+          }
+        })
+        .connect(serverChannel.localAddress())
+        .sync().channel();
+
+      try {
+        ByteBuf buf = clientChannel.alloc().buffer();
+        Assert.assertTrue(buf.isDirect() || !PlatformDependent.directBufferPreferred());
+        buf.writeCharSequence("ping", StandardCharsets.UTF_8);
+        clientChannel.writeAndFlush(buf);
+        Assert.assertEquals("ping", result.get(10, TimeUnit.SECONDS));
+      } finally {
+        clientChannel.close().sync();
+      }
+    } finally {
+      serverChannel.close().sync();
+    }
+  }
+}
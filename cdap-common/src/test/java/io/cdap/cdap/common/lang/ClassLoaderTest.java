@@ -21,6 +21,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.Gson;
@@ -44,15 +45,21 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 /**
  * Unit test for ClassLoader.
@@ -116,6 +123,52 @@ public class ClassLoaderTest {
     }
   }
 
+  @Test
+  public void testCombineClassLoaderIndex() throws Exception {
+    // Creates two jars, one with a resource and one with a class and a resource
+    String className = IndexedClass.class.getName();
+    String classResource = className.replace('.', '/') + ".class";
+    File firstJar = createJar(Collections.singletonMap("first/test.txt", Bytes.toBytes("first")));
+    File secondJar = createJar(ImmutableMap.of("second/test.txt", Bytes.toBytes("second"),
+                                               classResource, ByteStreams.toByteArray(
+                                                 getClass().getClassLoader().getResourceAsStream(classResource))));
+
+    CountingClassLoader first = new CountingClassLoader(firstJar);
+    CountingClassLoader second = new CountingClassLoader(secondJar);
+    ClassLoader classLoader = new CombineClassLoader(null, first, second);
+
+    // Classes and resources should be loaded from the delegate that contains the package only
+    Class<?> cls = classLoader.loadClass(className);
+    Assert.assertSame(second, cls.getClassLoader());
+    Assert.assertEquals(0, first.getLoadCount());
+    Assert.assertEquals("second", Bytes.toString(
+      ByteStreams.toByteArray(classLoader.getResource("second/test.txt").openStream())));
+    Assert.assertEquals("first", Bytes.toString(
+      ByteStreams.toByteArray(classLoader.getResource("first/test.txt").openStream())));
+
+    // Classes that are not in any delegate are only looked up once
+    int secondLoadCount = second.getLoadCount();
+    for (int i = 0; i < 2; i++) {
+      try {
+        classLoader.loadClass("io.cdap.cdap.common.lang.Missing");
+        Assert.fail();
+      } catch (ClassNotFoundException e) {
+        // Expected
+      }
+    }
+    Assert.assertEquals(0, first.getLoadCount());
+    Assert.assertEquals(secondLoadCount + 1, second.getLoadCount());
+
+    // Delegates are tried in order, hence the first delegate that contains the class is used
+    CountingClassLoader third = new CountingClassLoader(secondJar);
+    Assert.assertSame(second, new CombineClassLoader(null, second, third).loadClass(className).getClassLoader());
+    Assert.assertSame(third, new CombineClassLoader(null, third, second).loadClass(className).getClassLoader());
+
+    // A delegate with a parent that doesn't contain the package is replaced by its parent
+    ClassLoader withParent = new URLClassLoader(new URL[] { firstJar.toURI().toURL() }, second);
+    Assert.assertSame(second, new CombineClassLoader(null, withParent, third).loadClass(className).getClassLoader());
+  }
+
   @Test
   public void testWeakReferenceClassLoader() throws Exception {
     // Creates a jar that has Application class in it.
@@ -257,4 +310,46 @@ public class ClassLoaderTest {
 
     Assert.assertEquals(currentThreadName, executorThreadName.get());
   }
+
+  private File createJar(Map<String, byte[]> entries) throws IOException {
+    File jarFile = new File(TMP_FOLDER.newFolder(), "test.jar");
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jarFile))) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        output.putNextEntry(new JarEntry(entry.getKey()));
+        output.write(entry.getValue());
+        output.closeEntry();
+      }
+    }
+    return jarFile;
+  }
+
+  /**
+   * A class without dependencies, for loading from a jar.
+   */
+  public static final class IndexedClass {
+  }
+
+  /**
+   * A {@link URLClassLoader} that counts the number of classes it is asked to load.
+   */
+  private static final class CountingClassLoader extends URLClassLoader {
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    CountingClassLoader(File jarFile) throws IOException {
+      super(new URL[] { jarFile.toURI().toURL() }, null);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.startsWith("java.")) {
+        loadCount.incrementAndGet();
+      }
+      return super.loadClass(name, resolve);
+    }
+
+    int getLoadCount() {
+      return loadCount.get();
+    }
+  }
 }
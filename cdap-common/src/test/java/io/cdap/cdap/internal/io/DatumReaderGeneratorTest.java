@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.lang.InstantiatorFactory;
+import io.cdap.cdap.internal.asm.ByteCodeClassLoader;
+import io.cdap.cdap.internal.asm.ClassDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Differential tests for the {@link DatumReader} generated by {@link DatumReaderGenerator}. Every test decodes the
+ * same bytes with the generated reader and with {@link ReflectionDatumReader}, and expects the same result.
+ */
+public class DatumReaderGeneratorTest {
+
+  private static final FieldAccessorFactory FIELD_ACCESSOR_FACTORY = new ASMFieldAccessorFactory();
+  private static final ASMDatumReaderFactory DATUM_READER_FACTORY = new ASMDatumReaderFactory(FIELD_ACCESSOR_FACTORY);
+
+  /**
+   * Enum for testing.
+   */
+  public enum Color {
+    RED, GREEN, BLUE
+  }
+
+  /**
+   * Record for testing, which can be chained.
+   */
+  public static final class Item {
+    private String name;
+    private Color color;
+    private Item next;
+
+    public Item() {
+    }
+
+    Item(String name, Color color, Item next) {
+      this.name = name;
+      this.color = color;
+      this.next = next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Item other = (Item) o;
+      return Objects.equals(name, other.name) && color == other.color && Objects.equals(next, other.next);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, color, next);
+    }
+  }
+
+  /**
+   * Record with nested collections.
+   */
+  public static final class Nested {
+    private Item item;
+    private List<Map<String, Item>> itemMaps;
+    private Map<String, List<Color>> colorLists;
+    private Map<Color, Map<String, Set<Long>>> mapOfMaps;
+    private Item[] itemArray;
+    private long[][] matrix;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Nested other = (Nested) o;
+      return Objects.equals(item, other.item) && Objects.equals(itemMaps, other.itemMaps)
+        && Objects.equals(colorLists, other.colorLists) && Objects.equals(mapOfMaps, other.mapOfMaps)
+        && Arrays.equals(itemArray, other.itemArray) && Arrays.deepEquals(matrix, other.matrix);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(item, itemMaps, colorLists, mapOfMaps);
+    }
+  }
+
+  /**
+   * Old version of {@link Evolved}.
+   */
+  public static final class Original {
+    private int id;
+    private String name;
+    private Map<String, List<Color>> removed;
+    private Color color;
+    private Item item;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Original other = (Original) o;
+      return id == other.id && Objects.equals(name, other.name) && Objects.equals(removed, other.removed)
+        && color == other.color && Objects.equals(item, other.item);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, name, removed, color, item);
+    }
+  }
+
+  /**
+   * New version of {@link Original}. The field {@code removed} is removed, {@code added} and {@code addedItem} are
+   * added, {@code id} becomes a long and the remaining fields are declared in a different order.
+   */
+  public static final class Evolved {
+    private Item item;
+    private Item addedItem;
+    private Color color;
+    private String name;
+    private List<String> added;
+    private long id;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Evolved other = (Evolved) o;
+      return id == other.id && Objects.equals(item, other.item) && Objects.equals(addedItem, other.addedItem)
+        && color == other.color && Objects.equals(name, other.name) && Objects.equals(added, other.added);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(item, addedItem, color, name, added, id);
+    }
+  }
+
+  @Test
+  public void testNullableRecord() throws Exception {
+    TypeToken<Item> type = new TypeToken<Item>() { };
+    Schema schema = getSchema(type);
+
+    assertParity(type, schema, new Item("first", Color.RED, new Item("second", null, null)), type, schema);
+    assertParity(type, schema, new Item(null, null, null), type, schema);
+
+    // A record and null, written as union of the record and null in either order
+    Schema nullSchema = Schema.of(Schema.Type.NULL);
+    Schema nullableSchema = Schema.nullableOf(schema);
+    Schema reversedSchema = Schema.unionOf(nullSchema, schema);
+    Item item = new Item("item", Color.GREEN, null);
+    for (Schema targetSchema : Arrays.asList(schema, nullableSchema, reversedSchema)) {
+      assertParity(encodeUnion(0, schema, item), nullableSchema, type, targetSchema);
+      assertParity(encodeUnion(1, schema, item), reversedSchema, type, targetSchema);
+    }
+    for (Schema targetSchema : Arrays.asList(nullableSchema, reversedSchema)) {
+      assertParity(encodeUnion(1, nullSchema, null), nullableSchema, type, targetSchema);
+      assertParity(encodeUnion(0, nullSchema, null), reversedSchema, type, targetSchema);
+    }
+  }
+
+  @Test
+  public void testUnion() throws Exception {
+    // Union of multiple non-null types, resolved to the matching branch of the target
+    Schema intSchema = Schema.of(Schema.Type.INT);
+    Schema stringSchema = Schema.of(Schema.Type.STRING);
+    Schema nullSchema = Schema.of(Schema.Type.NULL);
+    Schema sourceSchema = Schema.unionOf(intSchema, stringSchema, nullSchema);
+
+    TypeToken<String> stringType = new TypeToken<String>() { };
+    assertParity(encodeUnion(1, stringSchema, "string"), sourceSchema, stringType, Schema.nullableOf(stringSchema));
+    assertParity(encodeUnion(2, nullSchema, null), sourceSchema, stringType, Schema.nullableOf(stringSchema));
+    assertParity(encodeUnion(0, intSchema, 10), sourceSchema, new TypeToken<Long>() { },
+                 Schema.of(Schema.Type.LONG));
+    assertParity(encodeUnion(0, intSchema, 10), sourceSchema, new TypeToken<Integer>() { },
+                 Schema.nullableOf(intSchema));
+
+    // Union with a record
+    TypeToken<Item> itemType = new TypeToken<Item>() { };
+    Schema itemSchema = getSchema(itemType);
+    Schema recordsSchema = Schema.unionOf(stringSchema, itemSchema, nullSchema);
+    assertParity(encodeUnion(1, itemSchema, new Item("item", Color.BLUE, new Item("next", Color.RED, null))),
+                 recordsSchema, itemType, Schema.nullableOf(itemSchema));
+    assertParity(encodeUnion(2, nullSchema, null), recordsSchema, itemType, Schema.nullableOf(itemSchema));
+  }
+
+  @Test
+  public void testNestedCollections() throws Exception {
+    Nested nested = new Nested();
+    nested.item = new Item("item", Color.RED, null);
+    Map<String, Item> itemMap = new HashMap<>();
+    itemMap.put("a", new Item("a", Color.GREEN, new Item("b", Color.BLUE, null)));
+    itemMap.put("null", null);
+    nested.itemMaps = Lists.newArrayList(itemMap, Collections.<String, Item>emptyMap(), null);
+    nested.colorLists = ImmutableMap.<String, List<Color>>of("rgb", ImmutableList.of(Color.RED, Color.GREEN),
+                                                             "none", ImmutableList.<Color>of());
+    nested.mapOfMaps = ImmutableMap.<Color, Map<String, Set<Long>>>of(
+      Color.BLUE, ImmutableMap.<String, Set<Long>>of("longs", ImmutableSet.of(1L, 2L, Long.MAX_VALUE)));
+    nested.itemArray = new Item[] {new Item("x", null, null), null};
+    nested.matrix = new long[][] {{1L, 2L}, {}, {3L}};
+
+    TypeToken<Nested> type = new TypeToken<Nested>() { };
+    Schema schema = getSchema(type);
+    assertParity(type, schema, nested, type, schema);
+    assertParity(type, schema, new Nested(), type, schema);
+  }
+
+  @Test
+  public void testEnum() throws Exception {
+    TypeToken<Color> type = new TypeToken<Color>() { };
+    Schema schema = getSchema(type);
+    for (Color color : Color.values()) {
+      assertParity(type, schema, color, type, schema);
+    }
+
+    // Enum values written with a schema that has the symbols in a different order and a subset of the symbols
+    for (Schema sourceSchema : Arrays.asList(Schema.enumWith("BLUE", "GREEN", "RED"), Schema.enumWith("GREEN"))) {
+      for (String symbol : sourceSchema.getEnumValues()) {
+        assertParity(type, sourceSchema, Color.valueOf(symbol), type, schema);
+      }
+    }
+  }
+
+  @Test
+  public void testSchemaEvolution() throws Exception {
+    Original original = new Original();
+    original.id = 7;
+    original.name = "original";
+    original.removed = ImmutableMap.<String, List<Color>>of("removed", ImmutableList.of(Color.RED, Color.GREEN));
+    original.color = Color.BLUE;
+    original.item = new Item("item", Color.GREEN, new Item("next", null, null));
+
+    TypeToken<Original> originalType = new TypeToken<Original>() { };
+    TypeToken<Evolved> evolvedType = new TypeToken<Evolved>() { };
+    Schema originalSchema = getSchema(originalType);
+    Schema evolvedSchema = getSchema(evolvedType);
+
+    assertParity(originalType, originalSchema, original, evolvedType, evolvedSchema);
+    assertParity(originalType, originalSchema, new Original(), evolvedType, evolvedSchema);
+
+    // Data written with the fields in reverse order
+    List<Schema.Field> fields = new ArrayList<>(Schema.parseJson(originalSchema.toString()).getFields());
+    Collections.reverse(fields);
+    Schema reversedSchema = Schema.recordOf(originalSchema.getRecordName(), fields);
+    assertParity(originalType, reversedSchema, original, evolvedType, evolvedSchema);
+    assertParity(originalType, reversedSchema, original, originalType, originalSchema);
+
+    // Old data read by the old type after the writer evolved
+    Evolved evolved = new Evolved();
+    evolved.id = 8L;
+    evolved.name = "evolved";
+    evolved.added = ImmutableList.of("added");
+    evolved.addedItem = new Item("added", Color.RED, null);
+    evolved.item = new Item("item", null, null);
+    assertParity(evolvedType, evolvedSchema, evolved, evolvedType, evolvedSchema);
+  }
+
+  /**
+   * Encodes the value with the source schema and decodes it to the target type and schema with both the
+   * generated {@link DatumReader} and the {@link ReflectionDatumReader}.
+   */
+  private <S, T> void assertParity(TypeToken<S> sourceType, Schema sourceSchema, S value,
+                                   TypeToken<T> targetType, Schema targetSchema) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new ReflectionDatumWriter<S>(sourceSchema).encode(value, new BinaryEncoder(os));
+    T expected = assertParity(os.toByteArray(), sourceSchema, targetType, targetSchema);
+    if (value != null && sourceType.equals(targetType) && sourceSchema.equals(targetSchema)) {
+      Assert.assertEquals(value, expected);
+    }
+  }
+
+  /**
+   * Decodes the bytes written with the source schema to the target type and schema with both the
+   * generated {@link DatumReader} and the {@link ReflectionDatumReader}.
+   *
+   * @return the value decoded by the {@link ReflectionDatumReader}
+   */
+  private <T> T assertParity(byte[] bytes, Schema sourceSchema,
+                             TypeToken<T> targetType, Schema targetSchema) throws Exception {
+    T expected = new ReflectionDatumReader<>(targetSchema, targetType)
+      .read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+    T generated = generateReader(targetType, sourceSchema, targetSchema)
+      .read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+    T created = DATUM_READER_FACTORY.create(targetType, targetSchema)
+      .read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+
+    Assert.assertEquals(expected, generated);
+    Assert.assertEquals(expected, created);
+    return expected;
+  }
+
+  /**
+   * Encodes the value as the branch of the given index of a union.
+   */
+  private byte[] encodeUnion(int index, Schema branchSchema, Object value) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(index);
+    new ReflectionDatumWriter<>(branchSchema).encode(value, encoder);
+    return os.toByteArray();
+  }
+
+  /**
+   * Generates the {@link DatumReader} class for the given schemas. Unlike {@link ASMDatumReaderFactory}, this
+   * doesn't fall back to {@link ReflectionDatumReader}, so that the tests fail if the class cannot be generated.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> DatumReader<T> generateReader(TypeToken<T> type, Schema sourceSchema,
+                                            Schema targetSchema) throws Exception {
+    ClassDefinition classDef = new DatumReaderGenerator().generate(type, sourceSchema, targetSchema);
+    ByteCodeClassLoader classLoader = new ByteCodeClassLoader(getClass().getClassLoader());
+    Class<?> readerClass = classLoader.addClass(classDef).loadClass(classDef.getClassName());
+    return (DatumReader<T>) readerClass
+      .getConstructor(Schema.class, Schema.class, FieldAccessorFactory.class, InstantiatorFactory.class)
+      .newInstance(sourceSchema, targetSchema, FIELD_ACCESSOR_FACTORY, new InstantiatorFactory(true));
+  }
+
+  private Schema getSchema(TypeToken<?> type) throws UnsupportedTypeException {
+    return new ReflectionSchemaGenerator().generate(type.getType());
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.io;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
+import io.cdap.cdap.internal.io.ASMDatumWriterFactory;
+import io.cdap.cdap.internal.io.ASMFieldAccessorFactory;
+import io.cdap.cdap.internal.io.ReflectionDatumWriter;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Unit tests for {@link ASMDatumReaderFactory}.
+ */
+public class ASMDatumReaderFactoryTest {
+
+  private static final ASMFieldAccessorFactory FIELD_ACCESSOR_FACTORY = new ASMFieldAccessorFactory();
+  private static final ASMDatumReaderFactory DATUM_READER_FACTORY = new ASMDatumReaderFactory(FIELD_ACCESSOR_FACTORY);
+  private static final ASMDatumWriterFactory DATUM_WRITER_FACTORY = new ASMDatumWriterFactory(FIELD_ACCESSOR_FACTORY);
+
+  /**
+   * Enum for testing.
+   */
+  public enum TestEnum {
+    VALUE1, VALUE2, VALUE3
+  }
+
+  /**
+   * Record for testing.
+   */
+  public static final class Record {
+    private int id;
+    private String name;
+    private TestEnum type;
+    private UUID uuid;
+    private URI uri;
+    private byte[] bytes;
+    private int[] ints;
+    private List<String> list;
+    private Set<Long> set;
+    private Map<String, List<Integer>> map;
+    private Record child;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Record other = (Record) o;
+      return id == other.id && Objects.equals(name, other.name) && type == other.type
+        && Objects.equals(uuid, other.uuid) && Objects.equals(uri, other.uri)
+        && Arrays.equals(bytes, other.bytes) && Arrays.equals(ints, other.ints)
+        && Objects.equals(list, other.list) && Objects.equals(set, other.set)
+        && Objects.equals(map, other.map) && Objects.equals(child, other.child);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, name, type, uuid, uri, list, set, map, child);
+    }
+  }
+
+  /**
+   * Old version of {@link Evolved}, with an extra field and an int field that becomes long.
+   */
+  public static final class Original {
+    private int count;
+    private List<String> removed;
+    private String name;
+  }
+
+  /**
+   * New version of {@link Original}.
+   */
+  public static final class Evolved {
+    private long count;
+    private String name;
+  }
+
+  @Test
+  public void testSimpleTypes() throws Exception {
+    Assert.assertEquals(Integer.valueOf(10), roundTrip(new TypeToken<Integer>() { }, 10));
+    Assert.assertEquals(Short.valueOf((short) 3000), roundTrip(new TypeToken<Short>() { }, (short) 3000));
+    Assert.assertEquals(Long.valueOf(Long.MAX_VALUE), roundTrip(new TypeToken<Long>() { }, Long.MAX_VALUE));
+    Assert.assertEquals(Double.valueOf(1.5d), roundTrip(new TypeToken<Double>() { }, 1.5d));
+    Assert.assertEquals("string", roundTrip(new TypeToken<String>() { }, "string"));
+    Assert.assertEquals(TestEnum.VALUE2, roundTrip(new TypeToken<TestEnum>() { }, TestEnum.VALUE2));
+    UUID uuid = UUID.randomUUID();
+    Assert.assertEquals(uuid, roundTrip(new TypeToken<UUID>() { }, uuid));
+    Assert.assertArrayEquals(new String[] {"a", "b"},
+                             roundTrip(new TypeToken<String[]>() { }, new String[] {"a", "b"}));
+    Assert.assertEquals(ImmutableMap.of("a", 1, "b", 2),
+                        roundTrip(new TypeToken<Map<String, Integer>>() { }, ImmutableMap.of("a", 1, "b", 2)));
+  }
+
+  @Test
+  public void testRecord() throws Exception {
+    Record child = new Record();
+    child.id = 2;
+    child.name = "child";
+    child.type = TestEnum.VALUE1;
+
+    Record record = new Record();
+    record.id = 1;
+    record.name = "parent";
+    record.type = TestEnum.VALUE3;
+    record.uuid = UUID.randomUUID();
+    record.uri = URI.create("http://localhost/path");
+    record.bytes = new byte[] {1, 2, 3};
+    record.ints = new int[] {4, 5, 6};
+    record.list = ImmutableList.of("x", "y");
+    record.set = ImmutableSet.of(7L, 8L);
+    record.map = ImmutableMap.<String, List<Integer>>of("k", ImmutableList.of(9, 10));
+    record.child = child;
+
+    TypeToken<Record> type = new TypeToken<Record>() { };
+    Assert.assertEquals(record, roundTrip(type, record));
+
+    // Reading multiple times with the same reader should reuse the generated class
+    DatumReader<Record> reader = DATUM_READER_FACTORY.create(type, getSchema(type));
+    byte[] bytes = encode(type, record);
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(record, reader.read(new BinaryDecoder(new ByteArrayInputStream(bytes)), getSchema(type)));
+    }
+  }
+
+  @Test
+  public void testSchemaEvolution() throws Exception {
+    Original original = new Original();
+    original.count = 5;
+    original.removed = ImmutableList.of("a", "b", "c");
+    original.name = "name";
+
+    TypeToken<Original> originalType = new TypeToken<Original>() { };
+    TypeToken<Evolved> evolvedType = new TypeToken<Evolved>() { };
+
+    DatumReader<Evolved> reader = DATUM_READER_FACTORY.create(evolvedType, getSchema(evolvedType));
+    Evolved evolved = reader.read(new BinaryDecoder(new ByteArrayInputStream(encode(originalType, original))),
+                                  getSchema(originalType));
+    Assert.assertEquals(5L, evolved.count);
+    Assert.assertEquals("name", evolved.name);
+  }
+
+  @Test
+  public void testTypePromotion() throws Exception {
+    Schema sourceSchema = Schema.of(Schema.Type.INT);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new BinaryEncoder(os).writeInt(42);
+
+    DatumReader<Long> longReader = DATUM_READER_FACTORY.create(new TypeToken<Long>() { }, Schema.of(Schema.Type.LONG));
+    Assert.assertEquals(Long.valueOf(42L),
+                        longReader.read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), sourceSchema));
+
+    DatumReader<String> stringReader = DATUM_READER_FACTORY.create(new TypeToken<String>() { },
+                                                                   Schema.nullableOf(Schema.of(Schema.Type.STRING)));
+    Assert.assertEquals("42",
+                        stringReader.read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), sourceSchema));
+  }
+
+  @Test
+  public void testNullable() throws Exception {
+    Schema schema = Schema.nullableOf(Schema.of(Schema.Type.STRING));
+    DatumReader<String> reader = DATUM_READER_FACTORY.create(new TypeToken<String>() { }, schema);
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new ReflectionDatumWriter<String>(schema).encode("value", new BinaryEncoder(os));
+    Assert.assertEquals("value", reader.read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), schema));
+
+    os.reset();
+    new ReflectionDatumWriter<String>(schema).encode(null, new BinaryEncoder(os));
+    Assert.assertNull(reader.read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), schema));
+  }
+
+  @Test(expected = IOException.class)
+  public void testEnumValueMissing() throws Exception {
+    Schema sourceSchema = Schema.enumWith("VALUE1", "VALUE4");
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new BinaryEncoder(os).writeInt(1);
+
+    TypeToken<TestEnum> type = new TypeToken<TestEnum>() { };
+    DATUM_READER_FACTORY.create(type, getSchema(type))
+      .read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), sourceSchema);
+  }
+
+  private <T> T roundTrip(TypeToken<T> type, T value) throws Exception {
+    Schema schema = getSchema(type);
+    return DATUM_READER_FACTORY.create(type, schema)
+      .read(new BinaryDecoder(new ByteArrayInputStream(encode(type, value))), schema);
+  }
+
+  private <T> byte[] encode(TypeToken<T> type, T value) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    DATUM_WRITER_FACTORY.create(type, getSchema(type)).encode(value, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+
+  private <T> Schema getSchema(TypeToken<T> type) throws UnsupportedTypeException {
+    return new ReflectionSchemaGenerator().generate(type.getType());
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of {@link DefaultCube} query results for completed time buckets. A time bucket is completed once the
+ * configured completion delay has passed since the end of the bucket, after which no more facts are expected to be
+ * added to it. The cache is keyed by the query with the time range removed, so that queries polled with a moving
+ * time range only need to scan the time range not yet completed.
+ *
+ * Facts added by other processes do not invalidate the cache, hence entries also expire a fixed time after
+ * they are written.
+ *
+ * Facts added to a completed time bucket, and deleted facts, bump the generation of the cache. A query that was
+ * running while the generation changed may have missed those changes, hence its results are not cached.
+ */
+final class CubeQueryCache {
+
+  private final Cache<Key, Entry> cache;
+  private final long completionDelaySeconds;
+  private final LongSupplier currentTimeSeconds;
+  private long generation;
+
+  CubeQueryCache(int maxSize, long completionDelaySeconds, long expireSeconds) {
+    this(maxSize, completionDelaySeconds, expireSeconds, () -> System.currentTimeMillis() / 1000);
+  }
+
+  CubeQueryCache(int maxSize, long completionDelaySeconds, long expireSeconds, LongSupplier currentTimeSeconds) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+      .ticker(new Ticker() {
+        @Override
+        public long read() {
+          return TimeUnit.SECONDS.toNanos(currentTimeSeconds.getAsLong());
+        }
+      })
+      .build();
+    this.completionDelaySeconds = completionDelaySeconds;
+    this.currentTimeSeconds = currentTimeSeconds;
+  }
+
+  /**
+   * Returns whether results of the given query can be cached.
+   */
+  boolean isCacheable(CubeQuery query) {
+    // the totals resolution has a single time bucket that never completes
+    return query.getResolution() != Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the start of the earliest time bucket of the given resolution that is not completed yet.
+   */
+  long getCompletedTs(int resolution) {
+    long ts = currentTimeSeconds.getAsLong() - completionDelaySeconds;
+    return ts / resolution * resolution;
+  }
+
+  /**
+   * Returns the cached entry for the given query that covers the start time of the query, or {@code null} if
+   * there is no such entry.
+   */
+  @Nullable
+  Entry get(Key key, long startTs) {
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null || entry.startTs > startTs || entry.endTs <= startTs) {
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Returns the current generation of the cache, which should be taken before scanning for the query result
+   * to cache with {@link #put(Key, long, long, Table, long)}.
+   */
+  synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Caches the given query result for the time range from {@code startTs} (inclusive) to {@code endTs} (exclusive),
+   * unless the generation of the cache has changed since the given generation.
+   */
+  synchronized void put(Key key, long startTs, long endTs, Table<Map<String, String>, String, Map<Long, Long>> result,
+                        long generation) {
+    if (endTs <= startTs || generation != this.generation) {
+      return;
+    }
+    Table<Map<String, String>, String, Map<Long, Long>> data = HashBasedTable.create();
+    copy(result, data, startTs, endTs);
+    cache.put(key, new Entry(startTs, endTs, data));
+  }
+
+  /**
+   * Invalidates cached results of the given aggregation that cover the given timestamp. This should be called after
+   * the facts have been added.
+   */
+  synchronized void invalidate(String aggregation, long ts) {
+    cache.asMap().entrySet().removeIf(entry -> {
+      Key key = entry.getKey();
+      return key.aggregation.equals(aggregation) && ts / key.resolution * key.resolution < entry.getValue().endTs;
+    });
+    // Results only cover completed time buckets, which end before the current time minus the completion delay.
+    // Facts added at or after that time can't be missing from the results of running queries.
+    if (ts < currentTimeSeconds.getAsLong() - completionDelaySeconds) {
+      generation++;
+    }
+  }
+
+  /**
+   * Invalidates all cached results. This should be called after the facts have been deleted.
+   */
+  synchronized void invalidateAll() {
+    cache.invalidateAll();
+    generation++;
+  }
+
+  /**
+   * Copies the time values in the given time range from one query result to another.
+   */
+  private static void copy(Table<Map<String, String>, String, Map<Long, Long>> from,
+                           Table<Map<String, String>, String, Map<Long, Long>> to, long startTs, long endTs) {
+    for (Table.Cell<Map<String, String>, String, Map<Long, Long>> cell : from.cellSet()) {
+      Map<Long, Long> timeValues = null;
+      for (Map.Entry<Long, Long> timeValue : cell.getValue().entrySet()) {
+        if (timeValue.getKey() < startTs || timeValue.getKey() >= endTs) {
+          continue;
+        }
+        if (timeValues == null) {
+          timeValues = to.get(cell.getRowKey(), cell.getColumnKey());
+          if (timeValues == null) {
+            timeValues = new HashMap<>();
+            to.put(cell.getRowKey(), cell.getColumnKey(), timeValues);
+          }
+        }
+        timeValues.put(timeValue.getKey(), timeValue.getValue());
+      }
+    }
+  }
+
+  /**
+   * Cache key of a query, which has everything in the query that affects the scanned time values
+   * except the time range.
+   */
+  static final class Key {
+    private final String aggregation;
+    private final int resolution;
+    private final Map<String, AggregationFunction> measurements;
+    private final Map<String, String> dimensionValues;
+    private final List<String> groupByDimensions;
+
+    Key(String aggregation, CubeQuery query) {
+      this.aggregation = aggregation;
+      this.resolution = query.getResolution();
+      this.measurements = ImmutableMap.copyOf(query.getMeasurements());
+      // dimension values can contain null values, which ImmutableMap does not support
+      this.dimensionValues = new HashMap<>(query.getDimensionValues());
+      this.groupByDimensions = ImmutableList.copyOf(query.getGroupByDimensions());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key other = (Key) o;
+      return resolution == other.resolution
+        && aggregation.equals(other.aggregation)
+        && measurements.equals(other.measurements)
+        && dimensionValues.equals(other.dimensionValues)
+        && groupByDimensions.equals(other.groupByDimensions);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(aggregation, resolution, measurements, dimensionValues, groupByDimensions);
+    }
+  }
+
+  /**
+   * The cached query result of a time range.
+   */
+  static final class Entry {
+    private final long startTs;
+    private final long endTs;
+    private final Table<Map<String, String>, String, Map<Long, Long>> data;
+
+    private Entry(long startTs, long endTs, Table<Map<String, String>, String, Map<Long, Long>> data) {
+      this.startTs = startTs;
+      this.endTs = endTs;
+      this.data = data;
+    }
+
+    /**
+     * Returns the end of the cached time range, exclusive.
+     */
+    long getEndTs() {
+      return endTs;
+    }
+
+    /**
+     * Copies the cached time values in the given time range, inclusive, to the given query result.
+     */
+    void copyTo(Table<Map<String, String>, String, Map<Long, Long>> result, long startTs, long endTs) {
+      copy(data, result, startTs, endTs == Long.MAX_VALUE ? endTs : endTs + 1);
+    }
+  }
+}
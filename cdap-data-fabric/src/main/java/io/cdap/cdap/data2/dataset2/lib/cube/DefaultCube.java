@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -83,6 +84,12 @@ public class DefaultCube implements Cube, MeteredDataset {
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
   private final ExecutorService executorService;
+  @Nullable
+  private final ExecutorService scanExecutor;
+  private final int scanParallelism;
+  private final int maxRecordsToScan;
+  @Nullable
+  private final CubeQueryCache queryCache;
 
   @Nullable
   private MetricsCollector metrics;
@@ -90,6 +97,36 @@ public class DefaultCube implements Cube, MeteredDataset {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, 1, 0, 0L, 0L);
+  }
+
+  /**
+   * Creates a {@link DefaultCube} that scans the fact tables concurrently and caches query results of completed
+   * time buckets.
+   *
+   * @param scanParallelism maximum number of concurrent scans for a query over a large time range,
+   *                        or {@code 1} to always scan sequentially
+   * @param queryCacheSize maximum number of queries to cache results for, or {@code 0} to disable the cache
+   * @param queryCacheDelaySeconds number of seconds after the end of a time bucket that no more facts are expected
+   *                               to be added to the bucket, so that query results of the bucket can be cached
+   * @param queryCacheExpireSeconds number of seconds after which cached query results expire, which bounds how long
+   *                                facts added through other {@link DefaultCube} instances are not reflected
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap,
+                     int scanParallelism, int queryCacheSize, long queryCacheDelaySeconds,
+                     long queryCacheExpireSeconds) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, scanParallelism, queryCacheSize,
+         queryCacheDelaySeconds, queryCacheExpireSeconds, MAX_RECORDS_TO_SCAN);
+  }
+
+  @VisibleForTesting
+  DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+              Map<String, ? extends Aggregation> aggregations,
+              Map<String, AggregationAlias> aggregationAliasMap,
+              int scanParallelism, int queryCacheSize, long queryCacheDelaySeconds,
+              long queryCacheExpireSeconds, int maxRecordsToScan) {
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
     for (int resolution : resolutions) {
@@ -101,6 +138,19 @@ public class DefaultCube implements Cube, MeteredDataset {
                                                          Threads.createDaemonThreadFactory("metrics-table-%d"));
     executor.allowCoreThreadTimeOut(true);
     this.executorService = executor;
+    this.scanParallelism = scanParallelism;
+    this.maxRecordsToScan = maxRecordsToScan;
+    if (scanParallelism > 1) {
+      executor = new ThreadPoolExecutor(scanParallelism, scanParallelism, 60, TimeUnit.SECONDS,
+                                        new LinkedBlockingQueue<>(),
+                                        Threads.createDaemonThreadFactory("metrics-table-scan-%d"));
+      executor.allowCoreThreadTimeOut(true);
+      this.scanExecutor = executor;
+    } else {
+      this.scanExecutor = null;
+    }
+    this.queryCache = queryCacheSize > 0 && queryCacheExpireSeconds > 0 ?
+      new CubeQueryCache(queryCacheSize, queryCacheDelaySeconds, queryCacheExpireSeconds) : null;
   }
 
   @Override
@@ -111,6 +161,8 @@ public class DefaultCube implements Cube, MeteredDataset {
   @Override
   public void add(Collection<? extends CubeFact> facts) {
     List<Fact> toWrite = Lists.newArrayList();
+    // the earliest fact timestamp of each aggregation, for invalidating cached query results
+    Map<String, Long> minTimestamps = new HashMap<>();
     int dimValuesCount = 0;
     for (CubeFact fact : facts) {
       for (Map.Entry<String, ? extends Aggregation> aggEntry : aggregations.entrySet()) {
@@ -130,6 +182,7 @@ public class DefaultCube implements Cube, MeteredDataset {
             dimValuesCount++;
           }
           toWrite.add(new Fact(fact.getTimestamp(), dimensionValues, fact.getMeasurements()));
+          minTimestamps.merge(aggEntry.getKey(), fact.getTimestamp(), Math::min);
         }
       }
     }
@@ -160,6 +213,14 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     }
 
+    // Invalidate after writing, even if some writes failed, since the other writes have landed. Queries that
+    // were running during the writes are not cached, since the invalidation bumps the cache generation.
+    if (queryCache != null) {
+      for (Map.Entry<String, Long> minTimestamp : minTimestamps.entrySet()) {
+        queryCache.invalidate(minTimestamp.getKey(), minTimestamp.getValue());
+      }
+    }
+
     if (failed) {
       throw new RuntimeException(failedMessage.append(".").toString(), failedException);
     }
@@ -251,13 +312,16 @@ public class DefaultCube implements Cube, MeteredDataset {
       dimensionValues.add(new DimensionValue(dimensionName, query.getDimensionValues().get(dimensionName)));
     }
 
-    FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
-                                 query.getMeasurements().keySet(), dimensionValues);
-
     // 3) execute scan query
     FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    Table<Map<String, String>, String, Map<Long, Long>> resultMap = HashBasedTable.create();
+    if (queryCache != null && queryCache.isCacheable(query)) {
+      queryWithCache(aggName, query, dimensionValues, table, resultMap);
+    } else {
+      FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
+                                   query.getMeasurements().keySet(), dimensionValues);
+      scan(query, table, scan, resultMap);
+    }
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -268,21 +332,139 @@ public class DefaultCube implements Cube, MeteredDataset {
     return timeSeries;
   }
 
+  /**
+   * Executes the query using the cached results of completed time buckets, and only scans the time range
+   * not covered by the cache.
+   */
+  private void queryWithCache(String aggName, CubeQuery query, List<DimensionValue> dimensionValues,
+                              FactTable table, Table<Map<String, String>, String, Map<Long, Long>> resultMap) {
+    CubeQueryCache.Key key = new CubeQueryCache.Key(aggName, query);
+    // Get the generation and the completed time before scanning, so that the result is not cached if facts
+    // of completed time buckets are added or deleted during the scan
+    long generation = queryCache.getGeneration();
+    long completedTs = queryCache.getCompletedTs(query.getResolution());
+
+    long scanStartTs = query.getStartTs();
+    CubeQueryCache.Entry entry = queryCache.get(key, query.getStartTs());
+    if (entry != null) {
+      incrementMetric("cube.query.cache.hit.count", 1);
+      entry.copyTo(resultMap, query.getStartTs(), query.getEndTs());
+      scanStartTs = entry.getEndTs();
+    } else {
+      incrementMetric("cube.query.cache.miss.count", 1);
+    }
+
+    boolean complete = true;
+    if (scanStartTs <= query.getEndTs()) {
+      FactScan scan = new FactScan(scanStartTs, query.getEndTs(), query.getMeasurements().keySet(), dimensionValues);
+      complete = scan(query, table, scan, resultMap);
+    }
+    // Don't cache partial results if the scan hit the limit of records to scan
+    if (complete) {
+      long endTs = query.getEndTs() == Long.MAX_VALUE ? completedTs : Math.min(completedTs, query.getEndTs() + 1);
+      queryCache.put(key, query.getStartTs(), endTs, resultMap, generation);
+    }
+  }
+
+  /**
+   * Executes the given scan for the query. Scans over multiple time bases are split into scans of disjoint row ranges
+   * that are executed concurrently, with their results merged into the given result table in split order. The limit
+   * of records is applied in split order as well, so the result doesn't depend on how the concurrent scans run.
+   *
+   * @return {@code true} if all records were scanned, or {@code false} if the scan stopped at the limit of records
+   */
+  private boolean scan(CubeQuery query, FactTable table, FactScan scan,
+                       Table<Map<String, String>, String, Map<Long, Long>> resultMap) {
+    long startTime = System.currentTimeMillis();
+    List<FactScan> splits = scanExecutor == null ? Collections.singletonList(scan) : table.split(scan, scanParallelism);
+
+    boolean complete;
+    if (splits.size() == 1) {
+      complete = getTimeSeries(query, table.scan(splits.get(0)), resultMap, maxRecordsToScan) < maxRecordsToScan;
+    } else {
+      // Each split is scanned with the full limit of records, so that the scanned records of a split don't depend
+      // on how the concurrent scans are scheduled
+      List<Table<Map<String, String>, String, Map<Long, Long>>> splitResults = new ArrayList<>();
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (FactScan split : splits) {
+        Table<Map<String, String>, String, Map<Long, Long>> splitResult = HashBasedTable.create();
+        splitResults.add(splitResult);
+        futures.add(scanExecutor.submit(() -> getTimeSeries(query, table.scan(split), splitResult,
+                                                            maxRecordsToScan)));
+      }
+
+      List<Integer> scannedRecords = new ArrayList<>();
+      RuntimeException failure = null;
+      for (Future<Integer> future : futures) {
+        try {
+          scannedRecords.add(Uninterruptibles.getUninterruptibly(future));
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = new RuntimeException("Failed to scan the " + query.getResolution() + " resolution table",
+                                           e.getCause());
+          } else {
+            failure.addSuppressed(e.getCause());
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+
+      // Merge the splits in the order of the sequential scan, until the limit of records is reached
+      complete = true;
+      int remaining = maxRecordsToScan;
+      for (int i = 0; i < splits.size() && complete; i++) {
+        Table<Map<String, String>, String, Map<Long, Long>> splitResult = splitResults.get(i);
+        int scanned = scannedRecords.get(i);
+        if (scanned >= remaining) {
+          complete = false;
+          if (scanned > remaining) {
+            // Rescan the split that reaches the limit with the remaining budget of records
+            splitResult = HashBasedTable.create();
+            getTimeSeries(query, table.scan(splits.get(i)), splitResult, remaining);
+          }
+        }
+        remaining -= scanned;
+
+        // Time ranges of the splits are disjoint, hence the time values can simply be merged
+        for (Table.Cell<Map<String, String>, String, Map<Long, Long>> cell : splitResult.cellSet()) {
+          Map<Long, Long> timeValues = resultMap.get(cell.getRowKey(), cell.getColumnKey());
+          if (timeValues == null) {
+            resultMap.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+          } else {
+            timeValues.putAll(cell.getValue());
+          }
+        }
+      }
+    }
+
+    incrementMetric("cube.query.scan.count", splits.size());
+    gaugeMetric("cube.query.scan.latency.ms", System.currentTimeMillis() - startTime);
+    return complete;
+  }
+
   @Override
   public void delete(CubeDeleteQuery query) {
-    //this may be very inefficient and its better to use TTL, this is to only support existing old functionality.
-    List<DimensionValue> dimensionValues = Lists.newArrayList();
-    // find all the aggregations that match the dimensionValues in the query and
-    // use the dimension values of the aggregation to delete entries in all the fact-tables.
-    for (Aggregation agg : aggregations.values()) {
-      if (query.getTagPredicate().test(agg.getDimensionNames())) {
-        dimensionValues.clear();
-        for (String dimensionName : agg.getDimensionNames()) {
-          dimensionValues.add(new DimensionValue(dimensionName, query.getDimensionValues().get(dimensionName)));
+    try {
+      //this may be very inefficient and its better to use TTL, this is to only support existing old functionality.
+      List<DimensionValue> dimensionValues = Lists.newArrayList();
+      // find all the aggregations that match the dimensionValues in the query and
+      // use the dimension values of the aggregation to delete entries in all the fact-tables.
+      for (Aggregation agg : aggregations.values()) {
+        if (query.getTagPredicate().test(agg.getDimensionNames())) {
+          dimensionValues.clear();
+          for (String dimensionName : agg.getDimensionNames()) {
+            dimensionValues.add(new DimensionValue(dimensionName, query.getDimensionValues().get(dimensionName)));
+          }
+          FactTable factTable = resolutionToFactTable.get(query.getResolution());
+          FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(), query.getMeasureNames(), dimensionValues);
+          factTable.delete(scan);
         }
-        FactTable factTable = resolutionToFactTable.get(query.getResolution());
-        FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(), query.getMeasureNames(), dimensionValues);
-        factTable.delete(scan);
+      }
+    } finally {
+      if (queryCache != null) {
+        queryCache.invalidateAll();
       }
     }
   }
@@ -356,6 +538,12 @@ public class DefaultCube implements Cube, MeteredDataset {
     }
   }
 
+  private void gaugeMetric(String metricName, long value) {
+    if (metrics != null) {
+      metrics.gauge(metricName, value);
+    }
+  }
+
   @Nullable
   private ImmutablePair<String, Aggregation> findAggregation(CubeQuery query) {
     ImmutablePair<String, Aggregation> currentBest = null;
@@ -376,10 +564,24 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
-    // {dimension values, measure} -> {time -> value}s
-    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+  /**
+   * Reads the time series from the given scanner to the given result table.
+   *
+   * @param maxRecords maximum number of records to scan
+   * @return the number of records scanned, which is equal to {@code maxRecords} if the scan stopped at the limit
+   */
+  private int getTimeSeries(CubeQuery query, FactScanner scanner,
+                            Table<Map<String, String>, String, Map<Long, Long>> result, int maxRecords) {
+    try {
+      return readTimeSeries(query, scanner, result, maxRecords);
+    } finally {
+      scanner.close();
+    }
+  }
 
+  private int readTimeSeries(CubeQuery query, FactScanner scanner,
+                             Table<Map<String, String>, String, Map<Long, Long>> result, int maxRecords) {
+    // {dimension values, measure} -> {time -> value}s
     int count = 0;
     while (scanner.hasNext()) {
       FactScanResult next = scanner.next();
@@ -440,11 +642,11 @@ public class DefaultCube implements Cube, MeteredDataset {
           throw new RuntimeException("Unknown MeasureType: " + function);
         }
       }
-      if (++count >= MAX_RECORDS_TO_SCAN) {
+      if (++count >= maxRecords) {
         break;
       }
     }
-    return result;
+    return count;
   }
 
   private Collection<TimeSeries> convertToQueryResult(
@@ -518,6 +720,9 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     } finally {
       executorService.shutdown();
+      if (scanExecutor != null) {
+        scanExecutor.shutdown();
+      }
     }
   }
 
@@ -107,6 +107,9 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final Gson GSON =
     new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
   private static final String QUARANTINE_DIR = ".quarantine";
+  // Number of consecutive partitions not matching the filter after which the scan seeks to the next row key
+  // that can match the filter, rather than continuing to read rows that are known to not match.
+  private static final int SEEK_THRESHOLD = 10;
 
   // A function to convert PartitionOperation into PartitionKey by getting the key from the operation.
   private static final Function<PartitionOperation, PartitionKey> OP_TO_KEY =
@@ -765,7 +768,9 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
     long count = 0L;
-    try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
+    int mismatches = 0;
+    Scanner scanner = partitionsTable.scan(startKey, endKey);
+    try {
       while (count < limit) {
         Row row = scanner.next();
         if (row == null) {
@@ -780,8 +785,20 @@ public class PartitionedFileSetDataset extends AbstractDataset
           continue;
         }
         if (filter != null && !filter.match(key)) {
+          // The start and stop keys only prune on the leading fields of the partitioning. Skip over the
+          // row key ranges of the other fields that cannot match the filter.
+          if (++mismatches >= SEEK_THRESHOLD) {
+            mismatches = 0;
+            byte[] seekKey = generateSeekKey(key, filter, partitioning);
+            if (seekKey == null || (endKey != null && Bytes.compareTo(seekKey, endKey) >= 0)) {
+              break;
+            }
+            scanner.close();
+            scanner = partitionsTable.scan(seekKey, endKey);
+          }
           continue;
         }
+        mismatches = 0;
         byte[] pathBytes = row.get(RELATIVE_PATH);
         if (pathBytes != null) {
           consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
@@ -791,6 +808,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
       if (count == 0) {
         warnIfInvalidPartitionFilter(filter, partitioning);
       }
+    } finally {
+      scanner.close();
     }
   }
 
@@ -1306,6 +1325,61 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return stopKey;
   }
 
+  /**
+   * Generates the smallest row key that is greater than the row key of the given partition key, and that can be the
+   * row key of a partition matching the filter. The first field of the partitioning that does not match its
+   * condition determines the row key: if its value is lower than the lower bound of the condition, the row key has
+   * the values of the preceding fields followed by the lower bound. Otherwise, it is the row key following all row
+   * keys that start with the values of the preceding fields.
+   *
+   * @return the row key to continue the scan at, or null if no row key after the given one can match the filter
+   */
+  @VisibleForTesting
+  @Nullable
+  @SuppressWarnings("unchecked")
+  static byte[] generateSeekKey(PartitionKey key, PartitionFilter filter, Partitioning partitioning) {
+    List<byte[]> values = new ArrayList<>();
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      Comparable value = key.getField(entry.getKey());
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(entry.getKey());
+      if (condition == null || condition.match(value)) {
+        values.add(FieldTypes.toBytes(value, entry.getValue()));
+        continue;
+      }
+      Comparable lower = condition.getLower();
+      if (lower != null && lower.compareTo(value) > 0) {
+        values.add(FieldTypes.toBytes(lower, entry.getValue()));
+        return joinFieldValues(values, false);
+      }
+      // the value is above the upper bound, hence no row key with the values of the preceding fields can match
+      return values.isEmpty() ? null : joinFieldValues(values, true);
+    }
+    // all fields of the partitioning match, the filter has conditions on fields that are not in the partitioning
+    return null;
+  }
+
+  /**
+   * Joins the given encoded field values with \0 separators. If {@code afterPrefix} is true, returns the row key
+   * following all row keys that start with the given field values instead.
+   */
+  private static byte[] joinFieldValues(List<byte[]> values, boolean afterPrefix) {
+    int totalSize = values.size() - 1 + (afterPrefix ? 1 : 0);
+    for (byte[] bytes : values) {
+      totalSize += bytes.length;
+    }
+    byte[] rowKey = new byte[totalSize];
+    int offset = 0;
+    for (byte[] bytes : values) {
+      System.arraycopy(bytes, 0, rowKey, offset, bytes.length);
+      offset += bytes.length + 1; // this leaves a \0 byte after the value
+    }
+    if (afterPrefix) {
+      // the fields following the prefix are separated by \0, hence \1 is greater than all of them
+      rowKey[totalSize - 1] = 1;
+    }
+    return rowKey;
+  }
+
   @VisibleForTesting
   static PartitionKey parseRowKey(byte[] rowKey, Partitioning partitioning) {
     PartitionKey.Builder builder = PartitionKey.builder();
@@ -94,12 +94,18 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private final byte[] nameAsTxChangePrefix;
   // Whether read-less increments should be used when increment() is called
   private final boolean enableReadlessIncrements;
+  // Approximate size of the buffered writes after which the buffer is persisted before commit, non-positive to disable
+  private final long bufferFlushThreshold;
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
   // that the corresponded column was removed.
   private NavigableMap<byte[], NavigableMap<byte[], Update>> buff;
 
-  // Keeps track of what was persisted so far
+  // Approximate size in bytes of the buffered writes
+  private long bufferSize;
+
+  // Keeps track of what was persisted so far. When the buffer is flushed before commit, only the row and column keys
+  // are kept, with null values.
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
   // Report data ops metrics to
@@ -145,6 +151,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     this.name = name;
     this.conflictLevel = TableProperties.getConflictDetection(properties, ConflictDetection.ROW);
     this.enableReadlessIncrements = enableReadlessIncrements;
+    // Buffered read-less increments cannot be flushed before commit, since a later increment on the same cell would
+    // be written with the same version, overwriting the flushed one.
+    this.bufferFlushThreshold = enableReadlessIncrements ? -1L : TableProperties.getBufferFlushThreshold(properties);
     // TODO: having central dataset management service will allow us to use table ids instead of names, which will
     //       reduce changeset size transferred to/from server
     // we want it to be of format length+value to avoid conflicts like table="ab", row="cd" vs table="abc", row="d"
@@ -273,6 +282,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
     // starting with fresh buffer when tx starts
     buff.clear();
+    bufferSize = 0;
     toUndo = null;
     this.tx = tx;
   }
@@ -308,8 +318,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getRowChanges() {
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (byte[] changedRow : buff.keySet()) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> allChanges = getAllChanges();
+    List<byte[]> changes = new ArrayList<>(allChanges.size());
+    for (byte[] changedRow : allChanges.keySet()) {
       changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
     }
     return changes;
@@ -317,8 +328,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getColumnChanges() {
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> allChanges = getAllChanges();
+    List<byte[]> changes = new ArrayList<>(allChanges.size());
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : allChanges.entrySet()) {
       if (rowChange.getValue() == null) {
         // NOTE: as of now we cannot detect conflict between delete whole row and row's column value change.
         //       this is not a big problem as of now, as row deletion is now act as deletion of every column, but this
@@ -336,27 +348,93 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     return changes;
   }
 
+  /**
+   * Returns all changes made in the current transaction, including the ones flushed before commit.
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> getAllChanges() {
+    if (toUndo == null) {
+      return buff;
+    }
+    NavigableMap<byte[], NavigableMap<byte[], Update>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    addChangedKeys(changes, toUndo);
+    addChangedKeys(changes, buff);
+    return changes;
+  }
+
+  /**
+   * Adds the row and column keys of the given changes to the given map, with null values.
+   */
+  private static void addChangedKeys(NavigableMap<byte[], NavigableMap<byte[], Update>> keys,
+                                     NavigableMap<byte[], NavigableMap<byte[], Update>> changes) {
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : changes.entrySet()) {
+      NavigableMap<byte[], Update> columns = keys.get(rowChange.getKey());
+      if (columns == null) {
+        columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        keys.put(rowChange.getKey(), columns);
+      }
+      if (rowChange.getValue() != null) {
+        for (byte[] column : rowChange.getValue().keySet()) {
+          columns.put(column, null);
+        }
+      }
+    }
+  }
+
   @Override
   public boolean commitTx() throws Exception {
     if (!buff.isEmpty()) {
       // We first assume that all data will be persisted. So that if exception happen during persist we try to
       // rollback everything we had in in-memory buffer.
-      toUndo = buff;
+      NavigableMap<byte[], NavigableMap<byte[], Update>> toPersist = buff;
+      if (toUndo == null) {
+        toUndo = toPersist;
+      } else {
+        addChangedKeys(toUndo, toPersist);
+      }
       // clearing up in-memory buffer by initializing new map.
       // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
       // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
       buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+      bufferSize = 0;
       // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
       //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
-      persist(toUndo);
+      persist(toPersist);
     }
     return true;
   }
 
+  /**
+   * Persists the in-memory buffer if its size exceeds the flush threshold. The persisted writes are written with
+   * the transaction write pointer, hence they stay invisible to other transactions until the transaction commits,
+   * and are undone if the transaction is rolled back. Only the changed keys are kept in memory, for conflict
+   * detection and rollback.
+   */
+  private void flushBufferIfNeeded() {
+    if (bufferFlushThreshold <= 0 || bufferSize < bufferFlushThreshold) {
+      return;
+    }
+    NavigableMap<byte[], NavigableMap<byte[], Update>> toPersist = buff;
+    if (toUndo == null) {
+      toUndo = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    }
+    // Track the keys before persisting, so that partially persisted changes are undone on rollback
+    addChangedKeys(toUndo, toPersist);
+    // NOTE: a new map is used instead of clearing the buffer, since open scanners may still refer to it
+    buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    bufferSize = 0;
+    try {
+      persist(toPersist);
+    } catch (Exception e) {
+      LOG.debug("Failed to flush buffered writes for table: " + getTransactionAwareName(), e);
+      throw new DataSetException("Failed to flush buffered writes", e);
+    }
+  }
+
   @Override
   public void postTxCommit() {
     // don't need buffer anymore: tx has been committed
     buff.clear();
+    bufferSize = 0;
     toUndo = null;
     tx = null;
   }
@@ -364,6 +442,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public boolean rollbackTx() throws Exception {
     buff.clear();
+    bufferSize = 0;
     if (toUndo != null) {
       undo(toUndo);
       toUndo = null;
@@ -517,7 +596,10 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     if (newRow) {
       // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
       buff.put(copy(row), colVals);
+      bufferSize += row.length;
     }
+    bufferSize += getSize(columns) + getSize(values);
+    flushBufferIfNeeded();
   }
 
   /**
@@ -17,6 +17,8 @@
 package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
@@ -34,13 +36,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -70,10 +75,12 @@ public class LevelDBTableCore {
 
   private final String tableName;
   private final LevelDBTableService service;
+  private final Striped<Lock> rowLocks;
 
   public LevelDBTableCore(String tableName, LevelDBTableService service) {
     this.tableName = tableName;
     this.service = service;
+    this.rowLocks = service.getRowLocks(tableName);
   }
 
   private DB getDB() throws IOException {
@@ -85,30 +92,38 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Lock lock = getRowLock(row);
+    lock.lock();
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+      }
+      return true;
+    } finally {
+      lock.unlock();
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
+    Lock lock = getRowLock(row);
+    lock.lock();
     try (Snapshot snapshot = db.getSnapshot()) {
       ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
 
@@ -120,19 +135,37 @@ public class LevelDBTableCore {
         writeBatch.put(rowKey, Bytes.toBytes(newValue));
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      lock.unlock();
     }
 
     return result;
   }
 
 
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
     if (updates.isEmpty()) {
       return;
     }
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
+
+    // Lock all rows being updated, so that all the increments are applied with one write batch.
+    // The locks are acquired in the stripe order as returned by bulkGet, hence there is no deadlock.
+    List<Integer> rowHashes = new ArrayList<>(updates.size());
+    for (byte[] row : updates.keySet()) {
+      rowHashes.add(Bytes.hashCode(row));
+    }
+    List<Lock> locks = new ArrayList<>();
+    for (Lock lock : rowLocks.bulkGet(rowHashes)) {
+      // Multiple rows can map to the same lock, which only needs to be acquired once
+      if (locks.isEmpty() || locks.get(locks.size() - 1) != lock) {
+        lock.lock();
+        locks.add(lock);
+      }
+    }
+
     try (Snapshot snapshot = db.getSnapshot()) {
       ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
 
@@ -145,9 +178,20 @@ public class LevelDBTableCore {
         }
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      for (Lock lock : Lists.reverse(locks)) {
+        lock.unlock();
+      }
     }
   }
 
+  /**
+   * Returns the {@link Lock} for performing read-modify-write operation on the given row.
+   */
+  private Lock getRowLock(byte[] row) {
+    return rowLocks.get(Bytes.hashCode(row));
+  }
+
   private long incrementValue(long value, @Nullable byte[] existingValue, byte[] row, byte[] col) {
     if (existingValue == null) {
       return value;
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.cdap.cdap.common.conf.CConfiguration;
@@ -43,6 +44,7 @@ import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -54,6 +56,9 @@ public class LevelDBTableService implements AutoCloseable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
 
+  // Number of lock stripes per table for read-modify-write operations
+  private static final int ROW_LOCK_STRIPES = 64;
+
   private int blockSize;
   private long cacheSize;
   private String basePath;
@@ -61,6 +66,7 @@ public class LevelDBTableService implements AutoCloseable {
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Striped<Lock>> rowLocks = Maps.newConcurrentMap();
 
   /**
    * To avoid database locking issues make sure that the single LevelDBTableService instance
@@ -100,6 +106,7 @@ public class LevelDBTableService implements AutoCloseable {
       Closeables.closeQuietly(entries);
     }
     tables.clear();
+    rowLocks.clear();
   }
 
   private void ensureOpen() {
@@ -186,6 +193,14 @@ public class LevelDBTableService implements AutoCloseable {
     return db;
   }
 
+  /**
+   * Returns the row locks for read-modify-write operations on the given table. The locks are shared by all
+   * {@link LevelDBTableCore} instances of the same table.
+   */
+  Striped<Lock> getRowLocks(String tableName) {
+    return rowLocks.computeIfAbsent(tableName, name -> Striped.lock(ROW_LOCK_STRIPES));
+  }
+
   public void ensureTableExists(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -242,6 +257,7 @@ public class LevelDBTableService implements AutoCloseable {
     if (db != null) {
       db.close();
     }
+    rowLocks.remove(name);
     String dbPath = getDBPath(basePath, name);
     factory.destroy(new File(dbPath), new Options());
   }
@@ -192,6 +192,37 @@ public final class FactTable implements Closeable {
     return new FactScanner(getScanner(scan), codec, scan.getStartTs(), scan.getEndTs(), scan.getMeasureNames());
   }
 
+  /**
+   * Splits the given scan into at most the given number of scans with disjoint time ranges. Since the time base
+   * precedes the dimension values and measure name in the row key, splitting at time base boundaries makes the
+   * resulting scans read disjoint row ranges, which can be executed concurrently.
+   *
+   * @param scan the scan to split
+   * @param maxSplits maximum number of scans to split into
+   * @return list of scans ordered by time range, which contains just the given scan if it is not split
+   */
+  public List<FactScan> split(FactScan scan, int maxSplits) {
+    long startTimeBase = scan.getStartTs() / rollTime * rollTime;
+    long endTimeBase = scan.getEndTs() / rollTime * rollTime;
+    long timeBases = (endTimeBase - startTimeBase) / rollTime + 1;
+    // the totals resolution has a single time bucket for all timestamps
+    if (maxSplits <= 1 || timeBases <= 1 || resolution == Integer.MAX_VALUE
+      || scan.getStartTs() < 0 || endTimeBase >= 0x100000000L) {
+      return Collections.singletonList(scan);
+    }
+
+    long timeBasesPerSplit = (timeBases + maxSplits - 1) / maxSplits;
+    List<FactScan> splits = new ArrayList<>();
+    long startTs = scan.getStartTs();
+    while (startTs <= scan.getEndTs()) {
+      long nextTimeBase = (startTs / rollTime + timeBasesPerSplit) * rollTime;
+      long endTs = Math.min(scan.getEndTs(), nextTimeBase - 1);
+      splits.add(new FactScan(startTs, endTs, scan.getMeasureNames(), scan.getDimensionValues()));
+      startTs = nextTimeBase;
+    }
+    return splits;
+  }
+
   private List<String> getSortedMeasures(Collection<String> measures) {
     Map<String, Long> measureToEntityMap = new HashMap<>();
     List<String> measureNames = new ArrayList<>();
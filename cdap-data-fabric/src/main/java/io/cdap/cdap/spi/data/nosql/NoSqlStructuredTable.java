@@ -40,6 +40,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -74,6 +76,18 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.put(convertFieldsToBytes(fields));
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException {
+    LOG.trace("Table {}: Write multiple fields {}", schema.getTableId(), multiFields);
+    // Convert all rows first so that nothing is written if any of the rows is invalid.
+    // The puts are buffered by the underlying table and are persisted together when the transaction is committed.
+    List<Put> puts = new ArrayList<>(multiFields.size());
+    for (Collection<Field<?>> fields : multiFields) {
+      puts.add(convertFieldsToBytes(fields));
+    }
+    puts.forEach(table::put);
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException {
     LOG.trace("Table {}: Read with keys {}", schema.getTableId(), keys);
@@ -113,6 +127,57 @@ public final class NoSqlStructuredTable implements StructuredTable {
                              limit);
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<Field<?>> filters,
+                                               Collection<String> columns) throws InvalidFieldException {
+    LOG.trace("Table {}: Scan range {} with limit {}, filters {} and columns {}",
+              schema.getTableId(), keyRange, limit, filters, columns);
+    if (columns == null || columns.isEmpty()) {
+      throw new IllegalArgumentException("No columns are specified to scan");
+    }
+    convertColumnsToBytes(columns);
+    if (filters.isEmpty()) {
+      return scan(keyRange, limit);
+    }
+
+    // Primary keys are encoded in the row key, hence they are compared after the row is decoded.
+    // Other columns are compared with the serialized values, so that the rows are filtered before being decoded.
+    List<Field<?>> keyFilters = new ArrayList<>();
+    List<ImmutablePair<byte[], byte[]>> columnFilters = new ArrayList<>();
+    for (Field<?> filter : filters) {
+      fieldValidator.validateField(filter);
+      if (schema.isPrimaryKeyColumn(filter.getName())) {
+        keyFilters.add(filter);
+      } else {
+        columnFilters.add(ImmutablePair.of(Bytes.toBytes(filter.getName()), fieldToBytes(filter)));
+      }
+    }
+
+    Scanner scanner = getScanner(keyRange);
+    CloseableIterator<StructuredRow> iterator = new AbstractCloseableIterator<StructuredRow>() {
+      @Override
+      protected StructuredRow computeNext() {
+        Row row;
+        while ((row = scanner.next()) != null) {
+          if (!matches(row, columnFilters)) {
+            continue;
+          }
+          StructuredRow structuredRow = new NoSqlStructuredRow(row, schema);
+          if (structuredRow.getPrimaryKeys().containsAll(keyFilters)) {
+            return structuredRow;
+          }
+        }
+        return endOfData();
+      }
+
+      @Override
+      public void close() {
+        scanner.close();
+      }
+    };
+    return new LimitIterator(Collections.singleton(iterator).iterator(), limit);
+  }
+
   @Override
   public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
                                                     int limit) throws InvalidFieldException, IOException {
@@ -212,6 +277,16 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.delete(convertKeyToBytes(keys, false));
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys) throws InvalidFieldException {
+    LOG.trace("Table {}: Delete with multiple keys {}", schema.getTableId(), multiKeys);
+    List<byte[]> rows = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      rows.add(convertKeyToBytes(keys, false));
+    }
+    rows.forEach(table::delete);
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", schema.getTableId(), keyRange);
@@ -370,6 +445,18 @@ public final class NoSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Returns whether the row has the given column values. A {@code null} value matches a missing column.
+   */
+  private static boolean matches(Row row, List<ImmutablePair<byte[], byte[]>> columnValues) {
+    for (ImmutablePair<byte[], byte[]> columnValue : columnValues) {
+      if (!Arrays.equals(row.get(columnValue.getFirst()), columnValue.getSecond())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Scanner getScanner(Range keyRange) {
     ImmutablePair<byte[], byte[]> keys = createScanKeys(keyRange);
     return table.scan(keys.getFirst(), keys.getSecond());
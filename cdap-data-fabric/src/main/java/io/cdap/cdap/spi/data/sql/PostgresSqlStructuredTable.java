@@ -84,6 +84,25 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     upsertInternal(fields);
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Write multiple fields {}", tableSchema.getTableId(), multiFields);
+
+    // Rows with the same set of fields share the same statement, which is executed as one batch
+    Map<String, List<Collection<Field<?>>>> batches = new LinkedHashMap<>();
+    for (Collection<Field<?>> fields : multiFields) {
+      Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
+      if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
+        throw new InvalidFieldException(tableSchema.getTableId(), fields,
+                                        String.format("Given fields %s do not contain all the " +
+                                                        "primary keys %s", fieldNames, tableSchema.getPrimaryKeys()));
+      }
+      batches.computeIfAbsent(getWriteSqlQuery(fields, null), k -> new ArrayList<>()).add(fields);
+    }
+    executeBatches(batches, "write to");
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     return readRow(keys, null);
@@ -206,6 +225,46 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<Field<?>> filters,
+                                               Collection<String> columns) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Scan range {} with limit {}, filters {} and columns {}",
+              tableSchema.getTableId(), keyRange, limit, filters, columns);
+    if (columns == null || columns.isEmpty()) {
+      throw new IllegalArgumentException("No columns are specified to scan");
+    }
+    fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
+    fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
+    for (Field<?> filter : filters) {
+      fieldValidator.validateField(filter);
+    }
+
+    // always have the primary key fields included in the columns
+    Set<String> columnFields = new LinkedHashSet<>(tableSchema.getPrimaryKeys());
+    for (String column : columns) {
+      if (tableSchema.getType(column) == null) {
+        throw new InvalidFieldException(tableSchema.getTableId(), column);
+      }
+      columnFields.add(column);
+    }
+    String scanQuery = getScanQuery(keyRange, limit, filters, columnFields);
+
+    // We don't close the statement here because once it is closed, the result set is also closed.
+    try {
+      PreparedStatement statement = connection.prepareStatement(scanQuery);
+      statement.setFetchSize(SCAN_FETCH_SIZE);
+      int index = setStatementFieldByRange(keyRange, statement, 1);
+      setFields(statement, filters.stream().filter(f -> f.getValue() != null)::iterator, index);
+      LOG.trace("SQL statement: {}", statement);
+
+      ResultSet resultSet = statement.executeQuery();
+      return new ResultSetIterator(statement, resultSet, tableSchema);
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to scan from table %s with range %s and filters %s",
+                                          tableSchema.getTableId().getName(), keyRange, filters), e);
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
                                                     int limit) throws InvalidFieldException, IOException {
@@ -441,6 +500,18 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Delete with multiple keys {}", tableSchema.getTableId(), multiKeys);
+    Map<String, List<Collection<Field<?>>>> batches = new LinkedHashMap<>();
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      batches.computeIfAbsent(getDeleteQuery(keys), k -> new ArrayList<>()).add(keys);
+    }
+    executeBatches(batches, "delete from");
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", tableSchema.getTableId(), keyRange);
@@ -505,6 +576,30 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Executes statements in batches, with one JDBC batch per distinct statement.
+   *
+   * @param batches a map from the sql statement to the list of fields to set into the statement for each execution
+   * @param operation the operation description used in the error message
+   */
+  private void executeBatches(Map<String, List<Collection<Field<?>>>> batches,
+                              String operation) throws InvalidFieldException, IOException {
+    for (Map.Entry<String, List<Collection<Field<?>>>> entry : batches.entrySet()) {
+      try (PreparedStatement statement = connection.prepareStatement(entry.getKey())) {
+        for (Collection<Field<?>> fields : entry.getValue()) {
+          setFields(statement, fields, 1);
+          statement.addBatch();
+        }
+        LOG.trace("SQL statement: {} with batch size {}", statement, entry.getValue().size());
+        statement.executeBatch();
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to %s table %s with batch of %d rows",
+                                            operation, tableSchema.getTableId().getName(),
+                                            entry.getValue().size()), e);
+      }
+    }
+  }
+
   /**
    * Read a row from the table. Null columns mean read from all columns.
    *
@@ -707,11 +802,38 @@ public class PostgresSqlStructuredTable implements StructuredTable {
    * @return the scan query
    */
   private String getScanQuery(Range range, int limit) {
-    StringBuilder queryString = new StringBuilder("SELECT * FROM ").append(tableSchema.getTableId().getName());
-    if (!range.getBegin().isEmpty() || !range.getEnd().isEmpty()) {
+    return getScanQuery(range, limit, Collections.emptyList(), null);
+  }
+
+  /**
+   * Get the scan query for the range given, with the filters and the columns to select. For example, if the range
+   * provides key1 as the begin to scan, with a filter on col1 and columns col2 to select, it will generate the
+   * following query:
+   * SELECT key1,key2,col2 FROM simpletable WHERE (key1)>=(?) AND col1=? ORDER BY key1, key2 LIMIT 10;
+   *
+   * @param range the range to scan
+   * @param limit limit number of row
+   * @param filters the fields to match. Fields with null value are matched with IS NULL
+   * @param columns the columns to select, null means select all columns
+   * @return the scan query
+   */
+  private String getScanQuery(Range range, int limit, Collection<Field<?>> filters,
+                              @Nullable Collection<String> columns) {
+    StringBuilder queryString = new StringBuilder("SELECT ")
+      .append(columns == null ? "*" : Joiner.on(",").join(columns))
+      .append(" FROM ").append(tableSchema.getTableId().getName());
+    boolean hasRange = !range.getBegin().isEmpty() || !range.getEnd().isEmpty();
+    if (hasRange || !filters.isEmpty()) {
       queryString.append(" WHERE ");
+    }
+    if (hasRange) {
       appendRange(queryString, range);
     }
+    String separator = hasRange ? " AND " : "";
+    for (Field<?> filter : filters) {
+      queryString.append(separator).append(filter.getName()).append(filter.getValue() == null ? " IS NULL" : "=?");
+      separator = " AND ";
+    }
 
     queryString.append(getOrderByClause(tableSchema.getPrimaryKeys()));
     queryString.append(" LIMIT ").append(limit).append(";");
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.Cube;
+import io.cdap.cdap.api.dataset.lib.cube.CubeFact;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link AbstractCubeTest} with {@link DefaultCube} scanning the fact tables concurrently.
+ */
+public class DefaultCubeParallelScanTest extends AbstractCubeTest {
+
+  @Override
+  protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
+    return new DefaultCube(resolutions, getFactTableSupplier(name), aggregations,
+                           ImmutableMap.<String, AggregationAlias>of(), 4, 0, 0L, 0L);
+  }
+
+  @Test
+  public void testRecordLimit() throws Exception {
+    Map<String, Aggregation> aggregations = ImmutableMap.of("agg", new DefaultAggregation(ImmutableList.of("dim")));
+    int[] resolutions = new int[] {1};
+    FactTableSupplier supplier = getFactTableSupplier("limitCube");
+    int maxRecords = 7;
+
+    // Two series over 20 seconds are stored in 20 rows, which is more than the limit of records to scan
+    DefaultCube sequentialCube = new DefaultCube(resolutions, supplier, aggregations,
+                                                 ImmutableMap.<String, AggregationAlias>of(), 1, 0, 0L, 0L,
+                                                 maxRecords);
+    for (int ts = 0; ts < 20; ts++) {
+      for (String dim : ImmutableList.of("a", "b")) {
+        sequentialCube.add(new CubeFact(ts).addDimensionValue("dim", dim)
+                             .addMeasurement("metric", MeasureType.COUNTER, ts + 1));
+      }
+    }
+
+    CubeQuery query = CubeQuery.builder()
+      .select()
+        .measurement("metric", AggregationFunction.SUM)
+      .from("agg").resolution(1, TimeUnit.SECONDS)
+      .where()
+        .timeRange(0, 19)
+      .groupBy()
+        .dimension("dim")
+      .limit(Integer.MAX_VALUE)
+      .build();
+
+    Set<TimeSeries> expected = new HashSet<>(sequentialCube.query(query));
+    sequentialCube.close();
+    int timeValues = 0;
+    for (TimeSeries timeSeries : expected) {
+      timeValues += timeSeries.getTimeValues().size();
+    }
+    Assert.assertTrue(timeValues > 0 && timeValues < 40);
+
+    // The concurrent scans must always return the records of the sequential scan
+    for (int i = 0; i < 20; i++) {
+      DefaultCube parallelCube = new DefaultCube(resolutions, supplier, aggregations,
+                                                 ImmutableMap.<String, AggregationAlias>of(), 4, 0, 0L, 0L,
+                                                 maxRecords);
+      try {
+        Assert.assertEquals(expected, new HashSet<>(parallelCube.query(query)));
+      } finally {
+        parallelCube.close();
+      }
+    }
+  }
+
+  private FactTableSupplier getFactTableSupplier(String name) {
+    return (resolution, rollTime) -> {
+      String entityTableName = "EntityTable-" + name;
+      InMemoryTableService.create(entityTableName);
+      String dataTableName = "DataTable-" + name + "-" + resolution;
+      InMemoryTableService.create(dataTableName);
+      // Use a small roll time, so that queries in the tests span multiple time bases and get split
+      return new FactTable(new InMemoryMetricsTable(dataTableName),
+                           new EntityTable(new InMemoryMetricsTable(entityTableName)),
+                           resolution, 2);
+    };
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.Cube;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the {@link AbstractCubeTest} with the query cache of {@link DefaultCube} enabled.
+ */
+public class DefaultCubeQueryCacheTest extends AbstractCubeTest {
+
+  @Override
+  protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
+    FactTableSupplier supplier = (resolution, rollTime) -> {
+      String entityTableName = "EntityTable-" + name;
+      InMemoryTableService.create(entityTableName);
+      String dataTableName = "DataTable-" + name + "-" + resolution;
+      InMemoryTableService.create(dataTableName);
+      return new FactTable(new InMemoryMetricsTable(dataTableName),
+                           new EntityTable(new InMemoryMetricsTable(entityTableName)),
+                           resolution, rollTime);
+    };
+
+    // Timestamps used in the tests are all long in the past, hence all time buckets are completed
+    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of(),
+                           1, 100, 0L, 3600L);
+  }
+
+  @Test
+  public void testCachedQuery() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1"));
+    DefaultCube cube = (DefaultCube) getCube("cachedCube", new int[] {1}, ImmutableMap.of("agg", agg));
+    Map<String, Long> metrics = new HashMap<>();
+    cube.setMetricsCollector(new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        metrics.merge(metricName, value, Long::sum);
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        metrics.put(metricName, value);
+      }
+    });
+
+    writeInc(cube, "metric", 1, 1, "1");
+    writeInc(cube, "metric", 2, 2, "1");
+    writeInc(cube, "metric", 5, 5, "1");
+
+    verifyQuery(cube, 0, 3, timeValues(1, 1, 2, 2));
+    Assert.assertEquals(1L, (long) metrics.get("cube.query.cache.miss.count"));
+
+    // Moving the time range forward only scans the time range not in the cache
+    verifyQuery(cube, 1, 5, timeValues(1, 1, 2, 2, 5, 5));
+    Assert.assertEquals(1L, (long) metrics.get("cube.query.cache.hit.count"));
+
+    // A query with time range covered by the cache
+    verifyQuery(cube, 2, 4, timeValues(2, 2));
+    Assert.assertEquals(2L, (long) metrics.get("cube.query.cache.hit.count"));
+
+    // Adding facts to cached time buckets should invalidate the cached results
+    writeInc(cube, "metric", 2, 3, "1");
+    verifyQuery(cube, 1, 5, timeValues(1, 1, 2, 5, 5, 5));
+    Assert.assertEquals(2L, (long) metrics.get("cube.query.cache.miss.count"));
+
+    // A query with time range starting before the cached range is not served from the cache
+    verifyQuery(cube, 0, 5, timeValues(1, 1, 2, 5, 5, 5));
+    Assert.assertEquals(3L, (long) metrics.get("cube.query.cache.miss.count"));
+  }
+
+  @Test
+  public void testExpiry() {
+    AtomicLong currentTime = new AtomicLong(100);
+    CubeQueryCache cache = new CubeQueryCache(100, 0L, 10L, currentTime::get);
+    CubeQuery query = CubeQuery.builder()
+      .select().measurement("metric", AggregationFunction.SUM)
+      .from("agg").resolution(1, TimeUnit.SECONDS)
+      .where().dimensions(Collections.singletonMap("dim1", "1")).timeRange(0, 50)
+      .limit(1000).build();
+    CubeQueryCache.Key key = new CubeQueryCache.Key("agg", query);
+
+    cache.put(key, 0, 50, HashBasedTable.create(), cache.getGeneration());
+    Assert.assertNotNull(cache.get(key, 0));
+
+    // Cached results expire even if nothing invalidated them, since facts can be added from other processes
+    currentTime.addAndGet(11);
+    Assert.assertNull(cache.get(key, 0));
+  }
+
+  @Test
+  public void testGeneration() {
+    AtomicLong currentTime = new AtomicLong(100);
+    CubeQueryCache cache = new CubeQueryCache(100, 10L, 3600L, currentTime::get);
+    CubeQuery query = CubeQuery.builder()
+      .select().measurement("metric", AggregationFunction.SUM)
+      .from("agg").resolution(1, TimeUnit.SECONDS)
+      .where().dimensions(Collections.singletonMap("dim1", "1")).timeRange(0, 50)
+      .limit(1000).build();
+    CubeQueryCache.Key key = new CubeQueryCache.Key("agg", query);
+
+    // Facts added to time buckets that are not completed yet can't be missing from the result of a running query
+    long generation = cache.getGeneration();
+    cache.invalidate("agg", 95);
+    cache.put(key, 0, 50, HashBasedTable.create(), generation);
+    Assert.assertNotNull(cache.get(key, 0));
+
+    // Facts added to completed time buckets while the query was running may be missing from its result
+    generation = cache.getGeneration();
+    cache.invalidate("agg", 40);
+    cache.put(key, 0, 50, HashBasedTable.create(), generation);
+    Assert.assertNull(cache.get(key, 0));
+
+    // The same for deleted facts
+    generation = cache.getGeneration();
+    cache.invalidateAll();
+    cache.put(key, 0, 50, HashBasedTable.create(), generation);
+    Assert.assertNull(cache.get(key, 0));
+
+    cache.put(key, 0, 50, HashBasedTable.create(), cache.getGeneration());
+    Assert.assertNotNull(cache.get(key, 0));
+  }
+
+  private void verifyQuery(Cube cube, long startTs, long endTs, List<TimeValue> expected) throws Exception {
+    verifyCountQuery(cube, startTs, endTs, 1, "metric", AggregationFunction.SUM,
+                     Collections.singletonMap("dim1", "1"), Collections.emptyList(),
+                     Collections.singletonList(new TimeSeries("metric", Collections.emptyMap(), expected)));
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.cdap.cdap.api.Predicate;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.PartitionNotFoundException;
 import io.cdap.cdap.api.dataset.lib.FileSet;
@@ -184,6 +185,40 @@ public class PartitionedFileSetTest {
     PartitionedFileSetDataset.parseRowKey(rowKey, PARTITIONING_2);
   }
 
+  @Test
+  public void testSeekKey() {
+    // value below the lower bound: seek to the lower bound, keeping the values of preceding fields
+    PartitionFilter filter = PartitionFilter.builder().addRangeCondition("i", 10, 20).build();
+    byte[] seekKey = PartitionedFileSetDataset.generateSeekKey(partitionKey("b", 5, 1L), filter, PARTITIONING_1);
+    Assert.assertTrue(Bytes.compareTo(seekKey, rowKey("b", 9, Long.MAX_VALUE)) > 0);
+    Assert.assertTrue(Bytes.compareTo(seekKey, rowKey("b", 10, Long.MIN_VALUE)) <= 0);
+
+    // value above the upper bound: seek past all partitions with the values of preceding fields
+    seekKey = PartitionedFileSetDataset.generateSeekKey(partitionKey("b", 25, 1L), filter, PARTITIONING_1);
+    Assert.assertTrue(Bytes.compareTo(seekKey, rowKey("b", Integer.MAX_VALUE, Long.MAX_VALUE)) > 0);
+    Assert.assertTrue(Bytes.compareTo(seekKey, rowKey("ba", Integer.MIN_VALUE, Long.MIN_VALUE)) <= 0);
+
+    // value not equal to the single value of a condition on a field after fields without condition
+    filter = PartitionFilter.builder().addValueCondition("l", 5L).build();
+    seekKey = PartitionedFileSetDataset.generateSeekKey(partitionKey("b", 10, 7L), filter, PARTITIONING_1);
+    Assert.assertTrue(Bytes.compareTo(seekKey, rowKey("b", 10, Long.MAX_VALUE)) > 0);
+    Assert.assertTrue(Bytes.compareTo(seekKey, rowKey("b", 11, Long.MIN_VALUE)) <= 0);
+    seekKey = PartitionedFileSetDataset.generateSeekKey(partitionKey("b", 10, 3L), filter, PARTITIONING_1);
+    Assert.assertArrayEquals(rowKey("b", 10, 5L), seekKey);
+
+    // value above the upper bound of the first field: no more partitions can match
+    filter = PartitionFilter.builder().addValueCondition("s", "b").addValueCondition("l", 5L).build();
+    Assert.assertNull(PartitionedFileSetDataset.generateSeekKey(partitionKey("c", 10, 5L), filter, PARTITIONING_1));
+  }
+
+  private static PartitionKey partitionKey(String s, int i, long l) {
+    return PartitionKey.builder().addStringField("s", s).addIntField("i", i).addLongField("l", l).build();
+  }
+
+  private static byte[] rowKey(String s, int i, long l) {
+    return PartitionedFileSetDataset.generateRowKey(partitionKey(s, i, l), PARTITIONING_1);
+  }
+
   @Test
   public void testMetadataForNonexistentPartition() throws Exception {
     PartitionedFileSet pfs = dsFrameworkUtil.getInstance(pfsInstance);
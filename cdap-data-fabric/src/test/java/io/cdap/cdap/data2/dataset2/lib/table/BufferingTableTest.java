@@ -90,6 +90,66 @@ public abstract class BufferingTableTest<T extends BufferingTable> extends Table
     }
   }
 
+  @Test
+  public void testFlushBufferBeforeCommit() throws Exception {
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
+    admin.create();
+    // flush the buffer after every write
+    DatasetProperties props = TableProperties.builder().setBufferFlushThreshold(1L).build();
+    try (BufferingTable myTable1 = getTable(CONTEXT1, MY_TABLE, props)) {
+      Transaction tx1 = txClient.startShort();
+      myTable1.startTx(tx1);
+      myTable1.put(R1, a(C1), a(V1));
+      myTable1.put(R2, a(C2), a(V2));
+      myTable1.delete(R1, a(C1));
+      myTable1.put(R1, a(C2), a(V2));
+      // verify can see flushed changes inside tx
+      TableAssert.assertRow(a(C2, V2), myTable1.get(R1));
+      TableAssert.assertRow(a(C2, V2), myTable1.get(R2, a(C2)));
+      try (Scanner scanner = myTable1.scan(R1, null)) {
+        TableAssert.assertScan(a(R1, R2), aa(a(C2, V2), a(C2, V2)), scanner);
+      }
+      // verify the flushed changes are included in the tx changes
+      Assert.assertEquals(2, myTable1.getTxChanges().size());
+
+      // verify flushed changes are not visible to other transactions
+      Transaction tx2 = txClient.startShort();
+      try (Table myTable2 = getTable(CONTEXT1, MY_TABLE)) {
+        ((TransactionAware) myTable2).startTx(tx2);
+        TableAssert.assertRow(a(), myTable2.get(R1, a(C2)));
+        TableAssert.assertRow(a(), myTable2.get(R2, a(C2)));
+      }
+      txClient.abort(tx2);
+
+      // rolling back should undo the flushed changes
+      Assert.assertTrue(myTable1.rollbackTx());
+      txClient.abort(tx1);
+
+      Transaction tx3 = txClient.startShort();
+      myTable1.startTx(tx3);
+      TableAssert.assertRow(a(), myTable1.get(R1, a(C2)));
+      TableAssert.assertRow(a(), myTable1.get(R2, a(C2)));
+
+      // flushed changes should be visible once committed
+      myTable1.put(R1, a(C1), a(V1));
+      myTable1.put(R2, a(C2), a(V2));
+      txClient.canCommitOrThrow(tx3, myTable1.getTxChanges());
+      Assert.assertTrue(myTable1.commitTx());
+      txClient.commitOrThrow(tx3);
+      myTable1.postTxCommit();
+
+      Transaction tx4 = txClient.startShort();
+      try (Table myTable2 = getTable(CONTEXT1, MY_TABLE)) {
+        ((TransactionAware) myTable2).startTx(tx4);
+        TableAssert.assertRow(a(C1, V1), myTable2.get(R1, a(C1)));
+        TableAssert.assertRow(a(C2, V2), myTable2.get(R2, a(C2)));
+      }
+      txClient.abort(tx4);
+    } finally {
+      admin.drop();
+    }
+  }
+
   /**
    * Tests that writes being buffered in memory by the client are still visible during scans.
    */
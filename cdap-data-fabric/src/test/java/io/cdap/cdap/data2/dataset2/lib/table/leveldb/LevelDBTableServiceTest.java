@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.cdap.cdap.api.common.Bytes;
@@ -37,8 +38,18 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 /**
  *
@@ -110,6 +121,67 @@ public class LevelDBTableServiceTest {
     Assert.assertEquals(table2Size, service.getTableStats().get(tableId2).getDiskSizeBytes());
   }
 
+  @Test
+  public void testConcurrentIncrements() throws Exception {
+    String tableName = "cdap_default.increments";
+    service.ensureTableExists(tableName);
+
+    int threads = 8;
+    int rows = 16;
+    int iterations = 192;
+    byte[] column = Bytes.toBytes("c");
+
+    // Each thread uses its own table core instance, incrementing all rows with both increment methods
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CyclicBarrier barrier = new CyclicBarrier(threads);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+          barrier.await();
+          for (int i = 0; i < iterations; i++) {
+            NavigableMap<byte[], NavigableMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+            for (int row = 0; row < rows; row++) {
+              NavigableMap<byte[], Long> increments = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+              increments.put(column, 1L);
+              updates.put(Bytes.toBytes("row" + row), increments);
+            }
+            table.increment(updates);
+            table.increment(Bytes.toBytes("row" + (i % rows)), Collections.singletonMap(column, 1L));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    for (int row = 0; row < rows; row++) {
+      byte[] value = table.getRow(Bytes.toBytes("row" + row), new byte[][] { column }, null, null, -1, null)
+        .get(column);
+      Assert.assertEquals((long) threads * (iterations + iterations / rows), Bytes.toLong(value));
+    }
+  }
+
+  @Test
+  public void testDropTableReleasesRowLocks() throws Exception {
+    String tableName = "cdap_default.droplocks";
+    service.ensureTableExists(tableName);
+    Striped<Lock> rowLocks = service.getRowLocks(tableName);
+    Assert.assertSame(rowLocks, service.getRowLocks(tableName));
+
+    // Dropping the table removes its row locks, so create and drop cycles don't accumulate them
+    service.dropTable(tableName);
+    service.ensureTableExists(tableName);
+    Assert.assertNotSame(rowLocks, service.getRowLocks(tableName));
+    service.dropTable(tableName);
+  }
+
   private void writeSome(String tableName) throws IOException {
     LevelDBTableCore table = new LevelDBTableCore(tableName, service);
     Random r = new Random();
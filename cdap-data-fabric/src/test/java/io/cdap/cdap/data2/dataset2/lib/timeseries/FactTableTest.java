@@ -38,6 +38,8 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -565,6 +567,66 @@ public class FactTableTest {
     Assert.assertEquals(3, splitsWithRows.size());
   }
 
+  @Test
+  public void testSplitScan() throws Exception {
+    InMemoryTableService.create("splitEntityTable");
+    InMemoryTableService.create("splitDataTable");
+    int resolution = 1;
+    int rollTimebaseInterval = 10;
+
+    FactTable table = new FactTable(new InMemoryMetricsTable("splitDataTable"),
+                                    new EntityTable(new InMemoryMetricsTable("splitEntityTable")),
+                                    resolution, rollTimebaseInterval);
+    for (int ts = 0; ts < 100; ts++) {
+      writeInc(table, "metric1", ts, ts, "dim1", "value1");
+      writeInc(table, "metric1", ts, 1, "dim1", "value2");
+    }
+
+    // A scan within a single time base is not split
+    FactScan scan = new FactScan(11, 19, "metric1", dimValues("dim1", null));
+    Assert.assertEquals(Collections.singletonList(scan), table.split(scan, 4));
+    // Scans are not split if only a single split is allowed
+    scan = new FactScan(0, 99, "metric1", dimValues("dim1", null));
+    Assert.assertEquals(Collections.singletonList(scan), table.split(scan, 1));
+
+    // 10 time bases are split into 4 scans of 3 time bases at most
+    scan = new FactScan(5, 94, "metric1", dimValues("dim1", null));
+    List<FactScan> splits = table.split(scan, 4);
+    Assert.assertEquals(4, splits.size());
+    long expectedStartTs = scan.getStartTs();
+    for (FactScan split : splits) {
+      Assert.assertEquals(expectedStartTs, split.getStartTs());
+      expectedStartTs = split.getEndTs() + 1;
+    }
+    Assert.assertEquals(scan.getEndTs(), splits.get(splits.size() - 1).getEndTs());
+    Assert.assertEquals(29L, splits.get(0).getEndTs());
+
+    // The splits should scan all the facts of the original scan exactly once
+    Map<String, Long> expected = new HashMap<>();
+    Map<String, Long> actual = new HashMap<>();
+    sumScan(table, scan, expected);
+    for (FactScan split : splits) {
+      sumScan(table, split, actual);
+    }
+    Assert.assertEquals(ImmutableMap.of("value1", 4455L, "value2", 90L), expected);
+    Assert.assertEquals(expected, actual);
+  }
+
+  private void sumScan(FactTable table, FactScan scan, Map<String, Long> sums) {
+    FactScanner scanner = table.scan(scan);
+    try {
+      while (scanner.hasNext()) {
+        FactScanResult result = scanner.next();
+        String dimValue = result.getDimensionValues().get(0).getValue();
+        for (TimeValue timeValue : result) {
+          sums.merge(dimValue, timeValue.getValue(), Long::sum);
+        }
+      }
+    } finally {
+      scanner.close();
+    }
+  }
+
   @Test
   public void testCache() throws Exception {
     String tableName = "testCacheTable";
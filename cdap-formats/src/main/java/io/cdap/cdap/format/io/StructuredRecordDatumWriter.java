@@ -28,6 +28,7 @@ import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -308,9 +309,19 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
       throw new IOException("Expected StructuredRecord type. Got: " + record.getClass());
     }
 
+    StructuredRecord structuredRecord = (StructuredRecord) record;
+    List<Schema.Field> fields = recordSchema.getFields();
+
     encodeRecordBegin(encoder, recordSchema);
-    for (Schema.Field field : recordSchema.getFields()) {
-      encodeRecordField(encoder, field, ((StructuredRecord) record).get(field.getName()));
+    if (recordSchema.equals(structuredRecord.getSchema())) {
+      // The record has the same field positions as the schema, hence the values can be read by position
+      for (int i = 0; i < fields.size(); i++) {
+        encodeRecordField(encoder, fields.get(i), structuredRecord.get(i));
+      }
+    } else {
+      for (Schema.Field field : fields) {
+        encodeRecordField(encoder, field, structuredRecord.get(field.getName()));
+      }
     }
     encodeRecordEnd(encoder, recordSchema);
   }
@@ -24,6 +24,10 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
@@ -356,4 +360,46 @@ public class StructuredRecordBuilderTest {
     thrown.expectMessage("Field 'x' is expected to be a decimal");
     record.getDecimal("x");
   }
+
+  @Test
+  public void testPositionalAccess() {
+    Schema schema = Schema.recordOf("test",
+                                    Schema.Field.of("a", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("b", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("c", Schema.of(Schema.Type.LONG)));
+    Assert.assertEquals(1, schema.getFieldIndex("b"));
+    Assert.assertEquals(-1, schema.getFieldIndex("d"));
+
+    StructuredRecord record = StructuredRecord.builder(schema).set(0, 5).set("c", 10L).build();
+    Assert.assertEquals(5, (int) record.get("a"));
+    Assert.assertNull(record.get(1));
+    Assert.assertEquals(10L, (long) record.get(2));
+    Assert.assertEquals(record, StructuredRecord.builder(schema).set("a", 5).set(2, 10L).build());
+  }
+
+  @Test
+  public void testSetInvalidPosition() {
+    Schema schema = Schema.recordOf("test", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    thrown.expect(UnexpectedFormatException.class);
+    thrown.expectMessage("field index 1 is not in the schema.");
+    StructuredRecord.builder(schema).set(1, 5);
+  }
+
+  @Test
+  public void testJavaSerialization() throws Exception {
+    Schema schema = Schema.recordOf("test",
+                                    Schema.Field.of("a", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("b", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    StructuredRecord record = StructuredRecord.builder(schema).set("a", 5).set("b", "value").build();
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(record);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      StructuredRecord deserialized = (StructuredRecord) ois.readObject();
+      Assert.assertEquals(record, deserialized);
+      Assert.assertEquals("value", deserialized.get(1));
+    }
+  }
 }
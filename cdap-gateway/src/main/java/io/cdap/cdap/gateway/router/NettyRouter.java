@@ -18,20 +18,27 @@ package io.cdap.cdap.gateway.router;
 
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.common.ServiceBindException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.conf.SConfiguration;
+import io.cdap.cdap.common.http.NettyTransports;
 import io.cdap.cdap.common.security.HttpsEnabler;
 import io.cdap.cdap.common.security.KeyStores;
 import io.cdap.cdap.gateway.router.handlers.AuditLogHandler;
 import io.cdap.cdap.gateway.router.handlers.AuthenticationHandler;
+import io.cdap.cdap.gateway.router.handlers.BackendConnectionPool;
 import io.cdap.cdap.gateway.router.handlers.HttpRequestRouter;
 import io.cdap.cdap.gateway.router.handlers.HttpStatusRequestHandler;
+import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.security.auth.TokenValidator;
 import io.cdap.cdap.security.auth.UserIdentityExtractor;
 import io.cdap.http.SSLConfig;
@@ -44,9 +51,7 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
 import io.netty.util.concurrent.Future;
@@ -91,6 +96,8 @@ public class NettyRouter extends AbstractIdleService {
   private InetSocketAddress boundAddress;
 
   private DiscoveryServiceClient discoveryServiceClient;
+  private MetricsCollectionService metricsCollectionService;
+  private BackendConnectionPool connectionPool;
   private Cancellable serverCancellable;
 
   @Inject
@@ -115,6 +122,15 @@ public class NettyRouter extends AbstractIdleService {
       : cConf.getInt(Constants.Router.ROUTER_PORT);
   }
 
+  /**
+   * Optional guice injection of the {@link MetricsCollectionService} for emitting metrics of the backend
+   * connection pool.
+   */
+  @Inject(optional = true)
+  void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsCollectionService = metricsCollectionService;
+  }
+
   /**
    * Returns an {@link Optional} {@link InetSocketAddress} that this router is bound to. If the router is not
    * running, an empty {@link Optional} will be returned.
@@ -126,6 +142,7 @@ public class NettyRouter extends AbstractIdleService {
   @Override
   protected void startUp() throws Exception {
     tokenValidator.startAndWait();
+    connectionPool = new BackendConnectionPool(cConf, serviceLookup, createMetricsContext());
     ChannelGroup channelGroup = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
     serverCancellable = startServer(createServerBootstrap(channelGroup), channelGroup);
   }
@@ -135,6 +152,7 @@ public class NettyRouter extends AbstractIdleService {
     boundAddress = null;
     LOG.info("Stopping Netty Router...");
 
+    connectionPool.close();
     serverCancellable.cancel();
     tokenValidator.stopAndWait();
 
@@ -150,9 +168,18 @@ public class NettyRouter extends AbstractIdleService {
     };
   }
 
+  private MetricsContext createMetricsContext() {
+    if (metricsCollectionService == null) {
+      return new NoopMetricsContext();
+    }
+    return metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.COMPONENT, Constants.Service.GATEWAY,
+      Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace()));
+  }
+
   private EventLoopGroup createEventLoopGroup(int size, String nameFormat) {
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat(nameFormat).build();
-    return new NioEventLoopGroup(size, threadFactory);
+    return NettyTransports.createEventLoopGroup(cConf, size, threadFactory);
   }
 
   private ServerBootstrap createServerBootstrap(final ChannelGroup channelGroup) {
@@ -188,8 +215,9 @@ public class NettyRouter extends AbstractIdleService {
     SSLHandlerFactory finalSSLHandlerFactory = sslHandlerFactory;
     return new ServerBootstrap()
       .group(bossGroup, workerGroup)
-      .channel(NioServerSocketChannel.class)
+      .channel(NettyTransports.getServerSocketChannelClass(bossGroup))
       .option(ChannelOption.SO_BACKLOG, serverConnectionBacklog)
+      .childOption(ChannelOption.ALLOCATOR, NettyTransports.getAllocator())
       .childHandler(new ChannelInitializer<SocketChannel>() {
         @Override
         protected void initChannel(SocketChannel ch) {
@@ -211,7 +239,7 @@ public class NettyRouter extends AbstractIdleService {
           // Always let the client to continue sending the request body after the authentication passed
           pipeline.addLast("expect-continue", new HttpServerExpectContinueHandler());
           // for now there's only one hardcoded rule, but if there will be more, we may want it generic and configurable
-          pipeline.addLast("http-request-handler", new HttpRequestRouter(cConf, serviceLookup));
+          pipeline.addLast("http-request-handler", new HttpRequestRouter(serviceLookup, connectionPool));
         }
       });
   }
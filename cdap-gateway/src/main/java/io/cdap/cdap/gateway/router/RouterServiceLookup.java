@@ -28,7 +28,10 @@ import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.common.service.ServiceDiscoverable;
 import io.cdap.cdap.gateway.discovery.VersionFilteredServiceDiscovered;
 import io.netty.handler.codec.http.HttpRequest;
+import org.apache.twill.common.Cancellable;
+import org.apache.twill.common.Threads;
 import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.apache.twill.discovery.ServiceDiscovered;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,6 +92,17 @@ public class RouterServiceLookup {
     }
   }
 
+  /**
+   * Watches for changes of the discoverables of the given service.
+   *
+   * @param serviceName name of the service to watch
+   * @param listener the listener to be called from the discovery thread when there are changes
+   * @return a {@link Cancellable} to stop watching
+   */
+  public Cancellable watchChanges(String serviceName, ServiceDiscovered.ChangeListener listener) {
+    return discoveryServiceClient.discover(serviceName).watchChanges(listener, Threads.SAME_THREAD_EXECUTOR);
+  }
+
   private EndpointStrategy discover(RouteDestination routeDestination) {
     String serviceName = routeDestination.getServiceName();
 
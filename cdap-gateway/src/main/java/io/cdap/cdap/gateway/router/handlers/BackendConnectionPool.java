@@ -0,0 +1,329 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.discovery.URIScheme;
+import io.cdap.cdap.common.http.NettyTransports;
+import io.cdap.cdap.gateway.router.RouterServiceLookup;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.apache.twill.common.Cancellable;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.ServiceDiscovered;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLException;
+
+/**
+ * A pool of keep-alive connections to the internal services, shared by all inbound channels of the router.
+ * There is one {@link ChannelPool} per {@link EventLoop} for each endpoint, so that an outbound channel is always
+ * served by the same thread as the inbound channels that use it. Idle connections are closed by the
+ * {@link OutboundHandler} after {@link Constants.Router#CONNECTION_TIMEOUT_SECS}, and the pools of endpoints
+ * that are no longer discoverable are closed when the discovery of the service changes.
+ *
+ * A pool hands out at most {@link Constants.Router#BACKEND_POOL_MAX_CONNECTIONS} connections at a time. Once they
+ * are all in use, further requests get a new connection that is not pooled, which is closed when it is released.
+ * Requests are never queued waiting for a pooled connection.
+ *
+ * Other than the {@link #close()} method, all methods must be called from the {@link EventLoop} of the inbound
+ * channel.
+ */
+public final class BackendConnectionPool implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BackendConnectionPool.class);
+  private static final AttributeKey<EndpointPool> POOL_KEY = AttributeKey.valueOf(EndpointPool.class.getName());
+
+  private final int idleTimeoutSecs;
+  private final int maxConnections;
+  private final RouterServiceLookup serviceLookup;
+  private final MetricsContext metricsContext;
+  // The inner map is only accessed from the event loop that it belongs to
+  private final ConcurrentMap<EventLoop, Map<Discoverable, EndpointPool>> pools;
+  private final ConcurrentMap<String, Cancellable> discoveryWatches;
+  private volatile SslContext sslContext;
+
+  public BackendConnectionPool(CConfiguration cConf, RouterServiceLookup serviceLookup,
+                               MetricsContext metricsContext) {
+    this.idleTimeoutSecs = cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS);
+    this.maxConnections = cConf.getInt(Constants.Router.BACKEND_POOL_MAX_CONNECTIONS);
+    this.serviceLookup = serviceLookup;
+    this.metricsContext = metricsContext;
+    this.pools = new ConcurrentHashMap<>();
+    this.discoveryWatches = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Acquires a {@link Channel} connected to the given endpoint. A pooled channel is either an idle one from the
+   * pool or a newly connected one, unless the pool is exhausted. A channel that is not pooled is always a newly
+   * connected one, which will be closed when released. Requests that hold the connection for a long time, such as
+   * streaming responses and long polls, should not use a pooled channel. The returned channel must be given back
+   * by the {@link #release(Channel, boolean)} method.
+   *
+   * @param eventLoop the {@link EventLoop} of the inbound channel
+   * @param discoverable the endpoint to connect to
+   * @param pooled {@code true} to acquire a channel from the pool; {@code false} to connect a channel that is not
+   *               pooled
+   * @return a {@link Future} that will be completed when a {@link Channel} is acquired
+   */
+  Future<Channel> acquire(EventLoop eventLoop, Discoverable discoverable, boolean pooled) {
+    EndpointPool pool = pools.computeIfAbsent(eventLoop, k -> new HashMap<>())
+      .computeIfAbsent(discoverable, k -> createPool(eventLoop, discoverable));
+    Future<Channel> future = pooled ? pool.acquire() : pool.connect();
+    future.addListener(f -> {
+      if (!f.isSuccess()) {
+        metricsContext.increment("backend.connection.acquire.failure", 1L);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Releases a {@link Channel} acquired from the {@link #acquire(EventLoop, Discoverable, boolean)} method.
+   *
+   * @param channel the channel to release
+   * @param reusable {@code true} to return the channel to the pool; otherwise the channel will be closed
+   */
+  void release(Channel channel, boolean reusable) {
+    if (!reusable) {
+      channel.close();
+    }
+    EndpointPool pool = channel.attr(POOL_KEY).get();
+    if (pool == null) {
+      channel.close();
+      return;
+    }
+    pool.release(channel);
+  }
+
+  @Override
+  public void close() {
+    discoveryWatches.values().forEach(Cancellable::cancel);
+    discoveryWatches.clear();
+
+    for (Map.Entry<EventLoop, Map<Discoverable, EndpointPool>> entry : pools.entrySet()) {
+      if (entry.getKey().isShuttingDown()) {
+        continue;
+      }
+      entry.getKey().execute(() -> {
+        entry.getValue().values().forEach(EndpointPool::close);
+        entry.getValue().clear();
+      });
+    }
+  }
+
+  /**
+   * Closes the pools of the endpoints of the given service that are no longer available.
+   */
+  private void discoveryChanged(ServiceDiscovered serviceDiscovered) {
+    for (Map.Entry<EventLoop, Map<Discoverable, EndpointPool>> entry : pools.entrySet()) {
+      if (entry.getKey().isShuttingDown()) {
+        continue;
+      }
+      entry.getKey().execute(() -> {
+        Iterator<Map.Entry<Discoverable, EndpointPool>> iterator = entry.getValue().entrySet().iterator();
+        while (iterator.hasNext()) {
+          Map.Entry<Discoverable, EndpointPool> poolEntry = iterator.next();
+          Discoverable discoverable = poolEntry.getKey();
+          if (discoverable.getName().equals(serviceDiscovered.getName()) && !serviceDiscovered.contains(discoverable)) {
+            LOG.debug("Closing connection pool for {} as it is no longer discoverable", discoverable);
+            iterator.remove();
+            poolEntry.getValue().close();
+          }
+        }
+      });
+    }
+  }
+
+  private EndpointPool createPool(EventLoop eventLoop, Discoverable discoverable) {
+    // Watch for discovery changes to close pools of endpoints that are gone
+    discoveryWatches.computeIfAbsent(discoverable.getName(),
+                                     name -> serviceLookup.watchChanges(name, this::discoveryChanged));
+
+    // The Bootstrap must use the same EventLoop as the inbound channel to make
+    // sure thread safety between the inbound and outbound channels callbacks.
+    Bootstrap bootstrap = new Bootstrap()
+      .group(eventLoop)
+      .channel(NettyTransports.getSocketChannelClass(eventLoop))
+      .option(ChannelOption.SO_KEEPALIVE, true)
+      .option(ChannelOption.ALLOCATOR, NettyTransports.getAllocator())
+      .remoteAddress(discoverable.getSocketAddress());
+
+    LOG.trace("Created connection pool for {} on {}", discoverable, eventLoop);
+    return new EndpointPool(eventLoop, discoverable, bootstrap);
+  }
+
+  /**
+   * Initializes the pipeline of a newly connected {@link Channel}.
+   */
+  private void initChannel(Channel ch, Discoverable discoverable) throws SSLException {
+    ch.closeFuture().addListener(f -> metricsContext.increment("backend.connection.closed", 1L));
+
+    ChannelPipeline pipeline = ch.pipeline();
+    SslHandler sslHandler = getSslHandler(discoverable, ch.alloc());
+    if (sslHandler != null) {
+      pipeline.addLast("ssl", sslHandler);
+    }
+    pipeline.addLast("idle-state-handler", new IdleStateHandler(0, 0, idleTimeoutSecs));
+    pipeline.addLast("codec", new HttpClientCodec());
+    pipeline.addLast("forwarder", new OutboundHandler());
+    metricsContext.increment("backend.connection.created", 1L);
+  }
+
+  /**
+   * Returns the {@link SslHandler} to be used for a given discoverable endpoint
+   *
+   * @param discoverable the endpoint to connect to
+   * @return the {@link SslHandler} or {@code null} if SSL is not needed
+   */
+  @Nullable
+  private SslHandler getSslHandler(Discoverable discoverable, ByteBufAllocator alloc) throws SSLException {
+    if (!URIScheme.HTTPS.isMatch(discoverable)) {
+      return null;
+    }
+    SslContext context = sslContext;
+    if (context != null) {
+      return context.newHandler(alloc);
+    }
+    synchronized (this) {
+      context = sslContext;
+      if (context == null) {
+        sslContext = context = SslContextBuilder.forClient()
+                                                .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+      }
+      return context.newHandler(alloc);
+    }
+  }
+
+  /**
+   * The connections to one endpoint from one {@link EventLoop}. It is only accessed from that {@link EventLoop}.
+   */
+  private final class EndpointPool {
+
+    private final EventLoop eventLoop;
+    private final Discoverable discoverable;
+    private final Bootstrap bootstrap;
+    private final ChannelPool channelPool;
+    // Number of pooled channels that are currently acquired
+    private int acquired;
+
+    EndpointPool(EventLoop eventLoop, Discoverable discoverable, Bootstrap bootstrap) {
+      this.eventLoop = eventLoop;
+      this.discoverable = discoverable;
+      this.bootstrap = bootstrap;
+      this.channelPool = new SimpleChannelPool(bootstrap, new ChannelPoolHandler() {
+        @Override
+        public void channelCreated(Channel ch) throws Exception {
+          ch.attr(POOL_KEY).set(EndpointPool.this);
+          initChannel(ch, discoverable);
+        }
+
+        @Override
+        public void channelAcquired(Channel ch) {
+          metricsContext.increment("backend.connection.acquired", 1L);
+        }
+
+        @Override
+        public void channelReleased(Channel ch) {
+          metricsContext.increment("backend.connection.released", 1L);
+        }
+      }, ChannelHealthChecker.ACTIVE, true, true);
+    }
+
+    /**
+     * Acquires a channel from the pool, or connects a channel that is not pooled if the pool is exhausted.
+     */
+    Future<Channel> acquire() {
+      if (acquired >= maxConnections) {
+        metricsContext.increment("backend.connection.pool.exhausted", 1L);
+        return connect();
+      }
+      acquired++;
+      Future<Channel> future = channelPool.acquire();
+      future.addListener(f -> {
+        if (!f.isSuccess()) {
+          acquired--;
+        }
+      });
+      return future;
+    }
+
+    /**
+     * Connects a new channel that is not pooled.
+     */
+    Future<Channel> connect() {
+      Promise<Channel> promise = eventLoop.newPromise();
+      bootstrap.clone().handler(new ChannelInitializer<Channel>() {
+        @Override
+        protected void initChannel(Channel ch) throws Exception {
+          BackendConnectionPool.this.initChannel(ch, discoverable);
+        }
+      }).connect().addListener((ChannelFuture f) -> {
+        if (f.isSuccess()) {
+          metricsContext.increment("backend.connection.unpooled", 1L);
+          promise.setSuccess(f.channel());
+        } else {
+          promise.setFailure(f.cause());
+        }
+      });
+      return promise;
+    }
+
+    void release(Channel channel) {
+      acquired--;
+      channelPool.release(channel).addListener(f -> {
+        // The release fails if the pool was already closed
+        if (!f.isSuccess()) {
+          channel.close();
+        }
+      });
+    }
+
+    void close() {
+      channelPool.close();
+    }
+  }
+}
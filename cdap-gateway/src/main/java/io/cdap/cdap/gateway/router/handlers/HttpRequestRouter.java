@@ -17,40 +17,25 @@
 package io.cdap.cdap.gateway.router.handlers;
 
 import io.cdap.cdap.common.HandlerException;
-import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
-import io.cdap.cdap.common.discovery.URIScheme;
-import io.cdap.cdap.common.http.Channels;
 import io.cdap.cdap.gateway.router.RouterServiceLookup;
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.ssl.SslContext;
-import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.ssl.SslHandler;
-import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
-import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.util.ReferenceCountUtil;
 import org.apache.twill.discovery.Discoverable;
 import org.slf4j.Logger;
@@ -60,13 +45,9 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
-import javax.annotation.Nullable;
-import javax.net.ssl.SSLException;
 
 /**
  * A {@link ChannelInboundHandler} for forwarding incoming request to appropriate CDAP service endpoint
@@ -76,18 +57,17 @@ import javax.net.ssl.SSLException;
 public class HttpRequestRouter extends ChannelDuplexHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(HttpRequestRouter.class);
+  private static final String EVENT_STREAM = "text/event-stream";
 
-  private final CConfiguration cConf;
   private final RouterServiceLookup serviceLookup;
-  private final Map<Discoverable, Queue<MessageSender>> messageSenders;
+  private final BackendConnectionPool connectionPool;
   private int inflightRequests;
   private MessageSender currentMessageSender;
   private ChannelFutureListener failureResponseListener;
 
-  public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup) {
-    this.cConf = cConf;
+  public HttpRequestRouter(RouterServiceLookup serviceLookup, BackendConnectionPool connectionPool) {
     this.serviceLookup = serviceLookup;
-    this.messageSenders = new HashMap<>();
+    this.connectionPool = connectionPool;
   }
 
   @Override
@@ -129,9 +109,10 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           }
         };
 
-        currentMessageSender = getMessageSender(
-          inboundChannel, getDiscoverable(request)
-        );
+        // Each request acquires a connection from the pool, which is released when the response is completed.
+        // Long lived requests use a connection of their own, so that they don't hold pooled connections.
+        currentMessageSender = new MessageSender(connectionPool, inboundChannel, getDiscoverable(request),
+                                                 !isLongLived(request));
       }
 
       if (inflightRequests == 1 && currentMessageSender != null) {
@@ -162,9 +143,9 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       }
       inflightRequests = 0;
 
-      // Recycle the message sender
+      // Release the outbound connection back to the pool
       if (currentMessageSender != null) {
-        messageSenders.get(currentMessageSender.getDiscoverable()).add(currentMessageSender);
+        currentMessageSender.release();
       }
     }
   }
@@ -183,11 +164,6 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     if (currentMessageSender != null) {
       currentMessageSender.close();
     }
-    for (Map.Entry<Discoverable, Queue<MessageSender>> entry : messageSenders.entrySet()) {
-      for (MessageSender sender : entry.getValue()) {
-        sender.close();
-      }
-    }
     ctx.fireChannelInactive();
   }
 
@@ -234,25 +210,18 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   }
 
   /**
-   * Returns the {@link MessageSender} for writing messages to the endpoint represented by the given
-   * {@link Discoverable}.
+   * Returns whether the response of the given request can take a long time to complete, which is the case for
+   * server-sent events, downloads and long polls.
    */
-  private MessageSender getMessageSender(Channel inboundChannel,
-                                         Discoverable discoverable) {
-    Queue<MessageSender> senders = messageSenders.computeIfAbsent(discoverable, k -> new LinkedList<>());
-
-    MessageSender sender = senders.poll();
-
-    // Found a MessageSender to reuse, return it
-    if (sender != null) {
-      LOG.trace("Reuse message sender for {}", discoverable);
-      return sender;
+  private boolean isLongLived(HttpRequest request) {
+    String accept = request.headers().get(HttpHeaderNames.ACCEPT);
+    if (accept != null && accept.contains(EVENT_STREAM)) {
+      return true;
     }
-
-    // Create new MessageSender
-    sender = new MessageSender(cConf, inboundChannel, discoverable);
-    LOG.trace("Create new message sender for {}", discoverable);
-    return sender;
+    QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+    String path = decoder.path();
+    return path.endsWith("/logs/tail") || path.endsWith("/download")
+      || (path.endsWith("/poll") && decoder.parameters().containsKey("timeout"));
   }
 
   private String getRequestLine(HttpRequest request) {
@@ -277,55 +246,61 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   }
 
   /**
-   * For sending messages to outbound channel while maintaining the order of messages according to
-   * the order that {@link #send(Object, ChannelFutureListener)} method is called.
+   * For sending messages of a request to an outbound channel acquired from the {@link BackendConnectionPool},
+   * while maintaining the order of messages according to the order that
+   * {@link #send(Object, ChannelFutureListener)} method is called.
    */
   private static final class MessageSender implements Flushable, Closeable {
 
-    private final Discoverable discoverable;
+    private final BackendConnectionPool connectionPool;
+    private final Channel inboundChannel;
     private final Queue<OutboundMessage> pendingMessages;
-    private final Bootstrap clientBootstrap;
-    private volatile SslContext sslContext;
     private Channel outboundChannel;
+    private Throwable acquireFailure;
+    private boolean requestCompleted;
+    private boolean released;
     private boolean closed;
-    private boolean connecting;
 
-    private MessageSender(final CConfiguration cConf, final Channel inboundChannel, final Discoverable discoverable) {
-      this.discoverable = discoverable;
+    private MessageSender(BackendConnectionPool connectionPool, Channel inboundChannel, Discoverable discoverable,
+                          boolean pooled) {
+      this.connectionPool = connectionPool;
+      this.inboundChannel = inboundChannel;
       this.pendingMessages = new LinkedList<>();
 
-      // A channel listener for resetting the state of this message sender on closing of outbound channel
-      final ChannelFutureListener onCloseResetListener = new ChannelFutureListener() {
-        @Override
-        public void operationComplete(ChannelFuture future) {
-          outboundChannel = null;
-          connecting = false;
+      LOG.trace("Acquire {} connection for {}", pooled ? "pooled" : "unpooled", discoverable);
+      // The acquire is always called from the event loop of the inbound channel,
+      // hence the listener can be called immediately if there is an idle connection in the pool.
+      connectionPool.acquire(inboundChannel.eventLoop(), discoverable, pooled).addListener(future -> {
+        if (!future.isSuccess()) {
+          acquireFailure = future.cause();
+          OutboundMessage message = pendingMessages.poll();
+          while (message != null) {
+            message.fail(inboundChannel, acquireFailure);
+            message = pendingMessages.poll();
+          }
+          return;
         }
-      };
 
-      // Create a client Bootstrap for connecting to internal services
-      // It must be create using the same EventLoopGroup as the inbound channel to make
-      // sure thread safety between the inbound and outbound channels callbacks.
-      this.clientBootstrap = new Bootstrap()
-        .group(inboundChannel.eventLoop())
-        .channel(NioSocketChannel.class)
-        .option(ChannelOption.SO_KEEPALIVE, true)
-        .handler(new ChannelInitializer<SocketChannel>() {
-          @Override
-          protected void initChannel(SocketChannel ch) throws Exception {
-            ch.closeFuture().addListener(onCloseResetListener);
-            ChannelPipeline pipeline = ch.pipeline();
+        Channel channel = (Channel) future.getNow();
+        // If this sender is closed (because inbound channel is closed), just give back the outbound channel
+        if (closed) {
+          released = true;
+          connectionPool.release(channel, false);
+          return;
+        }
 
-            SslHandler sslHandler = getSslHandler(discoverable, ch.alloc());
-            if (sslHandler != null) {
-              pipeline.addLast("ssl", sslHandler);
-            }
-            pipeline.addLast("idle-state-handler",
-                             new IdleStateHandler(0, 0, cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS)));
-            pipeline.addLast("codec", new HttpClientCodec());
-            pipeline.addLast("forwarder", new OutboundHandler(inboundChannel));
-          }
-        });
+        outboundChannel = channel;
+        OutboundHandler outboundHandler = channel.pipeline().get(OutboundHandler.class);
+        if (outboundHandler != null) {
+          outboundHandler.setInboundChannel(inboundChannel);
+        }
+        OutboundMessage message = pendingMessages.poll();
+        while (message != null) {
+          write(message.message, message.writeCompletedListener);
+          message = pendingMessages.poll();
+        }
+        flush();
+      });
     }
 
     /**
@@ -334,112 +309,75 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
      * @param msg the message to be sent
      * @param writeCompletedListener a {@link ChannelFutureListener} to be notified when the write completed
      */
-    void send(Object msg, ChannelFutureListener writeCompletedListener) {
+    void send(Object msg, ChannelFutureListener writeCompletedListener) throws Exception {
       if (outboundChannel != null) {
-        outboundChannel.write(msg).addListener(writeCompletedListener);
+        write(msg, writeCompletedListener);
         return;
       }
-
-      // If not yet connected or still connecting, just add the message to the pending queue
-      pendingMessages.add(new OutboundMessage(msg, writeCompletedListener));
-
-      // If connecting, we can just return. When the connection completed, it will send all messages in the queue.
-      if (connecting) {
+      if (acquireFailure != null) {
+        new OutboundMessage(msg, writeCompletedListener).fail(inboundChannel, acquireFailure);
+        return;
+      }
+      if (closed) {
+        new OutboundMessage(msg, writeCompletedListener).fail(inboundChannel, new ClosedChannelException());
         return;
       }
 
-      // Make a new connection
-      ChannelFuture connectFuture = clientBootstrap.connect(discoverable.getSocketAddress());
-      connectFuture.addListener(new ChannelFutureListener() {
-        @Override
-        public void operationComplete(ChannelFuture future) throws Exception {
-          // Always remember the outbound channel even if the connection fail.
-          // This make sure any message received before the inbound channel is closed will not get forwarded
-          outboundChannel = future.channel();
-          connecting = false;
-
-          if (future.isSuccess()) {
-            // If this sender is closed (because inbound channel is closed), just close the outbound channel
-            if (closed) {
-              Channels.closeOnFlush(outboundChannel);
-            }
-          }
-          OutboundMessage message = pendingMessages.poll();
-          while (message != null) {
-            processMessage(message, future);
-            message = pendingMessages.poll();
-          }
-          if (future.isSuccess()) {
-            flush();
-          }
-        }
-      });
-
-      connecting = true;
+      // If the connection is not yet acquired, just add the message to the pending queue.
+      // When the connection is acquired, it will send all messages in the queue.
+      pendingMessages.add(new OutboundMessage(msg, writeCompletedListener));
     }
 
     @Override
     public void flush() {
-      if (outboundChannel != null && !closed) {
+      if (outboundChannel != null && !released) {
         outboundChannel.flush();
       }
     }
 
-    @Override
-    public void close() {
-      if (!closed) {
-        closed = true;
-        if (outboundChannel != null) {
-          Channels.closeOnFlush(outboundChannel);
-        }
-      }
-    }
-
-    Discoverable getDiscoverable() {
-      return discoverable;
-    }
-
     /**
-     * Returns the {@link SslContext} to be used for a given discoverable endpoint
-     *
-     * @param discoverable the endpoint to connect to
-     * @return the {@link SslContext} or {@code null} if SSL is not needed
+     * Releases the outbound channel back to the {@link BackendConnectionPool} after the response is completed.
+     * The outbound channel is only reusable if both the request and the response are completed with keep-alive.
      */
-    @Nullable
-    private SslHandler getSslHandler(Discoverable discoverable, ByteBufAllocator alloc) throws SSLException {
-      if (!URIScheme.HTTPS.isMatch(discoverable)) {
-        return null;
+    void release() {
+      if (outboundChannel == null || released) {
+        return;
       }
-      SslContext context = sslContext;
-      if (context != null) {
-        return context.newHandler(alloc);
+      released = true;
+      OutboundHandler outboundHandler = outboundChannel.pipeline().get(OutboundHandler.class);
+      boolean reusable = requestCompleted && outboundHandler != null && outboundHandler.isReusable();
+      if (outboundHandler != null) {
+        outboundHandler.setInboundChannel(null);
       }
-      synchronized (this) {
-        context = sslContext;
-        if (context == null) {
-          sslContext = context = SslContextBuilder.forClient()
-                                                  .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+      connectionPool.release(outboundChannel, reusable);
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (outboundChannel != null && !released) {
+        released = true;
+        OutboundHandler outboundHandler = outboundChannel.pipeline().get(OutboundHandler.class);
+        if (outboundHandler != null) {
+          outboundHandler.setInboundChannel(null);
         }
-        return context.newHandler(alloc);
+        connectionPool.release(outboundChannel, false);
       }
     }
 
-    /**
-     * Process the message by sending to the given channel or have a failure call to the message callback,
-     * depending on the state of this sender.
-     */
-    private void processMessage(OutboundMessage message, ChannelFuture channelFuture) throws Exception {
-      Channel channel = channelFuture.channel();
-
-      if (closed) {
-        message.writeCompletedListener.operationComplete(channel.newFailedFuture(new ClosedChannelException()));
+    private void write(Object msg, ChannelFutureListener writeCompletedListener) {
+      // Messages that are received after the response completed have nowhere to go
+      if (released) {
+        ReferenceCountUtil.release(msg);
         return;
       }
-      if (channelFuture.isSuccess()) {
-        message.write(channelFuture.channel());
-      } else {
-        message.writeCompletedListener.operationComplete(channelFuture);
+      if (msg instanceof LastHttpContent) {
+        requestCompleted = true;
       }
+      outboundChannel.write(msg).addListener(writeCompletedListener);
     }
   }
 
@@ -455,8 +393,9 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       this.writeCompletedListener = writeCompletedListener;
     }
 
-    void write(Channel channel) {
-      channel.write(message).addListener(writeCompletedListener);
+    void fail(Channel channel, Throwable cause) throws Exception {
+      ReferenceCountUtil.release(message);
+      writeCompletedListener.operationComplete(channel.newFailedFuture(cause));
     }
   }
 }
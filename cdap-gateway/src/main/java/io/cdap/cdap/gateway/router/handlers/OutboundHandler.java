@@ -27,42 +27,74 @@ import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 /**
  * A {@link ChannelDuplexHandler} for forwarding requests/responses between the router and the internal service.
  * It also handle idle state event for closing idled internal connections.
+ * Since the internal connections are pooled by the {@link BackendConnectionPool}, the inbound channel is only set
+ * while the internal connection is being used by a request.
  */
 public class OutboundHandler extends ChannelDuplexHandler {
   private static final Logger LOG = LoggerFactory.getLogger(OutboundHandler.class);
 
-  private final Channel inboundChannel;
+  private Channel inboundChannel;
   private boolean requestInProgress;
   private boolean keepAlive;
 
-  public OutboundHandler(Channel inboundChannel) {
+  /**
+   * Sets the inbound channel that responses are forwarded to, or {@code null} when the connection is idle.
+   */
+  void setInboundChannel(@Nullable Channel inboundChannel) {
     this.inboundChannel = inboundChannel;
   }
 
+  /**
+   * Returns {@code true} if the last request/response has completed and the connection can be reused.
+   */
+  boolean isReusable() {
+    return !requestInProgress && keepAlive;
+  }
+
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-    // One receiving messages from the internal service, forward it to the inbound channel
-    inboundChannel.write(msg);
+    Channel inboundChannel = this.inboundChannel;
+    if (inboundChannel == null) {
+      // Nothing should be received on an idle connection
+      LOG.trace("Ignore message received on idle channel {}", ctx.channel());
+      ReferenceCountUtil.release(msg);
+      return;
+    }
 
     if (msg instanceof HttpResponse) {
       keepAlive = HttpUtil.isKeepAlive((HttpResponse) msg);
     }
 
-    // A response is completed by receiving the last http content
-    if (msg instanceof LastHttpContent) {
+    // A response is completed by receiving the last http content.
+    // This must be updated before forwarding, since writing the last content releases this connection.
+    boolean lastContent = msg instanceof LastHttpContent;
+    if (lastContent) {
       requestInProgress = false;
     }
+
+    // One receiving messages from the internal service, forward it to the inbound channel
+    inboundChannel.write(msg);
+
+    // Close the inbound channel if the last response has keep-alive == false
+    if (lastContent && !keepAlive) {
+      Channels.closeOnFlush(inboundChannel);
+    }
   }
 
   @Override
   public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-    inboundChannel.flush();
+    if (inboundChannel != null) {
+      inboundChannel.flush();
+    }
   }
 
   @Override
@@ -77,7 +109,8 @@ public class OutboundHandler extends ChannelDuplexHandler {
 
   @Override
   public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
-    if (requestInProgress) {
+    Channel inboundChannel = this.inboundChannel;
+    if (requestInProgress && inboundChannel != null) {
       final Channel channel = ctx.channel();
       ctx.executor().execute(() -> {
         // If outboundChannel is not saturated anymore, continue accepting
@@ -98,7 +131,7 @@ public class OutboundHandler extends ChannelDuplexHandler {
   @Override
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
     // Close the inbound channel if there is request in progress, or the last request/response has keep-alive == false
-    if (requestInProgress || !keepAlive) {
+    if (inboundChannel != null && (requestInProgress || !keepAlive)) {
       Channels.closeOnFlush(inboundChannel);
     }
     ctx.fireChannelInactive();
@@ -123,6 +123,8 @@ public class LogHttpHandlerTest {
     CConfiguration cConf = CConfiguration.create();
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
     cConf.set(Constants.LogQuery.ADDRESS, InetAddress.getLoopbackAddress().getHostAddress());
+    cConf.setLong(Constants.LogQuery.TAIL_POLL_INTERVAL_MS, 10L);
+    cConf.setLong(Constants.LogQuery.TAIL_BATCH_INTERVAL_MS, 10L);
 
     Injector injector = Guice.createInjector(Modules.override(
       new ConfigModule(cConf),
@@ -228,6 +230,45 @@ public class LogHttpHandlerTest {
                   ImmutableList.of("logLevel", "lineNumber"));
   }
 
+  @Test
+  public void testMapReduceTail() throws Exception {
+    ProgramId programId = MockLogReader.TEST_NAMESPACE_ID.app("testTemplate1").mr("testMapReduce1");
+    RunRecord runRecord = mockLogReader.getRunRecord(programId);
+    Assert.assertTrue(runRecord.getStatus().isEndState());
+
+    // Tailing a completed run streams the last events and then ends the response
+    String tailUrl = String.format("apps/testTemplate1/mapreduce/testMapReduce1/runs/%s/logs/tail?max=100",
+                                   runRecord.getPid());
+    HttpResponse response = doGet(getVersionedAPIPath(tailUrl, MockLogReader.TEST_NAMESPACE));
+    Assert.assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+    List<String> ids = new ArrayList<>();
+    List<LogDataOffset> events = new ArrayList<>();
+    parseServerSentEvents(response.getResponseBodyAsString(), ids, events);
+    Assert.assertEquals(20, events.size());
+    Assert.assertEquals(20, ids.size());
+    for (LogDataOffset event : events) {
+      Assert.assertTrue(event.getLog().getMessage().contains("testMapReduce1"));
+    }
+
+    // Resume tailing from the offset of an event received
+    String resumeUrl = String.format("apps/testTemplate1/mapreduce/testMapReduce1/runs/%s/logs/tail?fromOffset=%s",
+                                     runRecord.getPid(), ids.get(9));
+    response = doGet(getVersionedAPIPath(resumeUrl, MockLogReader.TEST_NAMESPACE));
+    List<String> resumedIds = new ArrayList<>();
+    parseServerSentEvents(response.getResponseBodyAsString(), resumedIds, new ArrayList<>());
+    Assert.assertEquals(ids.subList(10, 20), resumedIds);
+  }
+
+  private void parseServerSentEvents(String body, List<String> ids, List<LogDataOffset> events) {
+    for (String line : Splitter.on('\n').split(body)) {
+      if (line.startsWith("id: ")) {
+        ids.add(line.substring("id: ".length()));
+      } else if (line.startsWith("data: ")) {
+        events.add(GSON.fromJson(line.substring("data: ".length()), LogDataOffset.class));
+      }
+    }
+  }
+
   @Test
   public void testWorkerPrev() throws Exception {
     testPrev("testApp1", "workers", "testWorker1", MockLogReader.TEST_NAMESPACE);
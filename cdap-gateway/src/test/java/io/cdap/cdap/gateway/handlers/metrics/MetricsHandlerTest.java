@@ -25,6 +25,7 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
 import io.cdap.cdap.api.metrics.MetricDeleteQuery;
+import io.cdap.cdap.api.metrics.MetricDistribution;
 import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.Metrics;
@@ -943,6 +944,49 @@ public class MetricsHandlerTest extends MetricsSuiteTestBase {
     validateAggregationOptionSum(bodyResult.get("qid"), 10, 720, 1);
   }
 
+  @Test
+  public void testDistribution() throws Exception {
+    Map<String, String> tags = getServiceContext("distribution", "test", "test", "run1", "distribution");
+
+    // 90 values of 10 and 10 values of 1000, emitted as bucket counts with the bucket as a tag
+    List<MetricValues> metricValues = new ArrayList<>();
+    for (long value : ImmutableList.of(10L, 1000L)) {
+      Map<String, String> bucketTags = new HashMap<>(tags);
+      bucketTags.put(Constants.Metrics.Tag.BUCKET, Integer.toString(MetricDistribution.getBucket(value)));
+      metricValues.add(new MetricValues(bucketTags, "latency", 10, value == 10L ? 90 : 10, MetricType.COUNTER));
+    }
+    metricStore.add(metricValues);
+
+    String tagsQuery = getTags("distribution", "test", "test", "distribution");
+    // the metric itself is the number of values added to the distribution
+    verifyAggregateQueryResult("/v3/metrics/query?" + tagsQuery + "&metric=system.latency", 100L);
+
+    MetricQueryResult result = post("/v3/metrics/query?" + tagsQuery
+                                      + "&metric=system.latency&percentiles=50,99", MetricQueryResult.class);
+    Map<String, Long> values = new HashMap<>();
+    for (MetricQueryResult.TimeSeries series : result.getSeries()) {
+      Assert.assertEquals(1, series.getData().length);
+      values.put(series.getMetricName(), series.getData()[0].getValue());
+    }
+    Assert.assertEquals(ImmutableMap.of("system.latency", 100L,
+                                        "system.latency.p50", MetricDistribution.getBucketValue(
+                                          MetricDistribution.getBucket(10L)),
+                                        "system.latency.p99", MetricDistribution.getBucketValue(
+                                          MetricDistribution.getBucket(1000L))), values);
+
+    // percentiles are only computed from the values in the query time range
+    result = post("/v3/metrics/query?" + tagsQuery + "&metric=system.latency&percentiles=50&start=20&end=30",
+                  MetricQueryResult.class);
+    for (MetricQueryResult.TimeSeries series : result.getSeries()) {
+      Assert.assertNotEquals("system.latency.p50", series.getMetricName());
+    }
+
+    // the bucket tag is not exposed
+    for (Map<String, String> tag : getMetricsResults("/v3/metrics/search?target=tag&" + tagsQuery)) {
+      Assert.assertNotEquals(Constants.Metrics.Tag.BUCKET, tag.get("name"));
+    }
+  }
+
   private void validateAggregationOptionSum(MetricQueryResult result, int numPoints,
                                             int expectedSum, int resolution) throws Exception {
     MetricQueryResult.TimeSeries[] series = result.getSeries();
@@ -86,6 +86,7 @@ public class NettyRouterHttpsTest extends NettyRouterTestBase {
     cConf.setBoolean(Constants.Security.SSL.EXTERNAL_ENABLED, true);
     cConf.setInt(Constants.Router.ROUTER_PORT, 0);
     cConf.setInt(Constants.Router.CONNECTION_TIMEOUT_SECS, CONNECTION_IDLE_TIMEOUT_SECS);
+    cConf.setInt(Constants.Router.BACKEND_POOL_MAX_CONNECTIONS, BACKEND_POOL_MAX_CONNECTIONS);
 
     String keyStorePass = sConf.get(Constants.Security.Router.SSL_KEYSTORE_PASSWORD);
     KeyStore keyStore = KeyStores.generatedCertKeyStore(1, keyStorePass);
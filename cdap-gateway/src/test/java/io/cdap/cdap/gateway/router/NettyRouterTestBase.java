@@ -32,10 +32,12 @@ import com.ning.http.client.Request;
 import com.ning.http.client.RequestBuilder;
 import com.ning.http.client.Response;
 import com.ning.http.client.providers.netty.NettyAsyncHttpProvider;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.common.discovery.ResolvingDiscoverable;
 import io.cdap.cdap.common.http.AbstractBodyConsumer;
+import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyConsumer;
 import io.cdap.http.ChannelPipelineModifier;
@@ -89,8 +91,12 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -110,6 +116,7 @@ public abstract class NettyRouterTestBase {
   public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
   static final int CONNECTION_IDLE_TIMEOUT_SECS = 2;
+  static final int BACKEND_POOL_MAX_CONNECTIONS = 1;
   private static final Logger LOG = LoggerFactory.getLogger(NettyRouterTestBase.class);
 
   private static final String HOSTNAME = InetAddress.getLoopbackAddress().getHostAddress();
@@ -354,13 +361,98 @@ public abstract class NettyRouterTestBase {
     Assert.assertEquals(1, defaultServer1.getNumConnectionsClosed());
   }
 
+  @Test
+  public void testConnectionReuseAcrossClients() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    // Each router worker thread has its own pool of connections to the server. Make more sequential client
+    // connections than there are worker threads, which should reuse the server side connections.
+    int workerThreads = CConfiguration.create().getInt(Constants.Router.SERVER_WORKER_THREADS);
+    int times = workerThreads * 2 + 1;
+    URI uri = new URI(resolveURI("/v2/ping"));
+    for (int i = 0; i < times; i++) {
+      try (Socket socket = getSocketFactory().createSocket(uri.getHost(), uri.getPort())) {
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        Assert.assertEquals("HTTP/1.1 200 OK", makeRequest(uri, out, socket.getInputStream()));
+      }
+    }
+
+    Assert.assertEquals(times, defaultServer1.getNumRequests());
+    Assert.assertTrue(defaultServer1.getNumConnectionsOpened() <= workerThreads);
+  }
+
+  @Test
+  public void testMoreRequestsThanPooledConnections() throws Exception {
+    // Each router worker thread has its own pool of connections to each server. Hold more requests open than
+    // there can be pooled connections in total, which must all reach the servers without waiting for each other.
+    int workerThreads = CConfiguration.create().getInt(Constants.Router.SERVER_WORKER_THREADS);
+    int requests = workerThreads * BACKEND_POOL_MAX_CONNECTIONS * allServers.size() + 1;
+    URI uri = new URI(resolveURI("/v1/hold"));
+    List<Socket> sockets = new ArrayList<>();
+    try {
+      for (int i = 0; i < requests; i++) {
+        Socket socket = getSocketFactory().createSocket(uri.getHost(), uri.getPort());
+        sockets.add(socket);
+        sendRequest(uri, new PrintWriter(socket.getOutputStream(), true), Collections.emptyMap());
+      }
+      Tasks.waitFor(requests, () -> defaultServer1.getNumRequests() + defaultServer2.getNumRequests(),
+                    10, TimeUnit.SECONDS);
+
+      defaultServer1.releaseHeldRequests();
+      defaultServer2.releaseHeldRequests();
+      for (Socket socket : sockets) {
+        Assert.assertEquals("HTTP/1.1 200 OK", readResponse(socket.getInputStream()));
+      }
+    } finally {
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+    }
+  }
+
+  @Test
+  public void testStreamingRequestNotPooled() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    // Server-sent event requests don't use pooled connections, hence every request has a connection of its own,
+    // which is closed after the response.
+    URI uri = new URI(resolveURI("/v2/ping"));
+    try (Socket socket = getSocketFactory().createSocket(uri.getHost(), uri.getPort())) {
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+      for (int i = 0; i < 2; i++) {
+        sendRequest(uri, out, Collections.singletonMap(HttpHeaderNames.ACCEPT.toString(), "text/event-stream"));
+        Assert.assertEquals("HTTP/1.1 200 OK", readResponse(socket.getInputStream()));
+      }
+    }
+
+    Assert.assertEquals(2, defaultServer1.getNumRequests());
+    Assert.assertEquals(2, defaultServer1.getNumConnectionsOpened());
+    Tasks.waitFor(2, defaultServer1::getNumConnectionsClosed, 10, TimeUnit.SECONDS);
+  }
+
   private String makeRequest(URI uri, PrintWriter out, InputStream inputStream) throws IOException {
-    //Send request
-    out.print("GET " + uri.getPath() + " HTTP/1.1\r\n" +
-                "Host: " + uri.getHost() + "\r\n" +
-                "Connection: keep-alive\r\n\r\n");
+    sendRequest(uri, out, Collections.emptyMap());
+    return readResponse(inputStream);
+  }
+
+  private void sendRequest(URI uri, PrintWriter out, Map<String, String> headers) {
+    StringBuilder request = new StringBuilder()
+      .append("GET ").append(uri.getPath()).append(" HTTP/1.1\r\n")
+      .append("Host: ").append(uri.getHost()).append("\r\n")
+      .append("Connection: keep-alive\r\n");
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      request.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+    }
+    out.print(request.append("\r\n"));
     out.flush();
+  }
 
+  /**
+   * Reads a response and returns its status line.
+   */
+  private String readResponse(InputStream inputStream) throws IOException {
     BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
 
     // Read the first line and find
@@ -608,6 +700,7 @@ public abstract class NettyRouterTestBase {
     private final AtomicInteger numRequests = new AtomicInteger(0);
     private final AtomicInteger numConnectionsOpened = new AtomicInteger(0);
     private final AtomicInteger numConnectionsClosed = new AtomicInteger(0);
+    private final Queue<HttpResponder> heldResponders = new ConcurrentLinkedQueue<>();
 
     private NettyHttpService httpService;
     private Cancellable cancelDiscovery;
@@ -668,6 +761,17 @@ public abstract class NettyRouterTestBase {
       return numConnectionsClosed.get();
     }
 
+    /**
+     * Responds to all requests that are held open by the server.
+     */
+    public void releaseHeldRequests() {
+      HttpResponder responder = heldResponders.poll();
+      while (responder != null) {
+        responder.sendStatus(HttpResponseStatus.OK);
+        responder = heldResponders.poll();
+      }
+    }
+
 
     public void registerServer() {
       // Register services of test server
@@ -794,6 +898,14 @@ public abstract class NettyRouterTestBase {
         };
       }
 
+      @GET
+      @Path("/v1/hold")
+      public void hold(HttpRequest request, HttpResponder responder) {
+        // The response is sent by releaseHeldRequests()
+        heldResponders.add(responder);
+        numRequests.incrementAndGet();
+      }
+
       @POST
       @Path("/v1/sleep")
       public void sleep(FullHttpRequest request, HttpResponder responder) throws Exception {
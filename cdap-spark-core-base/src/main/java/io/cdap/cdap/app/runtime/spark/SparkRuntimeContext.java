@@ -126,6 +126,11 @@ public final class SparkRuntimeContext extends AbstractContext implements Metric
     getMetrics().gauge(metricName, value);
   }
 
+  @Override
+  public void distribution(String metricName, long value) {
+    getMetrics().distribution(metricName, value);
+  }
+
   @Override
   public Metrics child(Map<String, String> tags) {
     return getMetrics().child(tags);
@@ -57,6 +57,11 @@ public final class SparkUserMetrics implements Metrics, Externalizable {
     delegate.gauge(metricName, value);
   }
 
+  @Override
+  public void distribution(String metricName, long value) {
+    delegate.distribution(metricName, value);
+  }
+
   @Override
   public Metrics child(Map<String, String> tags) {
     return delegate.child(tags);
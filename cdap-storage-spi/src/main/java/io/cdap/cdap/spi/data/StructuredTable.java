@@ -17,6 +17,7 @@
 package io.cdap.cdap.spi.data;
 
 import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
 import io.cdap.cdap.spi.data.table.field.Field;
@@ -25,8 +26,10 @@ import io.cdap.cdap.spi.data.table.field.Range;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -48,6 +51,23 @@ public interface StructuredTable extends Closeable {
    */
   void upsert(Collection<Field<?>> fields) throws InvalidFieldException, IOException;
 
+  /**
+   * Insert or replace multiple rows to the table. Each collection of fields must contain both the primary key and
+   * the rest of the columns to write, as in {@link #upsert(Collection)}. The default implementation is to call
+   * {@link #upsert(Collection)} one by one. Implementations of this interface can provide an optimized version.
+   *
+   * @param multiFields a collection of fields of the rows to write
+   * @throws InvalidFieldException if any of the fields are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error writing to the table
+   */
+  default void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    for (Collection<Field<?>> fields : multiFields) {
+      upsert(fields);
+    }
+  }
+
   /**
    * Read a single row with all the columns from the table.
    *
@@ -107,6 +127,91 @@ public interface StructuredTable extends Closeable {
    */
   CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException;
 
+  /**
+   * Read a set of rows from the table matching the key range and the given filter, with only the specified columns.
+   * A row matches the filter if the value of each of the filter fields is equal to the value of the same column
+   * in the row. Filter fields can be either primary key or non-key columns. A filter field with {@code null} value
+   * matches a row that does not have a value for the column.
+   * The rows returned will be sorted on the primary key order.
+   *
+   * The returned rows always contain the primary keys and the specified columns. Other columns may or may not be
+   * present in the rows. The default implementation is to call {@link #scan(Range, int)} and filter the rows.
+   * Implementations of this interface can provide an optimized version.
+   *
+   * @param keyRange key range for the scan
+   * @param limit maximum number of rows to return
+   * @param filters the fields that the rows must match. An empty collection means no filtering
+   * @param columns the columns to read. This collection must not be empty, otherwise IllegalArgumentException will
+   *                be thrown
+   * @return a {@link CloseableIterator} of rows
+   * @throws InvalidFieldException if any of the keys, filters or columns are not part of the table schema, or the
+   *                               types of the value do not match
+   * @throws IOException if there is an error scanning the table
+   */
+  default CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<Field<?>> filters,
+                                                Collection<String> columns) throws InvalidFieldException, IOException {
+    if (columns == null || columns.isEmpty()) {
+      throw new IllegalArgumentException("No columns are specified to scan");
+    }
+    if (filters.isEmpty()) {
+      return scan(keyRange, limit);
+    }
+
+    CloseableIterator<StructuredRow> iterator = scan(keyRange, Integer.MAX_VALUE);
+    return new AbstractCloseableIterator<StructuredRow>() {
+      private int count;
+
+      @Override
+      protected StructuredRow computeNext() {
+        while (count < limit && iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          boolean matches = true;
+          for (Field<?> filter : filters) {
+            Object value;
+            switch (filter.getFieldType()) {
+              case INTEGER:
+                value = row.getInteger(filter.getName());
+                break;
+              case LONG:
+                value = row.getLong(filter.getName());
+                break;
+              case FLOAT:
+                value = row.getFloat(filter.getName());
+                break;
+              case DOUBLE:
+                value = row.getDouble(filter.getName());
+                break;
+              case STRING:
+                value = row.getString(filter.getName());
+                break;
+              case BYTES:
+                value = row.getBytes(filter.getName());
+                break;
+              default:
+                throw new IllegalStateException("Unknown field type " + filter.getFieldType());
+            }
+            matches = value instanceof byte[]
+              ? Arrays.equals((byte[]) value, (byte[]) filter.getValue())
+              : Objects.equals(value, filter.getValue());
+            if (!matches) {
+              break;
+            }
+          }
+          if (matches) {
+            count++;
+            return row;
+          }
+        }
+        return endOfData();
+      }
+
+      @Override
+      public void close() {
+        iterator.close();
+      }
+    };
+  }
+
   /**
    * Read a set of rows from the table matching the index.
    * The rows returned will be sorted on the primary key order.
@@ -173,6 +278,22 @@ public interface StructuredTable extends Closeable {
    */
   void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException;
 
+  /**
+   * Delete multiple rows from the table. The default implementation is to call {@link #delete(Collection)} one by
+   * one. Implementations of this interface can provide an optimized version.
+   *
+   * @param multiKeys a collection of the primary keys of the rows to delete
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error deleting from the table
+   */
+  default void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    for (Collection<Field<?>> keys : multiKeys) {
+      delete(keys);
+    }
+  }
+
   /**
    * Delete a range of rows from the table.
    *
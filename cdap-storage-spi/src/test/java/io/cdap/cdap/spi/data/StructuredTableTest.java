@@ -173,6 +173,98 @@ public abstract class StructuredTableTest {
     Assert.assertEquals(new HashSet<>(keys), result);
   }
 
+  @Test
+  public void testMultiUpsertAndDelete() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> expected = new ArrayList<>();
+    for (int i = 0; i < max; i++) {
+      expected.add(Arrays.asList(Fields.intField(KEY, i),
+                                 Fields.longField(KEY2, (long) i),
+                                 Fields.stringField(STRING_COL, VAL + i),
+                                 Fields.doubleField(DOUBLE_COL, (double) i),
+                                 Fields.floatField(FLOAT_COL, (float) i),
+                                 Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-" + i))));
+    }
+    getTransactionRunner().run(context -> context.getTable(SIMPLE_TABLE).multiUpsert(expected));
+    Assert.assertEquals(expected, readSimpleStructuredRows(max));
+
+    // Rows with missing primary keys should fail the whole batch
+    getTransactionRunner().run(context -> {
+      try {
+        context.getTable(SIMPLE_TABLE).multiUpsert(
+          Collections.singletonList(Collections.singletonList(Fields.intField(KEY, max))));
+        Assert.fail("Expected InvalidFieldException");
+      } catch (InvalidFieldException e) {
+        // expected
+      }
+    });
+
+    // Delete the even rows
+    List<Collection<Field<?>>> keys = new ArrayList<>();
+    for (int i = 0; i < max; i += 2) {
+      keys.add(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i)));
+    }
+    getTransactionRunner().run(context -> context.getTable(SIMPLE_TABLE).multiDelete(keys));
+    List<Collection<Field<?>>> actual = readSimpleStructuredRows(max);
+    Assert.assertEquals(IntStream.range(0, max).filter(i -> i % 2 == 1).mapToObj(expected::get)
+                          .collect(Collectors.toList()), actual);
+  }
+
+  @Test
+  public void testFilteredScan() throws Exception {
+    int max = 10;
+    writeSimpleStructuredRows(max, "");
+
+    // Update some rows to have the same long column value
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      for (int i = 0; i < max; i += 3) {
+        table.upsert(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i),
+                                   Fields.longField(LONG_COL, 100L)));
+      }
+    });
+
+    // Scan with a filter on a non-key column and a projection
+    List<Integer> keys = new ArrayList<>();
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try (CloseableIterator<StructuredRow> iterator =
+             table.scan(Range.all(), max, Collections.singleton(Fields.longField(LONG_COL, 100L)),
+                        Collections.singleton(STRING_COL))) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          Assert.assertEquals(VAL + row.getInteger(KEY), row.getString(STRING_COL));
+          Assert.assertEquals((long) row.getInteger(KEY), (long) row.getLong(KEY2));
+          keys.add(row.getInteger(KEY));
+        }
+      }
+    });
+    Assert.assertEquals(Arrays.asList(0, 3, 6, 9), keys);
+
+    // Filter on null value with limit
+    Assert.assertEquals(Arrays.asList(2, 4, 5),
+                        scanKeys(Range.from(Collections.singleton(Fields.intField(KEY, 2)), Range.Bound.INCLUSIVE), 3,
+                                 Collections.singleton(Fields.longField(LONG_COL, null))));
+
+    // Filter on a key column
+    Assert.assertEquals(Collections.singletonList(4),
+                        scanKeys(Range.all(), max, Collections.singleton(Fields.longField(KEY2, 4L))));
+  }
+
+  private List<Integer> scanKeys(Range range, int limit, Collection<Field<?>> filters) throws Exception {
+    return TransactionRunners.run(getTransactionRunner(), context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      List<Integer> keys = new ArrayList<>();
+      try (CloseableIterator<StructuredRow> iterator =
+             table.scan(range, limit, filters, Collections.singleton(LONG_COL))) {
+        while (iterator.hasNext()) {
+          keys.add(iterator.next().getInteger(KEY));
+        }
+      }
+      return keys;
+    });
+  }
+
   @Test
   public void testSimpleScan() throws Exception {
     int max = 100;
@@ -22,6 +22,7 @@ import io.cdap.cdap.messaging.data.RawMessage;
 import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -35,6 +36,8 @@ public abstract class MessageFetcher {
   private boolean includeStart = true;
   private Long startTime;
   private Transaction transaction;
+  private Integer partition;
+  private long pollTimeoutMillis;
 
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
@@ -82,6 +85,36 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the topic partition to fetch messages from. By default, messages from all partitions are fetched.
+   *
+   * @param partition the partition to fetch from, which must be smaller than the number of partitions of the topic
+   * @return this instance
+   */
+  public MessageFetcher setPartition(int partition) {
+    if (partition < 0) {
+      throw new IllegalArgumentException("Invalid message fetching partition. Partition must be >= 0");
+    }
+    this.partition = partition;
+    return this;
+  }
+
+  /**
+   * Sets the maximum time to wait for new messages if there is no message available when fetching. If messages
+   * become available before the timeout, the fetch returns right away. By default, fetch returns immediately.
+   *
+   * @param timeout the maximum time to wait; {@code 0} means not waiting
+   * @param unit the unit of the timeout
+   * @return this instance
+   */
+  public MessageFetcher setPollTimeout(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Invalid message fetching poll timeout. Timeout must be >= 0");
+    }
+    this.pollTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
   /**
    * Sets the maximum limit on number of messages to be fetched. By default, this is set to {@code Integer.MAX_VALUE}.
    *
@@ -115,6 +148,15 @@ public abstract class MessageFetcher {
     return transaction;
   }
 
+  @Nullable
+  protected Integer getPartition() {
+    return partition;
+  }
+
+  protected long getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
   protected int getLimit() {
     return limit;
   }
@@ -19,6 +19,7 @@ package io.cdap.cdap.messaging;
 import io.cdap.cdap.proto.id.TopicId;
 
 import java.util.Iterator;
+import javax.annotation.Nullable;
 
 /**
  * This class represents messages to be store to the messaging system.
@@ -29,11 +30,18 @@ public abstract class StoreRequest implements Iterable<byte[]> {
   private final TopicId topicId;
   private final boolean transactional;
   private final long transactionWritePointer;
+  private final String partitionKey;
 
   protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer) {
+    this(topicId, transactional, transactionWritePointer, null);
+  }
+
+  protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer,
+                         @Nullable String partitionKey) {
     this.topicId = topicId;
     this.transactional = transactional;
     this.transactionWritePointer = transactionWritePointer;
+    this.partitionKey = partitionKey;
   }
 
   public TopicId getTopicId() {
@@ -55,6 +63,16 @@ public abstract class StoreRequest implements Iterable<byte[]> {
     return transactionWritePointer;
   }
 
+  /**
+   * Returns the key for selecting the topic partition that the messages will be written to. Messages with the same
+   * partition key always go to the same partition. If it is {@code null}, the partition will be selected by the
+   * messaging system.
+   */
+  @Nullable
+  public String getPartitionKey() {
+    return partitionKey;
+  }
+
   /**
    * Returns {@code true} if there is payload in this request.
    */
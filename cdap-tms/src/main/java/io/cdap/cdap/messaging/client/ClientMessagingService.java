@@ -41,6 +41,7 @@ import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.data.BinaryMessages;
 import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
@@ -69,6 +70,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -102,17 +104,26 @@ public final class ClientMessagingService implements MessagingService {
 
   private final RemoteClient remoteClient;
   private final boolean compressPayload;
+  private final boolean binaryFetch;
 
   @Inject
   ClientMessagingService(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient) {
-    this(discoveryServiceClient, cConf.getBoolean(Constants.MessagingSystem.HTTP_COMPRESS_PAYLOAD));
+    this(discoveryServiceClient, cConf.getBoolean(Constants.MessagingSystem.HTTP_COMPRESS_PAYLOAD),
+         cConf.getBoolean(Constants.MessagingSystem.HTTP_BINARY_FETCH));
   }
 
   @VisibleForTesting
   public ClientMessagingService(DiscoveryServiceClient discoveryServiceClient, boolean compressPayload) {
+    this(discoveryServiceClient, compressPayload, true);
+  }
+
+  @VisibleForTesting
+  public ClientMessagingService(DiscoveryServiceClient discoveryServiceClient,
+                                boolean compressPayload, boolean binaryFetch) {
     this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
                                          HTTP_REQUEST_CONFIG, "/v1/namespaces/");
     this.compressPayload = compressPayload;
+    this.binaryFetch = binaryFetch;
   }
 
   @Override
@@ -266,7 +277,11 @@ public final class ClientMessagingService implements MessagingService {
       headers.put(HttpHeaders.CONTENT_ENCODING, "gzip");
     }
 
-    HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, createTopicPath(topicId) + "/" + writeType)
+    String path = createTopicPath(topicId) + "/" + writeType;
+    if (request.getPartitionKey() != null) {
+      path += "?partitionKey=" + URLEncoder.encode(request.getPartitionKey(), StandardCharsets.UTF_8.name());
+    }
+    HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, path)
       .addHeaders(headers)
       .withBody(os.toByteBuffer())
       .build();
@@ -426,11 +441,31 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, createTopicPath(topicId) + "/poll");
+      List<String> queries = new ArrayList<>();
+      if (getPartition() != null) {
+        queries.add("partition=" + getPartition());
+      }
+      long pollTimeoutMillis = getPollTimeoutMillis();
+      if (pollTimeoutMillis > 0) {
+        queries.add("timeout=" + pollTimeoutMillis);
+      }
+      String path = createTopicPath(topicId) + "/poll";
+      if (!queries.isEmpty()) {
+        path += "?" + String.join("&", queries);
+      }
+      HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, path);
+      if (pollTimeoutMillis > 0 && urlConn.getReadTimeout() > 0) {
+        // Make sure the read timeout is longer than the time that the server can wait for new messages
+        urlConn.setReadTimeout((int) Math.min(Integer.MAX_VALUE, urlConn.getReadTimeout() + pollTimeoutMillis));
+      }
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
       if (compressPayload) {
         urlConn.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
       }
+      if (binaryFetch) {
+        // Older server ignores the accept header and always responds with avro
+        urlConn.setRequestProperty(HttpHeaders.ACCEPT, BinaryMessages.CONTENT_TYPE + ", avro/binary");
+      }
 
       // Send the request
       Encoder encoder = EncoderFactory.get().directBinaryEncoder(urlConn.getOutputStream(), null);
@@ -455,6 +490,9 @@ public final class ClientMessagingService implements MessagingService {
           urlConn.disconnect();
         }
       }, "Failed to update topic " + topicId);
+      if (BinaryMessages.CONTENT_TYPE.equalsIgnoreCase(urlConn.getContentType())) {
+        return BinaryMessages.decode(decompressIfNeeded(urlConn, urlConn.getInputStream()), urlConn::disconnect);
+      }
       verifyContentType(urlConn.getHeaderFields(), "avro/binary");
 
       // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
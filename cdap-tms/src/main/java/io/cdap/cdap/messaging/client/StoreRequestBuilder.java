@@ -39,6 +39,7 @@ public final class StoreRequestBuilder {
   private final TopicId topicId;
   private List<byte[]> payloads;
   private Long txWritePointer;
+  private String partitionKey;
 
   /**
    * Creates a new {@link StoreRequestBuilder} instance.
@@ -98,6 +99,16 @@ public final class StoreRequestBuilder {
     return this;
   }
 
+  /**
+   * Sets the key for selecting the topic partition to publish to.
+   *
+   * @param partitionKey the partition key, or {@code null} to have the messaging system selecting the partition.
+   */
+  public StoreRequestBuilder setPartitionKey(@Nullable String partitionKey) {
+    this.partitionKey = partitionKey;
+    return this;
+  }
+
   /**
    * Returns {@code true} if there is some payload in this builder.
    */
@@ -113,7 +124,7 @@ public final class StoreRequestBuilder {
       throw new IllegalArgumentException("Payload cannot be empty for non-transactional publish");
     }
     return new SimpleStoreRequest(topicId, txWritePointer != null, txWritePointer == null ? -1L : txWritePointer,
-                                  payloads);
+                                  partitionKey, payloads);
   }
 
   /**
@@ -135,8 +146,8 @@ public final class StoreRequestBuilder {
     private final List<byte[]> payloads;
 
     SimpleStoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer,
-                       @Nullable List<byte[]> payloads) {
-      super(topicId, transactional, transactionWritePointer);
+                       @Nullable String partitionKey, @Nullable List<byte[]> payloads) {
+      super(topicId, transactional, transactionWritePointer, partitionKey);
       this.payloads = payloads == null ? Collections.emptyList() : payloads;
     }
 
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.data;
+
+import com.google.common.io.Closeables;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Length-prefixed binary encoding of a stream of {@link RawMessage} used by the fetch response when the client
+ * accepts the {@link #CONTENT_TYPE}. Each message is encoded as
+ *
+ * <pre>
+ * [id length (4 bytes)][id][payload length (4 bytes)][payload]
+ * </pre>
+ *
+ * and the end of the stream is marked by an id length of {@code 0}. Comparing to the avro encoding, the payloads
+ * can be sent without copying and decoded directly into the resulting byte arrays.
+ */
+public final class BinaryMessages {
+
+  public static final String CONTENT_TYPE = "application/x-tms-messages";
+
+  private BinaryMessages() {
+    // no-op
+  }
+
+  /**
+   * Encodes the given list of messages into a {@link ByteBuf}. The payloads are wrapped instead of copied,
+   * hence they must not be modified until the returned buffer is released.
+   *
+   * @param messages the messages to encode
+   * @param end {@code true} to also write the end of stream marker
+   * @return a {@link ByteBuf} containing the encoded messages
+   */
+  public static ByteBuf encode(List<RawMessage> messages, boolean end) {
+    int headerSize = end ? Bytes.SIZEOF_INT : 0;
+    for (RawMessage message : messages) {
+      headerSize += 2 * Bytes.SIZEOF_INT + message.getId().length;
+    }
+
+    // All the length prefixes and ids are written to one buffer, with slices of it interleaved with the payloads
+    ByteBuf headers = Unpooled.buffer(headerSize);
+    CompositeByteBuf result = Unpooled.compositeBuffer(messages.size() * 2 + 1);
+    try {
+      for (RawMessage message : messages) {
+        int start = headers.writerIndex();
+        headers.writeInt(message.getId().length).writeBytes(message.getId()).writeInt(message.getPayload().length);
+        result.addComponents(true, headers.retainedSlice(start, headers.writerIndex() - start),
+                             Unpooled.wrappedBuffer(message.getPayload()));
+      }
+      if (end) {
+        int start = headers.writerIndex();
+        headers.writeInt(0);
+        result.addComponent(true, headers.retainedSlice(start, Bytes.SIZEOF_INT));
+      }
+      return result;
+    } finally {
+      headers.release();
+    }
+  }
+
+  /**
+   * Returns a {@link CloseableIterator} that decodes messages from the given {@link InputStream}.
+   * The stream will be closed and the given {@link Runnable} will be called when the iterator is closed.
+   */
+  public static CloseableIterator<RawMessage> decode(InputStream is, Runnable onClose) {
+    DataInputStream input = new DataInputStream(is);
+    return new AbstractCloseableIterator<RawMessage>() {
+
+      private boolean closed;
+
+      @Override
+      protected RawMessage computeNext() {
+        if (closed) {
+          return endOfData();
+        }
+        try {
+          int idLength = input.readInt();
+          if (idLength == 0) {
+            return endOfData();
+          }
+          byte[] id = new byte[idLength];
+          input.readFully(id);
+          byte[] payload = new byte[input.readInt()];
+          input.readFully(payload);
+          return new RawMessage(id, payload);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        closed = true;
+        Closeables.closeQuietly(input);
+        onClose.run();
+      }
+    };
+  }
+}
@@ -46,6 +46,7 @@ import io.cdap.cdap.messaging.store.cache.DefaultMessageTableCacheProvider;
 import io.cdap.cdap.messaging.store.cache.MessageTableCacheProvider;
 import io.cdap.cdap.messaging.store.hbase.HBaseTableFactory;
 import io.cdap.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import io.cdap.cdap.messaging.store.segment.SegmentTableFactory;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.http.HttpHandler;
 
@@ -121,7 +122,7 @@ public class MessagingServerRuntimeModule extends RuntimeModule {
         }
       });
 
-      bind(TableFactory.class).to(LevelDBTableFactory.class).in(Scopes.SINGLETON);
+      bind(TableFactory.class).toProvider(LocalTableFactoryProvider.class).in(Scopes.SINGLETON);
       bind(MessagingService.class).to(CoreMessagingService.class).in(Scopes.SINGLETON);
       expose(MessagingService.class);
 
@@ -138,6 +139,38 @@ public class MessagingServerRuntimeModule extends RuntimeModule {
     }
   }
 
+  /**
+   * A guice provider for the {@link TableFactory} used in local mode, based on the configured storage type.
+   */
+  private static final class LocalTableFactoryProvider implements Provider<TableFactory> {
+
+    private final CConfiguration cConf;
+    private final Provider<LevelDBTableFactory> levelDBTableFactoryProvider;
+    private final Provider<SegmentTableFactory> segmentTableFactoryProvider;
+
+    @Inject
+    LocalTableFactoryProvider(CConfiguration cConf, Provider<LevelDBTableFactory> levelDBTableFactoryProvider,
+                              Provider<SegmentTableFactory> segmentTableFactoryProvider) {
+      this.cConf = cConf;
+      this.levelDBTableFactoryProvider = levelDBTableFactoryProvider;
+      this.segmentTableFactoryProvider = segmentTableFactoryProvider;
+    }
+
+    @Override
+    public TableFactory get() {
+      String storageType = cConf.get(Constants.MessagingSystem.LOCAL_STORAGE_TYPE, "leveldb");
+      switch (storageType.toLowerCase()) {
+        case "leveldb":
+          return levelDBTableFactoryProvider.get();
+        case "segment":
+          return segmentTableFactoryProvider.get();
+        default:
+          throw new IllegalArgumentException("Unsupported messaging storage type " + storageType +
+                                               ". Supported types are 'leveldb' and 'segment'.");
+      }
+    }
+  }
+
   /**
    * A guice provider for {@link HBaseTableUtil}. We don't use {@link HBaseTableUtilFactory} as a provider
    * directly because the {@code @Inject} constructor of {@link HBaseTableUtilFactory} requires a
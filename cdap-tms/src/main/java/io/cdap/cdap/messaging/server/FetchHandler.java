@@ -30,11 +30,13 @@ import io.cdap.cdap.common.logging.Loggers;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.Schemas;
+import io.cdap.cdap.messaging.data.BinaryMessages;
 import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyProducer;
+import io.cdap.http.HandlerContext;
 import io.cdap.http.HttpResponder;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
@@ -55,6 +57,7 @@ import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,10 +68,17 @@ import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
@@ -86,19 +96,35 @@ public final class FetchHandler extends AbstractHttpHandler {
   );
 
   private final MessagingService messagingService;
+  private final long maxPollTimeoutMillis;
+  private final ExecutorService pollExecutor;
   private int messageChunkSize;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    this.maxPollTimeoutMillis = cConf.getLong(Constants.MessagingSystem.HTTP_SERVER_MAX_POLL_TIMEOUT_MS);
+
+    // Fetch requests that wait for new messages are executed with a separate thread pool to avoid blocking
+    // the http server threads. There is no queue, so requests beyond the thread limit are not waiting.
+    this.pollExecutor = new ThreadPoolExecutor(0, cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_POLL_THREADS),
+                                               60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                               Threads.createDaemonThreadFactory("messaging-fetch-poll-%d"));
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    pollExecutor.shutdownNow();
   }
 
   @POST
   @Path("poll")
   public void poll(FullHttpRequest request, HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @Nullable @QueryParam("partition") Integer partition,
+                   @QueryParam("timeout") @DefaultValue("0") long timeoutMillis) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -111,9 +137,57 @@ public final class FetchHandler extends AbstractHttpHandler {
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
 
+    MessageFetcher fetcher = prepareFetch(datumReader.read(null, decoder), topicId, partition);
+
+    // Use the binary encoding if the client accepts it
+    String accept = request.headers().get(HttpHeaderNames.ACCEPT);
+    boolean binary = accept != null && accept.contains(BinaryMessages.CONTENT_TYPE);
+
+    if (timeoutMillis > 0) {
+      // Wait for new messages in the poll executor
+      fetcher.setPollTimeout(Math.min(timeoutMillis, maxPollTimeoutMillis), TimeUnit.MILLISECONDS);
+      try {
+        pollExecutor.execute(() -> pollMessages(fetcher, topicId, responder, binary));
+        return;
+      } catch (RejectedExecutionException e) {
+        // Too many waiting requests, fetch without waiting
+        LOG.trace("Too many fetch requests waiting for new messages. Fetch from topic {} without waiting.", topicId);
+        fetcher.setPollTimeout(0L, TimeUnit.MILLISECONDS);
+      }
+    }
+
     // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    sendMessages(fetcher.fetch(), responder, binary);
+  }
+
+  /**
+   * Fetches messages with the given {@link MessageFetcher}, which waits for new messages if there is none,
+   * and responds to the client. This method is called from the poll executor thread.
+   */
+  private void pollMessages(MessageFetcher fetcher, TopicId topicId, HttpResponder responder, boolean binary) {
     try {
+      sendMessages(fetcher.fetch(), responder, binary);
+    } catch (TopicNotFoundException e) {
+      responder.sendString(HttpResponseStatus.NOT_FOUND, e.getMessage());
+    } catch (IllegalArgumentException e) {
+      responder.sendString(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+    } catch (Throwable t) {
+      SAMPLING_LOG.warn("Exception raised when fetching messages from topic {}", topicId, t);
+      responder.sendString(HttpResponseStatus.INTERNAL_SERVER_ERROR, t.getMessage() == null ? "" : t.getMessage());
+    }
+  }
+
+  /**
+   * Sends messages from the given {@link CloseableIterator} to the client, either with the avro encoding or
+   * the {@link BinaryMessages} encoding.
+   */
+  private void sendMessages(CloseableIterator<RawMessage> iterator, HttpResponder responder, boolean binary) {
+    try {
+      if (binary) {
+        responder.sendContent(HttpResponseStatus.OK, new BinaryMessagesBodyProducer(iterator, messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, BinaryMessages.CONTENT_TYPE));
+        return;
+      }
       responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
                             new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
     } catch (Throwable t) {
@@ -123,11 +197,14 @@ public final class FetchHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Creates a {@link CloseableIterator} of {@link RawMessage} based on the given fetch request.
+   * Creates a {@link MessageFetcher} based on the given fetch request.
    */
-  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest,
-                                                      TopicId topicId) throws IOException, TopicNotFoundException {
+  private MessageFetcher prepareFetch(GenericRecord fetchRequest, TopicId topicId,
+                                      @Nullable Integer partition) throws IOException, TopicNotFoundException {
     MessageFetcher fetcher = messagingService.prepareFetch(topicId);
+    if (partition != null) {
+      fetcher.setPartition(partition);
+    }
 
     Object startFrom = fetchRequest.get("startFrom");
     if (startFrom != null) {
@@ -153,7 +230,7 @@ public final class FetchHandler extends AbstractHttpHandler {
       fetcher.setTransaction(TRANSACTION_CODEC.decode(ByteBuffers.getByteArray(encodedTx)));
     }
 
-    return fetcher.fetch();
+    return fetcher;
   }
 
   /**
@@ -250,18 +327,73 @@ public final class FetchHandler extends AbstractHttpHandler {
     @Override
     public void handleError(@Nullable Throwable cause) {
       iterator.close();
-      // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
-      if (cause instanceof SocketException
-        || cause instanceof ClosedChannelException
-        || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
-        // This can easily caused by client close connection prematurely. Don't want to flood the log.
-        LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
-      } else {
-        // Use sampling logger to log to avoid flooding the log if there is any systematic failure
-        SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
-        // Also log a trace to provide a way to see every error if needed
-        LOG.trace("Exception raised when sending messages back to client", cause);
+      logSendError(cause);
+    }
+  }
+
+  /**
+   * A {@link BodyProducer} to send back messages with the {@link BinaryMessages} encoding. The payloads are sent
+   * without copying, which avoids the per message encoding cost of the avro encoding.
+   */
+  private static class BinaryMessagesBodyProducer extends BodyProducer {
+
+    private final CloseableIterator<RawMessage> iterator;
+    private final List<RawMessage> messages;
+    private final int messageChunkSize;
+    private boolean ended;
+
+    BinaryMessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
+      this.iterator = iterator;
+      this.messages = new ArrayList<>();
+      this.messageChunkSize = messageChunkSize;
+    }
+
+    @Override
+    public ByteBuf nextChunk() throws Exception {
+      // Already sent all messages, return empty to signal the end of response
+      if (ended) {
+        return Unpooled.EMPTY_BUFFER;
+      }
+
+      // Try to buffer up to buffer size
+      int size = 0;
+      messages.clear();
+      while (iterator.hasNext() && size < messageChunkSize) {
+        RawMessage message = iterator.next();
+        messages.add(message);
+        size += message.getId().length + message.getPayload().length + 2 * Bytes.SIZEOF_INT;
       }
+      ended = !iterator.hasNext();
+      return BinaryMessages.encode(messages, ended);
+    }
+
+    @Override
+    public void finished() throws Exception {
+      iterator.close();
+    }
+
+    @Override
+    public void handleError(@Nullable Throwable cause) {
+      iterator.close();
+      logSendError(cause);
+    }
+  }
+
+  /**
+   * Logs the failure of sending messages to the client.
+   */
+  private static void logSendError(@Nullable Throwable cause) {
+    // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
+    if (cause instanceof SocketException
+      || cause instanceof ClosedChannelException
+      || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
+      // This can easily caused by client close connection prematurely. Don't want to flood the log.
+      LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
+    } else {
+      // Use sampling logger to log to avoid flooding the log if there is any systematic failure
+      SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
+      // Also log a trace to provide a way to see every error if needed
+      LOG.trace("Exception raised when sending messages back to client", cause);
     }
   }
 }
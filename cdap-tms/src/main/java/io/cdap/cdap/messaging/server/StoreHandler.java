@@ -60,9 +60,11 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Nullable;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message storage REST API for the messaging system.
@@ -87,13 +89,14 @@ public final class StoreHandler extends AbstractHttpHandler {
   @Path("/publish")
   public BodyConsumer publish(HttpRequest request, HttpResponder responder,
                               @PathParam("namespace") String namespace,
-                              @PathParam("topic") String topic) throws Exception {
+                              @PathParam("topic") String topic,
+                              @Nullable @QueryParam("partitionKey") String partitionKey) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
     return new SpillableBodyConsumer(Files.createTempFile(tempDir, "tms.publish", ".tmp"), bufferSize) {
       @Override
       protected void processInput(InputStream inputStream, HttpResponder responder) throws Exception {
-        StoreRequest storeRequest = createStoreRequest(topicId, request, inputStream);
+        StoreRequest storeRequest = createStoreRequest(topicId, request, inputStream, partitionKey);
         // Empty payload is only allowed for transactional publish
         if (!storeRequest.isTransactional() && !storeRequest.hasPayload()) {
           throw new BadRequestException("Empty payload is only allowed for publishing transactional message. Topic: "
@@ -123,7 +126,7 @@ public final class StoreHandler extends AbstractHttpHandler {
     return new SpillableBodyConsumer(Files.createTempFile(tempDir, "tms.store", ".tmp"), bufferSize) {
       @Override
       protected void processInput(InputStream inputStream, HttpResponder responder) throws Exception {
-        StoreRequest storeRequest = createStoreRequest(topicId, request, inputStream);
+        StoreRequest storeRequest = createStoreRequest(topicId, request, inputStream, null);
 
         // It must be transactional with payload for store request
         if (!storeRequest.isTransactional() || !storeRequest.hasPayload()) {
@@ -152,8 +155,8 @@ public final class StoreHandler extends AbstractHttpHandler {
   /**
    * Creates a {@link StoreRequest} instance based on the given {@link HttpRequest}.
    */
-  private StoreRequest createStoreRequest(TopicId topicId,
-                                          HttpRequest request, InputStream is) throws BadRequestException, IOException {
+  private StoreRequest createStoreRequest(TopicId topicId, HttpRequest request, InputStream is,
+                                          @Nullable String partitionKey) throws BadRequestException, IOException {
     // Currently only support avro
     if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
       throw new BadRequestException("Only avro/binary content type is supported.");
@@ -161,7 +164,7 @@ public final class StoreHandler extends AbstractHttpHandler {
 
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(is, null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.PublishRequest.SCHEMA);
-    return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder));
+    return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder), partitionKey);
   }
 
   /**
@@ -200,12 +203,13 @@ public final class StoreHandler extends AbstractHttpHandler {
     private final List<ByteBuffer> payloads;
 
     @SuppressWarnings("unchecked")
-    GenericRecordStoreRequest(TopicId topicId, GenericRecord record) {
+    GenericRecordStoreRequest(TopicId topicId, GenericRecord record, @Nullable String partitionKey) {
       super(topicId,
             record.get("transactionWritePointer") != null,
             record.get("transactionWritePointer") == null
               ? -1L
-              : Long.parseLong(record.get("transactionWritePointer").toString()));
+              : Long.parseLong(record.get("transactionWritePointer").toString()),
+            partitionKey);
 
       this.payloads = ((List<ByteBuffer>) record.get("messages"));
     }
@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -83,9 +84,21 @@ final class ConcurrentMessageWriter implements Closeable {
    * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
    */
   ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+    this(messagesWriter, metricsCollector, () -> { });
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
+   * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param persistListener a {@link Runnable} to be called after store requests were successfully persisted.
+   */
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          Runnable persistListener) {
     this.messagesWriter = messagesWriter;
     this.metricsCollector = metricsCollector;
-    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
+    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector, persistListener);
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
   }
@@ -106,6 +119,7 @@ final class ConcurrentMessageWriter implements Closeable {
       throw new IOException("Message writer is already closed");
     }
 
+    long startNanos = System.nanoTime();
     PendingStoreRequest pendingStoreRequest = new PendingStoreRequest(storeRequest, metadata);
     pendingStoreQueue.enqueue(pendingStoreRequest);
 
@@ -119,6 +133,8 @@ final class ConcurrentMessageWriter implements Closeable {
 
     if (pendingStoreRequest.isSuccess()) {
       metricsCollector.increment("persist.success", 1L);
+      metricsCollector.distribution("persist.latency.us",
+                                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
       if (!pendingStoreRequest.isTransactional()) {
         return null;
       }
@@ -133,6 +149,14 @@ final class ConcurrentMessageWriter implements Closeable {
     }
   }
 
+  /**
+   * Returns the lower bound of the publish timestamps of the write currently in progress, or
+   * {@link Long#MAX_VALUE} if there is no write in progress.
+   */
+  long getInflightTimestamp() {
+    return messagesWriter.getInflightTimestamp();
+  }
+
   /**
    * Tries to acquire the writer flag and persist the pending requests.
    *
@@ -173,11 +197,13 @@ final class ConcurrentMessageWriter implements Closeable {
   private static final class PendingStoreQueue {
 
     private final MetricsCollector metricsCollector;
+    private final Runnable persistListener;
     private final Queue<PendingStoreRequest> writeQueue;
     private final List<PendingStoreRequest> inflightRequests;
 
-    private PendingStoreQueue(MetricsCollector metricsCollector) {
+    private PendingStoreQueue(MetricsCollector metricsCollector, Runnable persistListener) {
       this.metricsCollector = metricsCollector;
+      this.persistListener = persistListener;
       this.writeQueue = new ConcurrentLinkedQueue<>();
       this.inflightRequests = new ArrayList<>(100);
     }
@@ -208,11 +234,16 @@ final class ConcurrentMessageWriter implements Closeable {
 
       metricsCollector.gauge("persist.queue.size", inflightRequests.size());
 
+      boolean hasRequests = !inflightRequests.isEmpty();
       try {
         writer.write(inflightRequests.iterator());
         completeAll(null);
       } catch (Throwable t) {
         completeAll(t);
+        return;
+      }
+      if (hasRequests) {
+        persistListener.run();
       }
     }
 
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import javax.annotation.Nullable;
 
 /**
@@ -44,17 +45,73 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final LongSupplier safeFetchTimestampSupplier;
+  private final PublishNotifier publishNotifier;
 
+  /**
+   * Constructor.
+   *
+   * @param topicMetadata metadata of the topic to fetch from
+   * @param messageTableProvider provider for the {@link MessageTable}
+   * @param payloadTableProvider provider for the {@link PayloadTable}
+   * @param safeFetchTimestampSupplier supplier of the publish timestamp that only messages published before it
+   *                                   will be fetched
+   * @param publishNotifier the {@link PublishNotifier} for waiting for new messages if poll timeout is set;
+   *                        if it is {@code null}, fetch always returns immediately
+   */
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     LongSupplier safeFetchTimestampSupplier,
+                     @Nullable PublishNotifier publishNotifier) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.safeFetchTimestampSupplier = safeFetchTimestampSupplier;
+    this.publishNotifier = publishNotifier;
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    long timeoutMillis = getPollTimeoutMillis();
+    if (timeoutMillis <= 0 || publishNotifier == null) {
+      return fetchMessages();
+    }
+
+    TopicId topicId = topicMetadata.getTopicId();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    boolean notified = false;
+    while (true) {
+      // Capture the version before fetching so that no notification can be missed
+      long version = publishNotifier.getVersion(topicId);
+      CloseableIterator<RawMessage> iterator = fetchMessages();
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0 || iterator.hasNext()) {
+        return iterator;
+      }
+      iterator.close();
+
+      // If there was a notification but the fetch still returns nothing, the new messages could be not yet
+      // visible (e.g. for partitioned topic), hence only wait briefly before fetching again.
+      long waitNanos = notified ? Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(1)) : remaining;
+      try {
+        notified = publishNotifier.await(topicId, version, waitNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return fetchMessages();
+      }
+    }
+  }
+
+  /**
+   * Creates a {@link CloseableIterator} to fetch messages that are currently available.
+   */
+  private CloseableIterator<RawMessage> fetchMessages() throws IOException {
+    Integer partition = getPartition();
+    if (partition != null && partition >= topicMetadata.getPartitions()) {
+      throw new IllegalArgumentException("Invalid partition " + partition + " for topic " + topicMetadata.getTopicId()
+                                           + ", which has " + topicMetadata.getPartitions() + " partitions");
+    }
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
@@ -127,6 +184,8 @@ final class CoreMessageFetcher extends MessageFetcher {
     private final CloseableIterator<MessageTable.Entry> messageIterator;
     private final TopicId topicId;
     private final MessageTable messageTable;
+    private final long safeFetchTimestamp;
+    private final Integer partition;
     private RawMessage nextMessage;
     private MessageTable.Entry messageEntry;
     private CloseableIterator<PayloadTable.Entry> payloadIterator;
@@ -140,6 +199,11 @@ final class CoreMessageFetcher extends MessageFetcher {
       this.messageTable = messageTable;
       this.inclusive = isIncludeStart();
       this.messageLimit = getLimit();
+      this.safeFetchTimestamp = safeFetchTimestampSupplier.getAsLong();
+      this.partition = topicMetadata.getPartitions() == 1 ? null : getPartition();
+
+      // Messages of other partitions are skipped while scanning, hence cannot limit the table scan
+      int scanLimit = partition == null ? messageLimit : Integer.MAX_VALUE;
 
       long ttl = topicMetadata.getTTL();
       startOffset = getStartOffset() == null ? null : new MessageId(getStartOffset());
@@ -153,16 +217,16 @@ final class CoreMessageFetcher extends MessageFetcher {
       // do the scanning based on time. The smallest start time should be the currentTime - TTL.
       if (startOffset == null || startOffset.getPublishTimestamp() < smallestPublishTime) {
         long fetchStartTime = Math.max(smallestPublishTime, startTime == null ? smallestPublishTime : startTime);
-        messageIterator = messageTable.fetch(topicMetadata, fetchStartTime, messageLimit, getTransaction());
+        messageIterator = messageTable.fetch(topicMetadata, fetchStartTime, scanLimit, getTransaction());
       } else {
         // Start scanning based on the start message id
         if (startOffset.getPayloadWriteTimestamp() != 0L) {
           // This message ID refer to payload table. Scan the message table with the reference message ID inclusively.
           messageIterator = messageTable.fetch(topicMetadata, createMessageTableMessageId(startOffset),
-                                               true, messageLimit, getTransaction());
+                                               true, scanLimit, getTransaction());
         } else {
           messageIterator = messageTable.fetch(topicMetadata, startOffset, isIncludeStart(),
-                                               messageLimit, getTransaction());
+                                               scanLimit, getTransaction());
         }
       }
       this.messageIterator = messageIterator;
@@ -187,6 +251,16 @@ final class CoreMessageFetcher extends MessageFetcher {
         // If there is no payload iterator or it has been exhausted, read the next message from the message iterator
         if (messageIterator.hasNext()) {
           messageEntry = messageIterator.next();
+          if (messageEntry.getPublishTimestamp() >= safeFetchTimestamp) {
+            // Messages are sorted by publish time, hence no more message can be fetched
+            messageLimit = 0;
+            break;
+          }
+          if (partition != null
+            && (messageEntry.getSequenceId() & 0xffff) % topicMetadata.getPartitions() != partition) {
+            // The message belongs to a different partition
+            continue;
+          }
           if (messageEntry.isPayloadReference()) {
             // If the message entry is a reference to payload table, create the payload iterator
             try {
@@ -55,6 +55,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -66,6 +67,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -81,11 +83,12 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final CConfiguration cConf;
   private final TableFactory tableFactory;
   private final LoadingCache<TopicId, TopicMetadata> topicCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> messageTableWriterCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> payloadTableWriterCache;
+  private final LoadingCache<TopicId, PartitionedMessageWriter> messageTableWriterCache;
+  private final LoadingCache<TopicId, PartitionedMessageWriter> payloadTableWriterCache;
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
+  private final PublishNotifier publishNotifier;
 
   @Inject
   protected CoreMessagingService(CConfiguration cConf, TableFactory tableFactory,
@@ -98,6 +101,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
                        TimeProvider timeProvider, MetricsCollectionService metricsCollectionService) {
     this.cConf = cConf;
     this.tableFactory = tableFactory;
+    this.publishNotifier = new PublishNotifier();
     this.topicCache = createTopicCache();
     this.messageTableWriterCache = createTableWriterCache(true, cConf);
     this.payloadTableWriterCache = createTableWriterCache(false, cConf);
@@ -131,7 +135,16 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     try (MetadataTable metadataTable = createMetadataTable()) {
       Map<String, String> properties = createDefaultProperties();
       properties.putAll(topicMetadata.getProperties());
-      metadataTable.updateTopic(new TopicMetadata(topicMetadata.getTopicId(), properties, true));
+      TopicMetadata newMetadata = new TopicMetadata(topicMetadata.getTopicId(), properties, true);
+
+      // Partitions share the same sequence id space, hence the number of partitions cannot be altered
+      TopicMetadata oldMetadata = metadataTable.getMetadata(topicMetadata.getTopicId());
+      if (oldMetadata.getPartitions() != newMetadata.getPartitions()) {
+        throw new IllegalArgumentException("The number of partitions of topic " + topicMetadata.getTopicId()
+                                             + " cannot be changed from " + oldMetadata.getPartitions()
+                                             + " to " + newMetadata.getPartitions());
+      }
+      metadataTable.updateTopic(newMetadata);
       topicCache.invalidate(topicMetadata.getTopicId());
     }
   }
@@ -143,6 +156,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       topicCache.invalidate(topicId);
       messageTableWriterCache.invalidate(topicId);
       payloadTableWriterCache.invalidate(topicId);
+      publishNotifier.remove(topicId);
     }
   }
 
@@ -167,9 +181,17 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   @Override
   public MessageFetcher prepareFetch(final TopicId topicId) throws TopicNotFoundException, IOException {
     final TopicMetadata metadata = getTopic(topicId);
+
+    // For partitioned topic, messages can be persisted by writers of different partitions concurrently.
+    // Only returns messages that no writer can publish before them to avoid consumers from skipping messages.
+    LongSupplier safeFetchTimestampSupplier = metadata.getPartitions() == 1
+      ? () -> Long.MAX_VALUE
+      : () -> getSafeFetchTimestamp(topicId);
+
     return new CoreMessageFetcher(metadata,
                                   () -> createMessageTable(metadata),
-                                  () -> createPayloadTable(metadata));
+                                  () -> createPayloadTable(metadata),
+                                  safeFetchTimestampSupplier, publishNotifier);
   }
 
   @Nullable
@@ -178,6 +200,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     try {
       TopicMetadata metadata = topicCache.get(request.getTopicId());
       if (request.isTransactional()) {
+        ensureNonPartitioned(metadata);
         ensureValidTxLifetime(request.getTransactionWritePointer());
       }
       return messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
@@ -192,6 +215,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException {
     try {
       TopicMetadata metadata = topicCache.get(request.getTopicId());
+      ensureNonPartitioned(metadata);
       payloadTableWriterCache.get(request.getTopicId()).persist(request, metadata);
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
@@ -256,6 +280,26 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     LOG.info("Core Messaging Service stopped");
   }
 
+  /**
+   * Transactional publishing is not supported for partitioned topics because rollback of a transaction
+   * operates on a message id range, which can contain messages published to other partitions.
+   */
+  private void ensureNonPartitioned(TopicMetadata metadata) {
+    if (metadata.getPartitions() > 1) {
+      throw new IllegalArgumentException("Transactional publishing is not supported for partitioned topic "
+                                           + metadata.getTopicId());
+    }
+  }
+
+  /**
+   * Returns the publish timestamp that all messages published before it are persisted for the given topic.
+   */
+  private long getSafeFetchTimestamp(TopicId topicId) {
+    long currentTime = timeProvider.currentTimeMillis();
+    PartitionedMessageWriter writer = messageTableWriterCache.getIfPresent(topicId);
+    return writer == null ? currentTime : writer.getSafeFetchTimestamp(currentTime);
+  }
+
   private void ensureValidTxLifetime(long transactionWritePointer) throws IOException {
     long txTimestamp = TxUtils.getTimestamp(transactionWritePointer);
     boolean validLifetime = (txTimestamp + txMaxLifeTimeInMillis) > System.currentTimeMillis();
@@ -324,24 +368,25 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   }
 
   /**
-   * Creates a {@link LoadingCache} for {@link ConcurrentMessageWriter}
-   * for writing to {@link MessageTable} or {@link PayloadTable}.
+   * Creates a {@link LoadingCache} for {@link PartitionedMessageWriter}
+   * for writing to {@link MessageTable} or {@link PayloadTable}. For the {@link MessageTable}, there is one
+   * {@link ConcurrentMessageWriter} per topic partition.
    *
    * @param messageTable {@code true} for building a cache for the {@link MessageTable};
    *                     {@code false} for the {@link PayloadTable}
    * @param cConf the system configuration
    * @return a {@link LoadingCache} for
    */
-  private LoadingCache<TopicId, ConcurrentMessageWriter> createTableWriterCache(final boolean messageTable,
-                                                                                final CConfiguration cConf) {
+  private LoadingCache<TopicId, PartitionedMessageWriter> createTableWriterCache(final boolean messageTable,
+                                                                                 final CConfiguration cConf) {
     long expireSecs = cConf.getLong(Constants.MessagingSystem.TABLE_CACHE_EXPIRATION_SECONDS);
 
     return CacheBuilder.newBuilder()
       .expireAfterAccess(expireSecs, TimeUnit.SECONDS)
-      .removalListener(new RemovalListener<TopicId, ConcurrentMessageWriter>() {
+      .removalListener(new RemovalListener<TopicId, PartitionedMessageWriter>() {
         @Override
-        public void onRemoval(RemovalNotification<TopicId, ConcurrentMessageWriter> notification) {
-          ConcurrentMessageWriter writer = notification.getValue();
+        public void onRemoval(RemovalNotification<TopicId, PartitionedMessageWriter> notification) {
+          PartitionedMessageWriter writer = notification.getValue();
           if (writer != null) {
             try {
               writer.close();
@@ -351,14 +396,10 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
           }
         }
       })
-      .build(new CacheLoader<TopicId, ConcurrentMessageWriter>() {
+      .build(new CacheLoader<TopicId, PartitionedMessageWriter>() {
         @Override
-        public ConcurrentMessageWriter load(TopicId topicId) throws Exception {
+        public PartitionedMessageWriter load(TopicId topicId) throws Exception {
           TopicMetadata metadata = getTopic(topicId);
-          StoreRequestWriter<?> messagesWriter = messageTable
-            ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider)
-            : new PayloadTableStoreRequestWriter(createPayloadTable(metadata), timeProvider);
-
           MetricsContext metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
             Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
             Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
@@ -366,7 +407,19 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          // Payload table is only used by transactional publishing, which is always non-partitioned
+          int partitions = messageTable ? metadata.getPartitions() : 1;
+          List<ConcurrentMessageWriter> writers = new ArrayList<>(partitions);
+          for (int i = 0; i < partitions; i++) {
+            StoreRequestWriter<?> messagesWriter = messageTable
+              ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider, i, partitions)
+              : new PayloadTableStoreRequestWriter(createPayloadTable(metadata), timeProvider);
+            writers.add(messageTable
+                          ? new ConcurrentMessageWriter(messagesWriter, metricsContext,
+                                                        () -> publishNotifier.notifyPublished(topicId))
+                          : new ConcurrentMessageWriter(messagesWriter, metricsContext));
+          }
+          return new PartitionedMessageWriter(writers);
         }
       });
   }
@@ -37,7 +37,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
   private final MutableMessageTableEntry entry;
 
   MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider) {
-    super(timeProvider, true);
+    this(messageTable, timeProvider, 0, 1);
+  }
+
+  MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider, int partition, int partitions) {
+    super(timeProvider, true, partition, partitions);
     this.messageTable = messageTable;
     this.entry = new MutableMessageTableEntry();
   }
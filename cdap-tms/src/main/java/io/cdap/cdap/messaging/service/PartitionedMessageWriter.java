@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.messaging.RollbackDetail;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link Closeable} that holds one {@link ConcurrentMessageWriter} per partition of a topic and routes
+ * {@link StoreRequest} to one of them. Requests with a partition key are routed by the hash of the key, while
+ * requests without one are routed by the calling thread, so that concurrent publishers are spread across partitions.
+ */
+@ThreadSafe
+final class PartitionedMessageWriter implements Closeable {
+
+  private final List<ConcurrentMessageWriter> writers;
+
+  PartitionedMessageWriter(List<ConcurrentMessageWriter> writers) {
+    if (writers.isEmpty()) {
+      throw new IllegalArgumentException("There must be at least one message writer");
+    }
+    this.writers = new ArrayList<>(writers);
+  }
+
+  /**
+   * Returns the number of partitions handled by this writer.
+   */
+  int getPartitions() {
+    return writers.size();
+  }
+
+  /**
+   * Persists the given {@link StoreRequest} through the {@link ConcurrentMessageWriter} of the partition selected
+   * for the request. This method is safe to be called concurrently from multiple threads.
+   *
+   * @see ConcurrentMessageWriter#persist(StoreRequest, TopicMetadata)
+   */
+  @Nullable
+  RollbackDetail persist(StoreRequest storeRequest, TopicMetadata metadata) throws IOException {
+    return writers.get(getPartition(storeRequest)).persist(storeRequest, metadata);
+  }
+
+  /**
+   * Returns the smallest publish timestamp that can still be written by any of the partition writers.
+   * All messages with publish timestamp smaller than the returned value are already persisted, hence are safe
+   * to be consumed by readers that merge all partitions.
+   *
+   * @param currentTime the current time in milliseconds
+   */
+  long getSafeFetchTimestamp(long currentTime) {
+    long timestamp = currentTime;
+    for (ConcurrentMessageWriter writer : writers) {
+      timestamp = Math.min(timestamp, writer.getInflightTimestamp());
+    }
+    return timestamp;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (ConcurrentMessageWriter writer : writers) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Selects the partition for the given {@link StoreRequest}.
+   */
+  private int getPartition(StoreRequest storeRequest) {
+    int partitions = writers.size();
+    if (partitions == 1) {
+      return 0;
+    }
+    String partitionKey = storeRequest.getPartitionKey();
+    if (partitionKey == null) {
+      return (int) (Thread.currentThread().getId() % partitions);
+    }
+    return (partitionKey.hashCode() & Integer.MAX_VALUE) % partitions;
+  }
+}
@@ -39,7 +39,7 @@ final class PendingStoreRequest extends StoreRequest {
 
   PendingStoreRequest(StoreRequest originalRequest, TopicMetadata topicMetadata) {
     super(originalRequest.getTopicId(), originalRequest.isTransactional(),
-          originalRequest.getTransactionWritePointer());
+          originalRequest.getTransactionWritePointer(), originalRequest.getPartitionKey());
     this.originalRequest = originalRequest;
     this.metadata = topicMetadata;
   }
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.proto.id.TopicId;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides per topic notification of messages being persisted. Each topic has a version number that gets
+ * incremented on every persist, which allows a reader to wait for new messages without missing notifications
+ * that happen between a fetch and the wait.
+ */
+@ThreadSafe
+final class PublishNotifier {
+
+  private final ConcurrentMap<TopicId, Signal> signals = new ConcurrentHashMap<>();
+
+  /**
+   * Notifies that new messages were persisted to the given topic.
+   */
+  void notifyPublished(TopicId topicId) {
+    getSignal(topicId).signal();
+  }
+
+  /**
+   * Returns the current version of the given topic. The version should be captured before fetching and used
+   * for the {@link #await(TopicId, long, long, TimeUnit)} call if the fetch returns nothing.
+   */
+  long getVersion(TopicId topicId) {
+    return getSignal(topicId).getVersion();
+  }
+
+  /**
+   * Waits until there are new messages persisted to the given topic after the given version.
+   *
+   * @param topicId the topic to wait for
+   * @param version the topic version as returned by {@link #getVersion(TopicId)}
+   * @param timeout the maximum time to wait
+   * @param unit unit of the timeout
+   * @return {@code true} if there are new messages persisted; {@code false} if timeout reached
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  boolean await(TopicId topicId, long version, long timeout, TimeUnit unit) throws InterruptedException {
+    return getSignal(topicId).await(version, unit.toNanos(timeout));
+  }
+
+  /**
+   * Removes the states for the given topic.
+   */
+  void remove(TopicId topicId) {
+    Signal signal = signals.remove(topicId);
+    if (signal != null) {
+      // Wakes up all waiting threads so that they can observe the topic deletion
+      signal.signal();
+    }
+  }
+
+  private Signal getSignal(TopicId topicId) {
+    return signals.computeIfAbsent(topicId, k -> new Signal());
+  }
+
+  /**
+   * A version counter that threads can wait on for changes.
+   */
+  private static final class Signal {
+
+    private long version;
+
+    synchronized long getVersion() {
+      return version;
+    }
+
+    synchronized void signal() {
+      version++;
+      notifyAll();
+    }
+
+    synchronized boolean await(long oldVersion, long timeoutNanos) throws InterruptedException {
+      long deadline = System.nanoTime() + timeoutNanos;
+      long remaining = timeoutNanos;
+      while (version == oldVersion && remaining > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+      return version != oldVersion;
+    }
+  }
+}
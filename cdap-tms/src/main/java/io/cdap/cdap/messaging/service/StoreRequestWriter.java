@@ -46,6 +46,9 @@ abstract class StoreRequestWriter<T> implements Closeable {
   static final int SEQUENCE_ID_LIMIT = 0x10000;
 
   private final TimeProvider timeProvider;
+  private final int partition;
+  private final int partitions;
+  private volatile long inflightTimestamp;
   private long writeTimestamp;
   private long lastWriteTimestamp;
   private int seqId;
@@ -60,19 +63,61 @@ abstract class StoreRequestWriter<T> implements Closeable {
    *                                 a {@link PendingStoreRequest} has an empty iterator of payload.
    */
   StoreRequestWriter(TimeProvider timeProvider, boolean generateNullPayloadEntry) {
+    this(timeProvider, generateNullPayloadEntry, 0, 1);
+  }
+
+  /**
+   * Constructor for writing to one partition of a partitioned topic. Writers of different partitions of the same
+   * topic share the same sequence id space by interleaving, with this writer only generating sequence ids that are
+   * congruent to {@code partition} modulo {@code partitions}. This guarantees writers of different partitions
+   * never generate the same message id.
+   *
+   * @param timeProvider the {@link TimeProvider} for generating timestamp to be used for write timestamp
+   * @param generateNullPayloadEntry {@code true} to generate table entry with {@code null} payload if
+   *                                 a {@link PendingStoreRequest} has an empty iterator of payload.
+   * @param partition the partition that this writer writes to
+   * @param partitions the total number of partitions of the topic
+   */
+  StoreRequestWriter(TimeProvider timeProvider, boolean generateNullPayloadEntry, int partition, int partitions) {
     this.timeProvider = timeProvider;
     this.payloadTransformIterator = new PayloadTransformIterator(generateNullPayloadEntry);
+    this.partition = partition;
+    this.partitions = partitions;
+    this.seqId = partition;
+    this.inflightTimestamp = Long.MAX_VALUE;
   }
 
   /**
    * Writes the given list of {@link PendingStoreRequest} through this writer.
    */
   final void write(final Iterator<? extends PendingStoreRequest> requests) throws IOException {
-    // Make sure we start with the current timestamp
-    updateTimeSequence();
+    // Publish a lower bound of the write timestamps before acquiring one, so that readers merging partitions
+    // can tell which messages can still be written concurrently. Timestamps never go backward,
+    // hence the last write timestamp is a lower bound.
+    inflightTimestamp = lastWriteTimestamp;
+    try {
+      // Make sure we start with the current timestamp
+      updateTimeSequence();
+      doWrite(createEntryIterator(requests));
+    } finally {
+      inflightTimestamp = Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Returns the lower bound of the publish timestamps of the write currently in progress, or
+   * {@link Long#MAX_VALUE} if there is no write in progress. This method is safe to be called from any thread.
+   */
+  final long getInflightTimestamp() {
+    return inflightTimestamp;
+  }
 
+  /**
+   * Creates an {@link Iterator} that transforms payloads in the given requests into entries to be written.
+   */
+  private Iterator<T> createEntryIterator(final Iterator<? extends PendingStoreRequest> requests) {
     // Transform payloads inside each PendingStoreRequest into individual write entry
-    doWrite(new AbstractIterator<T>() {
+    return new AbstractIterator<T>() {
       private PendingStoreRequest currentRequest;
 
       @Override
@@ -92,7 +137,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
         }
         return payloadTransformIterator.hasNext() ? payloadTransformIterator.next() : endOfData();
       }
-    });
+    };
   }
 
   /**
@@ -119,7 +164,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
    * sequence id will get reset to 0.
    */
   private void incrementSequenceId() {
-    seqId++;
+    seqId += partitions;
     if (seqId >= SEQUENCE_ID_LIMIT) {
       updateTimeSequence();
     }
@@ -139,7 +184,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
 
     if (writeTimestamp != lastWriteTimestamp) {
       lastWriteTimestamp = writeTimestamp;
-      seqId = 0;
+      seqId = partition;
     }
   }
 
@@ -61,6 +61,11 @@ public class CachingTableFactory extends ForwardingTableFactory {
   @Override
   public MessageTable createMessageTable(TopicMetadata topicMetadata) throws IOException {
     MessageTable messageTable = delegateTableFactory.createMessageTable(topicMetadata);
+    // The MessageCache requires entries to be added in order, which cannot be guaranteed
+    // when multiple partitions of the same topic are written concurrently.
+    if (topicMetadata.getPartitions() > 1) {
+      return messageTable;
+    }
     return new CachingMessageTable(cConf, messageTable, cacheProvider);
   }
 
@@ -99,6 +99,18 @@ public final class LevelDBTableFactory implements TableFactory {
     return metadataTable;
   }
 
+  /**
+   * Returns an iterator of {@link TopicMetadata} of all the topics in the metadata table, including the ones that
+   * were deleted.
+   *
+   * @return {@link CloseableIterator} of {@link TopicMetadata}
+   * @throws IOException if failed to scan topics
+   */
+  public CloseableIterator<TopicMetadata> scanTopics() throws IOException {
+    createMetadataTable();
+    return metadataTable.scanTopics();
+  }
+
   @Override
   public MessageTable createMessageTable(TopicMetadata topicMetadata) throws IOException {
     return new LevelDBMessageTable(getLevelDB(topicMetadata, messageTableName), topicMetadata);
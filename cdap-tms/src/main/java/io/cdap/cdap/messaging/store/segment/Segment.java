@@ -0,0 +1,351 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A single memory-mapped file of a {@link SegmentLog}. Each record in the file is stored as a 4 bytes length and a
+ * 4 bytes CRC32 checksum of the record bytes, followed by the record bytes, which always starts with a fixed size
+ * key. A zero length marks the end of data. The checksum is used for detecting records that were partially written
+ * to disk before a crash.
+ *
+ * Writes are performed by one thread at a time, as guarded by the {@link SegmentLog}. Readers only read
+ * records below the committed size, hence can read concurrently without locking. Writes go to the memory-mapped
+ * file, hence survive a crash of the process, and are only forced to the disk by {@link #flush()}.
+ */
+@ThreadSafe
+final class Segment implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Segment.class);
+
+  static final String FILE_SUFFIX = ".seg";
+  // Size of the length and the checksum before each record
+  static final int HEADER_SIZE = Bytes.SIZEOF_INT * 2;
+
+  private final long id;
+  private final File file;
+  private final int keySize;
+  private final int timestampOffset;
+  private final int indexIntervalBytes;
+  private final long createTime;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final ConcurrentNavigableMap<byte[], Integer> index;
+
+  private volatile int size;
+  private volatile long maxTimestamp;
+  private volatile byte[] firstKey;
+  private int writePosition;
+  private int lastIndexedPosition;
+  private boolean sealed;
+  private boolean dirty;
+
+  /**
+   * Creates a new {@link Segment} file that can hold records up to the given capacity.
+   */
+  static Segment create(File dir, long id, int capacity, int keySize,
+                        int timestampOffset, int indexIntervalBytes) throws IOException {
+    File file = new File(dir, getFileName(id));
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                                           StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      return new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity),
+                         keySize, timestampOffset, indexIntervalBytes, System.currentTimeMillis());
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens an existing {@link Segment} file and recovers the records in it. The returned segment is sealed
+   * and no more records can be appended to it.
+   */
+  static Segment open(File file, long id, int keySize, int timestampOffset, int indexIntervalBytes) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      long length = channel.size();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Segment file " + file + " is too large");
+      }
+      Segment segment = new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length),
+                                    keySize, timestampOffset, indexIntervalBytes, file.lastModified());
+      segment.recover();
+      return segment;
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the id of the segment encoded in the given file name or {@code -1} if the file is not a segment file.
+   */
+  static long getId(String fileName) {
+    if (!fileName.endsWith(FILE_SUFFIX)) {
+      return -1L;
+    }
+    try {
+      return Long.parseLong(fileName.substring(0, fileName.length() - FILE_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  private static String getFileName(long id) {
+    return String.format("%020d%s", id, FILE_SUFFIX);
+  }
+
+  private Segment(long id, File file, FileChannel channel, MappedByteBuffer buffer, int keySize,
+                  int timestampOffset, int indexIntervalBytes, long createTime) {
+    this.id = id;
+    this.file = file;
+    this.channel = channel;
+    this.buffer = buffer;
+    this.keySize = keySize;
+    this.timestampOffset = timestampOffset;
+    this.indexIntervalBytes = indexIntervalBytes;
+    this.createTime = createTime;
+    this.index = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    this.maxTimestamp = Long.MIN_VALUE;
+  }
+
+  long getId() {
+    return id;
+  }
+
+  long getCreateTime() {
+    return createTime;
+  }
+
+  /**
+   * Returns the number of bytes of committed records in this segment.
+   */
+  int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the largest timestamp of the committed records in this segment,
+   * or {@link Long#MIN_VALUE} if the segment is empty.
+   */
+  long getMaxTimestamp() {
+    return maxTimestamp;
+  }
+
+  /**
+   * Returns the key of the first record in this segment or {@code null} if the segment is empty.
+   */
+  @Nullable
+  byte[] getFirstKey() {
+    return firstKey;
+  }
+
+  /**
+   * Returns the offset of the closest indexed record that has key smaller than or equal to the given key.
+   * Only meaningful if records are appended in increasing key order.
+   */
+  int getIndexedOffset(byte[] key) {
+    Map.Entry<byte[], Integer> entry = index.floorEntry(key);
+    return entry == null ? 0 : entry.getValue();
+  }
+
+  /**
+   * Returns a new {@link ByteBuffer} for reading records from this segment.
+   */
+  ByteBuffer newReadBuffer() {
+    return buffer.duplicate();
+  }
+
+  /**
+   * Returns {@code true} if a batch of the given size can be appended to this segment.
+   */
+  boolean canAppend(int batchSize) {
+    return !sealed && writePosition + batchSize <= buffer.capacity();
+  }
+
+  /**
+   * Appends a batch of encoded records to this segment and commits it to make it visible to readers.
+   *
+   * @param batch the encoded records
+   * @return the offset in the segment where the batch was written to
+   */
+  int append(ByteBuffer batch) {
+    int offset = writePosition;
+    int end = offset + batch.remaining();
+
+    // Write the whole batch, followed by updating the index and the timestamp
+    ByteBuffer writeBuffer = buffer.duplicate();
+    writeBuffer.position(offset);
+    writeBuffer.put(batch);
+
+    long timestamp = maxTimestamp;
+    int position = offset;
+    while (position < end) {
+      int length = buffer.getInt(position);
+      buffer.putInt(position + Bytes.SIZEOF_INT, checksum(position, length));
+      timestamp = Math.max(timestamp, indexRecord(position));
+      position += HEADER_SIZE + length;
+    }
+
+    dirty = true;
+    writePosition = end;
+    maxTimestamp = timestamp;
+    size = end;
+    return offset;
+  }
+
+  /**
+   * Updates a long value inside an existing record in this segment. This is used for updating
+   * a fixed size field of the record.
+   *
+   * @param position position of the record in this segment
+   * @param offset offset inside the record, with {@code 0} being the start of the key
+   * @param value the value to write
+   */
+  void putLong(int position, int offset, long value) {
+    buffer.putLong(position + HEADER_SIZE + offset, value);
+    buffer.putInt(position + Bytes.SIZEOF_INT, checksum(position, buffer.getInt(position)));
+    dirty = true;
+  }
+
+  /**
+   * Forces the records written to this segment since the last flush to the disk.
+   */
+  void flush() {
+    if (dirty) {
+      dirty = false;
+      buffer.force();
+    }
+  }
+
+  /**
+   * Seals this segment so that no more records can be appended to it. Unused space in the file will be released.
+   */
+  void seal() throws IOException {
+    if (sealed) {
+      return;
+    }
+    sealed = true;
+    flush();
+    if (channel.isOpen()) {
+      channel.truncate(writePosition);
+    }
+  }
+
+  /**
+   * Closes and deletes the segment file. Readers that are still reading this segment are unaffected.
+   */
+  void delete() throws IOException {
+    close();
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      seal();
+    } finally {
+      // Closing the channel doesn't unmap the buffer, hence it is safe for concurrent readers
+      channel.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Segment{file=" + file + ", size=" + size + "}";
+  }
+
+  /**
+   * Scans the records in the file to recover the size, index and timestamps.
+   * Partially written records at the end, which don't match their checksum, are discarded.
+   */
+  private void recover() throws IOException {
+    int capacity = buffer.capacity();
+    int position = 0;
+    long timestamp = Long.MIN_VALUE;
+    while (position + HEADER_SIZE <= capacity) {
+      int length = buffer.getInt(position);
+      if (length < keySize || length > capacity - position - HEADER_SIZE) {
+        break;
+      }
+      if (buffer.getInt(position + Bytes.SIZEOF_INT) != checksum(position, length)) {
+        LOG.warn("Discarding corrupted records in segment file {} starting from offset {}", file, position);
+        break;
+      }
+      timestamp = Math.max(timestamp, indexRecord(position));
+      position += HEADER_SIZE + length;
+    }
+    writePosition = position;
+    maxTimestamp = timestamp;
+    size = position;
+    seal();
+  }
+
+  /**
+   * Updates the sparse index with the record at the given position.
+   *
+   * @return the timestamp of the record
+   */
+  private long indexRecord(int position) {
+    if (firstKey == null || (indexIntervalBytes > 0 && position - lastIndexedPosition >= indexIntervalBytes)) {
+      byte[] key = new byte[keySize];
+      ByteBuffer keyBuffer = buffer.duplicate();
+      keyBuffer.position(position + HEADER_SIZE);
+      keyBuffer.get(key);
+
+      if (firstKey == null) {
+        firstKey = key;
+      }
+      if (indexIntervalBytes > 0) {
+        index.put(key, position);
+      }
+      lastIndexedPosition = position;
+    }
+    return buffer.getLong(position + HEADER_SIZE + timestampOffset);
+  }
+
+  /**
+   * Computes the checksum of the bytes of the record at the given position.
+   */
+  private int checksum(int position, int length) {
+    ByteBuffer recordBuffer = buffer.duplicate();
+    recordBuffer.position(position + HEADER_SIZE);
+    recordBuffer.limit(position + HEADER_SIZE + length);
+    CRC32 crc = new CRC32();
+    crc.update(recordBuffer);
+    return (int) crc.getValue();
+  }
+}
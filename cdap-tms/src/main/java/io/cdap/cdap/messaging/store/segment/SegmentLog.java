@@ -0,0 +1,366 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An append-only log of records stored in a directory of memory-mapped {@link Segment} files. Each record starts
+ * with a fixed size key, which contains a timestamp at a fixed offset. A new segment is started when the current
+ * one is full or has been opened for longer than the roll interval, and old data is removed by deleting whole
+ * segments, which avoids scanning and deleting individual records.
+ *
+ * Records are appended in batches. A batch is always written to a single segment and becomes visible to readers
+ * atomically. Appended records are forced to the disk either on every append, or by calling {@link #flush()}
+ * periodically, which trades the durability of the most recent records on an operating system crash for a
+ * higher append throughput.
+ */
+@ThreadSafe
+final class SegmentLog implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentLog.class);
+
+  private final File dir;
+  private final int keySize;
+  private final int timestampOffset;
+  private final int maxSegmentSize;
+  private final long rollIntervalMillis;
+  private final int indexIntervalBytes;
+  private final boolean flushOnAppend;
+  private final ConcurrentNavigableMap<Long, Segment> segments;
+
+  private Segment activeSegment;
+  private long nextSegmentId;
+  private boolean closed;
+
+  /**
+   * Creates a new instance and recovers existing segments in the given directory.
+   *
+   * @param dir the directory for storing the segment files
+   * @param keySize size of the key in bytes of each record
+   * @param timestampOffset the offset of the timestamp inside the key
+   * @param maxSegmentSize the maximum size in bytes of each segment file
+   * @param rollIntervalMillis the maximum time in milliseconds that a segment can be appended to
+   * @param indexIntervalBytes the minimum number of bytes between two records in the sparse index. If it is
+   *                           {@code 0}, there will be no sparse index
+   * @param flushOnAppend {@code true} to force records to the disk on every append, or {@code false} if
+   *                      {@link #flush()} is called periodically
+   * @throws IOException if failed to open existing segments
+   */
+  SegmentLog(File dir, int keySize, int timestampOffset, int maxSegmentSize,
+             long rollIntervalMillis, int indexIntervalBytes, boolean flushOnAppend) throws IOException {
+    this.dir = dir;
+    this.keySize = keySize;
+    this.timestampOffset = timestampOffset;
+    this.maxSegmentSize = maxSegmentSize;
+    this.rollIntervalMillis = rollIntervalMillis;
+    this.indexIntervalBytes = indexIntervalBytes;
+    this.flushOnAppend = flushOnAppend;
+    this.segments = new ConcurrentSkipListMap<>();
+
+    if (!DirUtils.mkdirs(dir)) {
+      throw new IOException("Failed to create local directory " + dir + " for the messaging system.");
+    }
+    for (File file : DirUtils.listFiles(dir)) {
+      long id = Segment.getId(file.getName());
+      if (id < 0) {
+        continue;
+      }
+      nextSegmentId = Math.max(nextSegmentId, id + 1);
+      if (file.length() == 0) {
+        Files.delete(file.toPath());
+        continue;
+      }
+      segments.put(id, Segment.open(file, id, keySize, timestampOffset, indexIntervalBytes));
+    }
+  }
+
+  /**
+   * Appends a batch of records to the log. The batch will be visible to readers when this method returns.
+   *
+   * @param batch the {@link Batch} containing the records to append
+   * @return the position of the first record in the batch. Position of the other records in the batch can be
+   *         computed by adding the offset of the record relative to the batch start.
+   * @throws IOException if failed to append
+   */
+  synchronized long append(Batch batch) throws IOException {
+    if (closed) {
+      throw new IOException("Segment log " + dir + " is already closed");
+    }
+    ByteBuffer buffer = batch.getBuffer();
+    int batchSize = buffer.remaining();
+    if (batchSize == 0) {
+      return -1L;
+    }
+    long now = System.currentTimeMillis();
+    if (activeSegment == null || !activeSegment.canAppend(batchSize)
+      || (activeSegment.getSize() > 0 && now - activeSegment.getCreateTime() >= rollIntervalMillis)) {
+      roll(batchSize);
+    }
+    int offset = activeSegment.append(buffer);
+    if (flushOnAppend) {
+      activeSegment.flush();
+    }
+    return toPosition(activeSegment.getId(), offset);
+  }
+
+  /**
+   * Updates a long value inside a record.
+   *
+   * @param position position of the record as returned by {@link Scanner#getPosition()}
+   * @param offset offset inside the record, with {@code 0} being the start of the key
+   * @param value the value to write
+   */
+  synchronized void putLong(long position, int offset, long value) {
+    Segment segment = segments.get(getSegmentId(position));
+    if (segment != null) {
+      segment.putLong(getOffset(position), offset, value);
+      if (flushOnAppend) {
+        segment.flush();
+      }
+    }
+  }
+
+  /**
+   * Forces the records appended or updated since the last flush to the disk.
+   */
+  synchronized void flush() {
+    if (closed) {
+      return;
+    }
+    // Only the active segment and the segments that records got updated in can have data not flushed
+    for (Segment segment : segments.values()) {
+      segment.flush();
+    }
+  }
+
+  /**
+   * Returns a {@link Scanner} that starts from the record at the given position.
+   * If the segment of the given position no longer exists, scanning starts at the next available segment.
+   */
+  Scanner scan(long position) {
+    Map.Entry<Long, Segment> entry = segments.ceilingEntry(getSegmentId(position));
+    if (entry == null) {
+      return new Scanner(null, 0);
+    }
+    Segment segment = entry.getValue();
+    return new Scanner(segment, segment.getId() == getSegmentId(position) ? getOffset(position) : 0);
+  }
+
+  /**
+   * Returns a {@link Scanner} that starts from a record that has key smaller than or equal to the given key.
+   * The log must be appended in increasing key order for the seek to be correct.
+   *
+   * @param key the key to seek to or {@code null} to start from the beginning of the log
+   */
+  Scanner seek(@Nullable byte[] key) {
+    Segment startSegment = null;
+    for (Segment segment : segments.values()) {
+      byte[] firstKey = segment.getFirstKey();
+      if (startSegment != null && (key == null || firstKey == null || Bytes.compareTo(firstKey, key) > 0)) {
+        break;
+      }
+      startSegment = segment;
+    }
+    if (startSegment == null || key == null) {
+      return new Scanner(startSegment, 0);
+    }
+    return new Scanner(startSegment, startSegment.getIndexedOffset(key));
+  }
+
+  /**
+   * Deletes all segments that only contain records with timestamp smaller than the given timestamp.
+   *
+   * @param timestamp the timestamp to compare with
+   * @return the id of the oldest segment remaining
+   */
+  synchronized long deleteBefore(long timestamp) {
+    for (Segment segment : segments.values()) {
+      if (segment.getSize() == 0 || segment.getMaxTimestamp() >= timestamp) {
+        return segment.getId();
+      }
+      segments.remove(segment.getId());
+      if (segment == activeSegment) {
+        activeSegment = null;
+      }
+      try {
+        segment.delete();
+        LOG.debug("Deleted expired segment {}", segment);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete segment {}", segment, e);
+      }
+    }
+    return nextSegmentId;
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    activeSegment = null;
+    for (Segment segment : segments.values()) {
+      try {
+        segment.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close segment {}", segment, e);
+      }
+    }
+  }
+
+  /**
+   * Starts a new segment that has space for at least the given batch size.
+   */
+  private void roll(int batchSize) throws IOException {
+    if (activeSegment != null) {
+      activeSegment.seal();
+    }
+    Segment segment = Segment.create(dir, nextSegmentId++, Math.max(maxSegmentSize, batchSize),
+                                     keySize, timestampOffset, indexIntervalBytes);
+    segments.put(segment.getId(), segment);
+    activeSegment = segment;
+  }
+
+  static long getSegmentId(long position) {
+    return position >>> 32;
+  }
+
+  private static int getOffset(long position) {
+    return (int) position;
+  }
+
+  private static long toPosition(long segmentId, int offset) {
+    return (segmentId << 32) | offset;
+  }
+
+  /**
+   * A buffer for encoding a batch of records before appending them to the {@link SegmentLog}.
+   */
+  static final class Batch {
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    /**
+     * Starts a new record of the given size, which includes the key.
+     *
+     * @return a {@link ByteBuffer} for writing the record, starting with the key. Exactly {@code size} bytes must
+     *         be written to it before starting the next record
+     */
+    ByteBuffer addRecord(int size) {
+      int required = Segment.HEADER_SIZE + size;
+      if (buffer.remaining() < required) {
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < required) {
+          capacity = capacity << 1;
+        }
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+      }
+      // The checksum is computed when the batch is appended to a segment
+      return buffer.putInt(size).putInt(0);
+    }
+
+    /**
+     * Returns the current size of the batch in bytes, which is also the offset of the next record relative to
+     * the start of the batch.
+     */
+    int size() {
+      return buffer.position();
+    }
+
+    private ByteBuffer getBuffer() {
+      ByteBuffer result = buffer.duplicate();
+      result.flip();
+      return result;
+    }
+  }
+
+  /**
+   * A scanner over records in the log. Each returned {@link ByteBuffer} contains a single record, starting with
+   * the key. The buffer is only valid until the next call to {@link #next()}.
+   */
+  final class Scanner extends AbstractCloseableIterator<ByteBuffer> {
+
+    private Segment segment;
+    private ByteBuffer readBuffer;
+    private int offset;
+    private long position;
+
+    private Scanner(@Nullable Segment segment, int offset) {
+      this.segment = segment;
+      this.readBuffer = segment == null ? null : segment.newReadBuffer();
+      this.offset = offset;
+    }
+
+    /**
+     * Returns the position of the record last returned by {@link #next()}.
+     */
+    long getPosition() {
+      return position;
+    }
+
+    @Override
+    protected ByteBuffer computeNext() {
+      while (segment != null) {
+        if (offset < segment.getSize()) {
+          readBuffer.clear();
+          int length = readBuffer.getInt(offset);
+          readBuffer.limit(offset + Segment.HEADER_SIZE + length);
+          readBuffer.position(offset + Segment.HEADER_SIZE);
+          position = toPosition(segment.getId(), offset);
+          offset += Segment.HEADER_SIZE + length;
+          return readBuffer;
+        }
+
+        // Move to the next segment. A segment is sealed before the next one is added, hence if there is a next
+        // segment, re-reading the size of the current segment makes sure no record is skipped.
+        Map.Entry<Long, Segment> next = segments.higherEntry(segment.getId());
+        if (next == null) {
+          break;
+        }
+        if (offset < segment.getSize()) {
+          continue;
+        }
+        segment = next.getValue();
+        readBuffer = segment.newReadBuffer();
+        offset = 0;
+      }
+      return endOfData();
+    }
+
+    @Override
+    public void close() {
+      segment = null;
+      readBuffer = null;
+    }
+  }
+}
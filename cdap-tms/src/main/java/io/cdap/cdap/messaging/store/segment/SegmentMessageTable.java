@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.base.Preconditions;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.store.AbstractMessageTable;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.messaging.store.RawMessageTableEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+
+/**
+ * Segment file implementation of {@link MessageTable}. Each record in the {@link SegmentLog} is encoded as
+ *
+ * <pre>
+ * [publish timestamp (8 bytes)][sequence id (2 bytes)][type (1 byte)][tx write pointer (8 bytes)][payload]
+ * </pre>
+ *
+ * The topic prefix of the row key is not stored since each topic generation has its own log. Since messages
+ * are always appended in increasing publish timestamp and sequence id order, the log is sorted by the row key.
+ */
+final class SegmentMessageTable extends AbstractMessageTable {
+
+  static final int KEY_SIZE = Bytes.SIZEOF_LONG + Bytes.SIZEOF_SHORT;
+  private static final int TX_PTR_OFFSET = KEY_SIZE + 1;
+  private static final int HEADER_SIZE = TX_PTR_OFFSET + Bytes.SIZEOF_LONG;
+
+  private static final byte NON_TRANSACTIONAL = 0;
+  private static final byte TRANSACTIONAL = 1;
+  private static final byte PAYLOAD_REFERENCE = 2;
+
+  private final SegmentLog log;
+  private final byte[] topicPrefix;
+  private byte[] lastKey;
+
+  SegmentMessageTable(SegmentLog log, TopicMetadata topicMetadata) {
+    this.log = log;
+    this.topicPrefix = MessagingUtils.toDataKeyPrefix(topicMetadata.getTopicId(), topicMetadata.getGeneration());
+  }
+
+  @Override
+  protected CloseableIterator<RawMessageTableEntry> read(byte[] startRow, byte[] stopRow) {
+    SegmentLog.Scanner scanner = log.seek(toKey(startRow));
+    byte[] rowKey = Arrays.copyOf(topicPrefix, topicPrefix.length + KEY_SIZE);
+    RawMessageTableEntry tableEntry = new RawMessageTableEntry();
+
+    return new AbstractCloseableIterator<RawMessageTableEntry>() {
+      private boolean closed;
+
+      @Override
+      protected RawMessageTableEntry computeNext() {
+        while (!closed && scanner.hasNext()) {
+          ByteBuffer record = scanner.next();
+          record.get(rowKey, topicPrefix.length, KEY_SIZE);
+          if (Bytes.compareTo(rowKey, startRow) < 0) {
+            continue;
+          }
+          if (Bytes.compareTo(rowKey, stopRow) >= 0) {
+            break;
+          }
+
+          byte type = record.get();
+          byte[] txPtr = null;
+          if (type != NON_TRANSACTIONAL) {
+            txPtr = new byte[Bytes.SIZEOF_LONG];
+            record.get(txPtr);
+          } else {
+            record.position(record.position() + Bytes.SIZEOF_LONG);
+          }
+          byte[] payload = null;
+          if (type != PAYLOAD_REFERENCE) {
+            payload = new byte[record.remaining()];
+            record.get(payload);
+          }
+          return tableEntry.set(rowKey, txPtr, payload);
+        }
+        return endOfData();
+      }
+
+      @Override
+      public void close() {
+        try {
+          scanner.close();
+        } finally {
+          endOfData();
+          closed = true;
+        }
+      }
+    };
+  }
+
+  @Override
+  protected synchronized void persist(Iterator<RawMessageTableEntry> entries) throws IOException {
+    SegmentLog.Batch batch = new SegmentLog.Batch();
+    byte[] previousKey = lastKey;
+    byte[] key = null;
+
+    while (entries.hasNext()) {
+      RawMessageTableEntry entry = entries.next();
+      byte[] rowKey = entry.getKey();
+      // Entries of other topics would never be read through this table
+      if (!Bytes.startsWith(rowKey, topicPrefix)) {
+        continue;
+      }
+
+      byte[] txPtr = entry.getTxPtr();
+      byte[] payload = entry.getPayload();
+      byte type = txPtr == null ? NON_TRANSACTIONAL : payload == null ? PAYLOAD_REFERENCE : TRANSACTIONAL;
+      // For non-tx message, payload cannot be null
+      Preconditions.checkArgument(txPtr != null || payload != null,
+                                  "Payload cannot be null for non-transactional message");
+
+      key = Arrays.copyOfRange(rowKey, topicPrefix.length, rowKey.length);
+      if (previousKey != null && Bytes.compareTo(previousKey, key) >= 0) {
+        throw new IllegalArgumentException("Messages must be stored in increasing publish timestamp and " +
+                                             "sequence id order");
+      }
+      previousKey = key;
+
+      ByteBuffer buffer = batch.addRecord(HEADER_SIZE + (payload == null ? 0 : payload.length));
+      buffer.put(key).put(type);
+      if (txPtr == null) {
+        buffer.putLong(0L);
+      } else {
+        buffer.put(txPtr);
+      }
+      if (payload != null) {
+        buffer.put(payload);
+      }
+    }
+
+    log.append(batch);
+    if (key != null) {
+      lastKey = key;
+    }
+  }
+
+  @Override
+  protected void rollback(byte[] startKey, byte[] stopKey, byte[] txWritePointer) throws IOException {
+    long txPtr = Bytes.toLong(txWritePointer);
+    byte[] rowKey = Arrays.copyOf(topicPrefix, topicPrefix.length + KEY_SIZE);
+
+    try (SegmentLog.Scanner scanner = log.seek(toKey(startKey))) {
+      while (scanner.hasNext()) {
+        ByteBuffer record = scanner.next();
+        record.get(rowKey, topicPrefix.length, KEY_SIZE);
+        if (Bytes.compareTo(rowKey, startKey) < 0) {
+          continue;
+        }
+        if (Bytes.compareTo(rowKey, stopKey) >= 0) {
+          break;
+        }
+        // Only transactional messages can be rolled back
+        if (record.get() != NON_TRANSACTIONAL) {
+          log.putLong(scanner.getPosition(), TX_PTR_OFFSET, txPtr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes segments that only contain messages published before the given time.
+   */
+  void deleteBefore(long timestamp) {
+    log.deleteBefore(timestamp);
+  }
+
+  /**
+   * Forces the data written to the underlying log to the disk.
+   */
+  void flushLog() {
+    log.flush();
+  }
+
+  /**
+   * Closes the underlying log. The table cannot be used after this method returns.
+   */
+  void closeLog() {
+    log.close();
+  }
+
+  @Override
+  public void close() {
+    // This method has to be an no-op instead of closing the underlying log
+    // This is because a given log instance is shared within the same JVM
+  }
+
+  /**
+   * Returns the log key for seeking to the given row key or {@code null} if seeking should start from
+   * the beginning of the log.
+   */
+  @Nullable
+  private byte[] toKey(byte[] row) {
+    if (row.length <= topicPrefix.length || !Bytes.startsWith(row, topicPrefix)) {
+      return null;
+    }
+    return Arrays.copyOfRange(row, topicPrefix.length, row.length);
+  }
+}
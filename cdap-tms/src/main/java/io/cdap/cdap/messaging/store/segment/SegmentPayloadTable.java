@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.store.AbstractPayloadTable;
+import io.cdap.cdap.messaging.store.PayloadTable;
+import io.cdap.cdap.messaging.store.RawPayloadTableEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Segment file implementation of {@link PayloadTable}. Each record in the {@link SegmentLog} is encoded as
+ *
+ * <pre>
+ * [tx write pointer (8 bytes)][write timestamp (8 bytes)][sequence id (2 bytes)][payload]
+ * </pre>
+ *
+ * Payloads of different transactions are interleaved in the log, hence the log is not sorted by the row key.
+ * Instead, an in memory index from transaction write pointer to the runs of consecutive records of the
+ * transaction is maintained. The index is rebuilt by scanning the log when the table is opened.
+ */
+final class SegmentPayloadTable extends AbstractPayloadTable {
+
+  static final int KEY_SIZE = 2 * Bytes.SIZEOF_LONG + Bytes.SIZEOF_SHORT;
+  static final int TIMESTAMP_OFFSET = Bytes.SIZEOF_LONG;
+
+  private final SegmentLog log;
+  private final byte[] topicPrefix;
+  private final ConcurrentMap<Long, List<Run>> runs;
+
+  SegmentPayloadTable(SegmentLog log, TopicMetadata topicMetadata) {
+    this.log = log;
+    this.topicPrefix = MessagingUtils.toDataKeyPrefix(topicMetadata.getTopicId(), topicMetadata.getGeneration());
+    this.runs = new ConcurrentHashMap<>();
+
+    // Rebuild the index from the existing records
+    try (SegmentLog.Scanner scanner = log.scan(0L)) {
+      Run run = null;
+      while (scanner.hasNext()) {
+        long txWritePointer = scanner.next().getLong();
+        long position = scanner.getPosition();
+        if (run != null && run.txWritePointer == txWritePointer
+          && SegmentLog.getSegmentId(run.position) == SegmentLog.getSegmentId(position)) {
+          run.count++;
+        } else {
+          run = new Run(txWritePointer, position);
+          run.count = 1;
+          addRun(run);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected CloseableIterator<RawPayloadTableEntry> read(byte[] startRow, byte[] stopRow, int limit) {
+    List<Run> txRuns = runs.getOrDefault(Bytes.toLong(startRow, topicPrefix.length), Collections.emptyList());
+    Iterator<Run> runIterator = txRuns.iterator();
+    byte[] rowKey = Arrays.copyOf(topicPrefix, topicPrefix.length + KEY_SIZE);
+    RawPayloadTableEntry tableEntry = new RawPayloadTableEntry();
+
+    return new AbstractCloseableIterator<RawPayloadTableEntry>() {
+      private SegmentLog.Scanner scanner;
+      private int remaining;
+      private int maxLimit = limit;
+      private boolean closed;
+
+      @Override
+      protected RawPayloadTableEntry computeNext() {
+        while (!closed && maxLimit > 0) {
+          if (remaining <= 0 || !scanner.hasNext()) {
+            if (!runIterator.hasNext()) {
+              break;
+            }
+            Run run = runIterator.next();
+            if (scanner != null) {
+              scanner.close();
+            }
+            scanner = log.scan(run.position);
+            remaining = run.count;
+            continue;
+          }
+
+          ByteBuffer record = scanner.next();
+          remaining--;
+          record.get(rowKey, topicPrefix.length, KEY_SIZE);
+          // Records can be outside of the range if the segment of the run was deleted concurrently
+          if (Bytes.compareTo(rowKey, startRow) < 0 || Bytes.compareTo(rowKey, stopRow) >= 0) {
+            continue;
+          }
+          byte[] payload = new byte[record.remaining()];
+          record.get(payload);
+          maxLimit--;
+          return tableEntry.set(rowKey, payload);
+        }
+        return endOfData();
+      }
+
+      @Override
+      public void close() {
+        try {
+          if (scanner != null) {
+            scanner.close();
+          }
+        } finally {
+          endOfData();
+          closed = true;
+        }
+      }
+    };
+  }
+
+  @Override
+  protected synchronized void persist(Iterator<RawPayloadTableEntry> entries) throws IOException {
+    SegmentLog.Batch batch = new SegmentLog.Batch();
+    List<Run> batchRuns = new ArrayList<>();
+    Run run = null;
+
+    while (entries.hasNext()) {
+      RawPayloadTableEntry entry = entries.next();
+      byte[] rowKey = entry.getKey();
+      // Entries of other topics would never be read through this table
+      if (!Bytes.startsWith(rowKey, topicPrefix)) {
+        continue;
+      }
+
+      long txWritePointer = Bytes.toLong(rowKey, topicPrefix.length);
+      if (run == null || run.txWritePointer != txWritePointer) {
+        // Position is relative to the batch start until the batch is appended
+        run = new Run(txWritePointer, batch.size());
+        batchRuns.add(run);
+      }
+      run.count++;
+
+      byte[] value = entry.getValue();
+      batch.addRecord(KEY_SIZE + value.length)
+        .put(rowKey, topicPrefix.length, KEY_SIZE)
+        .put(value);
+    }
+
+    if (batchRuns.isEmpty()) {
+      return;
+    }
+    long position = log.append(batch);
+    for (Run batchRun : batchRuns) {
+      batchRun.position += position;
+      addRun(batchRun);
+    }
+  }
+
+  /**
+   * Deletes segments that only contain payloads written before the given time.
+   */
+  synchronized void deleteBefore(long timestamp) {
+    long segmentId = log.deleteBefore(timestamp);
+
+    // Remove runs in the deleted segments from the index
+    for (List<Run> txRuns : runs.values()) {
+      txRuns.removeIf(run -> SegmentLog.getSegmentId(run.position) < segmentId);
+    }
+    runs.values().removeIf(List::isEmpty);
+  }
+
+  /**
+   * Forces the data written to the underlying log to the disk.
+   */
+  void flushLog() {
+    log.flush();
+  }
+
+  /**
+   * Closes the underlying log. The table cannot be used after this method returns.
+   */
+  void closeLog() {
+    log.close();
+  }
+
+  @Override
+  public void close() {
+    // This method has to be an no-op instead of closing the underlying log
+    // This is because a given log instance is shared within the same JVM
+  }
+
+  private void addRun(Run run) {
+    runs.computeIfAbsent(run.txWritePointer, k -> new CopyOnWriteArrayList<>()).add(run);
+  }
+
+  /**
+   * Location of a run of consecutive records that belong to the same transaction.
+   */
+  private static final class Run {
+    private final long txWritePointer;
+    private long position;
+    private int count;
+
+    Run(long txWritePointer, long position) {
+      this.txWritePointer = txWritePointer;
+      this.position = position;
+    }
+  }
+}
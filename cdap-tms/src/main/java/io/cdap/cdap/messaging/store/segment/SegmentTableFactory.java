@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.messaging.store.MetadataTable;
+import io.cdap.cdap.messaging.store.PayloadTable;
+import io.cdap.cdap.messaging.store.TableFactory;
+import io.cdap.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TableFactory} for creating message and payload tables backed by append-only, memory-mapped segment
+ * files. Each topic generation has its own directory of segment files, and expired data is removed by deleting
+ * whole segments instead of scanning and deleting individual entries.
+ *
+ * The metadata table, as well as the message tables of partitioned topics, are provided by the
+ * {@link LevelDBTableFactory}, since entries of partitioned topics are not appended in row key order.
+ */
+public final class SegmentTableFactory implements TableFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentTableFactory.class);
+
+  private final LevelDBTableFactory levelDBTableFactory;
+  private final File baseDir;
+  private final String messageTableName;
+  private final String payloadTableName;
+  private final int maxSegmentSize;
+  private final long rollIntervalMillis;
+  private final int indexIntervalBytes;
+  private final long flushIntervalMillis;
+  private final ConcurrentMap<File, SegmentMessageTable> messageTables;
+  private final ConcurrentMap<File, SegmentPayloadTable> payloadTables;
+  private final ScheduledExecutorService executor;
+
+  @VisibleForTesting
+  @Inject
+  public SegmentTableFactory(CConfiguration cConf, LevelDBTableFactory levelDBTableFactory) {
+    this.levelDBTableFactory = levelDBTableFactory;
+    this.baseDir = new File(cConf.get(Constants.MessagingSystem.LOCAL_DATA_DIR), "segments");
+    this.messageTableName = cConf.get(Constants.MessagingSystem.MESSAGE_TABLE_NAME);
+    this.payloadTableName = cConf.get(Constants.MessagingSystem.PAYLOAD_TABLE_NAME);
+    this.maxSegmentSize = (int) Math.min(Integer.MAX_VALUE, cConf.getLong(
+      Constants.MessagingSystem.LOCAL_SEGMENT_MAX_SIZE_MB) * 1024 * 1024);
+    this.rollIntervalMillis = TimeUnit.SECONDS.toMillis(
+      cConf.getLong(Constants.MessagingSystem.LOCAL_SEGMENT_ROLL_INTERVAL_SECONDS));
+    this.indexIntervalBytes = cConf.getInt(Constants.MessagingSystem.LOCAL_SEGMENT_INDEX_INTERVAL_BYTES);
+    this.flushIntervalMillis = cConf.getLong(Constants.MessagingSystem.LOCAL_SEGMENT_FLUSH_INTERVAL_MS);
+    this.messageTables = new ConcurrentHashMap<>();
+    this.payloadTables = new ConcurrentHashMap<>();
+
+    this.executor = Executors.newScheduledThreadPool(
+      2, Threads.createDaemonThreadFactory("segment-tms-%d"));
+    executor.scheduleAtFixedRate(new DataCleanup(), 0L,
+                                 Long.parseLong(cConf.get(Constants.MessagingSystem.LOCAL_DATA_CLEANUP_FREQUENCY)),
+                                 TimeUnit.SECONDS);
+    if (flushIntervalMillis > 0) {
+      executor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public MetadataTable createMetadataTable() throws IOException {
+    return levelDBTableFactory.createMetadataTable();
+  }
+
+  @Override
+  public MessageTable createMessageTable(TopicMetadata topicMetadata) throws IOException {
+    if (topicMetadata.getPartitions() > 1) {
+      return levelDBTableFactory.createMessageTable(topicMetadata);
+    }
+
+    File dir = getDataDir(messageTableName, topicMetadata.getTopicId(), topicMetadata.getGeneration());
+    SegmentMessageTable table = messageTables.get(dir);
+    if (table != null) {
+      return table;
+    }
+
+    synchronized (this) {
+      // Check again to make sure no new instance was being created while this thread is acquiring the lock
+      table = messageTables.get(dir);
+      if (table != null) {
+        return table;
+      }
+      // Segments are rolled at least once per TTL so that expired messages can be deleted in a timely manner
+      SegmentLog log = new SegmentLog(dir, SegmentMessageTable.KEY_SIZE, 0, maxSegmentSize,
+                                      getRollIntervalMillis(topicMetadata), indexIntervalBytes,
+                                      flushIntervalMillis <= 0);
+      table = new SegmentMessageTable(log, topicMetadata);
+      messageTables.put(dir, table);
+    }
+
+    LOG.debug("Messaging segment message table created at {}", dir);
+    return table;
+  }
+
+  @Override
+  public PayloadTable createPayloadTable(TopicMetadata topicMetadata) throws IOException {
+    File dir = getDataDir(payloadTableName, topicMetadata.getTopicId(), topicMetadata.getGeneration());
+    SegmentPayloadTable table = payloadTables.get(dir);
+    if (table != null) {
+      return table;
+    }
+
+    synchronized (this) {
+      // Check again to make sure no new instance was being created while this thread is acquiring the lock
+      table = payloadTables.get(dir);
+      if (table != null) {
+        return table;
+      }
+      // The payload table is not sorted by key, hence no sparse index
+      SegmentLog log = new SegmentLog(dir, SegmentPayloadTable.KEY_SIZE, SegmentPayloadTable.TIMESTAMP_OFFSET,
+                                      maxSegmentSize, getRollIntervalMillis(topicMetadata), 0,
+                                      flushIntervalMillis <= 0);
+      table = new SegmentPayloadTable(log, topicMetadata);
+      payloadTables.put(dir, table);
+    }
+
+    LOG.debug("Messaging segment payload table created at {}", dir);
+    return table;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    synchronized (this) {
+      messageTables.values().forEach(SegmentMessageTable::closeLog);
+      messageTables.clear();
+      payloadTables.values().forEach(SegmentPayloadTable::closeLog);
+      payloadTables.clear();
+    }
+    levelDBTableFactory.close();
+  }
+
+  /**
+   * Forces the records written to all segment tables to the disk.
+   */
+  private void flush() {
+    try {
+      messageTables.values().forEach(SegmentMessageTable::flushLog);
+      payloadTables.values().forEach(SegmentPayloadTable::flushLog);
+    } catch (Exception e) {
+      LOG.warn("Failed to flush TMS segment tables", e);
+    }
+  }
+
+  private long getRollIntervalMillis(TopicMetadata topicMetadata) {
+    return Math.max(1L, Math.min(rollIntervalMillis, TimeUnit.SECONDS.toMillis(topicMetadata.getTTL())));
+  }
+
+  private File getDataDir(String tableName, TopicId topicId, int generation) {
+    String fileName = String.format("%s.%s.%s.%d", topicId.getNamespace(), tableName, topicId.getTopic(), generation);
+    return new File(baseDir, fileName);
+  }
+
+  /**
+   * Deletes the data of older generations and segments that have exceeded the topic TTL.
+   */
+  private class DataCleanup implements Runnable {
+
+    @Override
+    public void run() {
+      long now = System.currentTimeMillis();
+
+      try (CloseableIterator<TopicMetadata> metadataIterator = levelDBTableFactory.scanTopics()) {
+        while (metadataIterator.hasNext()) {
+          TopicMetadata metadata = metadataIterator.next();
+          TopicId topicId = metadata.getTopicId();
+          int currGeneration = metadata.getGeneration();
+
+          // We can safely remove all generations that are less than `cleanOlderThan`.
+          int cleanOlderThan = currGeneration < 0 ? currGeneration * -1 + 1 : currGeneration;
+          for (int olderGeneration = cleanOlderThan - 1; olderGeneration > 0; olderGeneration--) {
+            File messageDir = getDataDir(messageTableName, topicId, olderGeneration);
+            File payloadDir = getDataDir(payloadTableName, topicId, olderGeneration);
+            if (!messageDir.exists() && !payloadDir.exists()) {
+              break;
+            }
+            // We can safely close the logs as no one should be accessing them anymore
+            SegmentMessageTable messageTable = messageTables.remove(messageDir);
+            if (messageTable != null) {
+              messageTable.closeLog();
+            }
+            SegmentPayloadTable payloadTable = payloadTables.remove(payloadDir);
+            if (payloadTable != null) {
+              payloadTable.closeLog();
+            }
+            deleteDir(messageDir);
+            deleteDir(payloadDir);
+          }
+
+          if (currGeneration < 0) {
+            continue;
+          }
+
+          // Delete expired segments of the current generation
+          long expireTime = now - TimeUnit.SECONDS.toMillis(metadata.getTTL());
+          SegmentMessageTable messageTable = messageTables.get(getDataDir(messageTableName, topicId, currGeneration));
+          if (messageTable != null) {
+            messageTable.deleteBefore(expireTime);
+          }
+          SegmentPayloadTable payloadTable = payloadTables.get(getDataDir(payloadTableName, topicId, currGeneration));
+          if (payloadTable != null) {
+            payloadTable.deleteBefore(expireTime);
+          }
+        }
+      } catch (Exception e) {
+        LOG.debug("Unable to perform data cleanup in TMS segment tables", e);
+      }
+    }
+
+    private void deleteDir(File dir) throws IOException {
+      if (dir.exists()) {
+        LOG.info("Deleting directory: {}", dir);
+        DirUtils.deleteDirectoryContents(dir);
+      }
+    }
+  }
+}
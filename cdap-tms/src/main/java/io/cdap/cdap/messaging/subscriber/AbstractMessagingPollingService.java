@@ -30,6 +30,7 @@ import io.cdap.cdap.common.logging.Loggers;
 import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
 import io.cdap.cdap.common.service.RetryStrategy;
 import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.messaging.context.BlockingMessageFetcher;
 import io.cdap.cdap.messaging.data.MessageId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.slf4j.Logger;
@@ -39,6 +40,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.xml.ws.handler.MessageContext;
 
@@ -156,8 +158,7 @@ public abstract class AbstractMessagingPollingService<T> extends AbstractRetryab
     List<Message> messages = new ArrayList<>();
     LOG.trace("Fetching from topic '{}' with messageId '{}'", topicId, messageId);
     MessageFetcher messageFetcher = getMessagingContext().getMessageFetcher();
-    try (CloseableIterator<Message> iterator = messageFetcher.fetch(getTopicId().getNamespace(),
-                                                                    getTopicId().getTopic(), fetchSize, messageId)) {
+    try (CloseableIterator<Message> iterator = fetch(messageFetcher, messageId)) {
       while (iterator.hasNext() && state() == State.RUNNING) {
         messages.add(iterator.next());
       }
@@ -165,6 +166,20 @@ public abstract class AbstractMessagingPollingService<T> extends AbstractRetryab
     return messages;
   }
 
+  /**
+   * Fetches messages with the given {@link MessageFetcher}. If the fetcher supports waiting for new messages,
+   * the fetch waits up to the empty fetch delay instead of returning immediately when there is no message.
+   */
+  private CloseableIterator<Message> fetch(MessageFetcher messageFetcher,
+                                           @Nullable String messageId) throws TopicNotFoundException, IOException {
+    if (emptyFetchDelayMillis > 0 && messageFetcher instanceof BlockingMessageFetcher) {
+      return ((BlockingMessageFetcher) messageFetcher).fetch(getTopicId().getNamespace(), getTopicId().getTopic(),
+                                                             fetchSize, messageId,
+                                                             emptyFetchDelayMillis, TimeUnit.MILLISECONDS);
+    }
+    return messageFetcher.fetch(getTopicId().getNamespace(), getTopicId().getTopic(), fetchSize, messageId);
+  }
+
   /**
    * The method has the main logic to perform one fetch from TMS and process the fetched messages.
    *
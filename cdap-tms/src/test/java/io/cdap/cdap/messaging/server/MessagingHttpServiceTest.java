@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.messaging.server;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterators;
 import com.google.inject.AbstractModule;
@@ -60,9 +61,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -71,11 +75,13 @@ import java.util.stream.Collectors;
 @RunWith(Parameterized.class)
 public class MessagingHttpServiceTest {
 
-  @Parameterized.Parameters(name = "{index}: compressPayload = {0}")
+  @Parameterized.Parameters(name = "{index}: compressPayload = {0}, binaryFetch = {1}")
   public static Collection<Object[]> parameters() {
     return Arrays.asList(new Object[][]{
-      {false},
-      {true},
+      {false, false},
+      {false, true},
+      {true, false},
+      {true, true},
     });
   }
 
@@ -83,12 +89,14 @@ public class MessagingHttpServiceTest {
   public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
   private final boolean compressPayload;
+  private final boolean binaryFetch;
   private CConfiguration cConf;
   private MessagingHttpService httpService;
   private MessagingService client;
 
-  public MessagingHttpServiceTest(boolean compressPayload) {
+  public MessagingHttpServiceTest(boolean compressPayload, boolean binaryFetch) {
     this.compressPayload = compressPayload;
+    this.binaryFetch = binaryFetch;
   }
 
   @Before
@@ -117,7 +125,8 @@ public class MessagingHttpServiceTest {
 
     httpService = injector.getInstance(MessagingHttpService.class);
     httpService.startAndWait();
-    client = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class), compressPayload);
+    client = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class), compressPayload,
+                                        binaryFetch);
   }
 
   @After
@@ -640,4 +649,109 @@ public class MessagingHttpServiceTest {
                           .map(RawMessage::getPayload)
                           .map(Bytes::toString).collect(Collectors.toList()));
   }
+
+  @Test
+  public void testPartitionedTopic() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPartitionedTopic");
+    client.createTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 4));
+    Assert.assertEquals(4, client.getTopic(topicId).getPartitions());
+
+    // Publish messages with different partition keys, plus some without partition key
+    for (int i = 0; i < 10; i++) {
+      client.publish(StoreRequestBuilder.of(topicId).setPartitionKey("key" + (i % 5))
+                       .addPayload("key" + (i % 5) + ":" + i).build());
+    }
+    for (int i = 0; i < 5; i++) {
+      client.publish(StoreRequestBuilder.of(topicId).addPayload("nokey:" + i).build());
+    }
+
+    // Messages published in the current millisecond are only visible after the millisecond has passed
+    TimeUnit.MILLISECONDS.sleep(2);
+
+    // Fetching without partition should get all messages
+    List<String> allMessages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      iterator.forEachRemaining(message -> allMessages.add(Bytes.toString(message.getPayload())));
+    }
+    Assert.assertEquals(15, allMessages.size());
+
+    // Fetch from each partition. Messages with the same key should be in the same partition and
+    // each message should be in exactly one partition
+    Set<String> partitionMessages = new HashSet<>();
+    Map<String, Integer> keyPartitions = new HashMap<>();
+    for (int partition = 0; partition < 4; partition++) {
+      List<String> messages = new ArrayList<>();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).setPartition(partition).fetch()) {
+        iterator.forEachRemaining(message -> messages.add(Bytes.toString(message.getPayload())));
+      }
+      for (String message : messages) {
+        Assert.assertTrue(partitionMessages.add(message));
+        String key = message.substring(0, message.indexOf(':'));
+        if (!"nokey".equals(key)) {
+          Integer keyPartition = keyPartitions.putIfAbsent(key, partition);
+          Assert.assertTrue(keyPartition == null || keyPartition == partition);
+        }
+      }
+    }
+    Assert.assertEquals(new HashSet<>(allMessages), partitionMessages);
+
+    // Transactional publish is not supported for partitioned topic
+    try {
+      client.publish(StoreRequestBuilder.of(topicId).setTransaction(1L).addPayload("tx").build());
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    // The number of partitions cannot be changed
+    try {
+      client.updateTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 2));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testPollFetch() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPollFetch");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Fetching from an empty topic with poll timeout should wait and return nothing
+    Stopwatch stopwatch = new Stopwatch().start();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setPollTimeout(200, TimeUnit.MILLISECONDS).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.MILLISECONDS) >= 200);
+
+    // Publish a message from another thread while the fetch is waiting. The fetch should return before the timeout.
+    Thread publisher = new Thread(() -> {
+      try {
+        TimeUnit.MILLISECONDS.sleep(500);
+        client.publish(StoreRequestBuilder.of(topicId).addPayload("m0").build());
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    publisher.start();
+
+    stopwatch.reset().start();
+    List<String> messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setPollTimeout(30, TimeUnit.SECONDS).fetch()) {
+      iterator.forEachRemaining(message -> messages.add(Bytes.toString(message.getPayload())));
+    }
+    Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.SECONDS) < 30);
+    Assert.assertEquals(Collections.singletonList("m0"), messages);
+    publisher.join();
+
+    // Negative poll timeout is not allowed
+    try {
+      client.prepareFetch(topicId).setPollTimeout(-1, TimeUnit.SECONDS);
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
 }
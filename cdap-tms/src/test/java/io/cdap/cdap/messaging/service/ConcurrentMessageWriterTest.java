@@ -129,6 +129,40 @@ public class ConcurrentMessageWriterTest {
     Assert.assertEquals(0, id.getPayloadSequenceId());
   }
 
+  @Test
+  public void testPartitionSequence() throws IOException {
+    // Writer of partition 1 out of 3 partitions should only use sequence ids 1, 4, 7, ...
+    int partition = 1;
+    int partitions = 3;
+    int idsPerTimestamp = (StoreRequestWriter.SEQUENCE_ID_LIMIT - 1 - partition) / partitions + 1;
+    int msgCount = idsPerTimestamp + 1;
+    List<String> payloads = new ArrayList<>(msgCount);
+    for (int i = 0; i < msgCount; i++) {
+      payloads.add(Integer.toString(i));
+    }
+
+    TopicId topicId = new NamespaceId("ns1").topic("t1");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(),
+                                                                   partition, partitions);
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter);
+    writer.persist(new TestStoreRequest(topicId, payloads), metadata);
+
+    List<RawMessage> messages = testWriter.getMessages().get(topicId);
+    Assert.assertEquals(msgCount, messages.size());
+
+    for (int i = 0; i < idsPerTimestamp; i++) {
+      MessageId id = new MessageId(messages.get(i).getId());
+      Assert.assertEquals(0L, id.getPublishTimestamp());
+      Assert.assertEquals((short) (i * partitions + partition), id.getSequenceId());
+    }
+    // Sequence id should go back to the partition number with a new timestamp after exhausting all ids
+    MessageId id = new MessageId(messages.get(msgCount - 1).getId());
+    Assert.assertEquals(1L, id.getPublishTimestamp());
+    Assert.assertEquals(partition, id.getSequenceId());
+  }
+
   @Test
   public void testMultiMaxSequence() throws IOException, InterruptedException {
     TopicId topicId = new NamespaceId("ns1").topic("t1");
@@ -280,6 +314,13 @@ public class ConcurrentMessageWriterTest {
       super(timeProvider, false);
     }
 
+    /**
+     * Constructs a writer that writes to one partition of a partitioned topic.
+     */
+    TestStoreRequestWriter(TimeProvider timeProvider, int partition, int partitions) {
+      super(timeProvider, false, partition, partitions);
+    }
+
     /**
      * Constructs a writer that has a write delay to simulate latency in persist to real storage.
      */
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link SegmentLog}.
+ */
+public class SegmentLogTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testRollAndSeek() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+
+    // Small segment size and index interval to have multiple segments with multiple index entries
+    try (SegmentLog log = new SegmentLog(dir, Bytes.SIZEOF_LONG, 0, 256, TimeUnit.HOURS.toMillis(1), 32, true)) {
+      for (long i = 0; i < 100; i += 2) {
+        append(log, i, i + 1);
+      }
+      Assert.assertTrue(dir.listFiles().length > 1);
+
+      // Scan all
+      Assert.assertEquals(100, scan(log.seek(null)).size());
+
+      // Seek to different keys. The scan must start at or before the key.
+      for (long i = 0; i < 100; i++) {
+        List<Long> keys = scan(log.seek(Bytes.toBytes(i)));
+        Assert.assertTrue(keys.contains(i));
+      }
+    }
+  }
+
+  @Test
+  public void testRecovery() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+
+    long position;
+    try (SegmentLog log = new SegmentLog(dir, Bytes.SIZEOF_LONG, 0, 256, TimeUnit.HOURS.toMillis(1), 32, true)) {
+      for (long i = 0; i < 50; i++) {
+        append(log, i);
+      }
+      position = append(log, 50L, 51L);
+    }
+
+    // Reopen the log. All records should be recovered and new records are appended after them.
+    try (SegmentLog log = new SegmentLog(dir, Bytes.SIZEOF_LONG, 0, 256, TimeUnit.HOURS.toMillis(1), 32, true)) {
+      List<Long> expected = new ArrayList<>();
+      for (long i = 0; i < 52; i++) {
+        expected.add(i);
+      }
+      Assert.assertEquals(expected, scan(log.seek(null)));
+
+      append(log, 52L);
+      expected.add(52L);
+      Assert.assertEquals(expected, scan(log.seek(null)));
+
+      // Scan from a recorded position
+      Assert.assertEquals(expected.subList(50, 53), scan(log.scan(position)));
+    }
+  }
+
+  @Test
+  public void testCorruptedRecovery() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+
+    // Without flushing on append, records are forced to the disk by flush or close
+    try (SegmentLog log = new SegmentLog(dir, Bytes.SIZEOF_LONG, 0, 4096, TimeUnit.HOURS.toMillis(1), 32, false)) {
+      for (long i = 0; i < 10; i++) {
+        append(log, i);
+      }
+      log.flush();
+    }
+
+    // Corrupt the last byte of the last record, which simulates a record partially written before a crash
+    File[] files = dir.listFiles();
+    Assert.assertEquals(1, files.length);
+    try (RandomAccessFile file = new RandomAccessFile(files[0], "rw")) {
+      file.seek(file.length() - 1);
+      int value = file.read();
+      file.seek(file.length() - 1);
+      file.write(value ^ 0xff);
+    }
+
+    // The corrupted record should be discarded
+    try (SegmentLog log = new SegmentLog(dir, Bytes.SIZEOF_LONG, 0, 4096, TimeUnit.HOURS.toMillis(1), 32, false)) {
+      List<Long> expected = new ArrayList<>();
+      for (long i = 0; i < 9; i++) {
+        expected.add(i);
+      }
+      Assert.assertEquals(expected, scan(log.seek(null)));
+    }
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+
+    // Roll interval of 1 ms, so that every batch goes into a new segment
+    try (SegmentLog log = new SegmentLog(dir, Bytes.SIZEOF_LONG, 0, 4096, 1L, 0, true)) {
+      for (long i = 0; i < 10; i++) {
+        append(log, i * 10, i * 10 + 1);
+        TimeUnit.MILLISECONDS.sleep(2);
+      }
+      Assert.assertEquals(10, dir.listFiles().length);
+
+      // Delete segments that only have timestamp smaller than 45
+      log.deleteBefore(45L);
+      Assert.assertEquals(5, dir.listFiles().length);
+      Assert.assertEquals(50L, (long) scan(log.seek(null)).get(0));
+
+      // Delete everything, then append again
+      log.deleteBefore(Long.MAX_VALUE);
+      Assert.assertEquals(0, dir.listFiles().length);
+      Assert.assertTrue(scan(log.seek(null)).isEmpty());
+
+      append(log, 100L);
+      Assert.assertEquals(1, scan(log.seek(null)).size());
+    }
+  }
+
+  private long append(SegmentLog log, long... keys) throws Exception {
+    SegmentLog.Batch batch = new SegmentLog.Batch();
+    for (long key : keys) {
+      batch.addRecord(Bytes.SIZEOF_LONG + Bytes.SIZEOF_INT).putLong(key).putInt((int) key);
+    }
+    return log.append(batch);
+  }
+
+  private List<Long> scan(SegmentLog.Scanner scanner) {
+    List<Long> keys = new ArrayList<>();
+    try {
+      while (scanner.hasNext()) {
+        ByteBuffer record = scanner.next();
+        long key = record.getLong();
+        Assert.assertEquals((int) key, record.getInt());
+        Assert.assertFalse(record.hasRemaining());
+        keys.add(key);
+      }
+    } finally {
+      scanner.close();
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.metrics;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free distribution of long values, recorded as counts in log-linear buckets. Each power of two range
+ * is divided into {@code 8} buckets of equal width, which gives a relative error of at most {@code 6.25%} when
+ * a bucket is represented by its middle value. Values smaller than or equal to zero are all counted in bucket
+ * {@code 0}.
+ *
+ * Since a distribution is just a set of bucket counts, distributions can be merged by adding up the counts of
+ * the same bucket. A distribution metric is emitted and stored as one counter per bucket, under the name of the
+ * metric and with the bucket as an extra tag.
+ */
+public final class MetricDistribution {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+  /**
+   * Adds a value to this distribution.
+   */
+  public void add(long value) {
+    counts.incrementAndGet(getBucket(value));
+  }
+
+  /**
+   * Returns the counts of all non-empty buckets and resets them to zero.
+   *
+   * @return a map from bucket to count
+   */
+  public Map<Integer, Long> drain() {
+    Map<Integer, Long> result = new TreeMap<>();
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      // Check before getAndSet to avoid write to the buckets that are always empty
+      if (counts.get(i) != 0) {
+        long count = counts.getAndSet(i, 0L);
+        if (count != 0) {
+          result.put(i, count);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the bucket of the given value.
+   */
+  public static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(0L, value);
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the value that represents the given bucket, which is the middle of the bucket range.
+   */
+  public static long getBucketValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowerBound + ((1L << shift) - 1) / 2;
+  }
+
+  /**
+   * Computes a percentile from the given bucket counts.
+   *
+   * @param bucketCounts a map from bucket to count
+   * @param percentile the percentile to compute, between {@code 0} and {@code 100}
+   * @return the value representing the bucket that contains the given percentile or {@code 0} if there is no value
+   */
+  public static long getPercentile(NavigableMap<Integer, Long> bucketCounts, double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long total = 0L;
+    for (long count : bucketCounts.values()) {
+      total += count;
+    }
+    if (total <= 0) {
+      return 0L;
+    }
+
+    long rank = Math.max(1L, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0L;
+    for (Map.Entry<Integer, Long> entry : bucketCounts.entrySet()) {
+      seen += entry.getValue();
+      if (seen >= rank) {
+        return getBucketValue(entry.getKey());
+      }
+    }
+    return getBucketValue(bucketCounts.lastKey());
+  }
+}
@@ -19,9 +19,11 @@ package io.cdap.cdap.logging.appender.system;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.google.common.io.Closeables;
 import io.cdap.cdap.common.io.ByteBuffers;
+import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.serialize.LoggingEvent;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.logging.write.LogFileIndex;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
@@ -41,15 +43,19 @@ import java.nio.ByteBuffer;
  *
  * Since there is no way to check the state of the underlying file on an exception,
  * all methods of this class assume that the file state is bad on any exception and close the file.
+ *
+ * A {@link LogFileIndex} of the sync points of the file is written next to the file when it is closed.
  */
 
 class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private static final Logger LOG = LoggerFactory.getLogger(LogFileOutputStream.class);
 
   private final Location location;
+  private final String filePermissions;
   private final long createTime;
   private final Closeable closeable;
   private final LoggingEventSerializer serializer;
+  private final LogFileIndex.Builder indexBuilder;
 
   private OutputStream outputStream;
   private DataFileWriter<GenericRecord> dataFileWriter;
@@ -58,8 +64,10 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   LogFileOutputStream(Location location, String filePermissions,
                       int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
     this.location = location;
+    this.filePermissions = filePermissions;
     this.closeable = closeable;
     this.serializer = new LoggingEventSerializer();
+    this.indexBuilder = new LogFileIndex.Builder();
 
     Schema schema = serializer.getAvroSchema();
     try {
@@ -68,6 +76,8 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
       this.dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
       this.dataFileWriter.create(schema, outputStream);
       this.dataFileWriter.setSyncInterval(syncIntervalBytes);
+      // The header ends with a sync marker, hence the first segment of the file starts after the header
+      this.indexBuilder.sync(dataFileWriter.sync());
       this.createTime = createTime;
       this.fileSize = 0;
     } catch (IOException e) {
@@ -82,6 +92,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
+    indexBuilder.add(event);
     // If the event is already a LoggingEvent, we don't need to re-encode.
     if (event instanceof LoggingEvent) {
       ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
@@ -115,6 +126,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   @Override
   public void flush() throws IOException {
     fileSize = dataFileWriter.sync();
+    indexBuilder.sync(fileSize);
   }
 
   @Override
@@ -131,9 +143,38 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   public void close() throws IOException {
     LOG.trace("Closing file {}", location);
     try {
-      dataFileWriter.close();
+      try {
+        // Flush the last block so that all events are covered by the index
+        flush();
+      } finally {
+        try {
+          dataFileWriter.close();
+        } finally {
+          // The DataFileWriter doesn't close the underlying stream if it fails to flush on close
+          Closeables.closeQuietly(outputStream);
+        }
+      }
+      // Only write the index if the file is completely written, otherwise the index may refer to missing blocks
+      writeIndex();
     } finally {
       closeable.close();
     }
   }
+
+  /**
+   * Writes the index of the log file. Failure is not fatal, since readers fall back to scan the log file
+   * if there is no index.
+   */
+  private void writeIndex() {
+    try {
+      indexBuilder.write(location, filePermissions);
+    } catch (IOException e) {
+      LOG.warn("Failed to write index for log file {}", location, e);
+      try {
+        Locations.deleteQuietly(LogFileIndex.getIndexLocation(location));
+      } catch (IOException ex) {
+        LOG.debug("Failed to delete index for log file {}", location, ex);
+      }
+    }
+  }
 }
@@ -34,11 +34,18 @@ public class LogDataOffsetProducer extends AbstractJSONLogProducer {
   LogDataOffsetProducer(CloseableIterator<LogEvent> logEventIter, List<String> fieldsToSuppress) {
     super(logEventIter);
     this.fieldsToSuppress = fieldsToSuppress;
-    validate();
+    validate(fieldsToSuppress);
   }
 
   @Override
   public Object encodeSend(LogEvent logEvent) {
+    return encode(logEvent, fieldsToSuppress);
+  }
+
+  /**
+   * Encodes the given {@link LogEvent} as a {@link FormattedLogDataEvent} JSON object.
+   */
+  static JsonElement encode(LogEvent logEvent, List<String> fieldsToSuppress) {
     ILoggingEvent event = logEvent.getLoggingEvent();
     StackTraceElement[] stackTraceElements = event.getCallerData();
     String className = "";
@@ -56,10 +63,11 @@ public class LogDataOffsetProducer extends AbstractJSONLogProducer {
                                   className, simpleClassName, lineNumber, event.getFormattedMessage(),
                                   ThrowableProxyUtil.asString(event.getThrowableProxy()), event.getLoggerName(),
                                   event.getMDCPropertyMap(), isNativeMethod);
-    return modifyLogJsonElememnt(GSON.toJsonTree(new FormattedLogDataEvent(logData, logEvent.getOffset())));
+    return modifyLogJsonElememnt(GSON.toJsonTree(new FormattedLogDataEvent(logData, logEvent.getOffset())),
+                                 fieldsToSuppress);
   }
 
-  private Object modifyLogJsonElememnt(JsonElement jsonElement) {
+  private static JsonElement modifyLogJsonElememnt(JsonElement jsonElement, List<String> fieldsToSuppress) {
     JsonObject jsonLogData = (JsonObject) jsonElement;
     JsonObject logData = jsonLogData.getAsJsonObject("log");
 
@@ -72,7 +80,12 @@ public class LogDataOffsetProducer extends AbstractJSONLogProducer {
     return jsonLogData;
   }
 
-  private void validate() {
+  /**
+   * Validates that the given fields to suppress are fields of {@link LogData}.
+   *
+   * @throws IllegalArgumentException if any of the fields is not a field of {@link LogData}
+   */
+  static void validate(List<String> fieldsToSuppress) {
     if (fieldsToSuppress.isEmpty()) {
       return;
     }
@@ -25,15 +25,30 @@ import io.cdap.cdap.common.id.Id;
 import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.internal.app.store.RunRecordDetail;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.filter.FilterParser;
+import io.cdap.cdap.logging.read.LogOffset;
 import io.cdap.cdap.logging.read.LogReader;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.http.ChunkResponder;
+import io.cdap.http.HandlerContext;
 import io.cdap.http.HttpHandler;
 import io.cdap.http.HttpResponder;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -47,8 +62,15 @@ import javax.ws.rs.QueryParam;
 @Path(Constants.Gateway.API_VERSION_3)
 public class LogHttpHandler extends AbstractLogHttpHandler {
 
+  private static final Logger LOG = LoggerFactory.getLogger(LogHttpHandler.class);
+
   private final LogReader logReader;
   private final ProgramRunRecordFetcher programRunRecordFetcher;
+  private final int tailThreads;
+  private final long tailPollIntervalMs;
+  private final long tailBatchIntervalMs;
+  private final long tailTimeoutMs;
+  private ScheduledExecutorService tailExecutor;
 
   @Inject
   public LogHttpHandler(LogReader logReader,
@@ -57,6 +79,22 @@ public class LogHttpHandler extends AbstractLogHttpHandler {
     super(cConf);
     this.logReader = logReader;
     this.programRunRecordFetcher = programRunFetcher;
+    this.tailThreads = cConf.getInt(Constants.LogQuery.TAIL_THREADS);
+    this.tailPollIntervalMs = cConf.getLong(Constants.LogQuery.TAIL_POLL_INTERVAL_MS);
+    this.tailBatchIntervalMs = cConf.getLong(Constants.LogQuery.TAIL_BATCH_INTERVAL_MS);
+    this.tailTimeoutMs = TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.LogQuery.TAIL_TIMEOUT_SECONDS));
+  }
+
+  @Override
+  public void init(HandlerContext context) {
+    super.init(context);
+    tailExecutor = Executors.newScheduledThreadPool(tailThreads, Threads.createDaemonThreadFactory("log-tail-%d"));
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    tailExecutor.shutdownNow();
+    super.destroy(context);
   }
 
   @GET
@@ -135,6 +173,49 @@ public class LogHttpHandler extends AbstractLogHttpHandler {
            escape, filterStr, runRecord, format, suppress);
   }
 
+  /**
+   * Streams the logs of a program run as Server-Sent Events. It starts with the last {@code max} log events, or
+   * the log events after the given offset, and follows new log events until the program run completes.
+   * The offset can also be given by the {@code Last-Event-ID} header, which is set by clients when reconnecting.
+   */
+  @GET
+  @Path("/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs/tail")
+  public void runIdTail(HttpRequest request, HttpResponder responder, @PathParam("namespace-id") String namespaceId,
+                        @PathParam("app-id") String appId, @PathParam("program-type") String programType,
+                        @PathParam("program-id") String programId, @PathParam("run-id") String runId,
+                        @QueryParam("max") @DefaultValue("50") int maxEvents,
+                        @QueryParam("fromOffset") @DefaultValue("") String fromOffsetStr,
+                        @QueryParam("filter") @DefaultValue("") String filterStr,
+                        @QueryParam("suppress") List<String> suppress) throws NotFoundException, IOException {
+    ProgramType type = ProgramType.valueOfCategoryName(programType);
+    ProgramRunId programRunId = new ProgramRunId(namespaceId, appId, type, programId, runId);
+    RunRecordDetail runRecord = getRunRecordMeta(programRunId);
+    LoggingContext loggingContext = LoggingContextHelper.getLoggingContextWithRunId(programRunId,
+                                                                                    runRecord.getSystemArgs());
+    if (fromOffsetStr.isEmpty()) {
+      fromOffsetStr = request.headers().get("Last-Event-ID", "");
+    }
+
+    Filter filter;
+    LogOffset logOffset;
+    try {
+      filter = FilterParser.parse(filterStr);
+      logOffset = FormattedLogOffset.parseLogOffset(fromOffsetStr);
+      LogDataOffsetProducer.validate(suppress);
+    } catch (IllegalArgumentException e) {
+      responder.sendString(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    ChunkResponder chunkResponder = responder.sendChunkStart(
+      HttpResponseStatus.OK, new DefaultHttpHeaders()
+        .set(HttpHeaderNames.CONTENT_TYPE, "text/event-stream")
+        .set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE));
+    new LogTailer(logReader, loggingContext, filter, logOffset, maxEvents, suppress,
+                  () -> isRunCompleted(programRunId), chunkResponder, tailExecutor,
+                  tailPollIntervalMs, tailBatchIntervalMs, tailTimeoutMs).start();
+  }
+
   @GET
   @Path("/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/logs/prev")
   public void prev(HttpRequest request, HttpResponder responder, @PathParam("namespace-id") String namespaceId,
@@ -217,6 +298,16 @@ public class LogHttpHandler extends AbstractLogHttpHandler {
     doPrev(logReader, responder, loggingContext, maxEvents, fromOffsetStr, escape, filterStr, null, format, suppress);
   }
 
+  private boolean isRunCompleted(ProgramRunId programRunId) {
+    try {
+      return getRunRecordMeta(programRunId).getStatus().isEndState();
+    } catch (Exception e) {
+      // Keep tailing and check again later
+      LOG.debug("Failed to get run record of {}", programRunId, e);
+      return false;
+    }
+  }
+
   private RunRecordDetail getRunRecordMeta(ProgramRunId programRunId) throws IOException, NotFoundException {
     RunRecordDetail runRecordMeta = programRunRecordFetcher.getRunRecordMeta(programRunId);
     if (runRecordMeta == null) {
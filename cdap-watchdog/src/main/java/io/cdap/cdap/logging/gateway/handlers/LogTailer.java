@@ -0,0 +1,230 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.gateway.handlers;
+
+import io.cdap.cdap.common.logging.LoggingContext;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.read.Callback;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.read.LogOffset;
+import io.cdap.cdap.logging.read.LogReader;
+import io.cdap.cdap.logging.read.ReadRange;
+import io.cdap.http.ChunkResponder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Streams the log events of a program run to a {@link ChunkResponder} as Server-Sent Events. The last log events
+ * are streamed first, or the log events after a given offset, and then new log events as they are written,
+ * until the program run completes, the client disconnects or the timeout is reached.
+ *
+ * At most one read is in progress for a tailer, and the next read is only scheduled after the events of the
+ * previous read have been sent. Since the {@link ChunkResponder} doesn't tell when the sent chunks have been
+ * written to the client, the next read after a full batch is delayed by the batch interval, which bounds the rate
+ * at which events are buffered for a slow client. After a partial batch, all the written events have been sent,
+ * hence the next read is delayed by the poll interval. When there are no new events, a comment is sent to the
+ * client to keep the connection alive.
+ *
+ * The first read may read the saved log files. The following reads only read the recent log events with
+ * {@link LogReader#getLogRecent}, which doesn't open the saved log files, unless the events after the current
+ * offset are no longer kept with the recent log events.
+ */
+final class LogTailer implements Runnable, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogTailer.class);
+  private static final ByteBuf KEEP_ALIVE = Unpooled.unreleasableBuffer(
+    Unpooled.copiedBuffer(":\n\n", StandardCharsets.UTF_8));
+
+  private final LogReader logReader;
+  private final LoggingContext loggingContext;
+  private final Filter filter;
+  private final int maxEvents;
+  private final List<String> fieldsToSuppress;
+  private final BooleanSupplier runCompleted;
+  private final ChunkResponder chunkResponder;
+  private final ScheduledExecutorService executor;
+  private final long pollIntervalMs;
+  private final long batchIntervalMs;
+  private final long deadlineMs;
+
+  private LogOffset offset;
+  private boolean followRecent;
+  private boolean batchFull;
+  private boolean completed;
+  private boolean closed;
+
+  LogTailer(LogReader logReader, LoggingContext loggingContext, Filter filter, LogOffset offset, int maxEvents,
+            List<String> fieldsToSuppress, BooleanSupplier runCompleted, ChunkResponder chunkResponder,
+            ScheduledExecutorService executor, long pollIntervalMs, long batchIntervalMs, long timeoutMs) {
+    this.logReader = logReader;
+    this.loggingContext = loggingContext;
+    this.filter = filter;
+    this.offset = offset;
+    this.maxEvents = maxEvents;
+    this.fieldsToSuppress = fieldsToSuppress;
+    this.runCompleted = runCompleted;
+    this.chunkResponder = chunkResponder;
+    this.executor = executor;
+    this.pollIntervalMs = pollIntervalMs;
+    this.batchIntervalMs = batchIntervalMs;
+    this.deadlineMs = System.currentTimeMillis() + timeoutMs;
+  }
+
+  /**
+   * Starts tailing the logs.
+   */
+  void start() {
+    schedule(0L);
+  }
+
+  @Override
+  public void run() {
+    try {
+      if (System.currentTimeMillis() >= deadlineMs) {
+        close();
+        return;
+      }
+
+      List<LogEvent> events = read();
+      if (!events.isEmpty()) {
+        chunkResponder.sendChunk(encode(events));
+        chunkResponder.flush();
+        offset = events.get(events.size() - 1).getOffset();
+        schedule(batchFull ? batchIntervalMs : pollIntervalMs);
+        return;
+      }
+
+      // The run was completed before the last read, hence there will be no more events
+      if (completed) {
+        close();
+        return;
+      }
+      completed = runCompleted.getAsBoolean();
+
+      // Sending a comment also detects if the client has disconnected
+      chunkResponder.sendChunk(KEEP_ALIVE.duplicate());
+      chunkResponder.flush();
+      schedule(pollIntervalMs);
+    } catch (Exception e) {
+      LOG.debug("Stop tailing logs for logging context {}", loggingContext, e);
+      close();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      chunkResponder.close();
+    } catch (IOException e) {
+      LOG.trace("Failed to close log tail response for logging context {}", loggingContext, e);
+    }
+  }
+
+  private void schedule(long delayMs) {
+    try {
+      executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // The executor is shutdown when the handler is destroyed
+      close();
+    }
+  }
+
+  private List<LogEvent> read() {
+    CollectingCallback callback = new CollectingCallback();
+    if (offset == LogOffset.LATEST_OFFSET) {
+      logReader.getLogPrev(loggingContext, ReadRange.LATEST, maxEvents, filter, callback);
+    } else {
+      ReadRange readRange = ReadRange.createFromRange(offset);
+      // After the first read, only the recent log events are read, unless some of them are no longer kept
+      if (!followRecent || !logReader.getLogRecent(loggingContext, readRange, maxEvents, filter, callback)) {
+        callback = new CollectingCallback();
+        logReader.getLogNext(loggingContext, readRange, maxEvents, filter, callback);
+      }
+    }
+    followRecent = true;
+    batchFull = callback.getCount() >= maxEvents;
+
+    // Don't send the event at the current offset again, in case the reader includes it
+    List<LogEvent> events = callback.events;
+    while (!events.isEmpty() && isCurrentOffset(events.get(0).getOffset())) {
+      events.remove(0);
+    }
+    return events;
+  }
+
+  private boolean isCurrentOffset(LogOffset logOffset) {
+    return logOffset.getKafkaOffset() == offset.getKafkaOffset() && logOffset.getTime() == offset.getTime();
+  }
+
+  /**
+   * Encodes the events as Server-Sent Events, with the offset of each event as the event id, so that clients
+   * can resume tailing from the last event received.
+   */
+  private ByteBuf encode(List<LogEvent> events) {
+    StringBuilder builder = new StringBuilder();
+    for (LogEvent event : events) {
+      builder.append("id: ").append(FormattedLogOffset.formatLogOffset(event.getOffset())).append('\n')
+        .append("data: ")
+        .append(AbstractJSONLogProducer.GSON.toJson(LogDataOffsetProducer.encode(event, fieldsToSuppress)))
+        .append("\n\n");
+    }
+    return Unpooled.copiedBuffer(builder, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A {@link Callback} that collects all the log events.
+   */
+  private static final class CollectingCallback implements Callback {
+    private final List<LogEvent> events = new ArrayList<>();
+
+    @Override
+    public void init() {
+      // no-op
+    }
+
+    @Override
+    public void handle(LogEvent event) {
+      events.add(event);
+    }
+
+    @Override
+    public int getCount() {
+      return events.size();
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
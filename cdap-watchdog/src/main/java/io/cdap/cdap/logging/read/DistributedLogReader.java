@@ -85,6 +85,13 @@ public final class DistributedLogReader implements LogReader {
     }
   }
 
+  @Override
+  public boolean getLogRecent(LoggingContext loggingContext, ReadRange readRange, int maxEvents, Filter filter,
+                              Callback callback) {
+    // The recent logs are in Kafka, hence the saved logs and the checkpoint don't need to be read
+    return kafkaLogReader.getLogRecent(loggingContext, readRange, maxEvents, filter, callback);
+  }
+
   @Override
   public void getLogPrev(final LoggingContext loggingContext, final ReadRange readRange, final int maxEvents,
                               final Filter filter, final Callback callback) {
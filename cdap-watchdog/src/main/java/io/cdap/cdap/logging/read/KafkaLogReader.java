@@ -73,7 +73,28 @@ public class KafkaLogReader implements LogReader {
       getLogPrev(loggingContext, readRange, maxEvents, filter, callback);
       return;
     }
+    readNext(loggingContext, readRange, maxEvents, filter, callback, false);
+  }
+
+  @Override
+  public boolean getLogRecent(LoggingContext loggingContext, ReadRange readRange, int maxEvents, Filter filter,
+                              Callback callback) {
+    // Without a Kafka offset, the position in Kafka has to be looked up by time
+    if (readRange.getKafkaOffset() < 0) {
+      return false;
+    }
+    return readNext(loggingContext, readRange, maxEvents, filter, callback, true);
+  }
 
+  /**
+   * Reads the log events after the Kafka offset of the given range.
+   *
+   * @param contiguous whether events must not have expired from Kafka since the offset
+   * @return {@code false} if contiguous events were requested, but some of them have expired, in which case no
+   *         events are read
+   */
+  private boolean readNext(LoggingContext loggingContext, ReadRange readRange, int maxEvents,
+                           Filter filter, Callback callback, boolean contiguous) {
     int partition = partitioner.partition(loggingContext.getLogPartition(), -1);
     LOG.trace("Reading from kafka {}:{}", topic, partition);
 
@@ -97,13 +118,17 @@ public class KafkaLogReader implements LogReader {
       LOG.trace("Using startOffset={}, latestOffset={}, readRange={}", startOffset, latestOffset, readRange);
       if (startOffset >= latestOffset) {
         // At end of events, nothing to return
-        return;
+        return true;
+      }
+      if (contiguous && startOffset < kafkaConsumer.fetchEarliestOffset()) {
+        return false;
       }
 
       KafkaCallback kafkaCallback = new KafkaCallback(logFilter, serializer.get(), latestOffset, maxEvents, callback,
                                                       readRange.getFromMillis());
 
       fetchLogEvents(kafkaConsumer, kafkaCallback, startOffset, latestOffset, maxEvents, readRange);
+      return true;
     } catch (Throwable e) {
       LOG.error("Got exception: ", e);
       throw Throwables.propagate(e);
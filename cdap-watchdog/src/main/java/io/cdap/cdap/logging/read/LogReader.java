@@ -35,6 +35,25 @@ public interface LogReader {
   void getLogNext(LoggingContext loggingContext, ReadRange readRange, int maxEvents, Filter filter,
                        Callback callback);
 
+  /**
+   * Read the log events of a program that were written after a given offset, to follow the logs of a program as
+   * they are written. Readers that keep the recent log events separately only read those. By default this is the
+   * same as {@link #getLogNext(LoggingContext, ReadRange, int, Filter, Callback)}.
+   * @param loggingContext context to look up log events.
+   * @param readRange range for reading log events, which must not be {@link ReadRange#LATEST}.
+   * @param maxEvents max log events to return.
+   * @param filter filter to select log events
+   * @param callback callback to handle the log events.
+   * @return {@code true} if the log events after the offset were read, or {@code false} if some of them are no
+   *         longer kept with the recent log events, in which case they need to be read with
+   *         {@link #getLogNext(LoggingContext, ReadRange, int, Filter, Callback)}
+   */
+  default boolean getLogRecent(LoggingContext loggingContext, ReadRange readRange, int maxEvents, Filter filter,
+                               Callback callback) {
+    getLogNext(loggingContext, readRange, maxEvents, filter, callback);
+    return true;
+  }
+
   /**
    * Read log events of a program before a given offset.
    * @param loggingContext context to look up log events.
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.serialize;
+
+import ch.qos.logback.classic.Level;
+import io.cdap.cdap.logging.LoggingUtil;
+import io.cdap.cdap.logging.filter.AndFilter;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.filter.LogLevelExpression;
+import io.cdap.cdap.logging.filter.MdcExpression;
+import io.cdap.cdap.logging.filter.OrFilter;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.util.Utf8;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link DatumReader} for reading serialized logging events that evaluates a {@link Filter} on the serialized
+ * event. Only the timestamp, level and MDC of an event are decoded for evaluating the filter. Events that don't
+ * match the filter are skipped without being decoded, and {@code null} is returned for them.
+ *
+ * The filter is only evaluated on the serialized event if it consists of {@link AndFilter}, {@link OrFilter},
+ * {@link LogLevelExpression} and {@link MdcExpression}. Otherwise, all events are decoded. Events returned by
+ * this reader should still be matched with the filter by the caller.
+ */
+public final class LoggingEventDatumReader implements DatumReader<GenericRecord> {
+
+  private static final Schema SCHEMA = LogSchema.LoggingEvent.SCHEMA;
+  // Fields of the schema that are needed to evaluate the filter. They are the first fields of the schema.
+  private static final List<String> FILTER_FIELDS = Arrays.asList("timestamp", "level", "mdc");
+
+  private final GenericDatumReader<GenericRecord> delegate;
+  @Nullable
+  private final Predicate<SerializedEvent> predicate;
+  private final SerializedEvent event;
+  private final List<DatumReader<Object>> fieldReaders;
+
+  private boolean pushdown;
+  private long timestamp;
+
+  public LoggingEventDatumReader(Filter filter) {
+    this.delegate = new GenericDatumReader<>(SCHEMA);
+    // No need to evaluate the empty filter on serialized events as all events are decoded
+    this.predicate = filter == Filter.EMPTY_FILTER ? null : compile(filter);
+    this.event = new SerializedEvent();
+    this.fieldReaders = new ArrayList<>();
+    for (Schema.Field field : SCHEMA.getFields().subList(FILTER_FIELDS.size(), SCHEMA.getFields().size())) {
+      fieldReaders.add(new GenericDatumReader<>(field.schema()));
+    }
+  }
+
+  /**
+   * Returns the timestamp of the last event read by this reader, regardless of whether it matched the filter.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public void setSchema(Schema schema) {
+    delegate.setSchema(schema);
+    // Only evaluate the filter on serialized events if the events are written with the current schema
+    pushdown = predicate != null && SCHEMA.equals(schema);
+  }
+
+  @Nullable
+  @Override
+  public GenericRecord read(@Nullable GenericRecord reuse, Decoder in) throws IOException {
+    if (!pushdown) {
+      GenericRecord record = delegate.read(reuse, in);
+      timestamp = (Long) record.get("timestamp");
+      return record;
+    }
+
+    timestamp = in.readLong();
+    event.level = in.readInt();
+    event.readMdc(in);
+
+    List<Schema.Field> fields = SCHEMA.getFields();
+    if (!predicate.test(event)) {
+      for (int i = FILTER_FIELDS.size(); i < fields.size(); i++) {
+        GenericDatumReader.skip(fields.get(i).schema(), in);
+      }
+      return null;
+    }
+
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("timestamp", timestamp);
+    record.put("level", event.level);
+    record.put("mdc", event.getMdc());
+    for (int i = FILTER_FIELDS.size(); i < fields.size(); i++) {
+      record.put(i, fieldReaders.get(i - FILTER_FIELDS.size()).read(null, in));
+    }
+    return record;
+  }
+
+  /**
+   * Creates a {@link Predicate} on {@link SerializedEvent} that is equivalent to the given {@link Filter}.
+   *
+   * @return the predicate, or {@code null} if the filter cannot be evaluated on serialized events
+   */
+  @Nullable
+  private static Predicate<SerializedEvent> compile(Filter filter) {
+    if (filter == Filter.EMPTY_FILTER) {
+      return e -> true;
+    }
+    if (filter instanceof LogLevelExpression) {
+      Level level = ((LogLevelExpression) filter).getLevel();
+      return e -> Level.toLevel(e.level).isGreaterOrEqual(level);
+    }
+    if (filter instanceof MdcExpression) {
+      String key = ((MdcExpression) filter).getKey();
+      String value = ((MdcExpression) filter).getValue();
+      // The null key is serialized as a special key, which never matches
+      if (key == null || LoggingUtil.MDC_NULL_KEY.equals(key)) {
+        return null;
+      }
+      Utf8 keyUtf8 = new Utf8(key);
+      Utf8 valueUtf8 = value == null ? null : new Utf8(value);
+      return e -> valueUtf8 != null && valueUtf8.equals(e.getMdcValue(keyUtf8));
+    }
+    if (filter instanceof AndFilter || filter instanceof OrFilter) {
+      boolean and = filter instanceof AndFilter;
+      List<? extends Filter> expressions = and
+        ? ((AndFilter) filter).getExpressions() : ((OrFilter) filter).getExpressions();
+      List<Predicate<SerializedEvent>> predicates = new ArrayList<>();
+      for (Filter expression : expressions) {
+        Predicate<SerializedEvent> predicate = compile(expression);
+        if (predicate == null) {
+          return null;
+        }
+        predicates.add(predicate);
+      }
+      // Iterate with index to avoid creating iterator for every event
+      return e -> {
+        for (int i = 0; i < predicates.size(); i++) {
+          if (predicates.get(i).test(e) != and) {
+            return !and;
+          }
+        }
+        return and;
+      };
+    }
+    return null;
+  }
+
+  /**
+   * The fields of a serialized event needed for evaluating the filter. The same instance is reused for all events,
+   * so that no object is created for events that don't match the filter.
+   */
+  private static final class SerializedEvent {
+    private int level;
+    private boolean hasMdc;
+    private int mdcSize;
+    private Utf8[] mdcKeys = new Utf8[0];
+    private Utf8[] mdcValues = new Utf8[0];
+    private boolean[] nullValues = new boolean[0];
+
+    void readMdc(Decoder in) throws IOException {
+      mdcSize = 0;
+      // The mdc field is an union of null and map of nullable string
+      hasMdc = in.readIndex() != 0;
+      if (!hasMdc) {
+        in.readNull();
+        return;
+      }
+      for (long count = in.readMapStart(); count != 0; count = in.mapNext()) {
+        for (long i = 0; i < count; i++) {
+          ensureCapacity(mdcSize + 1);
+          mdcKeys[mdcSize] = in.readString(mdcKeys[mdcSize]);
+          nullValues[mdcSize] = in.readIndex() == 0;
+          if (nullValues[mdcSize]) {
+            in.readNull();
+          } else {
+            mdcValues[mdcSize] = in.readString(mdcValues[mdcSize]);
+          }
+          mdcSize++;
+        }
+      }
+    }
+
+    private void ensureCapacity(int size) {
+      if (mdcKeys.length < size) {
+        int newSize = Math.max(size, mdcKeys.length * 2);
+        mdcKeys = Arrays.copyOf(mdcKeys, newSize);
+        mdcValues = Arrays.copyOf(mdcValues, newSize);
+        nullValues = Arrays.copyOf(nullValues, newSize);
+      }
+    }
+
+    /**
+     * Returns the value of the given MDC key, or {@code null} if the key doesn't exist or has a null value.
+     */
+    @Nullable
+    Utf8 getMdcValue(Utf8 key) {
+      // Later entries override earlier ones with the same key, same as when decoding to a map
+      for (int i = mdcSize - 1; i >= 0; i--) {
+        if (key.equals(mdcKeys[i])) {
+          return nullValues[i] ? null : mdcValues[i];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Returns the MDC as a map, or {@code null} if the event has no MDC.
+     */
+    @Nullable
+    Map<String, String> getMdc() {
+      if (!hasMdc) {
+        return null;
+      }
+      Map<String, String> mdc = new HashMap<>(mdcSize);
+      for (int i = 0; i < mdcSize; i++) {
+        mdc.put(mdcKeys[i].toString(), nullValues[i] ? null : mdcValues[i].toString());
+      }
+      return mdc;
+    }
+  }
+}
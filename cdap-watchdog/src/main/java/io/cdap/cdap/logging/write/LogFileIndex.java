@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.write;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.cdap.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Index of a log file, which is stored in a sidecar file next to the log file. The log file is divided into
+ * segments at Avro sync points, and the index has the position, event count, range of event timestamps and
+ * log levels of each segment. Readers use it to seek to the segments containing the events to read.
+ */
+public final class LogFileIndex {
+
+  private static final String FILE_SUFFIX = ".idx";
+  private static final int VERSION = 1;
+
+  private final List<Entry> entries;
+
+  private LogFileIndex(List<Entry> entries) {
+    this.entries = Collections.unmodifiableList(entries);
+  }
+
+  /**
+   * Returns the entries of the index, ordered by position in the log file.
+   */
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Returns the location of the index file of the given log file.
+   */
+  public static Location getIndexLocation(Location logLocation) throws IOException {
+    Location parent = Locations.getParent(logLocation);
+    if (parent == null) {
+      throw new IOException("Log file location " + logLocation + " has no parent");
+    }
+    return parent.append(logLocation.getName() + FILE_SUFFIX);
+  }
+
+  /**
+   * Reads the index of the given log file.
+   *
+   * @return the index, or {@code null} if the log file has no index
+   * @throws IOException if failed to read the index
+   */
+  @Nullable
+  public static LogFileIndex read(Location logLocation) throws IOException {
+    Location indexLocation = getIndexLocation(logLocation);
+    try (DataInputStream is = new DataInputStream(indexLocation.getInputStream())) {
+      int version = is.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported log file index version " + version + " in " + indexLocation);
+      }
+      int size = is.readInt();
+      List<Entry> entries = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        entries.add(new Entry(is.readLong(), is.readInt(), is.readLong(), is.readLong(), is.readInt()));
+      }
+      return new LogFileIndex(entries);
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a bit mask representing the given log level, for matching against {@link Entry#getLevelMask()}.
+   */
+  public static int getLevelMask(Level level) {
+    // Level ints are multiples of 10000, from TRACE (5000) to ERROR (40000)
+    return 1 << Math.min(31, Math.max(0, level.toInt() / Level.DEBUG_INT));
+  }
+
+  /**
+   * An entry of the index, representing a segment of the log file starting at a sync point.
+   */
+  public static final class Entry {
+    private final long position;
+    private final int eventCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final int levelMask;
+
+    private Entry(long position, int eventCount, long minTimestamp, long maxTimestamp, int levelMask) {
+      this.position = position;
+      this.eventCount = eventCount;
+      this.minTimestamp = minTimestamp;
+      this.maxTimestamp = maxTimestamp;
+      this.levelMask = levelMask;
+    }
+
+    /**
+     * Returns the position of the segment in the log file, which can be used to seek an Avro file reader.
+     */
+    public long getPosition() {
+      return position;
+    }
+
+    /**
+     * Returns the number of events in the segment.
+     */
+    public int getEventCount() {
+      return eventCount;
+    }
+
+    public long getMinTimestamp() {
+      return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+      return maxTimestamp;
+    }
+
+    /**
+     * Returns the bit mask of the levels of events in the segment, with bits as given by {@link #getLevelMask(Level)}.
+     */
+    public int getLevelMask() {
+      return levelMask;
+    }
+  }
+
+  /**
+   * Builds the index of a log file while it is being written.
+   */
+  public static final class Builder {
+    private final List<Entry> entries = new ArrayList<>();
+    private long position = -1L;
+    private int eventCount;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private int levelMask;
+
+    /**
+     * Adds an event to the current segment.
+     */
+    public void add(ILoggingEvent event) {
+      eventCount++;
+      minTimestamp = Math.min(minTimestamp, event.getTimeStamp());
+      maxTimestamp = Math.max(maxTimestamp, event.getTimeStamp());
+      levelMask |= getLevelMask(event.getLevel());
+    }
+
+    /**
+     * Ends the current segment at a sync point, and starts a new segment at the given position.
+     *
+     * @param position position of the sync point in the log file
+     */
+    public void sync(long position) {
+      if (eventCount > 0) {
+        if (this.position < 0) {
+          throw new IllegalStateException("Events were added before the position of the first sync point");
+        }
+        entries.add(new Entry(this.position, eventCount, minTimestamp, maxTimestamp, levelMask));
+      }
+      this.position = position;
+      eventCount = 0;
+      minTimestamp = Long.MAX_VALUE;
+      maxTimestamp = Long.MIN_VALUE;
+      levelMask = 0;
+    }
+
+    /**
+     * Writes the index of the given log file. Events added after the last sync point are not included in the index.
+     */
+    public void write(Location logLocation, String filePermissions) throws IOException {
+      Location indexLocation = getIndexLocation(logLocation);
+      try (OutputStream os = filePermissions.isEmpty()
+        ? indexLocation.getOutputStream() : indexLocation.getOutputStream(filePermissions)) {
+        DataOutputStream output = new DataOutputStream(os);
+        output.writeInt(VERSION);
+        output.writeInt(entries.size());
+        for (Entry entry : entries) {
+          output.writeLong(entry.position);
+          output.writeInt(entry.eventCount);
+          output.writeLong(entry.minTimestamp);
+          output.writeLong(entry.maxTimestamp);
+          output.writeInt(entry.levelMask);
+        }
+        output.flush();
+      }
+    }
+  }
+}
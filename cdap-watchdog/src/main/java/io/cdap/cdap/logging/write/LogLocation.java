@@ -30,13 +30,12 @@ import io.cdap.cdap.logging.filter.Filter;
 import io.cdap.cdap.logging.read.Callback;
 import io.cdap.cdap.logging.read.LogEvent;
 import io.cdap.cdap.logging.read.LogOffset;
-import io.cdap.cdap.logging.serialize.LogSchema;
 import io.cdap.cdap.logging.serialize.LoggingEvent;
+import io.cdap.cdap.logging.serialize.LoggingEventDatumReader;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.security.impersonation.Impersonator;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.SeekableInput;
-import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.twill.filesystem.Location;
 import org.slf4j.Logger;
@@ -50,6 +49,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
@@ -153,7 +153,29 @@ public class LogLocation {
     Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
     int count = 0;
     try {
-      try (DataFileReader<GenericRecord> dataFileReader = createReader()) {
+      LogFileIndex index = readIndex();
+      LoggingEventDatumReader datumReader = new LoggingEventDatumReader(logFilter);
+      try (DataFileReader<GenericRecord> dataFileReader = createReader(datumReader)) {
+        if (index != null) {
+          // Read the segments backward, skipping the ones with all events after fromTimeMs
+          List<LogFileIndex.Entry> entries = index.getEntries();
+          for (int i = entries.size() - 1; i >= 0 && count < maxEvents; i--) {
+            LogFileIndex.Entry entry = entries.get(i);
+            if (entry.getMinTimestamp() > fromTimeMs) {
+              continue;
+            }
+            dataFileReader.seek(entry.getPosition());
+            List<LogEvent> logSegment = readSegment(dataFileReader, datumReader, entry.getEventCount(),
+                                                       logFilter, fromTimeMs);
+            if (!logSegment.isEmpty()) {
+              logSegments.addFirst(logSegment);
+              count = count + logSegment.size();
+            }
+            LOG.trace("Read log events {} from indexed position {}", count, entry.getPosition());
+          }
+          int skip = count >= maxEvents ? count - maxEvents : 0;
+          return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
+        }
 
         if (!dataFileReader.hasNext()) {
           return ImmutableList.of();
@@ -170,7 +192,7 @@ public class LogLocation {
         // For open file, endPosition sync marker is unknown so start from file length and read up to the actual EOF
         dataFileReader.sync(length);
         long finalSync = dataFileReader.previousSync();
-        List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, -1);
+        List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, datumReader, logFilter, fromTimeMs, -1);
 
         if (!logSegment.isEmpty()) {
           logSegments.addFirst(logSegment);
@@ -187,7 +209,8 @@ public class LogLocation {
           // Skip to sync position less than current sync position
           startPosition = skipToPosition(dataFileReader, startPosition, endPosition, skipLen);
           currentSync = dataFileReader.previousSync();
-          logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+          logSegment = readToEndSyncPosition(dataFileReader, datumReader, logFilter, fromTimeMs,
+                                             endPosition);
 
           if (!logSegment.isEmpty()) {
             logSegments.addFirst(logSegment);
@@ -206,10 +229,34 @@ public class LogLocation {
     return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
   }
 
+  /**
+   * Read the given number of events of an indexed segment, starting from the current position.
+   */
+  private List<LogEvent> readSegment(DataFileReader<GenericRecord> dataFileReader,
+                                     LoggingEventDatumReader datumReader, int eventCount,
+                                     Filter logFilter, long fromTimeMs) throws IOException {
+    List<LogEvent> logSegment = new ArrayList<>();
+    for (int i = 0; i < eventCount && dataFileReader.hasNext(); i++) {
+      GenericRecord record = dataFileReader.next();
+
+      // Stop when reached fromTimeMs
+      if (datumReader.getTimestamp() > fromTimeMs) {
+        break;
+      }
+
+      LogEvent logEvent = toLogEvent(record, logFilter);
+      if (logEvent != null) {
+        logSegment.add(logEvent);
+      }
+    }
+    return logSegment;
+  }
+
   /**
    *  Read current block in Avro file from current block sync marker to next block sync marker
    */
-  private List<LogEvent> readToEndSyncPosition(DataFileReader<GenericRecord> dataFileReader, Filter logFilter,
+  private List<LogEvent> readToEndSyncPosition(DataFileReader<GenericRecord> dataFileReader,
+                                               LoggingEventDatumReader datumReader, Filter logFilter,
                                                long fromTimeMs, long endSyncPosition) throws IOException {
 
     List<LogEvent> logSegment = new ArrayList<>();
@@ -217,17 +264,16 @@ public class LogLocation {
     // Read up to the end if endSyncPosition is not known (in case of an open file)
     // or read until endSyncPosition has been reached
     while (dataFileReader.hasNext() && (endSyncPosition == -1 || (currentSyncPosition < endSyncPosition))) {
-      ILoggingEvent loggingEvent = new LoggingEvent(dataFileReader.next());
-      loggingEvent.prepareForDeferredProcessing();
+      GenericRecord record = dataFileReader.next();
 
       // Stop when reached fromTimeMs
-      if (loggingEvent.getTimeStamp() > fromTimeMs) {
+      if (datumReader.getTimestamp() > fromTimeMs) {
         break;
       }
 
-      if (logFilter.match(loggingEvent)) {
-        logSegment.add(new LogEvent(loggingEvent,
-                                    new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp())));
+      LogEvent logEvent = toLogEvent(record, logFilter);
+      if (logEvent != null) {
+        logSegment.add(logEvent);
       }
       currentSyncPosition = dataFileReader.previousSync();
     }
@@ -235,6 +281,26 @@ public class LogLocation {
     return logSegment;
   }
 
+  /**
+   * Creates a {@link LogEvent} from the given record if it matches the filter.
+   *
+   * @param record the record read by {@link LoggingEventDatumReader}, which is {@code null} if the record
+   *               was already filtered out by the reader
+   * @return the log event, or {@code null} if the record doesn't match the filter
+   */
+  @Nullable
+  private LogEvent toLogEvent(@Nullable GenericRecord record, Filter logFilter) {
+    if (record == null) {
+      return null;
+    }
+    ILoggingEvent loggingEvent = new LoggingEvent(record);
+    if (!logFilter.match(loggingEvent)) {
+      return null;
+    }
+    loggingEvent.prepareForDeferredProcessing();
+    return new LogEvent(loggingEvent, new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp()));
+  }
+
   /**
    * Starting from currentSyncPosition, move backwards by skipLen number of positions in each iteration to
    * find out a sync position less than currentSyncPosition
@@ -258,11 +324,9 @@ public class LogLocation {
     private final long toTimeMs;
     private final long maxEvents;
 
+    private final LoggingEventDatumReader datumReader;
     private DataFileReader<GenericRecord> dataFileReader;
 
-    private ILoggingEvent loggingEvent;
-    private GenericRecord datum;
-
     private int count = 0;
     private long prevTimestamp = -1;
 
@@ -273,18 +337,32 @@ public class LogLocation {
       this.fromTimeMs = fromTimeMs;
       this.toTimeMs = toTimeMs;
       this.maxEvents = maxEvents;
+      this.datumReader = new LoggingEventDatumReader(logFilter);
 
       try {
-        dataFileReader = createReader();
-        if (dataFileReader.hasNext()) {
-          datum = dataFileReader.next();
-          loggingEvent = new LoggingEvent(datum);
-          loggingEvent.prepareForDeferredProcessing();
+        LogFileIndex index = readIndex();
+        dataFileReader = createReader(datumReader);
+        if (index != null) {
+          // Seek to the first segment that has events at or after fromTimeMs
+          LogFileIndex.Entry entry = null;
+          for (LogFileIndex.Entry e : index.getEntries()) {
+            if (e.getMaxTimestamp() >= fromTimeMs) {
+              entry = e;
+              break;
+            }
+          }
+          if (entry == null) {
+            return;
+          }
+          dataFileReader.seek(entry.getPosition());
+          LOG.trace("Seek to indexed pos {}", entry.getPosition());
+        } else if (dataFileReader.hasNext()) {
+          dataFileReader.next();
 
           long prevPrevSyncPos = 0;
           long prevSyncPos = 0;
           // Seek to time fromTimeMs
-          while (loggingEvent.getTimeStamp() < fromTimeMs && dataFileReader.hasNext()) {
+          while (datumReader.getTimestamp() < fromTimeMs && dataFileReader.hasNext()) {
             // Seek to the next sync point
             long curPos = dataFileReader.tell();
             prevPrevSyncPos = prevSyncPos;
@@ -292,8 +370,7 @@ public class LogLocation {
             LOG.trace("Syncing to pos {}", curPos);
             dataFileReader.sync(curPos);
             if (dataFileReader.hasNext()) {
-              loggingEvent = new LoggingEvent(dataFileReader.next(datum));
-              loggingEvent.prepareForDeferredProcessing();
+              dataFileReader.next();
             }
           }
 
@@ -316,19 +393,18 @@ public class LogLocation {
       try {
         // read events from file
         while (next == null && dataFileReader.hasNext()) {
-          loggingEvent = new LoggingEvent(dataFileReader.next(datum));
-          loggingEvent.prepareForDeferredProcessing();
+          GenericRecord record = dataFileReader.next();
+          long timestamp = datumReader.getTimestamp();
 
-          if (loggingEvent.getTimeStamp() >= fromTimeMs && logFilter.match(loggingEvent)) {
+          LogEvent logEvent = timestamp >= fromTimeMs ? toLogEvent(record, logFilter) : null;
+          if (logEvent != null) {
             ++count;
-            if ((count > maxEvents || loggingEvent.getTimeStamp() >= toTimeMs)
-              && loggingEvent.getTimeStamp() != prevTimestamp) {
+            if ((count > maxEvents || timestamp >= toTimeMs) && timestamp != prevTimestamp) {
               break;
             }
-            next = new LogEvent(loggingEvent,
-                                new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp()));
+            next = logEvent;
           }
-          prevTimestamp = loggingEvent.getTimeStamp();
+          prevTimestamp = timestamp;
         }
       } catch (Exception e) {
         // We want to ignore invalid or missing log files.
@@ -371,10 +447,28 @@ public class LogLocation {
     }
   }
 
-  private DataFileReader<GenericRecord> createReader() throws IOException {
+  /**
+   * Reads the {@link LogFileIndex} of the log file. Only log files of {@link #VERSION_1} are indexed.
+   *
+   * @return the index, or {@code null} if the log file has no index or failed to read it
+   */
+  @Nullable
+  private LogFileIndex readIndex() {
+    if (!VERSION_1.equals(frameworkVersion)) {
+      return null;
+    }
+    try {
+      return LogFileIndex.read(location);
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Failed to read index of log file {}, reading without index", location, e);
+      return null;
+    }
+  }
+
+  private DataFileReader<GenericRecord> createReader(LoggingEventDatumReader datumReader) throws IOException {
     boolean shouldImpersonate = this.getFrameworkVersion().equals(VERSION_0);
     return new DataFileReader<>(new LocationSeekableInput(location, namespaceId, impersonator, shouldImpersonate),
-                                new GenericDatumReader<GenericRecord>(LogSchema.LoggingEvent.SCHEMA));
+                                datumReader);
   }
 
   /**
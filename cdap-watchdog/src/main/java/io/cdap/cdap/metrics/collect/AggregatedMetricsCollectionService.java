@@ -33,9 +33,14 @@ import io.cdap.cdap.common.conf.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -177,15 +182,27 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
     final Iterator<Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>> iterator =
       emitters.asMap().entrySet().iterator();
     return new AbstractIterator<MetricValues>() {
+      // distribution bucket counts of the last context, which are emitted with the bucket as an extra tag
+      private final Deque<MetricValues> distributions = new ArrayDeque<>();
+
       @Override
       protected MetricValues computeNext() {
+        if (!distributions.isEmpty()) {
+          return distributions.poll();
+        }
         while (iterator.hasNext()) {
           Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>> entry = iterator.next();
           Map<String, AggregatedMetricsEmitter> metricEmitters = entry.getValue().asMap();
           // +1 because we add extra metric about how many metric values did we emit in this context (see below)
           List<MetricValue> metricValues = Lists.newArrayListWithCapacity(metricEmitters.size() + 1);
+          // bucket -> bucket counts of all distribution metrics
+          Map<Integer, List<MetricValue>> bucketValues = new TreeMap<>();
           for (Map.Entry<String, AggregatedMetricsEmitter> emitterEntry : metricEmitters.entrySet()) {
             MetricValue metricValue = emitterEntry.getValue().emit();
+            for (Map.Entry<Integer, Long> bucket : emitterEntry.getValue().emitDistribution().entrySet()) {
+              bucketValues.computeIfAbsent(bucket.getKey(), k -> new ArrayList<>())
+                .add(new MetricValue(emitterEntry.getKey(), MetricType.COUNTER, bucket.getValue()));
+            }
             // skip increment by 0
             if (metricValue.getType() == MetricType.COUNTER && metricValue.getValue() == 0) {
               continue;
@@ -193,8 +210,17 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
             metricValues.add(metricValue);
           }
 
+          for (Map.Entry<Integer, List<MetricValue>> bucket : bucketValues.entrySet()) {
+            Map<String, String> tags = new HashMap<>(entry.getKey());
+            tags.put(Constants.Metrics.Tag.BUCKET, Integer.toString(bucket.getKey()));
+            distributions.add(new MetricValues(tags, timestamp, bucket.getValue()));
+          }
+
           if (metricValues.isEmpty()) {
             // skip if there are no metric values to send
+            if (!distributions.isEmpty()) {
+              return distributions.poll();
+            }
             continue;
           }
 
@@ -236,6 +262,15 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       emitters.getUnchecked(tags).getUnchecked(metricName).gauge(value);
     }
 
+    /**
+     * Adds the value to the distribution of the metric. Each bucket of the distribution is emitted as a
+     * {@link MetricType#COUNTER} value, in a {@link MetricValues} that has the bucket as an extra tag.
+     */
+    @Override
+    public void distribution(String metricName, long value) {
+      emitters.getUnchecked(tags).getUnchecked(metricName).distribution(value);
+    }
+
     @Override
     public MetricsContext childContext(String tagName, String tagValue) {
       ImmutableMap<String, String> allTags = ImmutableMap.<String, String>builder()
@@ -15,17 +15,22 @@
  */
 package io.cdap.cdap.metrics.collect;
 
+import io.cdap.cdap.api.metrics.MetricDistribution;
 import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * {@link MetricsEmitter} that aggregates  values for a metric
  * during collection and emit the aggregated value when emit.
+ * Values added to the distribution of the metric are aggregated separately in a {@link MetricDistribution}.
  */
 final class AggregatedMetricsEmitter implements MetricsEmitter {
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsEmitter.class);
@@ -35,6 +40,8 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   private final AtomicLong value;
   // specifies if the metric type is gauge or counter
   private final AtomicBoolean gaugeUsed;
+  // distribution of the metric, only created if there is value added to the distribution
+  private final AtomicReference<MetricDistribution> distribution;
 
   AggregatedMetricsEmitter(String name) {
     if (name == null || name.isEmpty()) {
@@ -44,6 +51,7 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     this.name = name;
     this.value = new AtomicLong();
     this.gaugeUsed = new AtomicBoolean(false);
+    this.distribution = new AtomicReference<>();
   }
 
   void increment(long value) {
@@ -51,6 +59,15 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   }
 
 
+  void distribution(long value) {
+    MetricDistribution distribution = this.distribution.get();
+    if (distribution == null) {
+      this.distribution.compareAndSet(null, new MetricDistribution());
+      distribution = this.distribution.get();
+    }
+    distribution.add(value);
+  }
+
   @Override
   public MetricValue emit() {
     // todo CDAP-2195 - potential race condition , reseting value and type has to be done together
@@ -59,6 +76,16 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     return new MetricValue(name, type, value);
   }
 
+  /**
+   * Returns the counts of the non-empty buckets of the distribution of the metric and resets them.
+   *
+   * @return a map from bucket to count
+   */
+  Map<Integer, Long> emitDistribution() {
+    MetricDistribution distribution = this.distribution.get();
+    return distribution == null ? Collections.emptyMap() : distribution.drain();
+  }
+
   public void gauge(long value) {
     this.value.set(value);
     this.gaugeUsed.set(true);
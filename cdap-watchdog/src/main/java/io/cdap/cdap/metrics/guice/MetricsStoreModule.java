@@ -32,7 +32,8 @@ public final class MetricsStoreModule extends AbstractModule {
   @Override
   protected void configure() {
     bind(MetricDatasetFactory.class).to(DefaultMetricDatasetFactory.class).in(Scopes.SINGLETON);
-    bind(MetricStore.class).to(DefaultMetricStore.class);
+    // Singleton, so that facts added through the store invalidate the query cache used by all readers in the process
+    bind(MetricStore.class).to(DefaultMetricStore.class).in(Scopes.SINGLETON);
     bind(MetricsCleanUpService.class).in(Scopes.SINGLETON);
   }
 }
@@ -26,6 +26,7 @@ import io.cdap.cdap.api.metrics.MetricsWriter;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.conf.Constants.Metrics;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
 import io.cdap.cdap.internal.io.DatumReaderFactory;
 import io.cdap.cdap.internal.io.SchemaGenerator;
 import io.cdap.cdap.messaging.MessagingService;
@@ -61,7 +62,7 @@ public class MessagingMetricsProcessorManagerService extends AbstractIdleService
                                           MetricDatasetFactory metricDatasetFactory,
                                           MessagingService messagingService,
                                           SchemaGenerator schemaGenerator,
-                                          DatumReaderFactory readerFactory,
+                                          ASMDatumReaderFactory readerFactory,
                                           MetricStore metricStore,
                                           MetricsWriterProvider metricsWriterProvider,
                                           @Assisted Set<Integer> topicNumbers,
@@ -19,12 +19,15 @@ package io.cdap.cdap.metrics.query;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicates;
+import com.google.common.base.Splitter;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
@@ -32,6 +35,7 @@ import io.cdap.cdap.api.dataset.lib.cube.Interpolator;
 import io.cdap.cdap.api.dataset.lib.cube.Interpolators;
 import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
 import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricDistribution;
 import io.cdap.cdap.api.metrics.MetricSearchQuery;
 import io.cdap.cdap.api.metrics.MetricStore;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
@@ -49,6 +53,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -72,6 +77,7 @@ public class MetricsQueryHelper {
   private static final String PARAM_MAX_INTERPOLATE_GAP = "maxInterpolateGap";
   private static final String PARAM_AGGREGATE = "aggregate";
   private static final String PARAM_AUTO_RESOLUTION = "auto";
+  private static final String PARAM_PERCENTILES = "percentiles";
   private static final String ANY_TAG_VALUE = "*";
 
   private final MetricStore metricStore;
@@ -149,7 +155,8 @@ public class MetricsQueryHelper {
     Map<String, MetricQueryResult> queryFinalResponse = Maps.newHashMap();
     for (Map.Entry<String, QueryRequestFormat> query : queries.entrySet()) {
       MetricQueryRequest queryRequest = getQueryRequestFromFormat(query.getValue());
-      queryFinalResponse.put(query.getKey(), executeQuery(queryRequest));
+      List<Double> percentiles = parsePercentiles(query.getValue().getTimeRange().get(PARAM_PERCENTILES));
+      queryFinalResponse.put(query.getKey(), executeQuery(queryRequest, percentiles));
     }
     return queryFinalResponse;
   }
@@ -158,7 +165,8 @@ public class MetricsQueryHelper {
                                            Map<String, List<String>> queryTimeParams) throws Exception {
     MetricQueryRequest queryRequest = new MetricQueryRequest(parseTagValuesAsMap(tags), metrics, groupByTags);
     setTimeRangeInQueryRequest(queryRequest, queryTimeParams);
-    return executeQuery(queryRequest);
+    List<String> percentiles = queryTimeParams.get(PARAM_PERCENTILES);
+    return executeQuery(queryRequest, parsePercentiles(percentiles == null ? null : percentiles.get(0)));
   }
 
   @VisibleForTesting
@@ -352,7 +360,31 @@ public class MetricsQueryHelper {
     return null;
   }
 
-  private MetricQueryResult executeQuery(MetricQueryRequest queryRequest) throws Exception {
+  /**
+   * Parses the comma separated list of percentiles to compute for distribution metrics.
+   */
+  private List<Double> parsePercentiles(@Nullable String percentiles) {
+    if (percentiles == null || percentiles.trim().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Double> result = Lists.newArrayList();
+    for (String percentile : Splitter.on(',').trimResults().omitEmptyStrings().split(percentiles)) {
+      double value;
+      try {
+        value = Double.parseDouble(percentile);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid percentile '" + percentile + "'");
+      }
+      if (value < 0 || value > 100) {
+        throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+      }
+      result.add(value);
+    }
+    return result;
+  }
+
+  private MetricQueryResult executeQuery(MetricQueryRequest queryRequest,
+                                         List<Double> percentiles) throws Exception {
     if (queryRequest.getMetrics().size() == 0) {
       throw new IllegalArgumentException("Missing metrics parameter in the query");
     }
@@ -365,13 +397,25 @@ public class MetricsQueryHelper {
 
     Map<String, String> tagsSliceBy = humanToTagNames(transformTagMap(queryRequest.getTags()));
 
+    List<String> groupBy = transformGroupByTags(queryRequest.getGroupBy());
     MetricDataQuery query = new MetricDataQuery(timeRange.getStart(), timeRange.getEnd(),
                                                 timeRange.getResolutionInSeconds(),
                                                 timeRange.getCount(), toMetrics(queryRequest.getMetrics()),
-                                                tagsSliceBy, transformGroupByTags(queryRequest.getGroupBy()),
-                                                aggregation, timeRange.getInterpolate());
+                                                tagsSliceBy, groupBy, aggregation, timeRange.getInterpolate());
     Collection<MetricTimeSeries> queryResult = metricStore.query(query);
 
+    if (!percentiles.isEmpty()) {
+      // Query the bucket counts of the distribution metrics in the same time range, grouped by the bucket tag
+      List<String> bucketGroupBy = Lists.newArrayList(groupBy);
+      bucketGroupBy.add(Constants.Metrics.Tag.BUCKET);
+      MetricDataQuery bucketQuery = new MetricDataQuery(timeRange.getStart(), timeRange.getEnd(),
+                                                        timeRange.getResolutionInSeconds(),
+                                                        timeRange.getCount(), toMetrics(queryRequest.getMetrics()),
+                                                        tagsSliceBy, bucketGroupBy, aggregation, null);
+      queryResult = Lists.newArrayList(queryResult);
+      queryResult.addAll(toPercentiles(metricStore.query(bucketQuery), percentiles));
+    }
+
     long endTime = timeRange.getEnd();
     if (timeRange.getResolutionInSeconds() == Integer.MAX_VALUE && endTime == 0) {
       // for aggregate query, we set the end time to be query time (current time)
@@ -432,6 +476,57 @@ public class MetricsQueryHelper {
     return result;
   }
 
+  /**
+   * Computes the time series of the given percentiles from the time series of the bucket counts of distribution
+   * metrics, which are grouped by the bucket tag. The percentiles are computed from the bucket counts of each
+   * timestamp. The percentile time series are named as the distribution metric followed by the percentile,
+   * e.g. {@code system.request.latency.p99}.
+   */
+  private Collection<MetricTimeSeries> toPercentiles(Collection<MetricTimeSeries> bucketSeries,
+                                                     List<Double> percentiles) {
+    List<MetricTimeSeries> result = Lists.newArrayList();
+    // {distribution metric, tags without the bucket} -> {time -> {bucket -> count}}
+    Table<String, Map<String, String>, NavigableMap<Long, NavigableMap<Integer, Long>>> distributions =
+      HashBasedTable.create();
+
+    for (MetricTimeSeries timeSeries : bucketSeries) {
+      Map<String, String> tags = Maps.newHashMap(timeSeries.getTagValues());
+      String bucketTag = tags.remove(Constants.Metrics.Tag.BUCKET);
+      if (bucketTag == null) {
+        continue;
+      }
+      int bucket = Integer.parseInt(bucketTag);
+      String metric = timeSeries.getMetricName();
+      NavigableMap<Long, NavigableMap<Integer, Long>> buckets = distributions.get(metric, tags);
+      if (buckets == null) {
+        buckets = Maps.newTreeMap();
+        distributions.put(metric, tags, buckets);
+      }
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        NavigableMap<Integer, Long> counts = buckets.get(timeValue.getTimestamp());
+        if (counts == null) {
+          counts = Maps.newTreeMap();
+          buckets.put(timeValue.getTimestamp(), counts);
+        }
+        counts.merge(bucket, timeValue.getValue(), Long::sum);
+      }
+    }
+
+    for (Table.Cell<String, Map<String, String>, NavigableMap<Long, NavigableMap<Integer, Long>>> cell
+      : distributions.cellSet()) {
+      for (double percentile : percentiles) {
+        List<TimeValue> timeValues = Lists.newArrayList();
+        for (Map.Entry<Long, NavigableMap<Integer, Long>> entry : cell.getValue().entrySet()) {
+          timeValues.add(new TimeValue(entry.getKey(), MetricDistribution.getPercentile(entry.getValue(), percentile)));
+        }
+        String suffix = percentile == Math.rint(percentile) ? Long.toString((long) percentile)
+          : Double.toString(percentile);
+        result.add(new MetricTimeSeries(cell.getRowKey() + ".p" + suffix, cell.getColumnKey(), timeValues));
+      }
+    }
+    return result;
+  }
+
   private MetricQueryResult decorate(Collection<MetricTimeSeries> series, long startTs, long endTs,
                                      int resolution) {
     MetricQueryResult.TimeSeries[] serieses = new MetricQueryResult.TimeSeries[series.size()];
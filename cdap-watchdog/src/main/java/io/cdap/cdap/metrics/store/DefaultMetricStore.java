@@ -63,8 +63,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -85,10 +87,12 @@ public class DefaultMetricStore implements MetricStore {
   private static final String BY_DATASET = "dataset";
   private static final String BY_PROFILE = "profile";
   private static final String BY_COMPONENT = "component";
+  private static final String DISTRIBUTION_SUFFIX = ".distribution";
+  private static final AggregationAlias WORKFLOW_ALIAS =
+    new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID, Constants.Metrics.Tag.WORKFLOW_RUN_ID));
   private static final Map<String, AggregationAlias> AGGREGATIONS_ALIAS_DIMENSIONS =
-    ImmutableMap.of(BY_WORKFLOW,
-                    new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID,
-                                                         Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
+    ImmutableMap.of(BY_WORKFLOW, WORKFLOW_ALIAS,
+                    BY_WORKFLOW + DISTRIBUTION_SUFFIX, WORKFLOW_ALIAS);
 
   private final Supplier<Cube> cube;
   private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
@@ -194,6 +198,19 @@ public class DefaultMetricStore implements MetricStore {
       // i.e. for components only
       ImmutableList.of(Constants.Metrics.Tag.NAMESPACE, Constants.Metrics.Tag.COMPONENT)));
 
+    // Distributions:
+    // The bucket counts of distribution metrics are emitted with the bucket as an extra tag. Each aggregation has a
+    // distribution counterpart that keeps the bucket, so that percentiles can be computed at any level. The regular
+    // aggregations drop the bucket tag, hence they store the total number of values added to a distribution.
+    for (Map.Entry<String, Aggregation> entry : new ArrayList<>(aggs.entrySet())) {
+      DefaultAggregation agg = (DefaultAggregation) entry.getValue();
+      List<String> dimensions = new ArrayList<>(agg.getDimensionNames());
+      dimensions.add(Constants.Metrics.Tag.BUCKET);
+      Set<String> required = new HashSet<>(agg.getRequiredDimensions());
+      required.add(Constants.Metrics.Tag.BUCKET);
+      aggs.put(entry.getKey() + DISTRIBUTION_SUFFIX, new DefaultAggregation(dimensions, required));
+    }
+
     AGGREGATIONS = Collections.unmodifiableMap(aggs);
   }
 
@@ -218,10 +235,16 @@ public class DefaultMetricStore implements MetricStore {
       // TODO: remove roll time from the supplier api, https://issues.cask.co/browse/CDAP-14730
       return dsFactory.getOrCreateFactTable(resolution);
     };
+    int scanParallelism = cConf.getInt(Constants.Metrics.QUERY_SCAN_PARALLELISM);
+    int queryCacheSize = cConf.getInt(Constants.Metrics.QUERY_CACHE_SIZE);
+    long queryCacheDelaySeconds = cConf.getLong(Constants.Metrics.QUERY_CACHE_COMPLETION_DELAY_SECONDS);
+    long queryCacheExpireSeconds = cConf.getLong(Constants.Metrics.QUERY_CACHE_EXPIRE_SECONDS);
     this.cube = Suppliers.memoize(new Supplier<Cube>() {
       @Override
       public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS,
+                                           scanParallelism, queryCacheSize, queryCacheDelaySeconds,
+                                           queryCacheExpireSeconds);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
@@ -255,7 +278,8 @@ public class DefaultMetricStore implements MetricStore {
       // todo improve this logic?
       for (MetricValue metric : metricValue.getMetrics()) {
         String measureName = (scope == null ? "system." : scope + ".") + metric.getName();
-        MeasureType type = metric.getType() == MetricType.COUNTER ? MeasureType.COUNTER : MeasureType.GAUGE;
+        // Each value of a distribution metric is the count of a bucket, which is stored as a counter
+        MeasureType type = metric.getType() == MetricType.GAUGE ? MeasureType.GAUGE : MeasureType.COUNTER;
         metrics.add(new Measurement(measureName, type, metric.getValue()));
       }
 
@@ -328,6 +352,10 @@ public class DefaultMetricStore implements MetricStore {
     Collection<DimensionValue> tags = cube.get().findDimensionValues(buildCubeSearchQuery(query));
     Collection<TagValue> result = Lists.newArrayList();
     for (DimensionValue dimensionValue : tags) {
+      // The bucket tag of distribution metrics is internal
+      if (Constants.Metrics.Tag.BUCKET.equals(dimensionValue.getName())) {
+        continue;
+      }
       result.add(new TagValue(dimensionValue.getName(), dimensionValue.getValue()));
     }
     return result;
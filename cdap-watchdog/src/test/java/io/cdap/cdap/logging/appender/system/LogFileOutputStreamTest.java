@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.write.LogFileIndex;
+import io.cdap.cdap.logging.write.LogLocation;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for {@link LogFileOutputStream} and reading of the {@link LogFileIndex} it writes.
+ */
+public class LogFileOutputStreamTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testIndex() throws Exception {
+    Location location = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("1000.avro");
+    Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+
+    // Write 100 events with timestamps 1000 to 1099, with a flush after every 10 events
+    try (LogFileOutputStream outputStream = new LogFileOutputStream(location, "", 1024 * 1024, 1000L, () -> { })) {
+      for (int i = 0; i < 100; i++) {
+        LoggingEvent event = new LoggingEvent("io.cdap.Test", logger, i % 2 == 0 ? Level.INFO : Level.WARN,
+                                              "message " + i, null, null);
+        event.setTimeStamp(1000L + i);
+        outputStream.append(event);
+        if (i % 10 == 9) {
+          outputStream.flush();
+        }
+      }
+    }
+
+    LogFileIndex index = LogFileIndex.read(location);
+    Assert.assertNotNull(index);
+    Assert.assertEquals(10, index.getEntries().size());
+    for (int i = 0; i < 10; i++) {
+      LogFileIndex.Entry entry = index.getEntries().get(i);
+      Assert.assertEquals(10, entry.getEventCount());
+      Assert.assertEquals(1000L + i * 10, entry.getMinTimestamp());
+      Assert.assertEquals(1009L + i * 10, entry.getMaxTimestamp());
+      Assert.assertEquals(LogFileIndex.getLevelMask(Level.INFO) | LogFileIndex.getLevelMask(Level.WARN),
+                          entry.getLevelMask());
+    }
+
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, 1000L, 1000L, location, "default", null);
+    List<Long> expectedNext = timestamps(1055, 1075);
+    List<Long> expectedPrev = timestamps(1036, 1056);
+    Assert.assertEquals(expectedNext, readNext(logLocation, 1055, 1075));
+    Assert.assertEquals(expectedPrev, readPrev(logLocation, 1055, 20));
+    Assert.assertTrue(readNext(logLocation, 1100, 1200).isEmpty());
+    Assert.assertTrue(readPrev(logLocation, 999, 20).isEmpty());
+
+    // Reading without the index should give the same result
+    Assert.assertTrue(LogFileIndex.getIndexLocation(location).delete());
+    Assert.assertNull(LogFileIndex.read(location));
+    Assert.assertEquals(expectedNext, readNext(logLocation, 1055, 1075));
+    Assert.assertEquals(expectedPrev, readPrev(logLocation, 1055, 20));
+  }
+
+  @Test
+  public void testNoIndexOnFailure() throws Exception {
+    Location delegate = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("1000.avro");
+    AtomicBoolean failWrite = new AtomicBoolean();
+    AtomicBoolean streamClosed = new AtomicBoolean();
+    AtomicBoolean closeableCalled = new AtomicBoolean();
+
+    // A location that gives an output stream that can be made to fail on write
+    Location location = (Location) Proxy.newProxyInstance(
+      getClass().getClassLoader(), new Class<?>[] { Location.class }, (proxy, method, args) -> {
+        Object result = method.invoke(delegate, args);
+        if (!(result instanceof OutputStream)) {
+          return result;
+        }
+        return new FilterOutputStream((OutputStream) result) {
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            if (failWrite.get()) {
+              throw new IOException("Write failure");
+            }
+            out.write(b, off, len);
+          }
+
+          @Override
+          public void close() throws IOException {
+            streamClosed.set(true);
+            out.close();
+          }
+        };
+      });
+
+    Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    LogFileOutputStream outputStream = new LogFileOutputStream(location, "", 1024 * 1024, 1000L,
+                                                               () -> closeableCalled.set(true));
+    LoggingEvent event = new LoggingEvent("io.cdap.Test", logger, Level.INFO, "message", null, null);
+    event.setTimeStamp(1000L);
+    outputStream.append(event);
+
+    // Flushing the last block fails, which should still close the file, but without writing the index
+    failWrite.set(true);
+    try {
+      outputStream.close();
+      Assert.fail("Expected close to fail");
+    } catch (IOException e) {
+      // Expected
+    }
+    Assert.assertTrue(streamClosed.get());
+    Assert.assertTrue(closeableCalled.get());
+    Assert.assertFalse(LogFileIndex.getIndexLocation(delegate).exists());
+  }
+
+  private List<Long> readNext(LogLocation logLocation, long fromTimeMs, long toTimeMs) {
+    List<Long> result = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator =
+           logLocation.readLog(Filter.EMPTY_FILTER, fromTimeMs, toTimeMs, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        result.add(iterator.next().getLoggingEvent().getTimeStamp());
+      }
+    }
+    return result;
+  }
+
+  private List<Long> readPrev(LogLocation logLocation, long fromTimeMs, int maxEvents) throws Exception {
+    List<Long> result = new ArrayList<>();
+    Collection<LogEvent> events = logLocation.readLogPrev(Filter.EMPTY_FILTER, fromTimeMs, maxEvents);
+    for (LogEvent event : events) {
+      result.add(event.getLoggingEvent().getTimeStamp());
+    }
+    return result;
+  }
+
+  private List<Long> timestamps(long start, long end) {
+    List<Long> result = new ArrayList<>();
+    for (long ts = start; ts < end; ts++) {
+      result.add(ts);
+    }
+    return result;
+  }
+}
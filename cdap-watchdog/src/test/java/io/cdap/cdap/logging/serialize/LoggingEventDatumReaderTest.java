@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.serialize;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.logging.filter.AndFilter;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.filter.LogLevelExpression;
+import io.cdap.cdap.logging.filter.MdcExpression;
+import io.cdap.cdap.logging.filter.OrFilter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link LoggingEventDatumReader}.
+ */
+public class LoggingEventDatumReaderTest {
+
+  private static final Level[] LEVELS = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
+  @Test
+  public void testFilter() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    Logger logger = (Logger) LoggerFactory.getLogger(LoggingEventDatumReaderTest.class);
+
+    // Serialize events with different levels and MDC into one buffer
+    List<ILoggingEvent> events = new ArrayList<>();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    for (int i = 0; i < 50; i++) {
+      ch.qos.logback.classic.spi.LoggingEvent event = new ch.qos.logback.classic.spi.LoggingEvent(
+        getClass().getName(), logger, LEVELS[i % LEVELS.length], "message " + i, null, null);
+      event.setTimeStamp(i);
+      Map<String, String> mdc = new HashMap<>();
+      mdc.put("program", "program" + (i % 3));
+      mdc.put("run", i % 4 == 0 ? null : "run" + i);
+      if (i % 7 == 0) {
+        mdc.put(null, "null-key");
+      }
+      event.setMDCPropertyMap(mdc);
+      events.add(event);
+      os.write(serializer.toBytes(event));
+    }
+    byte[] bytes = os.toByteArray();
+
+    List<Filter> filters = ImmutableList.of(
+      Filter.EMPTY_FILTER,
+      new LogLevelExpression("WARN"),
+      new MdcExpression("program", "program1"),
+      new MdcExpression("run", "run5"),
+      new MdcExpression("missing", "value"),
+      new AndFilter(ImmutableList.<Filter>of(new LogLevelExpression("INFO"), new MdcExpression("program", "program2"))),
+      new OrFilter(ImmutableList.<Filter>of(new LogLevelExpression("ERROR"), new MdcExpression("program", "program0"))),
+      // Filter that cannot be evaluated on serialized events
+      new AndFilter(ImmutableList.<Filter>of(new LogLevelExpression("INFO"),
+                                             event -> event.getMessage().endsWith("1"))));
+
+    for (int f = 0; f < filters.size(); f++) {
+      Filter filter = filters.get(f);
+      List<Long> expected = new ArrayList<>();
+      for (ILoggingEvent event : events) {
+        if (filter.match(event)) {
+          expected.add(event.getTimeStamp());
+        }
+      }
+
+      LoggingEventDatumReader reader = new LoggingEventDatumReader(filter);
+      reader.setSchema(LogSchema.LoggingEvent.SCHEMA);
+      BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(bytes, null);
+      List<Long> actual = new ArrayList<>();
+      int decoded = 0;
+      for (int i = 0; i < events.size(); i++) {
+        GenericRecord record = reader.read(null, decoder);
+        Assert.assertEquals(i, reader.getTimestamp());
+        if (record == null) {
+          continue;
+        }
+        decoded++;
+        LoggingEvent event = new LoggingEvent(record);
+        Assert.assertEquals(events.get(i).getFormattedMessage(), event.getFormattedMessage());
+        Assert.assertEquals(events.get(i).getMDCPropertyMap(), event.getMDCPropertyMap());
+        if (filter.match(event)) {
+          actual.add(event.getTimeStamp());
+        }
+      }
+      Assert.assertTrue(decoder.isEnd());
+      Assert.assertEquals(filter.toString(), expected, actual);
+      // Except for the empty filter and the last filter, only matching events should be decoded
+      if (f > 0 && f < filters.size() - 1) {
+        Assert.assertEquals(filter.toString(), expected.size(), decoded);
+      } else {
+        Assert.assertEquals(filter.toString(), events.size(), decoded);
+      }
+    }
+  }
+}
@@ -17,6 +17,8 @@ package io.cdap.cdap.metrics.collect;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import io.cdap.cdap.api.metrics.MetricDistribution;
+import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsContext;
@@ -49,6 +51,53 @@ public class AggregatedMetricsCollectionServiceTest {
   private static final String METRIC = "metric";
   private static final String GAUGE_METRIC = "gaugeMetric";
 
+  @Test
+  public void testDistribution() throws InterruptedException {
+    BlockingQueue<MetricValues> published = new LinkedBlockingQueue<>();
+
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+
+    service.startAndWait();
+    try {
+      MetricsContext context = service.getContext(EMPTY_TAGS);
+      for (int i = 0; i < 10; i++) {
+        context.distribution(METRIC, 5L);
+      }
+      context.distribution(METRIC, 1000L);
+
+      // Values are emitted as counters of the distribution buckets, with the bucket as a tag
+      Map<String, Long> expected = new HashMap<>();
+      expected.put(Integer.toString(MetricDistribution.getBucket(5L)), 10L);
+      expected.put(Integer.toString(MetricDistribution.getBucket(1000L)), 1L);
+
+      Map<String, Long> received = new HashMap<>();
+      long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (timeout > System.currentTimeMillis() && !expected.equals(received)) {
+        MetricValues metricValues = published.poll(100, TimeUnit.MILLISECONDS);
+        if (metricValues == null) {
+          continue;
+        }
+        String bucket = metricValues.getTags().get(Constants.Metrics.Tag.BUCKET);
+        if (bucket == null) {
+          continue;
+        }
+        for (MetricValue metricValue : metricValues.getMetrics()) {
+          Assert.assertEquals(METRIC, metricValue.getName());
+          Assert.assertEquals(MetricType.COUNTER, metricValue.getType());
+          received.merge(bucket, metricValue.getValue(), Long::sum);
+        }
+      }
+      Assert.assertEquals(expected, received);
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
   private Long getMetricValue(Collection<MetricValue> metrics, String metricName) {
     for (MetricValue metricValue : metrics) {
       if (metricValue.getName().equals(metricName)) {
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.collect;
+
+import io.cdap.cdap.api.metrics.MetricDistribution;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Unit tests for {@link MetricDistribution}.
+ */
+public class MetricDistributionTest {
+
+  @Test
+  public void testBuckets() {
+    // Small values have their own bucket
+    for (long i = 0; i < 8; i++) {
+      Assert.assertEquals(i, MetricDistribution.getBucketValue(MetricDistribution.getBucket(i)));
+    }
+    Assert.assertEquals(0, MetricDistribution.getBucket(-10L));
+
+    // Buckets are increasing and the bucket value is within 6.25% of the actual value
+    int lastBucket = 0;
+    for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+      int bucket = MetricDistribution.getBucket(value);
+      Assert.assertTrue(bucket >= lastBucket);
+      lastBucket = bucket;
+
+      long bucketValue = MetricDistribution.getBucketValue(bucket);
+      Assert.assertTrue("Value " + value + " bucket value " + bucketValue,
+                        Math.abs(bucketValue - value) <= value / 16);
+    }
+    Assert.assertEquals(MetricDistribution.getBucket(Long.MAX_VALUE),
+                        MetricDistribution.getBucket(Long.MAX_VALUE - 1));
+  }
+
+  @Test
+  public void testPercentile() {
+    MetricDistribution distribution = new MetricDistribution();
+    for (long i = 1; i <= 1000; i++) {
+      distribution.add(i);
+    }
+    Map<Integer, Long> counts = distribution.drain();
+    Assert.assertTrue(distribution.drain().isEmpty());
+
+    long total = 0L;
+    for (long count : counts.values()) {
+      total += count;
+    }
+    Assert.assertEquals(1000L, total);
+
+    TreeMap<Integer, Long> bucketCounts = new TreeMap<>(counts);
+    assertWithinError(500L, MetricDistribution.getPercentile(bucketCounts, 50));
+    assertWithinError(950L, MetricDistribution.getPercentile(bucketCounts, 95));
+    assertWithinError(990L, MetricDistribution.getPercentile(bucketCounts, 99));
+    assertWithinError(1000L, MetricDistribution.getPercentile(bucketCounts, 100));
+    Assert.assertEquals(1L, MetricDistribution.getPercentile(bucketCounts, 0));
+    Assert.assertEquals(0L, MetricDistribution.getPercentile(new TreeMap<>(), 50));
+  }
+
+  private void assertWithinError(long expected, long actual) {
+    Assert.assertTrue("Expected " + expected + " but got " + actual, Math.abs(expected - actual) <= expected / 16);
+  }
+}
@@ -31,7 +31,7 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.data2.datafabric.dataset.service.DatasetService;
 import io.cdap.cdap.data2.datafabric.dataset.service.executor.DatasetOpExecutorService;
-import io.cdap.cdap.internal.io.DatumReaderFactory;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
 import io.cdap.cdap.internal.io.SchemaGenerator;
 import io.cdap.cdap.metrics.process.loader.MetricsWriterProvider;
 import io.cdap.cdap.metrics.store.MetricDatasetFactory;
@@ -82,7 +82,7 @@ public class MetricsProcessorServiceTest extends MetricsProcessorServiceTestBase
     MessagingMetricsProcessorManagerService messagingMetricsProcessorManagerService =
       new MessagingMetricsProcessorManagerService(cConf, injector.getInstance(MetricDatasetFactory.class),
                                                   messagingService, injector.getInstance(SchemaGenerator.class),
-                                                  injector.getInstance(DatumReaderFactory.class),
+                                                  injector.getInstance(ASMDatumReaderFactory.class),
                                                   metricStore, injector.getInstance(MetricsWriterProvider.class),
                                                   partitions, new NoopMetricsContext(), 50, 0);
     messagingMetricsProcessorManagerService.startAndWait();
@@ -101,7 +101,7 @@ public class MetricsProcessorServiceTest extends MetricsProcessorServiceTestBase
     messagingMetricsProcessorManagerService =
       new MessagingMetricsProcessorManagerService(cConf, injector.getInstance(MetricDatasetFactory.class),
                                                   messagingService, injector.getInstance(SchemaGenerator.class),
-                                                  injector.getInstance(DatumReaderFactory.class),
+                                                  injector.getInstance(ASMDatumReaderFactory.class),
                                                   metricStore, injector.getInstance(MetricsWriterProvider.class),
                                                   partitions, new NoopMetricsContext(), 50, 0);
     messagingMetricsProcessorManagerService.startAndWait();